@@ -0,0 +1,71 @@
+package qub;
+
+/**
+ * A java.io.InputStream that reads from a qub ByteReadStream and runs an optional action when it
+ * is closed (such as disposing the HttpResponse that owns the ByteReadStream).
+ */
+public class ByteReadStreamInputStream extends java.io.InputStream
+{
+    private final ByteReadStream byteReadStream;
+    private final Action0 onClose;
+    private volatile boolean closed;
+
+    private ByteReadStreamInputStream(ByteReadStream byteReadStream, Action0 onClose)
+    {
+        PreCondition.assertNotNull(byteReadStream, "byteReadStream");
+        PreCondition.assertNotNull(onClose, "onClose");
+
+        this.byteReadStream = byteReadStream;
+        this.onClose = onClose;
+    }
+
+    public static ByteReadStreamInputStream create(ByteReadStream byteReadStream)
+    {
+        return ByteReadStreamInputStream.create(byteReadStream, () -> {});
+    }
+
+    public static ByteReadStreamInputStream create(ByteReadStream byteReadStream, Action0 onClose)
+    {
+        return new ByteReadStreamInputStream(byteReadStream, onClose);
+    }
+
+    @Override
+    public int read()
+    {
+        final byte[] singleByte = new byte[1];
+        final int bytesRead = this.read(singleByte, 0, 1);
+        return bytesRead <= 0 ? -1 : (singleByte[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] outputBytes, int startIndex, int length)
+    {
+        int result;
+        if (this.closed)
+        {
+            result = -1;
+        }
+        else if (length == 0)
+        {
+            result = 0;
+        }
+        else
+        {
+            final Integer bytesRead = this.byteReadStream.readBytes(outputBytes, startIndex, length)
+                .catchError(EndOfStreamException.class)
+                .await();
+            result = (bytesRead == null || bytesRead <= 0) ? -1 : bytesRead;
+        }
+        return result;
+    }
+
+    @Override
+    public void close()
+    {
+        if (!this.closed)
+        {
+            this.closed = true;
+            this.onClose.run();
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package qub;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A TreasuryDirect decorator that serves responses from a TreasuryDirectCache and only asks the
+ * inner TreasuryDirect for responses that are missing or older than their time to live.
+ * Concurrent requests for the same missing key are coalesced, so only one of them goes to the
+ * inner TreasuryDirect and the rest wait for its response. Lists of securities can optionally be
+ * served stale-while-revalidate: an expired list that is still within the maximum staleness is
+ * returned immediately while a single background request refreshes it. Securities that
+ * TreasuryDirect doesn't have are remembered for a while in a negative cache, and an optional
+ * Bloom filter of known securities rejects lookups for securities that can't exist without any
+ * request at all.
+ */
+public class CachingTreasuryDirect implements TreasuryDirect
+{
+    private final TreasuryDirect innerTreasuryDirect;
+    private final TreasuryDirectCache cache;
+    private final ConcurrentHashMap<String,CompletableFuture<byte[]>> inFlightRequests;
+    private final java.util.concurrent.atomic.AtomicLong backgroundRefreshCount;
+    private final ConcurrentHashMap<String,Long> failedRefreshMilliseconds;
+    private java.time.Clock clock;
+    private long securityTimeToLiveMilliseconds;
+    private long listTimeToLiveMilliseconds;
+    private long maximumListStalenessMilliseconds;
+    private java.util.concurrent.Executor refreshExecutor;
+    private long refreshFailureCooldownMilliseconds;
+    private long notFoundTimeToLiveMilliseconds;
+    private TreasuryDirectBloomFilter knownSecurities;
+
+    private CachingTreasuryDirect(TreasuryDirect innerTreasuryDirect, TreasuryDirectCache cache)
+    {
+        PreCondition.assertNotNull(innerTreasuryDirect, "innerTreasuryDirect");
+        PreCondition.assertNotNull(cache, "cache");
+
+        this.innerTreasuryDirect = innerTreasuryDirect;
+        this.cache = cache;
+        this.inFlightRequests = new ConcurrentHashMap<>();
+        this.clock = java.time.Clock.systemUTC();
+        this.securityTimeToLiveMilliseconds = 24 * 60 * 60 * 1000L;
+        this.listTimeToLiveMilliseconds = 5 * 60 * 1000L;
+        this.notFoundTimeToLiveMilliseconds = 60 * 60 * 1000L;
+        this.refreshExecutor = (Runnable refresh) -> java.lang.Thread.ofVirtual().name("treasurydirect-cache-refresh").start(refresh);
+        this.backgroundRefreshCount = new java.util.concurrent.atomic.AtomicLong();
+        this.failedRefreshMilliseconds = new ConcurrentHashMap<>();
+        this.refreshFailureCooldownMilliseconds = 30 * 1000L;
+    }
+
+    public static CachingTreasuryDirect create(TreasuryDirect innerTreasuryDirect, TreasuryDirectCache cache)
+    {
+        return new CachingTreasuryDirect(innerTreasuryDirect, cache);
+    }
+
+    /**
+     * Get the cache that responses are stored in.
+     * @return The cache that responses are stored in.
+     */
+    public TreasuryDirectCache getCache()
+    {
+        return this.cache;
+    }
+
+    /**
+     * Set the clock that is used to decide how old a cached response is.
+     * @param clock The clock that is used to decide how old a cached response is.
+     * @return This object for method chaining.
+     */
+    public CachingTreasuryDirect setClock(java.time.Clock clock)
+    {
+        PreCondition.assertNotNull(clock, "clock");
+
+        this.clock = clock;
+
+        return this;
+    }
+
+    /**
+     * Set how long a single security response is served from the cache. A security's details
+     * rarely change after it is issued, so this defaults to one day.
+     * @param securityTimeToLiveMilliseconds How long a security response is served from the
+     *                                       cache.
+     * @return This object for method chaining.
+     */
+    public CachingTreasuryDirect setSecurityTimeToLiveMilliseconds(long securityTimeToLiveMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(securityTimeToLiveMilliseconds, 0L, "securityTimeToLiveMilliseconds");
+
+        this.securityTimeToLiveMilliseconds = securityTimeToLiveMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Set how long a list of securities (announced, auctioned, by type, or search results) is
+     * served from the cache. These lists change as auctions happen, so this defaults to five
+     * minutes.
+     * @param listTimeToLiveMilliseconds How long a list response is served from the cache.
+     * @return This object for method chaining.
+     */
+    public CachingTreasuryDirect setListTimeToLiveMilliseconds(long listTimeToLiveMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(listTimeToLiveMilliseconds, 0L, "listTimeToLiveMilliseconds");
+
+        this.listTimeToLiveMilliseconds = listTimeToLiveMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Set how long after its time to live has passed a list of securities can still be returned
+     * while it is refreshed in the background. Once a list is older than its time to live plus
+     * this staleness, callers wait for a fresh list again. This defaults to 0, which disables
+     * stale-while-revalidate.
+     * @param maximumListStalenessMilliseconds How long an expired list can still be returned.
+     * @return This object for method chaining.
+     */
+    public CachingTreasuryDirect setMaximumListStalenessMilliseconds(long maximumListStalenessMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maximumListStalenessMilliseconds, 0L, "maximumListStalenessMilliseconds");
+
+        this.maximumListStalenessMilliseconds = maximumListStalenessMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Set the executor that background refreshes run on. By default each refresh runs on its own
+     * virtual thread.
+     * @param refreshExecutor The executor that background refreshes run on.
+     * @return This object for method chaining.
+     */
+    public CachingTreasuryDirect setRefreshExecutor(java.util.concurrent.Executor refreshExecutor)
+    {
+        PreCondition.assertNotNull(refreshExecutor, "refreshExecutor");
+
+        this.refreshExecutor = refreshExecutor;
+
+        return this;
+    }
+
+    /**
+     * Set how long after a background refresh of a key fails no other background refresh of that
+     * key is started. The stale entry keeps being served during that time, so a failing upstream
+     * isn't asked again on every read. This defaults to 30 seconds.
+     * @param refreshFailureCooldownMilliseconds How long after a failed background refresh no
+     *                                           other background refresh of the key is started.
+     * @return This object for method chaining.
+     */
+    public CachingTreasuryDirect setRefreshFailureCooldownMilliseconds(long refreshFailureCooldownMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(refreshFailureCooldownMilliseconds, 0L, "refreshFailureCooldownMilliseconds");
+
+        this.refreshFailureCooldownMilliseconds = refreshFailureCooldownMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Set how long a security that TreasuryDirect doesn't have is remembered as missing. Lookups
+     * for it during that time fail without a request. This defaults to one hour, and 0 disables
+     * the negative cache.
+     * @param notFoundTimeToLiveMilliseconds How long a missing security is remembered.
+     * @return This object for method chaining.
+     */
+    public CachingTreasuryDirect setNotFoundTimeToLiveMilliseconds(long notFoundTimeToLiveMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(notFoundTimeToLiveMilliseconds, 0L, "notFoundTimeToLiveMilliseconds");
+
+        this.notFoundTimeToLiveMilliseconds = notFoundTimeToLiveMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Set the Bloom filter of securities that are known to exist, such as one built from a local
+     * TreasuryDirectSecurityJournal. A lookup for a security that the filter definitely doesn't
+     * contain fails without a request, unless its issue date is after the latest issue date in
+     * the filter (which means the security may be newer than the filter).
+     * @param knownSecurities The Bloom filter of known securities, or null to not use one.
+     * @return This object for method chaining.
+     */
+    public CachingTreasuryDirect setKnownSecurities(TreasuryDirectBloomFilter knownSecurities)
+    {
+        this.knownSecurities = knownSecurities;
+
+        return this;
+    }
+
+    /**
+     * Get the number of background refreshes that have been started.
+     * @return The number of background refreshes that have been started.
+     */
+    public long getBackgroundRefreshCount()
+    {
+        return this.backgroundRefreshCount.get();
+    }
+
+    @Override
+    public Result<TreasuryDirectSecurity> getSecurity(String cusip, String issueMonth, String issueDayOfMonth, String issueYear)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+        PreCondition.assertNotNullAndNotEmpty(issueMonth, "issueMonth");
+        PreCondition.assertNotNullAndNotEmpty(issueDayOfMonth, "issueDayOfMonth");
+        PreCondition.assertNotNullAndNotEmpty(issueYear, "issueYear");
+
+        return Result.create(() ->
+        {
+            final TreasuryDirectBloomFilter knownSecurities = this.knownSecurities;
+            if (knownSecurities != null)
+            {
+                final int issueEpochDay = CachingTreasuryDirect.toEpochDay(issueMonth, issueDayOfMonth, issueYear);
+                if (issueEpochDay != TreasuryDirectDates.unknownEpochDay &&
+                    issueEpochDay <= knownSecurities.getLatestIssueEpochDay() &&
+                    !knownSecurities.mightContain(cusip, issueEpochDay))
+                {
+                    throw CachingTreasuryDirect.createNotFoundException(cusip, issueMonth, issueDayOfMonth, issueYear);
+                }
+            }
+
+            final String key = TreasuryDirectCacheKeys.getSecurityKey(cusip, issueMonth, issueDayOfMonth, issueYear);
+            final byte[] bytes = this.get(key, this.securityTimeToLiveMilliseconds, 0, () ->
+            {
+                // The negative cache is only consulted once the security itself has missed, so
+                // that lookups for securities that do exist don't pay for a second probe.
+                final String notFoundKey = TreasuryDirectCacheKeys.getNotFoundKey(key);
+                if (this.notFoundTimeToLiveMilliseconds > 0)
+                {
+                    final TreasuryDirectCacheEntry notFoundEntry = this.cache.get(notFoundKey);
+                    if (notFoundEntry != null && notFoundEntry.getAgeMilliseconds(this.clock.millis()) < this.notFoundTimeToLiveMilliseconds)
+                    {
+                        throw new NotFoundException(new String(notFoundEntry.getValue(), java.nio.charset.StandardCharsets.UTF_8));
+                    }
+                }
+
+                try
+                {
+                    return TreasuryDirectCacheKeys.encodeSecurity(this.innerTreasuryDirect.getSecurity(cusip, issueMonth, issueDayOfMonth, issueYear).await());
+                }
+                catch (NotFoundException e)
+                {
+                    if (this.notFoundTimeToLiveMilliseconds > 0)
+                    {
+                        this.cache.put(notFoundKey, TreasuryDirectCacheEntry.create(e.getMessage().getBytes(java.nio.charset.StandardCharsets.UTF_8), this.clock.millis()));
+                    }
+                    throw e;
+                }
+            });
+            final TreasuryDirectSecurity result = TreasuryDirectCacheKeys.decodeSecurity(bytes);
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> getAnnouncedSecurities(GetAnnouncedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return this.getSecurities(TreasuryDirectCacheKeys.getAnnouncedSecuritiesKey(options), () -> this.innerTreasuryDirect.getAnnouncedSecurities(options));
+    }
+
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> getAuctionedSecurities(GetAuctionedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return this.getSecurities(TreasuryDirectCacheKeys.getAuctionedSecuritiesKey(options), () -> this.innerTreasuryDirect.getAuctionedSecurities(options));
+    }
+
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> getSecuritiesByType(TreasuryDirectSecurityType type)
+    {
+        PreCondition.assertNotNull(type, "type");
+
+        return this.getSecurities(TreasuryDirectCacheKeys.getSecuritiesByTypeKey(type), () -> this.innerTreasuryDirect.getSecuritiesByType(type));
+    }
+
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> searchSecurities(SearchSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return this.getSecurities(TreasuryDirectCacheKeys.getSearchSecuritiesKey(options), () -> this.innerTreasuryDirect.searchSecurities(options));
+    }
+
+    private Result<Iterable<TreasuryDirectSecurity>> getSecurities(String key, Function0<Result<Iterable<TreasuryDirectSecurity>>> innerRequest)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+        PreCondition.assertNotNull(innerRequest, "innerRequest");
+
+        return Result.create(() ->
+        {
+            final byte[] bytes = this.get(key, this.listTimeToLiveMilliseconds, this.maximumListStalenessMilliseconds, () ->
+            {
+                return TreasuryDirectCacheKeys.encodeSecurities(innerRequest.run().await());
+            });
+            final Iterable<TreasuryDirectSecurity> result = TreasuryDirectCacheKeys.decodeSecurities(bytes);
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Get the cached response for the provided key if it is younger than the provided time to
+     * live. If it is older than that but still within the provided staleness, return it anyway and
+     * refresh it in the background. Otherwise fetch, cache, and return a new response, or wait for
+     * the fetch that another thread already started for the same key.
+     */
+    private byte[] get(String key, long timeToLiveMilliseconds, long maximumStalenessMilliseconds, Function0<byte[]> fetch)
+    {
+        final TreasuryDirectCacheEntry entry = this.cache.get(key);
+        if (entry != null)
+        {
+            final long ageMilliseconds = entry.getAgeMilliseconds(this.clock.millis());
+            if (ageMilliseconds < timeToLiveMilliseconds)
+            {
+                return entry.getValue();
+            }
+            else if (ageMilliseconds - timeToLiveMilliseconds < maximumStalenessMilliseconds)
+            {
+                this.refreshInBackground(key, fetch);
+                return entry.getValue();
+            }
+        }
+
+        final CompletableFuture<byte[]> newRequest = new CompletableFuture<>();
+        final CompletableFuture<byte[]> existingRequest = this.inFlightRequests.putIfAbsent(key, newRequest);
+        if (existingRequest != null)
+        {
+            return CachingTreasuryDirect.await(existingRequest);
+        }
+        return this.fetch(key, newRequest, fetch);
+    }
+
+    private void refreshInBackground(String key, Function0<byte[]> fetch)
+    {
+        final Long failedMilliseconds = this.failedRefreshMilliseconds.get(key);
+        if (failedMilliseconds != null && this.clock.millis() - failedMilliseconds < this.refreshFailureCooldownMilliseconds)
+        {
+            return;
+        }
+
+        final CompletableFuture<byte[]> newRequest = new CompletableFuture<>();
+        if (this.inFlightRequests.putIfAbsent(key, newRequest) == null)
+        {
+            this.backgroundRefreshCount.incrementAndGet();
+            try
+            {
+                this.refreshExecutor.execute(() ->
+                {
+                    try
+                    {
+                        this.fetch(key, newRequest, fetch);
+                        this.failedRefreshMilliseconds.remove(key);
+                    }
+                    catch (Throwable ignored)
+                    {
+                        // A failed refresh leaves the stale entry in the cache, so it keeps being
+                        // served until it passes the maximum staleness and a caller fetches it.
+                        this.failedRefreshMilliseconds.put(key, this.clock.millis());
+                    }
+                });
+            }
+            catch (Throwable error)
+            {
+                // The refresh never started, so nothing else will complete or remove its request.
+                this.inFlightRequests.remove(key, newRequest);
+                newRequest.completeExceptionally(error);
+                this.failedRefreshMilliseconds.put(key, this.clock.millis());
+            }
+        }
+    }
+
+    private byte[] fetch(String key, CompletableFuture<byte[]> request, Function0<byte[]> fetch)
+    {
+        try
+        {
+            final byte[] result = fetch.run();
+            this.cache.put(key, TreasuryDirectCacheEntry.create(result, this.clock.millis()));
+            request.complete(result);
+            return result;
+        }
+        catch (Throwable error)
+        {
+            request.completeExceptionally(error);
+            throw error;
+        }
+        finally
+        {
+            this.inFlightRequests.remove(key, request);
+        }
+    }
+
+    private static int toEpochDay(String issueMonth, String issueDayOfMonth, String issueYear)
+    {
+        int result = TreasuryDirectDates.unknownEpochDay;
+        try
+        {
+            final int month = Integer.parseInt(issueMonth.trim());
+            final int dayOfMonth = Integer.parseInt(issueDayOfMonth.trim());
+            final int year = Integer.parseInt(issueYear.trim());
+            if (1 <= month && month <= 12 && 1 <= dayOfMonth && dayOfMonth <= TreasuryDirectDates.getDaysInMonth(year, month))
+            {
+                result = TreasuryDirectDates.toEpochDay(year, month, dayOfMonth);
+            }
+        }
+        catch (NumberFormatException ignored)
+        {
+        }
+        return result;
+    }
+
+    private static NotFoundException createNotFoundException(String cusip, String issueMonth, String issueDayOfMonth, String issueYear)
+    {
+        return new NotFoundException("No TreasuryDirect security found for CUSIP: " + cusip + ", IssueMonth: " + issueMonth + ", IssueDayOfMonth: " + issueDayOfMonth + ", and IssueYear: " + issueYear + ".");
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> request)
+    {
+        try
+        {
+            return request.get();
+        }
+        catch (java.util.concurrent.ExecutionException e)
+        {
+            final Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException
+                ? (RuntimeException)cause
+                : new RuntimeException(cause);
+        }
+        catch (InterruptedException e)
+        {
+            java.lang.Thread.currentThread().interrupt();
+            throw new java.util.concurrent.CancellationException("Interrupted while waiting for a TreasuryDirect response.");
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package qub;
+
+/**
+ * A TreasuryDirectSecurity whose property names and low-cardinality property values are interned
+ * through a shared TreasuryDirectStringDictionary. Securities that are decoded with the same
+ * dictionary share a single String instance for each repeated name and value, and expose the
+ * dictionary code of each interned value so that filters can compare ints instead of Strings.
+ * Values that weren't JSON strings (numbers, booleans, objects, and arrays) are kept as their JSON
+ * text and are written back unquoted by toJson() and toString().
+ */
+public class DictionaryTreasuryDirectSecurity implements TreasuryDirectSecurity
+{
+    private final TreasuryDirectStringDictionary dictionary;
+    private final String[] propertyNames;
+    private final String[] propertyValues;
+    private final boolean[] rawValues;
+    private final int[] valueCodes;
+
+    private DictionaryTreasuryDirectSecurity(TreasuryDirectStringDictionary dictionary, String[] propertyNames, String[] propertyValues, boolean[] rawValues, int[] valueCodes)
+    {
+        this.dictionary = dictionary;
+        this.propertyNames = propertyNames;
+        this.propertyValues = propertyValues;
+        this.rawValues = rawValues;
+        this.valueCodes = valueCodes;
+    }
+
+    /**
+     * Decode the JSON object that is in the provided range of the provided bytes.
+     * @param bytes The UTF-8 encoded bytes that contain the JSON object.
+     * @param startIndex The index of the JSON object's opening brace.
+     * @param endIndex The index after the JSON object's closing brace.
+     * @param dictionary The dictionary that property names and values will be interned through.
+     * @return The decoded security.
+     */
+    public static DictionaryTreasuryDirectSecurity create(byte[] bytes, int startIndex, int endIndex, TreasuryDirectStringDictionary dictionary)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertBetween(0, startIndex, bytes.length - 1, "startIndex");
+        PreCondition.assertBetween(startIndex + 1, endIndex, bytes.length, "endIndex");
+        PreCondition.assertNotNull(dictionary, "dictionary");
+
+        final int[] propertyRanges = TreasuryDirectJSONScanner.findProperties(bytes, startIndex, endIndex);
+        final int propertyCount = propertyRanges.length / 4;
+        final String[] propertyNames = new String[propertyCount];
+        final String[] propertyValues = new String[propertyCount];
+        final boolean[] rawValues = new boolean[propertyCount];
+        final int[] valueCodes = new int[propertyCount];
+        for (int i = 0; i < propertyCount; ++i)
+        {
+            final String propertyName = dictionary.intern(TreasuryDirectJSONScanner.decodeString(bytes, propertyRanges[i * 4], propertyRanges[i * 4 + 1]));
+            String propertyValue = TreasuryDirectJSONScanner.decodeString(bytes, propertyRanges[i * 4 + 2], propertyRanges[i * 4 + 3]);
+            rawValues[i] = propertyValue != null && !TreasuryDirectJSONScanner.isString(bytes, propertyRanges[i * 4 + 2], propertyRanges[i * 4 + 3]);
+            int valueCode = TreasuryDirectStringDictionary.noCode;
+            if (dictionary.shouldIntern(propertyName, propertyValue))
+            {
+                valueCode = dictionary.add(propertyValue);
+                propertyValue = dictionary.getValue(valueCode);
+            }
+
+            propertyNames[i] = propertyName;
+            propertyValues[i] = propertyValue;
+            valueCodes[i] = valueCode;
+        }
+
+        return new DictionaryTreasuryDirectSecurity(dictionary, propertyNames, propertyValues, rawValues, valueCodes);
+    }
+
+    /**
+     * Create a security from property names and values that have already been interned through
+     * the provided dictionary. The arrays are not copied, so they must not be modified afterwards.
+     * @param dictionary The dictionary that the property names and values were interned through.
+     * @param propertyNames The names of the security's properties.
+     * @param propertyValues The values of the security's properties.
+     * @param rawValues Whether or not each of the property values is JSON text that isn't a string.
+     * @return The new security.
+     */
+    static DictionaryTreasuryDirectSecurity create(TreasuryDirectStringDictionary dictionary, String[] propertyNames, String[] propertyValues, boolean[] rawValues)
+    {
+        PreCondition.assertNotNull(dictionary, "dictionary");
+        PreCondition.assertNotNull(propertyNames, "propertyNames");
+        PreCondition.assertNotNull(propertyValues, "propertyValues");
+        PreCondition.assertNotNull(rawValues, "rawValues");
+
+        final int[] valueCodes = new int[propertyNames.length];
+        for (int i = 0; i < propertyNames.length; ++i)
+        {
+            valueCodes[i] = dictionary.shouldIntern(propertyNames[i], propertyValues[i])
+                ? dictionary.getCode(propertyValues[i])
+                : TreasuryDirectStringDictionary.noCode;
+        }
+
+        return new DictionaryTreasuryDirectSecurity(dictionary, propertyNames, propertyValues, rawValues, valueCodes);
+    }
+
+    /**
+     * Decode each of the JSON objects in the JSON array in the provided bytes.
+     * @param bytes The UTF-8 encoded bytes of a JSON array of security objects.
+     * @param dictionary The dictionary that property names and values will be interned through.
+     * @return The securities in the provided bytes.
+     */
+    public static Iterable<TreasuryDirectSecurity> createArray(byte[] bytes, TreasuryDirectStringDictionary dictionary)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(dictionary, "dictionary");
+
+        final int[] objectRanges = TreasuryDirectJSONScanner.findArrayObjects(bytes, 0, bytes.length);
+        final List<TreasuryDirectSecurity> result = List.create();
+        for (int i = 0; i < objectRanges.length; i += 2)
+        {
+            result.add(DictionaryTreasuryDirectSecurity.create(bytes, objectRanges[i], objectRanges[i + 1], dictionary));
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the dictionary that this security's names and values were interned through.
+     * @return The dictionary that this security's names and values were interned through.
+     */
+    public TreasuryDirectStringDictionary getDictionary()
+    {
+        return this.dictionary;
+    }
+
+    /**
+     * Get the dictionary code of the value of the property with the provided name.
+     * @param propertyName The name of the property.
+     * @return The dictionary code of the property's value, or TreasuryDirectStringDictionary.noCode
+     * if the property doesn't exist or its value wasn't interned.
+     */
+    public int getCode(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        final int propertyIndex = this.getPropertyIndex(propertyName);
+        return propertyIndex == -1 ? TreasuryDirectStringDictionary.noCode : this.valueCodes[propertyIndex];
+    }
+
+    /**
+     * Get the dictionary code of this security's securityType value.
+     * @return The dictionary code of this security's securityType value.
+     */
+    public int getSecurityTypeCode()
+    {
+        return this.getCode(TreasuryDirectSecurity.securityTypePropertyName);
+    }
+
+    /**
+     * Get the dictionary code of this security's securityTerm value.
+     * @return The dictionary code of this security's securityTerm value.
+     */
+    public int getSecurityTermCode()
+    {
+        return this.getCode(TreasuryDirectSecurity.securityTermPropertyName);
+    }
+
+    @Override
+    public Result<String> getString(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        return Result.create(() ->
+        {
+            final int propertyIndex = this.getPropertyIndex(propertyName);
+            if (propertyIndex == -1)
+            {
+                throw new NotFoundException("Could not find a property named " + Strings.escapeAndQuote(propertyName) + ".");
+            }
+            return this.propertyValues[propertyIndex];
+        });
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder builder = new StringBuilder();
+        builder.append('{');
+        for (int i = 0; i < this.propertyNames.length; ++i)
+        {
+            if (i > 0)
+            {
+                builder.append(',');
+            }
+            DictionaryTreasuryDirectSecurity.appendJSONString(builder, this.propertyNames[i]);
+            builder.append(':');
+            if (this.rawValues[i])
+            {
+                builder.append(this.propertyValues[i]);
+            }
+            else
+            {
+                DictionaryTreasuryDirectSecurity.appendJSONString(builder, this.propertyValues[i]);
+            }
+        }
+        builder.append('}');
+        return builder.toString();
+    }
+
+    private int getPropertyIndex(String propertyName)
+    {
+        int result = -1;
+        for (int i = 0; i < this.propertyNames.length; ++i)
+        {
+            // Names from the same dictionary are the same instance, so the identity check
+            // almost always decides the comparison without looking at the characters.
+            final String name = this.propertyNames[i];
+            if (name == propertyName || name.equals(propertyName))
+            {
+                result = i;
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static void appendJSONString(StringBuilder builder, String value)
+    {
+        if (value == null)
+        {
+            builder.append("null");
+        }
+        else
+        {
+            builder.append('"');
+            for (int i = 0; i < value.length(); ++i)
+            {
+                final char c = value.charAt(i);
+                switch (c)
+                {
+                    case '"': builder.append("\\\""); break;
+                    case '\\': builder.append("\\\\"); break;
+                    case '\n': builder.append("\\n"); break;
+                    case '\r': builder.append("\\r"); break;
+                    case '\t': builder.append("\\t"); break;
+                    default:
+                        if (c < 0x20)
+                        {
+                            builder.append(String.format("\\u%04x", (int)c));
+                        }
+                        else
+                        {
+                            builder.append(c);
+                        }
+                        break;
+                }
+            }
+            builder.append('"');
+        }
+    }
+}
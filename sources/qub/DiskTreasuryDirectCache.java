@@ -0,0 +1,407 @@
+package qub;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent TreasuryDirectCache that is stored in a single log-structured file. Every put()
+ * appends a checksummed record to the end of the file, and an in-memory index maps each key to
+ * the position of its newest record. When the cache is opened, the file is scanned to rebuild
+ * the index, and a torn record at the end of the file (from a process that died mid-write) is
+ * truncated away. Once the file holds more dead bytes than live bytes, it is compacted by
+ * copying the live records into a new file.
+ * <pre>
+ *   record:
+ *     int    key length (a negative length marks the removal of the key)
+ *     int    value length
+ *     long   fetched milliseconds
+ *     int    CRC32 of the key and value bytes
+ *     byte[] key (UTF-8)
+ *     byte[] value
+ * </pre>
+ */
+public class DiskTreasuryDirectCache implements TreasuryDirectCache, AutoCloseable
+{
+    private static final int recordHeaderLength = 20;
+    private static final long minimumCompactionByteCount = 1024 * 1024;
+
+    private final Path file;
+    private final java.util.HashMap<String,IndexEntry> index;
+    private final TreasuryDirectCacheMetrics metrics;
+    private FileChannel channel;
+    private long fileLength;
+    private long liveByteCount;
+
+    private DiskTreasuryDirectCache(Path file)
+    {
+        PreCondition.assertNotNull(file, "file");
+
+        this.file = file;
+        this.index = new java.util.HashMap<>();
+        this.metrics = TreasuryDirectCacheMetrics.create();
+    }
+
+    /**
+     * Open the cache that is stored in the provided file, creating the file if it doesn't exist.
+     * @param file The file that the cache is stored in.
+     * @return The opened cache.
+     */
+    public static Result<DiskTreasuryDirectCache> open(Path file)
+    {
+        PreCondition.assertNotNull(file, "file");
+
+        return Result.create(() ->
+        {
+            final DiskTreasuryDirectCache result = new DiskTreasuryDirectCache(file);
+            try
+            {
+                result.recover();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    @Override
+    public synchronized TreasuryDirectCacheEntry get(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        final TreasuryDirectCacheEntry result = this.read(key);
+        if (result == null)
+        {
+            this.metrics.recordMiss();
+        }
+        else
+        {
+            this.metrics.recordHit();
+        }
+        return result;
+    }
+
+    /**
+     * Read the entry with the provided key without counting the lookup in this cache's metrics.
+     */
+    synchronized TreasuryDirectCacheEntry read(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        final IndexEntry indexEntry = this.index.get(key);
+        TreasuryDirectCacheEntry result = null;
+        if (indexEntry != null)
+        {
+            final ByteBuffer value = ByteBuffer.allocate(indexEntry.valueLength);
+            try
+            {
+                this.readFully(value, indexEntry.valuePosition);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            result = TreasuryDirectCacheEntry.create(value.array(), indexEntry.fetchedMilliseconds);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void put(String key, TreasuryDirectCacheEntry entry)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+        PreCondition.assertNotNull(entry, "entry");
+
+        try
+        {
+            this.append(key, entry.getValue(), entry.getFetchedMilliseconds(), false);
+            this.compactIfNeeded();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void remove(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        if (this.index.containsKey(key))
+        {
+            try
+            {
+                this.append(key, new byte[0], 0, true);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized int getCount()
+    {
+        return this.index.size();
+    }
+
+    @Override
+    public TreasuryDirectCacheMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+
+    /**
+     * Get the keys of this cache's entries, most recently fetched first.
+     * @return The keys of this cache's entries, most recently fetched first.
+     */
+    public synchronized List<String> getKeysByRecency()
+    {
+        final java.util.ArrayList<java.util.Map.Entry<String,IndexEntry>> indexEntries = new java.util.ArrayList<>(this.index.entrySet());
+        indexEntries.sort((java.util.Map.Entry<String,IndexEntry> lhs, java.util.Map.Entry<String,IndexEntry> rhs) ->
+            Long.compare(rhs.getValue().fetchedMilliseconds, lhs.getValue().fetchedMilliseconds));
+
+        final List<String> result = List.create();
+        for (final java.util.Map.Entry<String,IndexEntry> indexEntry : indexEntries)
+        {
+            result.add(indexEntry.getKey());
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the length of this cache's file.
+     * @return The length of this cache's file.
+     */
+    public synchronized long getFileLength()
+    {
+        return this.fileLength;
+    }
+
+    /**
+     * Rewrite this cache's file so that it only contains the newest record for each key.
+     */
+    public synchronized void compact()
+    {
+        try
+        {
+            final Path temporaryFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+            final java.util.HashMap<String,IndexEntry> newIndex = new java.util.HashMap<>();
+            long newLength = 0;
+            try (final FileChannel temporaryChannel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+            {
+                for (final java.util.Map.Entry<String,IndexEntry> indexEntry : this.index.entrySet())
+                {
+                    final IndexEntry entry = indexEntry.getValue();
+                    final ByteBuffer value = ByteBuffer.allocate(entry.valueLength);
+                    this.readFully(value, entry.valuePosition);
+
+                    final ByteBuffer record = DiskTreasuryDirectCache.encodeRecord(indexEntry.getKey(), value.array(), entry.fetchedMilliseconds, false);
+                    while (record.hasRemaining())
+                    {
+                        newLength += temporaryChannel.write(record);
+                    }
+                    newIndex.put(indexEntry.getKey(), new IndexEntry(newLength - entry.valueLength, entry.valueLength, entry.fetchedMilliseconds));
+                }
+                temporaryChannel.force(true);
+            }
+
+            this.channel.close();
+            Files.move(temporaryFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.channel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.index.clear();
+            this.index.putAll(newIndex);
+            this.fileLength = newLength;
+            this.liveByteCount = newLength;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (this.channel != null)
+        {
+            try
+            {
+                this.channel.force(true);
+                this.channel.close();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            finally
+            {
+                this.channel = null;
+            }
+        }
+    }
+
+    private void recover() throws IOException
+    {
+        final Path parentFolder = this.file.toAbsolutePath().getParent();
+        if (parentFolder != null)
+        {
+            Files.createDirectories(parentFolder);
+        }
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        final long channelSize = this.channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(DiskTreasuryDirectCache.recordHeaderLength);
+        long position = 0;
+        while (position + DiskTreasuryDirectCache.recordHeaderLength <= channelSize)
+        {
+            header.clear();
+            this.readFully(header, position);
+            header.flip();
+            final int keyLengthField = header.getInt();
+            final int valueLength = header.getInt();
+            final long fetchedMilliseconds = header.getLong();
+            final int checksum = header.getInt();
+
+            final boolean removal = keyLengthField < 0;
+            final int keyLength = removal ? -keyLengthField : keyLengthField;
+            final long recordEnd = position + DiskTreasuryDirectCache.recordHeaderLength + keyLength + valueLength;
+            if (valueLength < 0 || recordEnd > channelSize)
+            {
+                break;
+            }
+
+            final ByteBuffer body = ByteBuffer.allocate(keyLength + valueLength);
+            this.readFully(body, position + DiskTreasuryDirectCache.recordHeaderLength);
+            final CRC32 crc = new CRC32();
+            crc.update(body.array());
+            if ((int)crc.getValue() != checksum)
+            {
+                break;
+            }
+
+            final String key = new String(body.array(), 0, keyLength, StandardCharsets.UTF_8);
+            final long recordLength = recordEnd - position;
+            final IndexEntry replacedEntry = removal
+                ? this.index.remove(key)
+                : this.index.put(key, new IndexEntry(position + DiskTreasuryDirectCache.recordHeaderLength + keyLength, valueLength, fetchedMilliseconds));
+            if (replacedEntry != null)
+            {
+                this.liveByteCount -= replacedEntry.recordLength(key);
+            }
+            if (!removal)
+            {
+                this.liveByteCount += recordLength;
+            }
+            position = recordEnd;
+        }
+
+        if (position < channelSize)
+        {
+            // Everything after the last intact record is a torn or corrupted write.
+            this.channel.truncate(position);
+        }
+        this.fileLength = position;
+    }
+
+    private void append(String key, byte[] value, long fetchedMilliseconds, boolean removal) throws IOException
+    {
+        final ByteBuffer record = DiskTreasuryDirectCache.encodeRecord(key, value, fetchedMilliseconds, removal);
+        final int recordLength = record.remaining();
+        long position = this.fileLength;
+        while (record.hasRemaining())
+        {
+            position += this.channel.write(record, position);
+        }
+        this.fileLength = position;
+
+        final IndexEntry replacedEntry = removal
+            ? this.index.remove(key)
+            : this.index.put(key, new IndexEntry(position - value.length, value.length, fetchedMilliseconds));
+        if (replacedEntry != null)
+        {
+            this.liveByteCount -= replacedEntry.recordLength(key);
+        }
+        if (!removal)
+        {
+            this.liveByteCount += recordLength;
+        }
+    }
+
+    private void compactIfNeeded()
+    {
+        final long deadByteCount = this.fileLength - this.liveByteCount;
+        if (deadByteCount > DiskTreasuryDirectCache.minimumCompactionByteCount && deadByteCount > this.liveByteCount)
+        {
+            this.compact();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException
+    {
+        long readPosition = position;
+        while (buffer.hasRemaining())
+        {
+            final int bytesRead = this.channel.read(buffer, readPosition);
+            if (bytesRead < 0)
+            {
+                throw new java.io.EOFException("Unexpected end of the TreasuryDirect cache file " + this.file + ".");
+            }
+            readPosition += bytesRead;
+        }
+    }
+
+    private static ByteBuffer encodeRecord(String key, byte[] value, long fetchedMilliseconds, boolean removal)
+    {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+        crc.update(value);
+
+        final ByteBuffer result = ByteBuffer.allocate(DiskTreasuryDirectCache.recordHeaderLength + keyBytes.length + value.length);
+        result.putInt(removal ? -keyBytes.length : keyBytes.length);
+        result.putInt(value.length);
+        result.putLong(fetchedMilliseconds);
+        result.putInt((int)crc.getValue());
+        result.put(keyBytes);
+        result.put(value);
+        result.flip();
+        return result;
+    }
+
+    private static class IndexEntry
+    {
+        private final long valuePosition;
+        private final int valueLength;
+        private final long fetchedMilliseconds;
+
+        IndexEntry(long valuePosition, int valueLength, long fetchedMilliseconds)
+        {
+            this.valuePosition = valuePosition;
+            this.valueLength = valueLength;
+            this.fetchedMilliseconds = fetchedMilliseconds;
+        }
+
+        long recordLength(String key)
+        {
+            return DiskTreasuryDirectCache.recordHeaderLength + key.getBytes(StandardCharsets.UTF_8).length + this.valueLength;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package qub;
+
+import java.io.InputStream;
+
+/**
+ * A TreasuryDirectTransport that sends its requests with a qub HttpClient.
+ */
+public class HttpClientTreasuryDirectTransport implements TreasuryDirectTransport
+{
+    private final HttpClient httpClient;
+
+    private HttpClientTreasuryDirectTransport(HttpClient httpClient)
+    {
+        PreCondition.assertNotNull(httpClient, "httpClient");
+
+        this.httpClient = httpClient;
+    }
+
+    public static HttpClientTreasuryDirectTransport create(HttpClient httpClient)
+    {
+        return new HttpClientTreasuryDirectTransport(httpClient);
+    }
+
+    @Override
+    public Result<byte[]> get(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return Result.create(() ->
+        {
+            final byte[] result;
+            try (final HttpResponse response = this.httpClient.get(url).await())
+            {
+                result = response.getBody().readAllBytes().await();
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    @Override
+    public Result<InputStream> open(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return Result.create(() ->
+        {
+            final HttpResponse response = this.httpClient.get(url).await();
+            return ByteReadStreamInputStream.create(response.getBody(), () -> response.dispose().await());
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package qub;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A TreasuryDirectTransport that serves canned response bodies from memory. This makes it
+ * possible to test RealTreasuryDirect without a network, and to measure how long decoding takes
+ * without any network time mixed in.
+ */
+public class InMemoryTreasuryDirectTransport implements TreasuryDirectTransport
+{
+    private final ConcurrentHashMap<String,byte[]> responses;
+    private final AtomicInteger requestCount;
+
+    private InMemoryTreasuryDirectTransport()
+    {
+        this.responses = new ConcurrentHashMap<>();
+        this.requestCount = new AtomicInteger();
+    }
+
+    public static InMemoryTreasuryDirectTransport create()
+    {
+        return new InMemoryTreasuryDirectTransport();
+    }
+
+    /**
+     * Set the response body that will be returned for the provided URL.
+     * @param url The URL, including its query string.
+     * @param responseBody The response body that will be returned for the URL. The bytes are not
+     *                     copied, so they must not be modified afterwards.
+     * @return This object for method chaining.
+     */
+    public InMemoryTreasuryDirectTransport setResponse(String url, byte[] responseBody)
+    {
+        PreCondition.assertNotNullAndNotEmpty(url, "url");
+        PreCondition.assertNotNull(responseBody, "responseBody");
+
+        this.responses.put(url, responseBody);
+
+        return this;
+    }
+
+    /**
+     * Set the response body that will be returned for the provided URL.
+     * @param url The URL, including its query string.
+     * @param responseBody The response body that will be returned for the URL.
+     * @return This object for method chaining.
+     */
+    public InMemoryTreasuryDirectTransport setResponse(String url, String responseBody)
+    {
+        PreCondition.assertNotNull(responseBody, "responseBody");
+
+        return this.setResponse(url, responseBody.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the number of requests that have been sent to this transport.
+     * @return The number of requests that have been sent to this transport.
+     */
+    public int getRequestCount()
+    {
+        return this.requestCount.get();
+    }
+
+    @Override
+    public Result<byte[]> get(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return Result.create(() ->
+        {
+            this.requestCount.incrementAndGet();
+
+            final String urlString = url.toString();
+            final byte[] result = this.responses.get(urlString);
+            if (result == null)
+            {
+                throw new NotFoundException("No in-memory TreasuryDirect response found for URL: " + urlString + ".");
+            }
+            return result;
+        });
+    }
+}
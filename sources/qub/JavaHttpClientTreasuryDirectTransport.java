@@ -0,0 +1,151 @@
+package qub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A TreasuryDirectTransport that sends its requests with the JDK's java.net.http.HttpClient.
+ * The client prefers HTTP/2 (falling back to HTTP/1.1 if the server doesn't support it), and
+ * getAsync() uses the client's own asynchronous send instead of blocking a thread per request.
+ * A response whose status code isn't 2xx fails the request with an UncheckedIOException instead
+ * of returning the error page as if it were the requested content.
+ */
+public class JavaHttpClientTreasuryDirectTransport implements TreasuryDirectTransport
+{
+    private final java.net.http.HttpClient httpClient;
+    private Duration requestTimeout;
+
+    private JavaHttpClientTreasuryDirectTransport(java.net.http.HttpClient httpClient)
+    {
+        PreCondition.assertNotNull(httpClient, "httpClient");
+
+        this.httpClient = httpClient;
+        this.requestTimeout = Duration.ofSeconds(30);
+    }
+
+    /**
+     * Create a new JavaHttpClientTreasuryDirectTransport with a new HTTP/2 client.
+     * @return The new JavaHttpClientTreasuryDirectTransport.
+     */
+    public static JavaHttpClientTreasuryDirectTransport create()
+    {
+        return JavaHttpClientTreasuryDirectTransport.create(java.net.http.HttpClient.newBuilder()
+            .version(java.net.http.HttpClient.Version.HTTP_2)
+            .followRedirects(java.net.http.HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build());
+    }
+
+    /**
+     * Create a new JavaHttpClientTreasuryDirectTransport that sends its requests with the
+     * provided client.
+     * @param httpClient The client to send requests with.
+     * @return The new JavaHttpClientTreasuryDirectTransport.
+     */
+    public static JavaHttpClientTreasuryDirectTransport create(java.net.http.HttpClient httpClient)
+    {
+        return new JavaHttpClientTreasuryDirectTransport(httpClient);
+    }
+
+    /**
+     * Set the amount of time that a request can take before it fails.
+     * @param requestTimeout The amount of time that a request can take before it fails.
+     * @return This object for method chaining.
+     */
+    public JavaHttpClientTreasuryDirectTransport setRequestTimeout(Duration requestTimeout)
+    {
+        PreCondition.assertNotNull(requestTimeout, "requestTimeout");
+
+        this.requestTimeout = requestTimeout;
+
+        return this;
+    }
+
+    @Override
+    public Result<byte[]> get(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return Result.create(() ->
+        {
+            return this.send(url, java.net.http.HttpResponse.BodyHandlers.ofByteArray());
+        });
+    }
+
+    @Override
+    public Result<InputStream> open(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return Result.create(() ->
+        {
+            return this.send(url, java.net.http.HttpResponse.BodyHandlers.ofInputStream());
+        });
+    }
+
+    @Override
+    public CompletableFuture<byte[]> getAsync(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return this.httpClient.sendAsync(this.createRequest(url), java.net.http.HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(JavaHttpClientTreasuryDirectTransport::getBody);
+    }
+
+    private <T> T send(URL url, java.net.http.HttpResponse.BodyHandler<T> bodyHandler)
+    {
+        try
+        {
+            return JavaHttpClientTreasuryDirectTransport.getBody(this.httpClient.send(this.createRequest(url), bodyHandler));
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        catch (InterruptedException e)
+        {
+            java.lang.Thread.currentThread().interrupt();
+            throw new java.util.concurrent.CancellationException("Interrupted while waiting for the TreasuryDirect response from " + url + ".");
+        }
+    }
+
+    /**
+     * Get the body of the provided response if its status code is 2xx.
+     * @param response The response to get the body of.
+     * @param <T> The type of the response's body.
+     * @return The body of the provided response.
+     */
+    private static <T> T getBody(java.net.http.HttpResponse<T> response)
+    {
+        final int statusCode = response.statusCode();
+        if (statusCode < 200 || 300 <= statusCode)
+        {
+            if (response.body() instanceof InputStream)
+            {
+                try
+                {
+                    ((InputStream)response.body()).close();
+                }
+                catch (IOException ignored)
+                {
+                }
+            }
+            throw new UncheckedIOException(new IOException("Expected a 2xx status code from " + response.uri() + ", but found " + statusCode + "."));
+        }
+        return response.body();
+    }
+
+    private HttpRequest createRequest(URL url)
+    {
+        return HttpRequest.newBuilder(URI.create(url.toString()))
+            .timeout(this.requestTimeout)
+            .header("Accept", "application/json")
+            .GET()
+            .build();
+    }
+}
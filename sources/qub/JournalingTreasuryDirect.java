@@ -0,0 +1,100 @@
+package qub;
+
+/**
+ * A TreasuryDirect decorator that appends every security that is fetched through an inner
+ * TreasuryDirect (usually a RealTreasuryDirect) to a TreasuryDirectSecurityJournal.
+ */
+public class JournalingTreasuryDirect implements TreasuryDirect
+{
+    private final TreasuryDirect innerTreasuryDirect;
+    private final TreasuryDirectSecurityJournal journal;
+
+    private JournalingTreasuryDirect(TreasuryDirect innerTreasuryDirect, TreasuryDirectSecurityJournal journal)
+    {
+        PreCondition.assertNotNull(innerTreasuryDirect, "innerTreasuryDirect");
+        PreCondition.assertNotNull(journal, "journal");
+
+        this.innerTreasuryDirect = innerTreasuryDirect;
+        this.journal = journal;
+    }
+
+    public static JournalingTreasuryDirect create(TreasuryDirect innerTreasuryDirect, TreasuryDirectSecurityJournal journal)
+    {
+        return new JournalingTreasuryDirect(innerTreasuryDirect, journal);
+    }
+
+    /**
+     * Get the journal that fetched securities are appended to.
+     * @return The journal that fetched securities are appended to.
+     */
+    public TreasuryDirectSecurityJournal getJournal()
+    {
+        return this.journal;
+    }
+
+    @Override
+    public Result<TreasuryDirectSecurity> getSecurity(String cusip, String issueMonth, String issueDayOfMonth, String issueYear)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+        PreCondition.assertNotNullAndNotEmpty(issueMonth, "issueMonth");
+        PreCondition.assertNotNullAndNotEmpty(issueDayOfMonth, "issueDayOfMonth");
+        PreCondition.assertNotNullAndNotEmpty(issueYear, "issueYear");
+
+        return Result.create(() ->
+        {
+            final TreasuryDirectSecurity result = this.innerTreasuryDirect.getSecurity(cusip, issueMonth, issueDayOfMonth, issueYear).await();
+            this.journal.append(result).await();
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> getAnnouncedSecurities(GetAnnouncedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return this.appendAll(this.innerTreasuryDirect.getAnnouncedSecurities(options));
+    }
+
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> getAuctionedSecurities(GetAuctionedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return this.appendAll(this.innerTreasuryDirect.getAuctionedSecurities(options));
+    }
+
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> getSecuritiesByType(TreasuryDirectSecurityType type)
+    {
+        PreCondition.assertNotNull(type, "type");
+
+        return this.appendAll(this.innerTreasuryDirect.getSecuritiesByType(type));
+    }
+
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> searchSecurities(SearchSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return this.appendAll(this.innerTreasuryDirect.searchSecurities(options));
+    }
+
+    private Result<Iterable<TreasuryDirectSecurity>> appendAll(Result<Iterable<TreasuryDirectSecurity>> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        return Result.create(() ->
+        {
+            final Iterable<TreasuryDirectSecurity> result = securities.await().toList();
+            this.journal.appendAll(result).await();
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package qub;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A TreasuryDirectSecurity that only remembers where its JSON object is within a response
+ * buffer. Each property is decoded from the buffer the first time that it is requested, so
+ * code that only reads one or two properties of each security never pays to parse the rest.
+ */
+public class LazyTreasuryDirectSecurity implements TreasuryDirectSecurity
+{
+    /**
+     * The value that is cached for a property that the JSON object doesn't contain. It can't be
+     * confused with a decoded String value.
+     */
+    private static final Object missingValue = new Object();
+
+    private final byte[] bytes;
+    private final int startIndex;
+    private final int endIndex;
+    private java.util.HashMap<String,Object> decodedValues;
+
+    private LazyTreasuryDirectSecurity(byte[] bytes, int startIndex, int endIndex)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertBetween(0, startIndex, bytes.length - 1, "startIndex");
+        PreCondition.assertBetween(startIndex + 1, endIndex, bytes.length, "endIndex");
+
+        this.bytes = bytes;
+        this.startIndex = startIndex;
+        this.endIndex = endIndex;
+    }
+
+    /**
+     * Create a new LazyTreasuryDirectSecurity from the JSON object that is in the provided range
+     * of the provided bytes. The bytes are not copied, so they must not be modified afterwards.
+     * @param bytes The UTF-8 encoded bytes that contain the JSON object.
+     * @param startIndex The index of the JSON object's opening brace.
+     * @param endIndex The index after the JSON object's closing brace.
+     * @return The new LazyTreasuryDirectSecurity.
+     */
+    public static LazyTreasuryDirectSecurity create(byte[] bytes, int startIndex, int endIndex)
+    {
+        return new LazyTreasuryDirectSecurity(bytes, startIndex, endIndex);
+    }
+
+    /**
+     * Create a LazyTreasuryDirectSecurity for each of the JSON objects in the JSON array in the
+     * provided bytes. Only the boundaries of the objects are found; none of their properties
+     * are decoded.
+     * @param bytes The UTF-8 encoded bytes of a JSON array of security objects.
+     * @return The securities in the provided bytes.
+     */
+    public static Iterable<TreasuryDirectSecurity> createArray(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        final int[] objectRanges = TreasuryDirectJSONScanner.findArrayObjects(bytes, 0, bytes.length);
+        final List<TreasuryDirectSecurity> result = List.create();
+        for (int i = 0; i < objectRanges.length; i += 2)
+        {
+            result.add(LazyTreasuryDirectSecurity.create(bytes, objectRanges[i], objectRanges[i + 1]));
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    @Override
+    public Result<String> getString(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        return Result.create(() ->
+        {
+            final Object result = this.getDecodedValue(propertyName);
+            if (result == LazyTreasuryDirectSecurity.missingValue)
+            {
+                throw new NotFoundException("Could not find a property named " + Strings.escapeAndQuote(propertyName) + ".");
+            }
+            return (String)result;
+        });
+    }
+
+    @Override
+    public int getEpochDay(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        final Object propertyValue = this.getDecodedValue(propertyName);
+        return propertyValue == LazyTreasuryDirectSecurity.missingValue
+            ? TreasuryDirectDates.unknownEpochDay
+            : TreasuryDirectDates.parseEpochDay((String)propertyValue);
+    }
+
+    @Override
+    public String toString()
+    {
+        return new String(this.bytes, this.startIndex, this.endIndex - this.startIndex, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the decoded value of the property with the provided name.
+     * @return The decoded value (which may be null), or missingValue if the JSON object doesn't
+     * contain the property.
+     */
+    private synchronized Object getDecodedValue(String propertyName)
+    {
+        if (this.decodedValues == null)
+        {
+            this.decodedValues = new java.util.HashMap<>();
+        }
+
+        Object result = this.decodedValues.get(propertyName);
+        if (result == null && !this.decodedValues.containsKey(propertyName))
+        {
+            final long valueRange = TreasuryDirectJSONScanner.findPropertyValue(this.bytes, this.startIndex, this.endIndex, propertyName.getBytes(StandardCharsets.UTF_8));
+            if (valueRange == TreasuryDirectJSONScanner.notFound)
+            {
+                result = LazyTreasuryDirectSecurity.missingValue;
+            }
+            else
+            {
+                result = TreasuryDirectJSONScanner.decodeString(this.bytes, TreasuryDirectJSONScanner.getRangeStart(valueRange), TreasuryDirectJSONScanner.getRangeEnd(valueRange));
+            }
+            this.decodedValues.put(propertyName, result);
+        }
+        return result;
+    }
+}
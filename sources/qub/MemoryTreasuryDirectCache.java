@@ -0,0 +1,202 @@
+package qub;
+
+/**
+ * An in-process TreasuryDirectCache that is bounded by the total number of bytes in its
+ * entries. When the cache is full, the least recently used entries are evicted. Admission is
+ * frequency based: a count-min sketch estimates how often each key has been requested, and a
+ * new key is only admitted into a full cache if it has been requested at least as often as the
+ * entry that it would evict. This stops one-off lookups (such as a backfill sweeping through
+ * old CUSIPs) from flushing out the entries that are actually hot.
+ */
+public class MemoryTreasuryDirectCache implements TreasuryDirectCache
+{
+    private static final int sketchDepth = 4;
+    private static final int sketchWidth = 4096;
+
+    private final long maximumByteCount;
+    private final java.util.LinkedHashMap<String,TreasuryDirectCacheEntry> entries;
+    private final TreasuryDirectCacheMetrics metrics;
+    private final byte[] sketch;
+    private int sketchIncrementCount;
+    private long byteCount;
+
+    private MemoryTreasuryDirectCache(long maximumByteCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maximumByteCount, 1L, "maximumByteCount");
+
+        this.maximumByteCount = maximumByteCount;
+        this.entries = new java.util.LinkedHashMap<>(16, 0.75f, true);
+        this.metrics = TreasuryDirectCacheMetrics.create();
+        this.sketch = new byte[MemoryTreasuryDirectCache.sketchDepth * MemoryTreasuryDirectCache.sketchWidth];
+    }
+
+    /**
+     * Create a new MemoryTreasuryDirectCache.
+     * @param maximumByteCount The maximum total number of bytes of the cached values.
+     * @return The new MemoryTreasuryDirectCache.
+     */
+    public static MemoryTreasuryDirectCache create(long maximumByteCount)
+    {
+        return new MemoryTreasuryDirectCache(maximumByteCount);
+    }
+
+    /**
+     * Get the maximum total number of bytes of the cached values.
+     * @return The maximum total number of bytes of the cached values.
+     */
+    public long getMaximumByteCount()
+    {
+        return this.maximumByteCount;
+    }
+
+    /**
+     * Get the total number of bytes of the cached values.
+     * @return The total number of bytes of the cached values.
+     */
+    public synchronized long getByteCount()
+    {
+        return this.byteCount;
+    }
+
+    @Override
+    public synchronized TreasuryDirectCacheEntry get(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        this.incrementFrequency(key);
+        final TreasuryDirectCacheEntry result = this.entries.get(key);
+        if (result == null)
+        {
+            this.metrics.recordMiss();
+        }
+        else
+        {
+            this.metrics.recordHit();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void put(String key, TreasuryDirectCacheEntry entry)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+        PreCondition.assertNotNull(entry, "entry");
+
+        final long entryByteCount = entry.getValue().length;
+        final TreasuryDirectCacheEntry existingEntry = this.entries.get(key);
+        if (existingEntry != null)
+        {
+            // Refreshing a key that is already cached is always admitted.
+            this.byteCount -= existingEntry.getValue().length;
+            this.entries.remove(key);
+        }
+        else if (entryByteCount > this.maximumByteCount || !this.admit(key, entryByteCount))
+        {
+            this.metrics.recordRejected();
+            return;
+        }
+
+        while (this.byteCount + entryByteCount > this.maximumByteCount && !this.entries.isEmpty())
+        {
+            this.evictEldest();
+        }
+        this.entries.put(key, entry);
+        this.byteCount += entryByteCount;
+    }
+
+    @Override
+    public synchronized void remove(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        final TreasuryDirectCacheEntry removedEntry = this.entries.remove(key);
+        if (removedEntry != null)
+        {
+            this.byteCount -= removedEntry.getValue().length;
+        }
+    }
+
+    @Override
+    public synchronized int getCount()
+    {
+        return this.entries.size();
+    }
+
+    @Override
+    public TreasuryDirectCacheMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+
+    /**
+     * Decide whether a new key should be admitted. There's always room for a key while the cache
+     * isn't full; after that, the key must be at least as frequent as the least recently used
+     * entry.
+     */
+    private boolean admit(String key, long entryByteCount)
+    {
+        boolean result = true;
+        if (this.byteCount + entryByteCount > this.maximumByteCount && !this.entries.isEmpty())
+        {
+            final String victimKey = this.entries.keySet().iterator().next();
+            result = this.getFrequency(key) >= this.getFrequency(victimKey);
+        }
+        return result;
+    }
+
+    private void evictEldest()
+    {
+        final java.util.Iterator<java.util.Map.Entry<String,TreasuryDirectCacheEntry>> iterator = this.entries.entrySet().iterator();
+        final java.util.Map.Entry<String,TreasuryDirectCacheEntry> eldest = iterator.next();
+        this.byteCount -= eldest.getValue().getValue().length;
+        iterator.remove();
+    }
+
+    private void incrementFrequency(String key)
+    {
+        final int hash = MemoryTreasuryDirectCache.spread(key.hashCode());
+        for (int row = 0; row < MemoryTreasuryDirectCache.sketchDepth; ++row)
+        {
+            final int index = MemoryTreasuryDirectCache.getSketchIndex(hash, row);
+            if (this.sketch[index] < Byte.MAX_VALUE)
+            {
+                ++this.sketch[index];
+            }
+        }
+
+        // Periodically halve every counter so that old popularity fades away.
+        if (++this.sketchIncrementCount >= MemoryTreasuryDirectCache.sketchWidth * 10)
+        {
+            this.sketchIncrementCount = 0;
+            for (int i = 0; i < this.sketch.length; ++i)
+            {
+                this.sketch[i] = (byte)(this.sketch[i] >> 1);
+            }
+        }
+    }
+
+    private int getFrequency(String key)
+    {
+        final int hash = MemoryTreasuryDirectCache.spread(key.hashCode());
+        int result = Byte.MAX_VALUE;
+        for (int row = 0; row < MemoryTreasuryDirectCache.sketchDepth; ++row)
+        {
+            result = java.lang.Math.min(result, this.sketch[MemoryTreasuryDirectCache.getSketchIndex(hash, row)]);
+        }
+        return result;
+    }
+
+    private static int getSketchIndex(int hash, int row)
+    {
+        final int rowHash = MemoryTreasuryDirectCache.spread(hash + (row * 0x9E3779B9));
+        return (row * MemoryTreasuryDirectCache.sketchWidth) + (rowHash & (MemoryTreasuryDirectCache.sketchWidth - 1));
+    }
+
+    private static int spread(int hash)
+    {
+        int result = hash * 0x85EBCA6B;
+        result ^= (result >>> 13);
+        result *= 0xC2B2AE35;
+        return result ^ (result >>> 16);
+    }
+}
@@ -1,5 +1,10 @@
 package qub;
 
+/**
+ * A TreasuryDirectSecurity that is backed by a JSONObject. The JSONObject is not copied, so
+ * changes to it are seen by this security. Nothing is cached, so every date is parsed from the
+ * JSONObject's current value when it is requested.
+ */
 public class MutableTreasuryDirectSecurity implements TreasuryDirectSecurity
 {
     private final JSONObject json;
@@ -28,4 +33,16 @@ public class MutableTreasuryDirectSecurity implements TreasuryDirectSecurity
 
         return this.json.getString(propertyName);
     }
+
+    @Override
+    public JSONObject toJson()
+    {
+        return this.json;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.json.toString();
+    }
 }
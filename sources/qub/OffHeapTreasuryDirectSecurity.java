@@ -0,0 +1,142 @@
+package qub;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A flyweight view of a security in an OffHeapTreasuryDirectSecurityStore. The view only holds
+ * its store and the index of its record; every property is read from off-heap memory when it
+ * is requested. The same view can be moved between records with setIndex().
+ */
+public class OffHeapTreasuryDirectSecurity implements TreasuryDirectSecurity
+{
+    private final OffHeapTreasuryDirectSecurityStore store;
+    private int index;
+
+    OffHeapTreasuryDirectSecurity(OffHeapTreasuryDirectSecurityStore store, int index)
+    {
+        PreCondition.assertNotNull(store, "store");
+
+        this.store = store;
+        this.index = index;
+    }
+
+    /**
+     * Get the index of the record that this view is looking at.
+     * @return The index of the record that this view is looking at.
+     */
+    public int getIndex()
+    {
+        return this.index;
+    }
+
+    /**
+     * Move this view to the record at the provided index.
+     * @param index The index of the record to look at.
+     * @return This object for method chaining.
+     */
+    public OffHeapTreasuryDirectSecurity setIndex(int index)
+    {
+        PreCondition.assertBetween(0, index, this.store.getCount() - 1, "index");
+
+        this.index = index;
+
+        return this;
+    }
+
+    @Override
+    public Result<String> getString(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        return Result.create(() ->
+        {
+            final ByteBuffer records = this.store.getRecordChunk(this.index);
+            final int recordOffset = OffHeapTreasuryDirectSecurityStore.getRecordOffset(this.index);
+            final long jsonPosition = records.getLong(recordOffset + OffHeapTreasuryDirectSecurityStore.jsonPositionOffset);
+
+            byte[] bytes;
+            int valueStart;
+            int valueEnd;
+            final int indexedPropertyIndex = OffHeapTreasuryDirectSecurityStore.getIndexedPropertyIndex(propertyName);
+            if (indexedPropertyIndex != -1)
+            {
+                final int rangeOffset = recordOffset + OffHeapTreasuryDirectSecurityStore.valueRangesOffset + (indexedPropertyIndex * 8);
+                final int valueOffset = records.getInt(rangeOffset);
+                if (valueOffset == OffHeapTreasuryDirectSecurityStore.missingValueOffset)
+                {
+                    throw OffHeapTreasuryDirectSecurity.createNotFoundException(propertyName);
+                }
+                final int valueLength = records.getInt(rangeOffset + 4);
+                bytes = this.store.readArena(jsonPosition, valueOffset, valueLength);
+                valueStart = 0;
+                valueEnd = valueLength;
+            }
+            else
+            {
+                final int jsonLength = records.getInt(recordOffset + OffHeapTreasuryDirectSecurityStore.jsonLengthOffset);
+                bytes = this.store.readArena(jsonPosition, 0, jsonLength);
+                final long valueRange = TreasuryDirectJSONScanner.findPropertyValue(bytes, 0, jsonLength, propertyName.getBytes(StandardCharsets.UTF_8));
+                if (valueRange == TreasuryDirectJSONScanner.notFound)
+                {
+                    throw OffHeapTreasuryDirectSecurity.createNotFoundException(propertyName);
+                }
+                valueStart = TreasuryDirectJSONScanner.getRangeStart(valueRange);
+                valueEnd = TreasuryDirectJSONScanner.getRangeEnd(valueRange);
+            }
+            return TreasuryDirectJSONScanner.decodeString(bytes, valueStart, valueEnd);
+        });
+    }
+
+    @Override
+    public int getEpochDay(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        final int epochDayIndex;
+        switch (propertyName)
+        {
+            case TreasuryDirectSecurity.announcementDatePropertyName: epochDayIndex = 0; break;
+            case TreasuryDirectSecurity.auctionDatePropertyName: epochDayIndex = 1; break;
+            case TreasuryDirectSecurity.issueDatePropertyName: epochDayIndex = 2; break;
+            case TreasuryDirectSecurity.maturityDatePropertyName: epochDayIndex = 3; break;
+            default: epochDayIndex = -1; break;
+        }
+
+        return epochDayIndex == -1
+            ? TreasuryDirectSecurity.super.getEpochDay(propertyName)
+            : this.store.getRecordChunk(this.index).getInt(OffHeapTreasuryDirectSecurityStore.getRecordOffset(this.index) + OffHeapTreasuryDirectSecurityStore.epochDaysOffset + (epochDayIndex * 4));
+    }
+
+    @Override
+    public Result<Double> getNumber(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        final int numberIndex = OffHeapTreasuryDirectSecurityStore.getNumberIndex(propertyName);
+        final double number = numberIndex == -1
+            ? Double.NaN
+            : this.store.getRecordChunk(this.index).getDouble(OffHeapTreasuryDirectSecurityStore.getRecordOffset(this.index) + OffHeapTreasuryDirectSecurityStore.numbersOffset + (numberIndex * 8));
+
+        // A missing or unparseable number is stored as NaN, so let the text decide which error
+        // to report.
+        return Double.isNaN(number)
+            ? TreasuryDirectSecurity.super.getNumber(propertyName)
+            : Result.success(number);
+    }
+
+    @Override
+    public String toString()
+    {
+        final ByteBuffer records = this.store.getRecordChunk(this.index);
+        final int recordOffset = OffHeapTreasuryDirectSecurityStore.getRecordOffset(this.index);
+        final long jsonPosition = records.getLong(recordOffset + OffHeapTreasuryDirectSecurityStore.jsonPositionOffset);
+        final int jsonLength = records.getInt(recordOffset + OffHeapTreasuryDirectSecurityStore.jsonLengthOffset);
+        return new String(this.store.readArena(jsonPosition, 0, jsonLength), StandardCharsets.UTF_8);
+    }
+
+    private static NotFoundException createNotFoundException(String propertyName)
+    {
+        return new NotFoundException("Could not find a property named " + Strings.escapeAndQuote(propertyName) + ".");
+    }
+}
@@ -0,0 +1,402 @@
+package qub;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A store that keeps TreasuryDirectSecurity records in direct (off-heap) memory so that large
+ * histories don't add to the garbage collector's work. Each security is written as a fixed-width
+ * record plus its JSON text in a variable-length arena:
+ * <pre>
+ *   record (160 bytes):
+ *     long   arena position of the JSON text (chunk index in the upper 32 bits)
+ *     int    length of the JSON text
+ *     int    announcement, auction, issue, and maturity epoch days (4 ints)
+ *     int    offset and int length of each indexed property's value within the JSON text
+ *     double high discount rate, high investment rate, high yield, and interest rate (NaN if
+ *            missing or not a number)
+ * </pre>
+ * Securities are read back through OffHeapTreasuryDirectSecurity flyweights that decode their
+ * properties straight out of off-heap memory. Records can only be appended, and reads are safe
+ * from any thread while another thread appends. Securities are also indexed on-heap by their
+ * packed TreasuryDirectCusip security key so that indexOf() can find them without allocating.
+ */
+public class OffHeapTreasuryDirectSecurityStore implements AutoCloseable
+{
+    /**
+     * The properties whose value ranges are stored in each record so that they can be read
+     * without scanning the JSON text.
+     */
+    static final String[] indexedPropertyNames =
+    {
+        TreasuryDirectSecurity.announcementDatePropertyName,
+        TreasuryDirectSecurity.auctionDatePropertyName,
+        TreasuryDirectSecurity.auctionDateYearPropertyName,
+        TreasuryDirectSecurity.cusipPropertyName,
+        TreasuryDirectSecurity.highDiscountRatePropertyName,
+        TreasuryDirectSecurity.highInvestmentRatePropertyName,
+        TreasuryDirectSecurity.highYieldPropertyName,
+        TreasuryDirectSecurity.interestRatePropertyName,
+        TreasuryDirectSecurity.issueDatePropertyName,
+        TreasuryDirectSecurity.maturityDatePropertyName,
+        TreasuryDirectSecurity.securityTypePropertyName,
+        TreasuryDirectSecurity.securityTermPropertyName,
+    };
+    private static final byte[][] indexedPropertyNameBytes = OffHeapTreasuryDirectSecurityStore.encodePropertyNames();
+
+    /**
+     * The numeric properties that are parsed when a security is added and stored in each record
+     * as doubles, so that they can be read without decoding or parsing any text.
+     */
+    static final String[] numberPropertyNames =
+    {
+        TreasuryDirectSecurity.highDiscountRatePropertyName,
+        TreasuryDirectSecurity.highInvestmentRatePropertyName,
+        TreasuryDirectSecurity.highYieldPropertyName,
+        TreasuryDirectSecurity.interestRatePropertyName,
+    };
+    private static final int[] indexedPropertyNumberIndexes = OffHeapTreasuryDirectSecurityStore.getIndexedPropertyNumberIndexes();
+
+    static final int recordByteCount = 160;
+    static final int jsonPositionOffset = 0;
+    static final int jsonLengthOffset = 8;
+    static final int epochDaysOffset = 12;
+    static final int valueRangesOffset = 28;
+    static final int numbersOffset = 128;
+    private static final int recordsPerChunkShift = 15;
+    private static final int recordsPerChunk = 1 << OffHeapTreasuryDirectSecurityStore.recordsPerChunkShift;
+
+    /**
+     * The value offset that is stored for an indexed property that the security doesn't have.
+     */
+    static final int missingValueOffset = -1;
+
+    private final int arenaChunkByteCount;
+    private final TreasuryDirectLongIntMap securityIndexes;
+    private volatile ByteBuffer[] recordChunks;
+    private volatile ByteBuffer[] arenaChunks;
+    private volatile int count;
+    private volatile boolean closed;
+    private int arenaChunkPosition;
+    private long offHeapByteCount;
+
+    private OffHeapTreasuryDirectSecurityStore(int arenaChunkByteCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(arenaChunkByteCount, 4096, "arenaChunkByteCount");
+
+        this.arenaChunkByteCount = arenaChunkByteCount;
+        this.recordChunks = new ByteBuffer[0];
+        this.arenaChunks = new ByteBuffer[0];
+        this.securityIndexes = TreasuryDirectLongIntMap.create();
+    }
+
+    /**
+     * Create a new empty OffHeapTreasuryDirectSecurityStore that allocates its string arena in
+     * 16 megabyte chunks.
+     * @return The new OffHeapTreasuryDirectSecurityStore.
+     */
+    public static OffHeapTreasuryDirectSecurityStore create()
+    {
+        return OffHeapTreasuryDirectSecurityStore.create(16 * 1024 * 1024);
+    }
+
+    /**
+     * Create a new empty OffHeapTreasuryDirectSecurityStore.
+     * @param arenaChunkByteCount The number of bytes in each chunk of the string arena. A
+     *                            security whose JSON text is larger than this gets a chunk of its
+     *                            own.
+     * @return The new OffHeapTreasuryDirectSecurityStore.
+     */
+    public static OffHeapTreasuryDirectSecurityStore create(int arenaChunkByteCount)
+    {
+        return new OffHeapTreasuryDirectSecurityStore(arenaChunkByteCount);
+    }
+
+    /**
+     * Get the number of securities in this store.
+     * @return The number of securities in this store.
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Get whether or not this store has been closed.
+     * @return Whether or not this store has been closed.
+     */
+    public boolean isClosed()
+    {
+        return this.closed;
+    }
+
+    /**
+     * Get the number of bytes of direct memory that this store has allocated and not yet
+     * released.
+     * @return The number of bytes of direct memory that this store holds.
+     */
+    public synchronized long getOffHeapByteCount()
+    {
+        return this.offHeapByteCount;
+    }
+
+    /**
+     * Add the provided security to this store.
+     * @param security The security to add.
+     * @return The index of the added security.
+     */
+    public synchronized int add(TreasuryDirectSecurity security)
+    {
+        PreCondition.assertNotNull(security, "security");
+        PreCondition.assertFalse(this.isClosed(), "this.isClosed()");
+
+        final byte[] jsonBytes = security.toString().getBytes(StandardCharsets.UTF_8);
+        final long jsonPosition = this.writeArena(jsonBytes);
+
+        final int index = this.count;
+        final int chunkIndex = index >>> OffHeapTreasuryDirectSecurityStore.recordsPerChunkShift;
+        if (chunkIndex == this.recordChunks.length)
+        {
+            final ByteBuffer[] recordChunks = java.util.Arrays.copyOf(this.recordChunks, chunkIndex + 1);
+            recordChunks[chunkIndex] = this.allocate(OffHeapTreasuryDirectSecurityStore.recordsPerChunk * OffHeapTreasuryDirectSecurityStore.recordByteCount);
+            this.recordChunks = recordChunks;
+        }
+
+        final ByteBuffer records = this.recordChunks[chunkIndex];
+        final int recordOffset = (index & (OffHeapTreasuryDirectSecurityStore.recordsPerChunk - 1)) * OffHeapTreasuryDirectSecurityStore.recordByteCount;
+        records.putLong(recordOffset + OffHeapTreasuryDirectSecurityStore.jsonPositionOffset, jsonPosition);
+        records.putInt(recordOffset + OffHeapTreasuryDirectSecurityStore.jsonLengthOffset, jsonBytes.length);
+        records.putInt(recordOffset + OffHeapTreasuryDirectSecurityStore.epochDaysOffset, security.getAnnouncementEpochDay());
+        records.putInt(recordOffset + OffHeapTreasuryDirectSecurityStore.epochDaysOffset + 4, security.getAuctionEpochDay());
+        records.putInt(recordOffset + OffHeapTreasuryDirectSecurityStore.epochDaysOffset + 8, security.getIssueEpochDay());
+        records.putInt(recordOffset + OffHeapTreasuryDirectSecurityStore.epochDaysOffset + 12, security.getMaturityEpochDay());
+
+        final byte[][] propertyNames = OffHeapTreasuryDirectSecurityStore.indexedPropertyNameBytes;
+        for (int i = 0; i < propertyNames.length; ++i)
+        {
+            final long valueRange = TreasuryDirectJSONScanner.findPropertyValue(jsonBytes, 0, jsonBytes.length, propertyNames[i]);
+            final int rangeOffset = recordOffset + OffHeapTreasuryDirectSecurityStore.valueRangesOffset + (i * 8);
+            final int numberIndex = OffHeapTreasuryDirectSecurityStore.indexedPropertyNumberIndexes[i];
+            double number = Double.NaN;
+            if (valueRange == TreasuryDirectJSONScanner.notFound)
+            {
+                records.putInt(rangeOffset, OffHeapTreasuryDirectSecurityStore.missingValueOffset);
+                records.putInt(rangeOffset + 4, 0);
+            }
+            else
+            {
+                final int valueStart = TreasuryDirectJSONScanner.getRangeStart(valueRange);
+                final int valueEnd = TreasuryDirectJSONScanner.getRangeEnd(valueRange);
+                records.putInt(rangeOffset, valueStart);
+                records.putInt(rangeOffset + 4, valueEnd - valueStart);
+                if (numberIndex != -1)
+                {
+                    number = TreasuryDirectSecurityColumns.parseDouble(TreasuryDirectJSONScanner.decodeString(jsonBytes, valueStart, valueEnd));
+                }
+            }
+
+            if (numberIndex != -1)
+            {
+                records.putDouble(recordOffset + OffHeapTreasuryDirectSecurityStore.numbersOffset + (numberIndex * 8), number);
+            }
+        }
+
+        final long securityKey = TreasuryDirectCusip.getSecurityKey(security);
+        if (securityKey != TreasuryDirectCusip.invalid)
+        {
+            this.securityIndexes.set(securityKey, index);
+        }
+
+        // Publishing the new count is what makes the record visible to readers on other threads.
+        this.count = index + 1;
+
+        return index;
+    }
+
+    /**
+     * Add each of the provided securities to this store.
+     * @param securities The securities to add.
+     * @return This object for method chaining.
+     */
+    public OffHeapTreasuryDirectSecurityStore addAll(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        for (final TreasuryDirectSecurity security : securities)
+        {
+            this.add(security);
+        }
+
+        return this;
+    }
+
+    /**
+     * Get a flyweight view of the security at the provided index.
+     * @param index The index of the security.
+     * @return A flyweight view of the security at the provided index.
+     */
+    public OffHeapTreasuryDirectSecurity get(int index)
+    {
+        PreCondition.assertFalse(this.isClosed(), "this.isClosed()");
+        PreCondition.assertBetween(0, index, this.getCount() - 1, "index");
+
+        return new OffHeapTreasuryDirectSecurity(this, index);
+    }
+
+    /**
+     * Get the index of the most recently added security with the provided CUSIP and issue date.
+     * Securities whose CUSIP doesn't have a valid check digit aren't indexed.
+     * @param cusip The CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @return The index of the security, or -1 if it isn't in this store.
+     */
+    public synchronized int indexOf(String cusip, int issueEpochDay)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+        PreCondition.assertFalse(this.isClosed(), "this.isClosed()");
+
+        final long securityKey = TreasuryDirectCusip.getSecurityKey(cusip, issueEpochDay);
+        return securityKey == TreasuryDirectCusip.invalid
+            ? -1
+            : this.securityIndexes.get(securityKey, -1);
+    }
+
+    /**
+     * Invoke the provided action with a view of each security in this store, in the order that
+     * they were added. The same flyweight is moved from security to security, so the action must
+     * not hold on to it after it returns.
+     * @param action The action to invoke for each security.
+     */
+    public void forEach(Action1<OffHeapTreasuryDirectSecurity> action)
+    {
+        PreCondition.assertNotNull(action, "action");
+        PreCondition.assertFalse(this.isClosed(), "this.isClosed()");
+
+        final int count = this.getCount();
+        if (count > 0)
+        {
+            final OffHeapTreasuryDirectSecurity security = new OffHeapTreasuryDirectSecurity(this, 0);
+            for (int index = 0; index < count; ++index)
+            {
+                action.run(security.setIndex(index));
+            }
+        }
+    }
+
+    /**
+     * Drop this store's references to its direct memory. Direct buffers can't be freed
+     * explicitly, so the memory stays allocated until the garbage collector reclaims the
+     * buffers. This store can't be added to or read from after it is closed, and views that were
+     * created before it was closed must not be used afterwards.
+     */
+    @Override
+    public synchronized void close()
+    {
+        this.closed = true;
+        this.count = 0;
+        this.recordChunks = new ByteBuffer[0];
+        this.arenaChunks = new ByteBuffer[0];
+        this.arenaChunkPosition = 0;
+        this.offHeapByteCount = 0;
+        this.securityIndexes.clear();
+    }
+
+    ByteBuffer getRecordChunk(int index)
+    {
+        return this.recordChunks[index >>> OffHeapTreasuryDirectSecurityStore.recordsPerChunkShift];
+    }
+
+    static int getRecordOffset(int index)
+    {
+        return (index & (OffHeapTreasuryDirectSecurityStore.recordsPerChunk - 1)) * OffHeapTreasuryDirectSecurityStore.recordByteCount;
+    }
+
+    /**
+     * Copy bytes out of the string arena.
+     * @param position The arena position of the JSON text that contains the bytes.
+     * @param offset The offset of the bytes within the JSON text.
+     * @param length The number of bytes to copy.
+     * @return The copied bytes.
+     */
+    byte[] readArena(long position, int offset, int length)
+    {
+        final ByteBuffer chunk = this.arenaChunks[(int)(position >>> 32)];
+        final byte[] result = new byte[length];
+        chunk.get((int)position + offset, result, 0, length);
+        return result;
+    }
+
+    /**
+     * Get the index of the provided property in the record's number columns.
+     * @param propertyName The name of the property.
+     * @return The index of the property's number column, or -1 if it doesn't have one.
+     */
+    static int getNumberIndex(String propertyName)
+    {
+        final int indexedPropertyIndex = OffHeapTreasuryDirectSecurityStore.getIndexedPropertyIndex(propertyName);
+        return indexedPropertyIndex == -1 ? -1 : OffHeapTreasuryDirectSecurityStore.indexedPropertyNumberIndexes[indexedPropertyIndex];
+    }
+
+    static int getIndexedPropertyIndex(String propertyName)
+    {
+        int result = -1;
+        final String[] propertyNames = OffHeapTreasuryDirectSecurityStore.indexedPropertyNames;
+        for (int i = 0; i < propertyNames.length; ++i)
+        {
+            if (propertyNames[i].equals(propertyName))
+            {
+                result = i;
+                break;
+            }
+        }
+        return result;
+    }
+
+    private long writeArena(byte[] bytes)
+    {
+        int chunkIndex = this.arenaChunks.length - 1;
+        if (chunkIndex < 0 || this.arenaChunkPosition + bytes.length > this.arenaChunks[chunkIndex].capacity())
+        {
+            chunkIndex = this.arenaChunks.length;
+            final ByteBuffer[] arenaChunks = java.util.Arrays.copyOf(this.arenaChunks, chunkIndex + 1);
+            arenaChunks[chunkIndex] = this.allocate(java.lang.Math.max(this.arenaChunkByteCount, bytes.length));
+            this.arenaChunks = arenaChunks;
+            this.arenaChunkPosition = 0;
+        }
+
+        final int offset = this.arenaChunkPosition;
+        this.arenaChunks[chunkIndex].put(offset, bytes);
+        this.arenaChunkPosition += bytes.length;
+
+        return ((long)chunkIndex << 32) | offset;
+    }
+
+    private ByteBuffer allocate(int byteCount)
+    {
+        final ByteBuffer result = ByteBuffer.allocateDirect(byteCount);
+        this.offHeapByteCount += byteCount;
+        return result;
+    }
+
+    private static int[] getIndexedPropertyNumberIndexes()
+    {
+        final String[] propertyNames = OffHeapTreasuryDirectSecurityStore.indexedPropertyNames;
+        final int[] result = new int[propertyNames.length];
+        for (int i = 0; i < propertyNames.length; ++i)
+        {
+            result[i] = java.util.Arrays.asList(OffHeapTreasuryDirectSecurityStore.numberPropertyNames).indexOf(propertyNames[i]);
+        }
+        return result;
+    }
+
+    private static byte[][] encodePropertyNames()
+    {
+        final String[] propertyNames = OffHeapTreasuryDirectSecurityStore.indexedPropertyNames;
+        final byte[][] result = new byte[propertyNames.length][];
+        for (int i = 0; i < propertyNames.length; ++i)
+        {
+            result[i] = propertyNames[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,244 @@
+package qub;
+
+/**
+ * A TreasuryDirectCache that is partitioned across the nodes of a cluster instead of being
+ * duplicated in every node. Each key has one owner node that is chosen by a
+ * TreasuryDirectHashRing, so every node agrees on the owner without any coordination. Keys that
+ * this node owns are served from its local cache, and all other keys are read from and written
+ * to their owner (usually through a RemoteTreasuryDirectCache). When a node joins or leaves, only
+ * the keys whose owner changed move, and those are simply re-fetched by the next caller that
+ * misses. A peer that can't be reached is treated as a miss on reads and is skipped on writes, so
+ * a node going down degrades to fetching from TreasuryDirect instead of failing requests.
+ */
+public class PartitionedTreasuryDirectCache implements TreasuryDirectCache
+{
+    private final String localNodeId;
+    private final TreasuryDirectCache localCache;
+    private final TreasuryDirectHashRing ring;
+    private final java.util.concurrent.ConcurrentHashMap<String,TreasuryDirectCache> peers;
+    private final TreasuryDirectCacheMetrics metrics;
+    private final java.util.concurrent.atomic.AtomicLong remoteRequestCount;
+    private final java.util.concurrent.atomic.AtomicLong remoteFailureCount;
+
+    private PartitionedTreasuryDirectCache(String localNodeId, TreasuryDirectCache localCache, TreasuryDirectHashRing ring)
+    {
+        PreCondition.assertNotNullAndNotEmpty(localNodeId, "localNodeId");
+        PreCondition.assertNotNull(localCache, "localCache");
+        PreCondition.assertNotNull(ring, "ring");
+
+        this.localNodeId = localNodeId;
+        this.localCache = localCache;
+        this.ring = ring;
+        this.peers = new java.util.concurrent.ConcurrentHashMap<>();
+        this.metrics = TreasuryDirectCacheMetrics.create();
+        this.remoteRequestCount = new java.util.concurrent.atomic.AtomicLong();
+        this.remoteFailureCount = new java.util.concurrent.atomic.AtomicLong();
+
+        this.ring.addNode(localNodeId);
+    }
+
+    /**
+     * Create a new PartitionedTreasuryDirectCache that doesn't know about any other nodes yet.
+     * @param localNodeId The id of this node. Every node must use the same id for this node.
+     * @param localCache The cache that holds the keys that this node owns.
+     * @return The new PartitionedTreasuryDirectCache.
+     */
+    public static PartitionedTreasuryDirectCache create(String localNodeId, TreasuryDirectCache localCache)
+    {
+        return PartitionedTreasuryDirectCache.create(localNodeId, localCache, TreasuryDirectHashRing.create());
+    }
+
+    /**
+     * Create a new PartitionedTreasuryDirectCache that doesn't know about any other nodes yet.
+     * @param localNodeId The id of this node. Every node must use the same id for this node.
+     * @param localCache The cache that holds the keys that this node owns.
+     * @param ring The hash ring that chooses each key's owner. Every node must use the same
+     *             number of virtual nodes.
+     * @return The new PartitionedTreasuryDirectCache.
+     */
+    public static PartitionedTreasuryDirectCache create(String localNodeId, TreasuryDirectCache localCache, TreasuryDirectHashRing ring)
+    {
+        return new PartitionedTreasuryDirectCache(localNodeId, localCache, ring);
+    }
+
+    public String getLocalNodeId()
+    {
+        return this.localNodeId;
+    }
+
+    /**
+     * Get the cache that holds the keys that this node owns.
+     * @return The cache that holds the keys that this node owns.
+     */
+    public TreasuryDirectCache getLocalCache()
+    {
+        return this.localCache;
+    }
+
+    /**
+     * Add the node with the provided id to the cluster, or replace the cache that is used to
+     * reach it.
+     * @param nodeId The id of the node.
+     * @param cache The cache that reads and writes the node's local cache, such as a
+     *              RemoteTreasuryDirectCache.
+     * @return This object for method chaining.
+     */
+    public PartitionedTreasuryDirectCache addNode(String nodeId, TreasuryDirectCache cache)
+    {
+        PreCondition.assertNotNullAndNotEmpty(nodeId, "nodeId");
+        PreCondition.assertNotEqual(this.localNodeId, nodeId, "nodeId");
+        PreCondition.assertNotNull(cache, "cache");
+
+        this.peers.put(nodeId, cache);
+        this.ring.addNode(nodeId);
+
+        return this;
+    }
+
+    /**
+     * Remove the node with the provided id from the cluster. The keys that it owned are taken
+     * over by the next nodes on the ring.
+     * @param nodeId The id of the node.
+     * @return This object for method chaining.
+     */
+    public PartitionedTreasuryDirectCache removeNode(String nodeId)
+    {
+        PreCondition.assertNotNullAndNotEmpty(nodeId, "nodeId");
+        PreCondition.assertNotEqual(this.localNodeId, nodeId, "nodeId");
+
+        this.ring.removeNode(nodeId);
+        this.peers.remove(nodeId);
+
+        return this;
+    }
+
+    /**
+     * Get the id of the node that owns the provided key.
+     * @param key The key.
+     * @return The id of the node that owns the provided key.
+     */
+    public String getOwner(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        return this.ring.getOwner(key);
+    }
+
+    /**
+     * Get the number of requests that have been sent to other nodes.
+     * @return The number of requests that have been sent to other nodes.
+     */
+    public long getRemoteRequestCount()
+    {
+        return this.remoteRequestCount.get();
+    }
+
+    /**
+     * Get the number of requests to other nodes that failed.
+     * @return The number of requests to other nodes that failed.
+     */
+    public long getRemoteFailureCount()
+    {
+        return this.remoteFailureCount.get();
+    }
+
+    @Override
+    public TreasuryDirectCacheEntry get(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        TreasuryDirectCacheEntry result = null;
+        final TreasuryDirectCache owner = this.getOwnerCache(key);
+        if (owner == this.localCache)
+        {
+            result = this.localCache.get(key);
+        }
+        else if (owner != null)
+        {
+            this.remoteRequestCount.incrementAndGet();
+            try
+            {
+                result = owner.get(key);
+            }
+            catch (RuntimeException e)
+            {
+                this.remoteFailureCount.incrementAndGet();
+            }
+        }
+
+        if (result != null)
+        {
+            this.metrics.recordHit();
+        }
+        else
+        {
+            this.metrics.recordMiss();
+        }
+        return result;
+    }
+
+    @Override
+    public void put(String key, TreasuryDirectCacheEntry entry)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+        PreCondition.assertNotNull(entry, "entry");
+
+        this.run(key, (TreasuryDirectCache owner) -> owner.put(key, entry));
+    }
+
+    @Override
+    public void remove(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        this.run(key, (TreasuryDirectCache owner) -> owner.remove(key));
+    }
+
+    /**
+     * Get the number of entries that this node owns. The entries of the other nodes aren't
+     * included.
+     * @return The number of entries that this node owns.
+     */
+    @Override
+    public int getCount()
+    {
+        return this.localCache.getCount();
+    }
+
+    @Override
+    public TreasuryDirectCacheMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+
+    /**
+     * Get the cache of the node that owns the provided key.
+     * @return The owner's cache, or null if the owner was removed while the ring was being read.
+     */
+    private TreasuryDirectCache getOwnerCache(String key)
+    {
+        final String ownerId = this.ring.getOwner(key);
+        return ownerId.equals(this.localNodeId) ? this.localCache : this.peers.get(ownerId);
+    }
+
+    private void run(String key, Action1<TreasuryDirectCache> action)
+    {
+        final TreasuryDirectCache owner = this.getOwnerCache(key);
+        if (owner == this.localCache)
+        {
+            action.run(this.localCache);
+        }
+        else if (owner != null)
+        {
+            this.remoteRequestCount.incrementAndGet();
+            try
+            {
+                action.run(owner);
+            }
+            catch (RuntimeException e)
+            {
+                this.remoteFailureCount.incrementAndGet();
+            }
+        }
+    }
+}
@@ -2,21 +2,26 @@ package qub;
 
 /**
  * A real implementation of the TreasuryDirect interface that makes HTTP requests to
- * treasurydirect.gov.
+ * treasurydirect.gov through a TreasuryDirectTransport. Closing a RealTreasuryDirect shuts down
+ * the default executor that its asynchronous methods created, if any.
  */
-public class RealTreasuryDirect implements TreasuryDirect
+public class RealTreasuryDirect implements TreasuryDirect, AutoCloseable
 {
     private static final String defaultBaseUrl = "https://www.treasurydirect.gov/TA_WS/";
 
-    private final HttpClient httpClient;
+    private final TreasuryDirectTransport transport;
     private final String baseUrl;
+    private boolean lazyDecoding;
+    private TreasuryDirectStringDictionary stringDictionary;
+    private TreasuryDirectExecutor executor;
+    private boolean ownsExecutor;
 
-    private RealTreasuryDirect(HttpClient httpClient, String baseUrl)
+    private RealTreasuryDirect(TreasuryDirectTransport transport, String baseUrl)
     {
-        PreCondition.assertNotNull(httpClient, "httpClient");
+        PreCondition.assertNotNull(transport, "transport");
         PreCondition.assertNotNullAndNotEmpty(baseUrl, "baseUrl");
 
-        this.httpClient = httpClient;
+        this.transport = transport;
         this.baseUrl = baseUrl;
     }
 
@@ -27,7 +32,177 @@ public class RealTreasuryDirect implements TreasuryDirect
 
     public static RealTreasuryDirect create(HttpClient httpClient, String baseUrl)
     {
-        return new RealTreasuryDirect(httpClient, baseUrl);
+        PreCondition.assertNotNull(httpClient, "httpClient");
+
+        return RealTreasuryDirect.createWithTransport(TreasuryDirectTransport.create(httpClient), baseUrl);
+    }
+
+    /**
+     * Create a new RealTreasuryDirect that sends its requests through the provided transport.
+     * @param transport The transport to send requests through.
+     * @return The new RealTreasuryDirect.
+     */
+    public static RealTreasuryDirect createWithTransport(TreasuryDirectTransport transport)
+    {
+        return RealTreasuryDirect.createWithTransport(transport, RealTreasuryDirect.defaultBaseUrl);
+    }
+
+    /**
+     * Create a new RealTreasuryDirect that sends its requests through the provided transport.
+     * @param transport The transport to send requests through.
+     * @param baseUrl The URL that the TA_WS request paths are appended to.
+     * @return The new RealTreasuryDirect.
+     */
+    public static RealTreasuryDirect createWithTransport(TreasuryDirectTransport transport, String baseUrl)
+    {
+        return new RealTreasuryDirect(transport, baseUrl);
+    }
+
+    /**
+     * Get the transport that this RealTreasuryDirect sends its requests through.
+     * @return The transport that this RealTreasuryDirect sends its requests through.
+     */
+    public TreasuryDirectTransport getTransport()
+    {
+        return this.transport;
+    }
+
+    /**
+     * Set whether or not the securities in list responses will be decoded lazily. When lazy
+     * decoding is enabled, each response body is kept as bytes and each security only decodes
+     * the properties that are requested from it.
+     * @param lazyDecoding Whether or not the securities in list responses will be decoded lazily.
+     * @return This object for method chaining.
+     */
+    public RealTreasuryDirect setLazyDecoding(boolean lazyDecoding)
+    {
+        this.lazyDecoding = lazyDecoding;
+
+        return this;
+    }
+
+    /**
+     * Get whether or not the securities in list responses will be decoded lazily.
+     * @return Whether or not the securities in list responses will be decoded lazily.
+     */
+    public boolean getLazyDecoding()
+    {
+        return this.lazyDecoding;
+    }
+
+    /**
+     * Set the dictionary that the property names and low-cardinality property values of the
+     * securities in list responses will be interned through. When a dictionary is set, the
+     * securities in list responses are DictionaryTreasuryDirectSecurity objects, and lazy
+     * decoding is ignored.
+     * @param stringDictionary The dictionary to intern through, or null to stop interning.
+     * @return This object for method chaining.
+     */
+    public RealTreasuryDirect setStringDictionary(TreasuryDirectStringDictionary stringDictionary)
+    {
+        this.stringDictionary = stringDictionary;
+
+        return this;
+    }
+
+    /**
+     * Get the dictionary that the securities in list responses will be interned through.
+     * @return The dictionary that the securities in list responses will be interned through, or
+     * null if securities aren't interned.
+     */
+    public TreasuryDirectStringDictionary getStringDictionary()
+    {
+        return this.stringDictionary;
+    }
+
+    /**
+     * Set the executor that the asynchronous methods of this RealTreasuryDirect will run their
+     * requests on. The provided executor is not closed when this RealTreasuryDirect is closed,
+     * but a default executor that was created before this call is.
+     * @param executor The executor that asynchronous requests will run on.
+     * @return This object for method chaining.
+     */
+    public synchronized RealTreasuryDirect setExecutor(TreasuryDirectExecutor executor)
+    {
+        PreCondition.assertNotNull(executor, "executor");
+
+        this.closeDefaultExecutor();
+        this.executor = executor;
+
+        return this;
+    }
+
+    /**
+     * Get the executor that the asynchronous methods of this RealTreasuryDirect run their
+     * requests on. If no executor has been set, then a virtual thread executor that allows 256
+     * concurrent requests will be created, and will be shut down when this RealTreasuryDirect is
+     * closed.
+     * @return The executor that asynchronous requests run on.
+     */
+    public synchronized TreasuryDirectExecutor getExecutor()
+    {
+        if (this.executor == null)
+        {
+            this.executor = TreasuryDirectExecutor.createVirtual(256);
+            this.ownsExecutor = true;
+        }
+        return this.executor;
+    }
+
+    /**
+     * Shut down the default executor if the asynchronous methods of this RealTreasuryDirect
+     * created one. Requests that have already been submitted to it will still run, and a later
+     * asynchronous request will create a new default executor. The synchronous methods are not
+     * affected.
+     */
+    @Override
+    public synchronized void close()
+    {
+        this.closeDefaultExecutor();
+    }
+
+    private void closeDefaultExecutor()
+    {
+        if (this.ownsExecutor)
+        {
+            this.executor.close();
+            this.executor = null;
+            this.ownsExecutor = false;
+        }
+    }
+
+    /**
+     * Get the security with the provided CUSIP and issue date on this RealTreasuryDirect's
+     * executor.
+     * @param cusip The CUSIP of the security.
+     * @param issueDate The issue date of the security.
+     * @return A future that completes with the security.
+     */
+    public java.util.concurrent.CompletableFuture<TreasuryDirectSecurity> getSecurityAsync(String cusip, Date issueDate)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+        PreCondition.assertNotNull(issueDate, "issueDate");
+
+        return this.getExecutor().submit(() -> this.getSecurity(cusip, issueDate));
+    }
+
+    /**
+     * Get the security with the provided CUSIP and issue date on this RealTreasuryDirect's
+     * executor.
+     * @param cusip The CUSIP of the security.
+     * @param issueMonth The month that the security was issued in.
+     * @param issueDayOfMonth The day of the month that the security was issued on.
+     * @param issueYear The year that the security was issued in.
+     * @return A future that completes with the security.
+     */
+    public java.util.concurrent.CompletableFuture<TreasuryDirectSecurity> getSecurityAsync(String cusip, String issueMonth, String issueDayOfMonth, String issueYear)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+        PreCondition.assertNotNullAndNotEmpty(issueMonth, "issueMonth");
+        PreCondition.assertNotNullAndNotEmpty(issueDayOfMonth, "issueDayOfMonth");
+        PreCondition.assertNotNullAndNotEmpty(issueYear, "issueYear");
+
+        return this.getExecutor().submit(() -> this.getSecurity(cusip, issueMonth, issueDayOfMonth, issueYear));
     }
 
     @Override
@@ -43,19 +218,15 @@ public class RealTreasuryDirect implements TreasuryDirect
             final MutableURL url = URL.parse(this.baseUrl + "securities/" + cusip + "/" + issueMonth + "/" + issueDayOfMonth + "/" + issueYear).await()
                 .setQueryParameter("format", "json");
 
-            TreasuryDirectSecurity result;
-            try (final HttpResponse response = this.httpClient.get(url).await())
+            final byte[] responseBody = this.transport.get(url).await();
+            if (RealTreasuryDirect.isNoData(responseBody))
             {
-                final String responseBody = CharacterReadStream.create(response.getBody()).readEntireString().await();
-                if (responseBody.equalsIgnoreCase("No data"))
-                {
-                    throw new NotFoundException("No TreasuryDirect security found for CUSIP: " + cusip + ", IssueMonth: " + issueMonth + ", IssueDayOfMonth: " + issueDayOfMonth + ", and IssueYear: " + issueYear + ".");
-                }
-
-                final JSONObject responseBodyObject = JSON.parseObject(responseBody).await();
-                result = MutableTreasuryDirectSecurity.create(responseBodyObject);
+                throw new NotFoundException("No TreasuryDirect security found for CUSIP: " + cusip + ", IssueMonth: " + issueMonth + ", IssueDayOfMonth: " + issueDayOfMonth + ", and IssueYear: " + issueYear + ".");
             }
 
+            final JSONObject responseBodyObject = JSON.parseObject(new String(responseBody, java.nio.charset.StandardCharsets.UTF_8)).await();
+            final TreasuryDirectSecurity result = MutableTreasuryDirectSecurity.create(responseBodyObject);
+
             PostCondition.assertNotNull(result, "result");
 
             return result;
@@ -67,117 +238,190 @@ public class RealTreasuryDirect implements TreasuryDirect
     {
         PreCondition.assertNotNull(options, "options");
 
-        return Result.create(() ->
-        {
-            final MutableURL url = URL.parse(this.baseUrl + "securities/announced").await()
-                .setQueryParameter("format", "json");
+        return this.getSecurities(() -> this.createAnnouncedSecuritiesUrl(options));
+    }
 
-            final Integer pageSize = options.getPageSize();
-            if (pageSize != null)
-            {
-                url.setQueryParameter("pagesize", pageSize.toString());
-            }
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> getAuctionedSecurities(GetAuctionedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
 
-            final TreasuryDirectSecurityType type = options.getType();
-            if (type != null)
-            {
-                url.setQueryParameter("type", type.toString());
-            }
+        return this.getSecurities(() -> this.createAuctionedSecuritiesUrl(options));
+    }
 
-            final Integer days = options.getDays();
-            if (days != null)
-            {
-                url.setQueryParameter("days", days.toString());
-            }
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> getSecuritiesByType(TreasuryDirectSecurityType type)
+    {
+        PreCondition.assertNotNull(type, "type");
 
-            final Boolean reopening = options.getReopening();
-            if (reopening != null)
-            {
-                url.setQueryParameter("reopening", reopening ? "Yes" : "No");
-            }
+        return this.getSecurities(() -> this.createSecuritiesByTypeUrl(type));
+    }
 
-            final Iterable<TreasuryDirectSecurity> result;
-            try (final HttpResponse response = this.httpClient.get(url).await())
-            {
-                final JSONArray responseBodyArray = JSON.parseArray(response.getBody()).await();
-                result = responseBodyArray
-                    .instanceOf(JSONObject.class)
-                    .map(MutableTreasuryDirectSecurity::create);
-            }
+    @Override
+    public Result<Iterable<TreasuryDirectSecurity>> searchSecurities(SearchSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
 
-            PostCondition.assertNotNull(result, "result");
+        return this.getSecurities(() -> this.createSearchSecuritiesUrl(options));
+    }
 
-            return result;
-        });
+    @Override
+    public TreasuryDirectSecurityPublisher publishAnnouncedSecurities(GetAnnouncedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return this.publishSecurities(() -> this.createAnnouncedSecuritiesUrl(options));
     }
 
     @Override
-    public Result<Iterable<TreasuryDirectSecurity>> getAuctionedSecurities(GetAuctionedSecuritiesOptions options)
+    public TreasuryDirectSecurityPublisher publishAuctionedSecurities(GetAuctionedSecuritiesOptions options)
     {
         PreCondition.assertNotNull(options, "options");
 
-        return Result.create(() ->
+        return this.publishSecurities(() -> this.createAuctionedSecuritiesUrl(options));
+    }
+
+    @Override
+    public TreasuryDirectSecurityPublisher publishSecuritiesByType(TreasuryDirectSecurityType type)
+    {
+        PreCondition.assertNotNull(type, "type");
+
+        return this.publishSecurities(() -> this.createSecuritiesByTypeUrl(type));
+    }
+
+    @Override
+    public TreasuryDirectSecurityPublisher publishSearchSecurities(SearchSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return this.publishSecurities(() -> this.createSearchSecuritiesUrl(options));
+    }
+
+    /**
+     * Get whether the provided response body is TA_WS's "No data" answer. This compares the raw
+     * bytes so that a miss doesn't have to decode the response into a String first.
+     */
+    static boolean isNoData(byte[] responseBody)
+    {
+        final String noData = "No data";
+        boolean result = responseBody.length == noData.length();
+        for (int i = 0; result && i < responseBody.length; ++i)
         {
-            final MutableURL url = URL.parse(this.baseUrl + "securities/auctioned").await()
-                .setQueryParameter("format", "json");
+            result = Character.toLowerCase((char)responseBody[i]) == Character.toLowerCase(noData.charAt(i));
+        }
+        return result;
+    }
 
-            final Integer pageSize = options.getPageSize();
-            if (pageSize != null)
-            {
-                url.setQueryParameter("pagesize", pageSize.toString());
-            }
+    private MutableURL createAnnouncedSecuritiesUrl(GetAnnouncedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
 
-            final TreasuryDirectSecurityType type = options.getType();
-            if (type != null)
-            {
-                url.setQueryParameter("type", type.toString());
-            }
+        final MutableURL result = URL.parse(this.baseUrl + "securities/announced").await()
+            .setQueryParameter("format", "json");
 
-            final Integer days = options.getDays();
-            if (days != null)
-            {
-                url.setQueryParameter("days", days.toString());
-            }
+        final Integer pageSize = options.getPageSize();
+        if (pageSize != null)
+        {
+            result.setQueryParameter("pagesize", pageSize.toString());
+        }
 
-            final Boolean reopening = options.getReopening();
-            if (reopening != null)
-            {
-                url.setQueryParameter("reopening", reopening ? "Yes" : "No");
-            }
+        final TreasuryDirectSecurityType type = options.getType();
+        if (type != null)
+        {
+            result.setQueryParameter("type", type.toString());
+        }
 
-            final Iterable<TreasuryDirectSecurity> result;
-            try (final HttpResponse response = this.httpClient.get(url).await())
-            {
-                final JSONArray responseBodyArray = JSON.parseArray(response.getBody()).await();
-                result = responseBodyArray
-                    .instanceOf(JSONObject.class)
-                    .map(MutableTreasuryDirectSecurity::create);
-            }
+        final Integer days = options.getDays();
+        if (days != null)
+        {
+            result.setQueryParameter("days", days.toString());
+        }
 
-            PostCondition.assertNotNull(result, "result");
+        final Boolean reopening = options.getReopening();
+        if (reopening != null)
+        {
+            result.setQueryParameter("reopening", reopening ? "Yes" : "No");
+        }
 
-            return result;
-        });
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
     }
 
-    @Override
-    public Result<Iterable<TreasuryDirectSecurity>> getSecuritiesByType(TreasuryDirectSecurityType type)
+    private MutableURL createAuctionedSecuritiesUrl(GetAuctionedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        final MutableURL result = URL.parse(this.baseUrl + "securities/auctioned").await()
+            .setQueryParameter("format", "json");
+
+        final Integer pageSize = options.getPageSize();
+        if (pageSize != null)
+        {
+            result.setQueryParameter("pagesize", pageSize.toString());
+        }
+
+        final TreasuryDirectSecurityType type = options.getType();
+        if (type != null)
+        {
+            result.setQueryParameter("type", type.toString());
+        }
+
+        final Integer days = options.getDays();
+        if (days != null)
+        {
+            result.setQueryParameter("days", days.toString());
+        }
+
+        final Boolean reopening = options.getReopening();
+        if (reopening != null)
+        {
+            result.setQueryParameter("reopening", reopening ? "Yes" : "No");
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    private MutableURL createSecuritiesByTypeUrl(TreasuryDirectSecurityType type)
     {
         PreCondition.assertNotNull(type, "type");
 
+        final MutableURL result = URL.parse(this.baseUrl + "securities/" + type).await()
+            .setQueryParameter("format", "json");
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    private MutableURL createSearchSecuritiesUrl(SearchSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        final MutableURL result = URL.parse(this.baseUrl + "securities/search").await()
+            .setQueryParameter("format", "json");
+
+        for (final MapEntry<String,String> option : options)
+        {
+            result.setQueryParameter(option.getKey(), option.getValue());
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    private Result<Iterable<TreasuryDirectSecurity>> getSecurities(Function0<MutableURL> urlCreator)
+    {
+        PreCondition.assertNotNull(urlCreator, "urlCreator");
+
         return Result.create(() ->
         {
-            final MutableURL url = URL.parse(this.baseUrl + "securities/" + type).await()
-                .setQueryParameter("format", "json");
+            final MutableURL url = urlCreator.run();
 
-            final Iterable<TreasuryDirectSecurity> result;
-            try (final HttpResponse response = this.httpClient.get(url).await())
-            {
-                final JSONArray responseBodyArray = JSON.parseArray(response.getBody()).await();
-                result = responseBodyArray
-                    .instanceOf(JSONObject.class)
-                    .map(MutableTreasuryDirectSecurity::create);
-            }
+            final Iterable<TreasuryDirectSecurity> result = this.parseSecurities(this.transport.get(url).await());
 
             PostCondition.assertNotNull(result, "result");
 
@@ -185,33 +429,57 @@ public class RealTreasuryDirect implements TreasuryDirect
         });
     }
 
-    @Override
-    public Result<Iterable<TreasuryDirectSecurity>> searchSecurities(SearchSecuritiesOptions options)
+    private TreasuryDirectSecurityPublisher publishSecurities(Function0<MutableURL> urlCreator)
     {
-        PreCondition.assertNotNull(options, "options");
+        PreCondition.assertNotNull(urlCreator, "urlCreator");
 
-        return Result.create(() ->
+        return TreasuryDirectSecurityPublisher.fromJSONArray(() -> this.transport.open(urlCreator.run()).await(), this.createDecoder());
+    }
+
+    private Function1<byte[],TreasuryDirectSecurity> createDecoder()
+    {
+        final TreasuryDirectStringDictionary stringDictionary = this.stringDictionary;
+        final boolean lazyDecoding = this.lazyDecoding;
+
+        final Function1<byte[],TreasuryDirectSecurity> result;
+        if (stringDictionary != null)
         {
-            final MutableURL url = URL.parse(this.baseUrl + "securities/search").await()
-                .setQueryParameter("format", "json");
+            result = (byte[] objectBytes) -> DictionaryTreasuryDirectSecurity.create(objectBytes, 0, objectBytes.length, stringDictionary);
+        }
+        else if (lazyDecoding)
+        {
+            result = (byte[] objectBytes) -> LazyTreasuryDirectSecurity.create(objectBytes, 0, objectBytes.length);
+        }
+        else
+        {
+            result = (byte[] objectBytes) -> MutableTreasuryDirectSecurity.create(JSON.parseObject(new String(objectBytes, java.nio.charset.StandardCharsets.UTF_8)).await());
+        }
+        return result;
+    }
 
-            for (final MapEntry<String,String> option : options)
-            {
-                url.setQueryParameter(option.getKey(), option.getValue());
-            }
+    private Iterable<TreasuryDirectSecurity> parseSecurities(byte[] responseBodyBytes)
+    {
+        PreCondition.assertNotNull(responseBodyBytes, "responseBodyBytes");
 
-            final Iterable<TreasuryDirectSecurity> result;
-            try (final HttpResponse response = this.httpClient.get(url).await())
-            {
-                final JSONArray responseBodyArray = JSON.parseArray(response.getBody()).await();
-                result = responseBodyArray
-                    .instanceOf(JSONObject.class)
-                    .map(MutableTreasuryDirectSecurity::create);
-            }
+        final Iterable<TreasuryDirectSecurity> result;
+        if (this.stringDictionary != null)
+        {
+            result = DictionaryTreasuryDirectSecurity.createArray(responseBodyBytes, this.stringDictionary);
+        }
+        else if (this.lazyDecoding)
+        {
+            result = LazyTreasuryDirectSecurity.createArray(responseBodyBytes);
+        }
+        else
+        {
+            final JSONArray responseBodyArray = JSON.parseArray(new String(responseBodyBytes, java.nio.charset.StandardCharsets.UTF_8)).await();
+            result = responseBodyArray
+                .instanceOf(JSONObject.class)
+                .map(MutableTreasuryDirectSecurity::create);
+        }
 
-            PostCondition.assertNotNull(result, "result");
+        PostCondition.assertNotNull(result, "result");
 
-            return result;
-        });
+        return result;
     }
 }
@@ -0,0 +1,133 @@
+package qub;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * A TreasuryDirectTransport that passes every request through to another transport and records
+ * the request URL, the raw response body, and the response time into a TreasuryDirectFixture
+ * archive. The archive isn't complete until this transport is closed.
+ */
+public class RecordingTreasuryDirectTransport implements TreasuryDirectTransport, AutoCloseable
+{
+    private final TreasuryDirectTransport innerTransport;
+    private final DataOutputStream archive;
+    private final long recordingStartNanoseconds;
+    private int fixtureCount;
+    private boolean closed;
+
+    private RecordingTreasuryDirectTransport(TreasuryDirectTransport innerTransport, DataOutputStream archive)
+    {
+        this.innerTransport = innerTransport;
+        this.archive = archive;
+        this.recordingStartNanoseconds = System.nanoTime();
+    }
+
+    /**
+     * Start recording the requests that are sent through the provided transport.
+     * @param innerTransport The transport that requests will be passed through to.
+     * @param archiveFile The file that the fixture archive will be written to. If the file
+     *                    already exists, it will be replaced.
+     * @return The new RecordingTreasuryDirectTransport.
+     */
+    public static Result<RecordingTreasuryDirectTransport> open(TreasuryDirectTransport innerTransport, Path archiveFile)
+    {
+        PreCondition.assertNotNull(innerTransport, "innerTransport");
+        PreCondition.assertNotNull(archiveFile, "archiveFile");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                return new RecordingTreasuryDirectTransport(innerTransport, TreasuryDirectFixture.openArchive(archiveFile));
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Get the number of fixtures that have been recorded.
+     * @return The number of fixtures that have been recorded.
+     */
+    public synchronized int getFixtureCount()
+    {
+        return this.fixtureCount;
+    }
+
+    @Override
+    public Result<byte[]> get(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return Result.create(() ->
+        {
+            final long startNanoseconds = System.nanoTime();
+            final byte[] result = this.innerTransport.get(url).await();
+            this.record(url, result, startNanoseconds, System.nanoTime());
+            return result;
+        });
+    }
+
+    /**
+     * Open the response body of the provided URL. The response body is read completely before
+     * this returns so that it can be recorded.
+     */
+    @Override
+    public Result<InputStream> open(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return Result.create(() ->
+        {
+            return new java.io.ByteArrayInputStream(this.get(url).await());
+        });
+    }
+
+    private synchronized void record(URL url, byte[] responseBody, long startNanoseconds, long endNanoseconds)
+    {
+        if (!this.closed)
+        {
+            final TreasuryDirectFixture fixture = TreasuryDirectFixture.create(
+                url.toString(),
+                responseBody,
+                java.lang.Math.max(0, startNanoseconds - this.recordingStartNanoseconds),
+                java.lang.Math.max(0, endNanoseconds - startNanoseconds));
+            try
+            {
+                fixture.write(this.archive);
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            ++this.fixtureCount;
+        }
+    }
+
+    /**
+     * Finish the fixture archive. Requests that are sent after this is closed are still passed
+     * through, but they are no longer recorded.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if (!this.closed)
+        {
+            this.closed = true;
+            try
+            {
+                this.archive.close();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
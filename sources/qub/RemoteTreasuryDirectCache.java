@@ -0,0 +1,180 @@
+package qub;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * A TreasuryDirectCache that reads and writes the local cache of another node through that
+ * node's TreasuryDirectCacheNode. A request that fails (because the node is down or slow) is
+ * reported as an UncheckedIOException so that the caller can decide whether to treat it as a
+ * miss.
+ */
+public class RemoteTreasuryDirectCache implements TreasuryDirectCache
+{
+    private final String baseUrl;
+    private final java.net.http.HttpClient httpClient;
+    private final TreasuryDirectCacheMetrics metrics;
+    private Duration requestTimeout;
+
+    private RemoteTreasuryDirectCache(String baseUrl, java.net.http.HttpClient httpClient)
+    {
+        PreCondition.assertNotNullAndNotEmpty(baseUrl, "baseUrl");
+        PreCondition.assertNotNull(httpClient, "httpClient");
+
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this.httpClient = httpClient;
+        this.metrics = TreasuryDirectCacheMetrics.create();
+        this.requestTimeout = Duration.ofSeconds(2);
+    }
+
+    /**
+     * Create a new RemoteTreasuryDirectCache that talks to the node at the provided base URL.
+     * @param baseUrl The base URL of the node, such as the one from
+     *                TreasuryDirectCacheNode.getBaseUrl().
+     * @return The new RemoteTreasuryDirectCache.
+     */
+    public static RemoteTreasuryDirectCache create(String baseUrl)
+    {
+        return RemoteTreasuryDirectCache.create(baseUrl, java.net.http.HttpClient.newBuilder()
+            .version(java.net.http.HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build());
+    }
+
+    /**
+     * Create a new RemoteTreasuryDirectCache that talks to the node at the provided base URL
+     * with the provided client.
+     * @param baseUrl The base URL of the node.
+     * @param httpClient The client to send requests with.
+     * @return The new RemoteTreasuryDirectCache.
+     */
+    public static RemoteTreasuryDirectCache create(String baseUrl, java.net.http.HttpClient httpClient)
+    {
+        return new RemoteTreasuryDirectCache(baseUrl, httpClient);
+    }
+
+    /**
+     * Set the amount of time that a request to the node can take before it fails.
+     * @param requestTimeout The amount of time that a request can take before it fails.
+     * @return This object for method chaining.
+     */
+    public RemoteTreasuryDirectCache setRequestTimeout(Duration requestTimeout)
+    {
+        PreCondition.assertNotNull(requestTimeout, "requestTimeout");
+
+        this.requestTimeout = requestTimeout;
+
+        return this;
+    }
+
+    public String getBaseUrl()
+    {
+        return this.baseUrl;
+    }
+
+    @Override
+    public TreasuryDirectCacheEntry get(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        final HttpResponse<byte[]> response = this.send(this.createRequest("entry?key=" + RemoteTreasuryDirectCache.encode(key)).GET());
+
+        TreasuryDirectCacheEntry result = null;
+        if (response.statusCode() == 200)
+        {
+            final long fetchedMilliseconds = response.headers().firstValueAsLong(TreasuryDirectCacheNode.fetchedMillisecondsHeaderName).orElse(0);
+            result = TreasuryDirectCacheEntry.create(response.body(), fetchedMilliseconds);
+            this.metrics.recordHit();
+        }
+        else
+        {
+            RemoteTreasuryDirectCache.assertStatusCode(response, 404);
+            this.metrics.recordMiss();
+        }
+        return result;
+    }
+
+    @Override
+    public void put(String key, TreasuryDirectCacheEntry entry)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+        PreCondition.assertNotNull(entry, "entry");
+
+        RemoteTreasuryDirectCache.assertStatusCode(
+            this.send(this.createRequest("entry?key=" + RemoteTreasuryDirectCache.encode(key))
+                .header(TreasuryDirectCacheNode.fetchedMillisecondsHeaderName, Long.toString(entry.getFetchedMilliseconds()))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(entry.getValue()))),
+            204);
+    }
+
+    @Override
+    public void remove(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        RemoteTreasuryDirectCache.assertStatusCode(
+            this.send(this.createRequest("entry?key=" + RemoteTreasuryDirectCache.encode(key)).DELETE()),
+            204);
+    }
+
+    @Override
+    public int getCount()
+    {
+        final HttpResponse<byte[]> response = this.send(this.createRequest("count").GET());
+        RemoteTreasuryDirectCache.assertStatusCode(response, 200);
+        return Integer.parseInt(new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the hit and miss counts of the requests that this client has sent. The node keeps its
+     * own metrics for its local cache.
+     * @return The hit and miss counts of the requests that this client has sent.
+     */
+    @Override
+    public TreasuryDirectCacheMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+
+    private HttpRequest.Builder createRequest(String relativePath)
+    {
+        return HttpRequest.newBuilder(URI.create(this.baseUrl + relativePath))
+            .timeout(this.requestTimeout);
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request)
+    {
+        try
+        {
+            return this.httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        catch (InterruptedException e)
+        {
+            java.lang.Thread.currentThread().interrupt();
+            throw new java.util.concurrent.CancellationException("Interrupted while waiting for the cache node at " + this.baseUrl + ".");
+        }
+    }
+
+    private static void assertStatusCode(HttpResponse<byte[]> response, int expectedStatusCode)
+    {
+        if (response.statusCode() != expectedStatusCode)
+        {
+            throw new UncheckedIOException(new IOException("Expected status code " + expectedStatusCode + " from " + response.uri() + ", but found " + response.statusCode() + "."));
+        }
+    }
+
+    private static String encode(String key)
+    {
+        return URLEncoder.encode(key, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+package qub;
+
+import java.nio.file.Path;
+
+/**
+ * A TreasuryDirectTransport that serves the responses in a set of recorded TreasuryDirectFixtures.
+ * Each URL's fixtures are served in the order that they were recorded, wrapping back to the
+ * first one after the last one has been served, so a load test can send more requests than
+ * were recorded. Each response is delayed by its recorded duration multiplied by the time
+ * scale.
+ */
+public class ReplayTreasuryDirectTransport implements TreasuryDirectTransport
+{
+    private final java.util.Map<String,TreasuryDirectFixture[]> fixtures;
+    private final java.util.Map<String,java.util.concurrent.atomic.AtomicInteger> nextIndexes;
+    private volatile double timeScale;
+
+    private ReplayTreasuryDirectTransport(Iterable<TreasuryDirectFixture> fixtures)
+    {
+        PreCondition.assertNotNull(fixtures, "fixtures");
+
+        final java.util.Map<String,java.util.List<TreasuryDirectFixture>> fixtureLists = new java.util.HashMap<>();
+        for (final TreasuryDirectFixture fixture : fixtures)
+        {
+            fixtureLists.computeIfAbsent(fixture.getUrl(), (String url) -> new java.util.ArrayList<>()).add(fixture);
+        }
+
+        this.fixtures = new java.util.HashMap<>();
+        this.nextIndexes = new java.util.HashMap<>();
+        for (final java.util.Map.Entry<String,java.util.List<TreasuryDirectFixture>> entry : fixtureLists.entrySet())
+        {
+            this.fixtures.put(entry.getKey(), entry.getValue().toArray(new TreasuryDirectFixture[0]));
+            this.nextIndexes.put(entry.getKey(), new java.util.concurrent.atomic.AtomicInteger());
+        }
+        this.timeScale = 1.0;
+    }
+
+    /**
+     * Create a new ReplayTreasuryDirectTransport that serves the provided fixtures.
+     * @param fixtures The fixtures to serve.
+     * @return The new ReplayTreasuryDirectTransport.
+     */
+    public static ReplayTreasuryDirectTransport create(Iterable<TreasuryDirectFixture> fixtures)
+    {
+        return new ReplayTreasuryDirectTransport(fixtures);
+    }
+
+    /**
+     * Create a new ReplayTreasuryDirectTransport that serves the fixtures in the provided archive
+     * file.
+     * @param archiveFile The fixture archive file that was written by a
+     *                    RecordingTreasuryDirectTransport.
+     * @return The new ReplayTreasuryDirectTransport.
+     */
+    public static Result<ReplayTreasuryDirectTransport> open(Path archiveFile)
+    {
+        PreCondition.assertNotNull(archiveFile, "archiveFile");
+
+        return Result.create(() ->
+        {
+            return ReplayTreasuryDirectTransport.create(TreasuryDirectFixture.readArchive(archiveFile).await());
+        });
+    }
+
+    /**
+     * Set the multiplier that is applied to each fixture's recorded duration before its response
+     * is returned. 1 replays the original timing, 0.5 replays twice as fast, and 0 returns every
+     * response immediately.
+     * @param timeScale The multiplier that is applied to each fixture's recorded duration.
+     * @return This object for method chaining.
+     */
+    public ReplayTreasuryDirectTransport setTimeScale(double timeScale)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(timeScale, 0.0, "timeScale");
+
+        this.timeScale = timeScale;
+
+        return this;
+    }
+
+    public double getTimeScale()
+    {
+        return this.timeScale;
+    }
+
+    @Override
+    public Result<byte[]> get(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return Result.create(() ->
+        {
+            final String urlString = url.toString();
+            final TreasuryDirectFixture[] urlFixtures = this.fixtures.get(urlString);
+            if (urlFixtures == null)
+            {
+                throw new NotFoundException("No TreasuryDirect fixture found for URL: " + urlString + ".");
+            }
+
+            final int index = java.lang.Math.floorMod(this.nextIndexes.get(urlString).getAndIncrement(), urlFixtures.length);
+            final TreasuryDirectFixture fixture = urlFixtures[index];
+
+            final long delayNanoseconds = (long)(fixture.getDurationNanoseconds() * this.timeScale);
+            if (delayNanoseconds > 0)
+            {
+                try
+                {
+                    java.lang.Thread.sleep(delayNanoseconds / 1_000_000, (int)(delayNanoseconds % 1_000_000));
+                }
+                catch (InterruptedException e)
+                {
+                    java.lang.Thread.currentThread().interrupt();
+                    throw new java.util.concurrent.CancellationException("Interrupted while replaying the TreasuryDirect fixture for URL: " + urlString + ".");
+                }
+            }
+
+            return fixture.getResponseBody();
+        });
+    }
+}
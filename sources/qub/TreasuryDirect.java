@@ -50,4 +50,70 @@ public interface TreasuryDirect
     Result<Iterable<TreasuryDirectSecurity>> getSecuritiesByType(TreasuryDirectSecurityType type);
 
     Result<Iterable<TreasuryDirectSecurity>> searchSecurities(SearchSecuritiesOptions options);
+
+    default TreasuryDirectSecurityPublisher publishAnnouncedSecurities()
+    {
+        return this.publishAnnouncedSecurities(GetAnnouncedSecuritiesOptions.create());
+    }
+
+    /**
+     * Get a publisher that emits the securities that would be returned by
+     * getAnnouncedSecurities(GetAnnouncedSecuritiesOptions). No request is made until a
+     * subscriber requests its first security.
+     * @param options The options to filter the announced securities by.
+     * @return A publisher of the announced securities.
+     */
+    default TreasuryDirectSecurityPublisher publishAnnouncedSecurities(GetAnnouncedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return TreasuryDirectSecurityPublisher.fromIterable(() -> this.getAnnouncedSecurities(options).await());
+    }
+
+    default TreasuryDirectSecurityPublisher publishAuctionedSecurities()
+    {
+        return this.publishAuctionedSecurities(GetAuctionedSecuritiesOptions.create());
+    }
+
+    /**
+     * Get a publisher that emits the securities that would be returned by
+     * getAuctionedSecurities(GetAuctionedSecuritiesOptions). No request is made until a
+     * subscriber requests its first security.
+     * @param options The options to filter the auctioned securities by.
+     * @return A publisher of the auctioned securities.
+     */
+    default TreasuryDirectSecurityPublisher publishAuctionedSecurities(GetAuctionedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return TreasuryDirectSecurityPublisher.fromIterable(() -> this.getAuctionedSecurities(options).await());
+    }
+
+    /**
+     * Get a publisher that emits the securities that would be returned by
+     * getSecuritiesByType(TreasuryDirectSecurityType). No request is made until a subscriber
+     * requests its first security.
+     * @param type The type of securities to publish.
+     * @return A publisher of the securities of the provided type.
+     */
+    default TreasuryDirectSecurityPublisher publishSecuritiesByType(TreasuryDirectSecurityType type)
+    {
+        PreCondition.assertNotNull(type, "type");
+
+        return TreasuryDirectSecurityPublisher.fromIterable(() -> this.getSecuritiesByType(type).await());
+    }
+
+    /**
+     * Get a publisher that emits the securities that would be returned by
+     * searchSecurities(SearchSecuritiesOptions). No request is made until a subscriber requests
+     * its first security.
+     * @param options The options to search for securities with.
+     * @return A publisher of the matching securities.
+     */
+    default TreasuryDirectSecurityPublisher publishSearchSecurities(SearchSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return TreasuryDirectSecurityPublisher.fromIterable(() -> this.searchSecurities(options).await());
+    }
 }
@@ -0,0 +1,37 @@
+package qub;
+
+/**
+ * The auction results that a TreasuryDirectAuctionTimeSeries tracks for each auction.
+ */
+public enum TreasuryDirectAuctionMetric
+{
+    /**
+     * The high yield as a percentage, or the high investment rate for Bills.
+     */
+    HighYield,
+
+    /**
+     * The ratio of the tendered amount to the accepted amount.
+     */
+    BidToCoverRatio,
+
+    /**
+     * The percentage of the bids at the high yield that were allotted.
+     */
+    AllocationPercentage,
+
+    /**
+     * The percentage of the competitive accepted amount that was accepted from primary dealers.
+     */
+    PrimaryDealerShare,
+
+    /**
+     * The percentage of the competitive accepted amount that was accepted from direct bidders.
+     */
+    DirectBidderShare,
+
+    /**
+     * The percentage of the competitive accepted amount that was accepted from indirect bidders.
+     */
+    IndirectBidderShare
+}
@@ -0,0 +1,556 @@
+package qub;
+
+/**
+ * The auction results of one security term over time, ordered by auction date. Each
+ * TreasuryDirectAuctionMetric is stored in its own primitive array along with running prefix
+ * sums, so the mean and standard deviation of any range of auctions take constant time and a
+ * rolling statistic takes constant time per point. New auctions are usually appended, which only
+ * extends the prefix sums. An auction that arrives out of order or is corrected shifts or
+ * recomputes the points after it.
+ */
+public class TreasuryDirectAuctionTimeSeries
+{
+    private static final int metricCount = TreasuryDirectAuctionMetric.values().length;
+
+    private final String securityTerm;
+    private final TreasuryDirectLongIntMap indexes;
+    private int count;
+    private int[] auctionEpochDays;
+    private long[] securityKeys;
+    private double[][] values;
+    private double[][] prefixSums;
+    private double[][] prefixSquareSums;
+    private int[][] prefixCounts;
+
+    private TreasuryDirectAuctionTimeSeries(String securityTerm)
+    {
+        PreCondition.assertNotNullAndNotEmpty(securityTerm, "securityTerm");
+
+        this.securityTerm = securityTerm;
+        this.indexes = TreasuryDirectLongIntMap.create();
+        this.auctionEpochDays = new int[16];
+        this.securityKeys = new long[16];
+        this.values = new double[TreasuryDirectAuctionTimeSeries.metricCount][16];
+        this.prefixSums = new double[TreasuryDirectAuctionTimeSeries.metricCount][17];
+        this.prefixSquareSums = new double[TreasuryDirectAuctionTimeSeries.metricCount][17];
+        this.prefixCounts = new int[TreasuryDirectAuctionTimeSeries.metricCount][17];
+    }
+
+    /**
+     * Create a new empty TreasuryDirectAuctionTimeSeries.
+     * @param securityTerm The security term of the auctions, such as "10-Year".
+     * @return The new TreasuryDirectAuctionTimeSeries.
+     */
+    public static TreasuryDirectAuctionTimeSeries create(String securityTerm)
+    {
+        return new TreasuryDirectAuctionTimeSeries(securityTerm);
+    }
+
+    /**
+     * Get the security term of the auctions in this time series.
+     * @return The security term of the auctions in this time series, such as "10-Year".
+     */
+    public String getSecurityTerm()
+    {
+        return this.securityTerm;
+    }
+
+    /**
+     * Get the number of auctions in this time series.
+     * @return The number of auctions in this time series.
+     */
+    public synchronized int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Add the auction results of the provided security, or replace them if the security's
+     * auction is already in this time series. Securities that don't have a valid CUSIP, an
+     * auction date, and at least one auction result are ignored.
+     * @param security The auctioned security.
+     * @return Whether or not this time series changed.
+     */
+    public boolean add(TreasuryDirectSecurity security)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        boolean result = false;
+        final int auctionEpochDay = security.getAuctionEpochDay();
+        final String cusip = security.getCusip().catchError().await();
+        if (auctionEpochDay != TreasuryDirectDates.unknownEpochDay && cusip != null)
+        {
+            final long securityKey = TreasuryDirectCusip.getSecurityKey(cusip, auctionEpochDay);
+            final double[] metricValues = TreasuryDirectAuctionTimeSeries.getMetricValues(security);
+            if (securityKey != TreasuryDirectCusip.invalid && TreasuryDirectAuctionTimeSeries.hasAnyValue(metricValues))
+            {
+                result = this.set(securityKey, auctionEpochDay, metricValues);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the epoch day of the auction at the provided index.
+     * @param index The index of the auction.
+     * @return The epoch day of the auction at the provided index.
+     */
+    public synchronized int getAuctionEpochDay(int index)
+    {
+        PreCondition.assertBetween(0, index, this.count - 1, "index");
+
+        return this.auctionEpochDays[index];
+    }
+
+    /**
+     * Get the provided metric of the auction at the provided index.
+     * @param metric The metric to get.
+     * @param index The index of the auction.
+     * @return The metric's value, or NaN if the auction didn't report it.
+     */
+    public synchronized double getValue(TreasuryDirectAuctionMetric metric, int index)
+    {
+        PreCondition.assertNotNull(metric, "metric");
+        PreCondition.assertBetween(0, index, this.count - 1, "index");
+
+        return this.values[metric.ordinal()][index];
+    }
+
+    /**
+     * Get a copy of the epoch days of the auctions in this time series.
+     * @return A copy of the epoch days of the auctions in this time series.
+     */
+    public synchronized int[] getAuctionEpochDays()
+    {
+        return java.util.Arrays.copyOf(this.auctionEpochDays, this.count);
+    }
+
+    /**
+     * Get a copy of the provided metric of each auction in this time series.
+     * @param metric The metric to get.
+     * @return A copy of the provided metric of each auction.
+     */
+    public synchronized double[] getValues(TreasuryDirectAuctionMetric metric)
+    {
+        PreCondition.assertNotNull(metric, "metric");
+
+        return java.util.Arrays.copyOf(this.values[metric.ordinal()], this.count);
+    }
+
+    /**
+     * Get the index of the first auction that is on or after the provided epoch day.
+     * @param epochDay The epoch day.
+     * @return The index of the first auction that is on or after the provided epoch day, or
+     * getCount() if there isn't one.
+     */
+    public synchronized int indexOf(int epochDay)
+    {
+        return this.getInsertIndex(epochDay);
+    }
+
+    /**
+     * Get the mean of the provided metric over a range of auctions. Auctions that didn't report
+     * the metric are left out.
+     * @param metric The metric.
+     * @param startIndex The index of the first auction in the range.
+     * @param endIndex The index after the last auction in the range.
+     * @return The mean of the metric over the range, or NaN if none of the auctions reported it.
+     */
+    public synchronized double getMean(TreasuryDirectAuctionMetric metric, int startIndex, int endIndex)
+    {
+        PreCondition.assertNotNull(metric, "metric");
+        PreCondition.assertBetween(0, startIndex, this.count, "startIndex");
+        PreCondition.assertBetween(startIndex, endIndex, this.count, "endIndex");
+
+        return this.getMean(metric.ordinal(), startIndex, endIndex);
+    }
+
+    /**
+     * Get the sample standard deviation of the provided metric over a range of auctions.
+     * Auctions that didn't report the metric are left out.
+     * @param metric The metric.
+     * @param startIndex The index of the first auction in the range.
+     * @param endIndex The index after the last auction in the range.
+     * @return The sample standard deviation of the metric over the range, or NaN if fewer than
+     * two of the auctions reported it.
+     */
+    public synchronized double getStandardDeviation(TreasuryDirectAuctionMetric metric, int startIndex, int endIndex)
+    {
+        PreCondition.assertNotNull(metric, "metric");
+        PreCondition.assertBetween(0, startIndex, this.count, "startIndex");
+        PreCondition.assertBetween(startIndex, endIndex, this.count, "endIndex");
+
+        return this.getStandardDeviation(metric.ordinal(), startIndex, endIndex);
+    }
+
+    /**
+     * Get the mean of the provided metric over each auction and the auctions before it.
+     * @param metric The metric.
+     * @param windowSize The number of auctions in each window.
+     * @return The rolling mean at each auction.
+     */
+    public synchronized double[] getRollingMeans(TreasuryDirectAuctionMetric metric, int windowSize)
+    {
+        PreCondition.assertNotNull(metric, "metric");
+        PreCondition.assertGreaterThanOrEqualTo(windowSize, 1, "windowSize");
+
+        final int metricIndex = metric.ordinal();
+        final double[] result = new double[this.count];
+        for (int i = 0; i < this.count; ++i)
+        {
+            result[i] = this.getMean(metricIndex, java.lang.Math.max(0, i + 1 - windowSize), i + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Get the sample standard deviation of the provided metric over each auction and the auctions
+     * before it.
+     * @param metric The metric.
+     * @param windowSize The number of auctions in each window.
+     * @return The rolling standard deviation at each auction.
+     */
+    public synchronized double[] getRollingStandardDeviations(TreasuryDirectAuctionMetric metric, int windowSize)
+    {
+        PreCondition.assertNotNull(metric, "metric");
+        PreCondition.assertGreaterThanOrEqualTo(windowSize, 1, "windowSize");
+
+        final int metricIndex = metric.ordinal();
+        final double[] result = new double[this.count];
+        for (int i = 0; i < this.count; ++i)
+        {
+            result[i] = this.getStandardDeviation(metricIndex, java.lang.Math.max(0, i + 1 - windowSize), i + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Get the mean of the provided metric over the auctions in the provided number of days up to
+     * and including each auction.
+     * @param metric The metric.
+     * @param windowDays The number of days in each window.
+     * @return The rolling mean at each auction.
+     */
+    public synchronized double[] getRollingMeansByDays(TreasuryDirectAuctionMetric metric, int windowDays)
+    {
+        PreCondition.assertNotNull(metric, "metric");
+        PreCondition.assertGreaterThanOrEqualTo(windowDays, 1, "windowDays");
+
+        final int metricIndex = metric.ordinal();
+        final double[] result = new double[this.count];
+        int startIndex = 0;
+        for (int i = 0; i < this.count; ++i)
+        {
+            while (this.auctionEpochDays[startIndex] <= this.auctionEpochDays[i] - windowDays)
+            {
+                ++startIndex;
+            }
+            result[i] = this.getMean(metricIndex, startIndex, i + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Get the minimum of the provided metric over each auction and the auctions before it.
+     * @param metric The metric.
+     * @param windowSize The number of auctions in each window.
+     * @return The rolling minimum at each auction.
+     */
+    public synchronized double[] getRollingMinimums(TreasuryDirectAuctionMetric metric, int windowSize)
+    {
+        return this.getRollingExtremes(metric, windowSize, true);
+    }
+
+    /**
+     * Get the maximum of the provided metric over each auction and the auctions before it.
+     * @param metric The metric.
+     * @param windowSize The number of auctions in each window.
+     * @return The rolling maximum at each auction.
+     */
+    public synchronized double[] getRollingMaximums(TreasuryDirectAuctionMetric metric, int windowSize)
+    {
+        return this.getRollingExtremes(metric, windowSize, false);
+    }
+
+    /**
+     * Choose the auctions that best preserve the shape of the provided metric when it is charted
+     * with at most the provided number of points, using the largest-triangle-three-buckets
+     * algorithm. The first and last auctions that reported the metric are always chosen.
+     * @param metric The metric.
+     * @param maximumPointCount The maximum number of points to choose.
+     * @return The indexes of the chosen auctions in ascending order.
+     */
+    public synchronized int[] downsample(TreasuryDirectAuctionMetric metric, int maximumPointCount)
+    {
+        PreCondition.assertNotNull(metric, "metric");
+        PreCondition.assertGreaterThanOrEqualTo(maximumPointCount, 2, "maximumPointCount");
+
+        final double[] metricValues = this.values[metric.ordinal()];
+        final int[] points = new int[this.count];
+        int pointCount = 0;
+        for (int i = 0; i < this.count; ++i)
+        {
+            if (!Double.isNaN(metricValues[i]))
+            {
+                points[pointCount++] = i;
+            }
+        }
+
+        final int[] result;
+        if (pointCount <= maximumPointCount)
+        {
+            result = java.util.Arrays.copyOf(points, pointCount);
+        }
+        else
+        {
+            result = new int[maximumPointCount];
+            result[0] = points[0];
+            result[maximumPointCount - 1] = points[pointCount - 1];
+
+            // Split the points between the first and last into buckets, and from each bucket
+            // choose the point that makes the largest triangle with the previously chosen point
+            // and the average of the next bucket.
+            final double bucketSize = (double)(pointCount - 2) / (maximumPointCount - 2);
+            int previousPoint = points[0];
+            for (int bucket = 0; bucket < maximumPointCount - 2; ++bucket)
+            {
+                final int bucketStart = (int)(bucket * bucketSize) + 1;
+                final int bucketEnd = (int)((bucket + 1) * bucketSize) + 1;
+                final int nextBucketEnd = java.lang.Math.min(pointCount, (int)((bucket + 2) * bucketSize) + 1);
+
+                double averageX = 0;
+                double averageY = 0;
+                for (int i = bucketEnd; i < nextBucketEnd; ++i)
+                {
+                    averageX += this.auctionEpochDays[points[i]];
+                    averageY += metricValues[points[i]];
+                }
+                final int nextBucketCount = nextBucketEnd - bucketEnd;
+                averageX /= nextBucketCount;
+                averageY /= nextBucketCount;
+
+                final double previousX = this.auctionEpochDays[previousPoint];
+                final double previousY = metricValues[previousPoint];
+                double largestArea = -1;
+                int chosenPoint = points[bucketStart];
+                for (int i = bucketStart; i < bucketEnd; ++i)
+                {
+                    final int point = points[i];
+                    final double area = java.lang.Math.abs(
+                        (previousX - averageX) * (metricValues[point] - previousY) -
+                        (previousX - this.auctionEpochDays[point]) * (averageY - previousY));
+                    if (area > largestArea)
+                    {
+                        largestArea = area;
+                        chosenPoint = point;
+                    }
+                }
+                result[bucket + 1] = chosenPoint;
+                previousPoint = chosenPoint;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the metric values of the provided security, indexed by TreasuryDirectAuctionMetric
+     * ordinal.
+     */
+    static double[] getMetricValues(TreasuryDirectSecurity security)
+    {
+        final double[] result = new double[TreasuryDirectAuctionTimeSeries.metricCount];
+
+        double highYield = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.highYieldPropertyName);
+        if (Double.isNaN(highYield))
+        {
+            highYield = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.highInvestmentRatePropertyName);
+        }
+        result[TreasuryDirectAuctionMetric.HighYield.ordinal()] = highYield;
+        result[TreasuryDirectAuctionMetric.BidToCoverRatio.ordinal()] = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.bidToCoverRatioPropertyName);
+        result[TreasuryDirectAuctionMetric.AllocationPercentage.ordinal()] = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.allocationPercentagePropertyName);
+
+        final double competitiveAccepted = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.competitiveAcceptedPropertyName);
+        final double share = competitiveAccepted > 0 ? 100 / competitiveAccepted : Double.NaN;
+        result[TreasuryDirectAuctionMetric.PrimaryDealerShare.ordinal()] = share * TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.primaryDealerAcceptedPropertyName);
+        result[TreasuryDirectAuctionMetric.DirectBidderShare.ordinal()] = share * TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.directBidderAcceptedPropertyName);
+        result[TreasuryDirectAuctionMetric.IndirectBidderShare.ordinal()] = share * TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.indirectBidderAcceptedPropertyName);
+
+        return result;
+    }
+
+    private static boolean hasAnyValue(double[] metricValues)
+    {
+        boolean result = false;
+        for (final double metricValue : metricValues)
+        {
+            if (!Double.isNaN(metricValue))
+            {
+                result = true;
+                break;
+            }
+        }
+        return result;
+    }
+
+    private synchronized boolean set(long securityKey, int auctionEpochDay, double[] metricValues)
+    {
+        boolean result;
+        final int existingIndex = this.indexes.get(securityKey, -1);
+        if (existingIndex != -1)
+        {
+            result = false;
+            for (int metric = 0; metric < TreasuryDirectAuctionTimeSeries.metricCount; ++metric)
+            {
+                if (Double.compare(this.values[metric][existingIndex], metricValues[metric]) != 0)
+                {
+                    this.values[metric][existingIndex] = metricValues[metric];
+                    result = true;
+                }
+            }
+            if (result)
+            {
+                this.updatePrefixes(existingIndex);
+            }
+        }
+        else
+        {
+            result = true;
+            this.ensureCapacity(this.count + 1);
+
+            // Insert after any auctions on the same day so that appends stay appends.
+            final int index = this.getInsertIndex(auctionEpochDay + 1);
+            final int shiftCount = this.count - index;
+            if (shiftCount > 0)
+            {
+                System.arraycopy(this.auctionEpochDays, index, this.auctionEpochDays, index + 1, shiftCount);
+                System.arraycopy(this.securityKeys, index, this.securityKeys, index + 1, shiftCount);
+                for (int metric = 0; metric < TreasuryDirectAuctionTimeSeries.metricCount; ++metric)
+                {
+                    System.arraycopy(this.values[metric], index, this.values[metric], index + 1, shiftCount);
+                }
+            }
+            this.auctionEpochDays[index] = auctionEpochDay;
+            this.securityKeys[index] = securityKey;
+            for (int metric = 0; metric < TreasuryDirectAuctionTimeSeries.metricCount; ++metric)
+            {
+                this.values[metric][index] = metricValues[metric];
+            }
+            ++this.count;
+
+            for (int i = index; i < this.count; ++i)
+            {
+                this.indexes.set(this.securityKeys[i], i);
+            }
+            this.updatePrefixes(index);
+        }
+        return result;
+    }
+
+    private void updatePrefixes(int startIndex)
+    {
+        for (int metric = 0; metric < TreasuryDirectAuctionTimeSeries.metricCount; ++metric)
+        {
+            final double[] metricValues = this.values[metric];
+            final double[] sums = this.prefixSums[metric];
+            final double[] squareSums = this.prefixSquareSums[metric];
+            final int[] counts = this.prefixCounts[metric];
+            for (int i = startIndex; i < this.count; ++i)
+            {
+                final double value = metricValues[i];
+                final boolean hasValue = !Double.isNaN(value);
+                sums[i + 1] = sums[i] + (hasValue ? value : 0);
+                squareSums[i + 1] = squareSums[i] + (hasValue ? value * value : 0);
+                counts[i + 1] = counts[i] + (hasValue ? 1 : 0);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > this.auctionEpochDays.length)
+        {
+            final int newCapacity = java.lang.Math.max(capacity, this.auctionEpochDays.length * 2);
+            this.auctionEpochDays = java.util.Arrays.copyOf(this.auctionEpochDays, newCapacity);
+            this.securityKeys = java.util.Arrays.copyOf(this.securityKeys, newCapacity);
+            for (int metric = 0; metric < TreasuryDirectAuctionTimeSeries.metricCount; ++metric)
+            {
+                this.values[metric] = java.util.Arrays.copyOf(this.values[metric], newCapacity);
+                this.prefixSums[metric] = java.util.Arrays.copyOf(this.prefixSums[metric], newCapacity + 1);
+                this.prefixSquareSums[metric] = java.util.Arrays.copyOf(this.prefixSquareSums[metric], newCapacity + 1);
+                this.prefixCounts[metric] = java.util.Arrays.copyOf(this.prefixCounts[metric], newCapacity + 1);
+            }
+        }
+    }
+
+    private int getInsertIndex(int epochDay)
+    {
+        int low = 0;
+        int high = this.count;
+        while (low < high)
+        {
+            final int middle = (low + high) >>> 1;
+            if (this.auctionEpochDays[middle] < epochDay)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private double getMean(int metric, int startIndex, int endIndex)
+    {
+        final int valueCount = this.prefixCounts[metric][endIndex] - this.prefixCounts[metric][startIndex];
+        return valueCount == 0
+            ? Double.NaN
+            : (this.prefixSums[metric][endIndex] - this.prefixSums[metric][startIndex]) / valueCount;
+    }
+
+    private double getStandardDeviation(int metric, int startIndex, int endIndex)
+    {
+        final int valueCount = this.prefixCounts[metric][endIndex] - this.prefixCounts[metric][startIndex];
+        double result = Double.NaN;
+        if (valueCount >= 2)
+        {
+            final double sum = this.prefixSums[metric][endIndex] - this.prefixSums[metric][startIndex];
+            final double squareSum = this.prefixSquareSums[metric][endIndex] - this.prefixSquareSums[metric][startIndex];
+            result = java.lang.Math.sqrt(java.lang.Math.max(0, (squareSum - sum * sum / valueCount) / (valueCount - 1)));
+        }
+        return result;
+    }
+
+    private double[] getRollingExtremes(TreasuryDirectAuctionMetric metric, int windowSize, boolean minimum)
+    {
+        PreCondition.assertNotNull(metric, "metric");
+        PreCondition.assertGreaterThanOrEqualTo(windowSize, 1, "windowSize");
+
+        // A monotonic deque of indexes whose values are the candidates for the window's extreme,
+        // so each point is pushed and popped at most once.
+        final double[] metricValues = this.values[metric.ordinal()];
+        final double[] result = new double[this.count];
+        final int[] deque = new int[this.count];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < this.count; ++i)
+        {
+            final double value = metricValues[i];
+            if (!Double.isNaN(value))
+            {
+                while (tail > head && (minimum ? metricValues[deque[tail - 1]] >= value : metricValues[deque[tail - 1]] <= value))
+                {
+                    --tail;
+                }
+                deque[tail++] = i;
+            }
+            while (tail > head && deque[head] <= i - windowSize)
+            {
+                ++head;
+            }
+            result[i] = tail > head ? metricValues[deque[head]] : Double.NaN;
+        }
+        return result;
+    }
+}
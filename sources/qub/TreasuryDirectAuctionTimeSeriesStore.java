@@ -0,0 +1,113 @@
+package qub;
+
+/**
+ * A TreasuryDirectAuctionTimeSeries for each security term, built from auctioned securities and
+ * updated incrementally as new auctions arrive.
+ */
+public class TreasuryDirectAuctionTimeSeriesStore
+{
+    private final java.util.concurrent.ConcurrentHashMap<String,TreasuryDirectAuctionTimeSeries> timeSeries;
+
+    private TreasuryDirectAuctionTimeSeriesStore()
+    {
+        this.timeSeries = new java.util.concurrent.ConcurrentHashMap<>();
+    }
+
+    /**
+     * Create a new empty TreasuryDirectAuctionTimeSeriesStore.
+     * @return The new TreasuryDirectAuctionTimeSeriesStore.
+     */
+    public static TreasuryDirectAuctionTimeSeriesStore create()
+    {
+        return new TreasuryDirectAuctionTimeSeriesStore();
+    }
+
+    /**
+     * Add the auction results of the provided security to the time series of its security term.
+     * Securities that don't have a security term or haven't been auctioned are ignored.
+     * @param security The auctioned security.
+     * @return Whether or not a time series changed.
+     */
+    public boolean add(TreasuryDirectSecurity security)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        boolean result = false;
+        final String securityTerm = security.getSecurityTerm().catchError().await();
+        if (!Strings.isNullOrEmpty(securityTerm))
+        {
+            final TreasuryDirectAuctionTimeSeries series = this.timeSeries.computeIfAbsent(securityTerm, TreasuryDirectAuctionTimeSeries::create);
+            result = series.add(security);
+        }
+        return result;
+    }
+
+    /**
+     * Add the auction results of each of the provided securities.
+     * @param securities The auctioned securities.
+     * @return The number of securities that changed a time series.
+     */
+    public int addAll(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        int result = 0;
+        for (final TreasuryDirectSecurity security : securities)
+        {
+            if (this.add(security))
+            {
+                ++result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add the auction results of the securities that the provided TreasuryDirect returns from
+     * getAuctionedSecurities(GetAuctionedSecuritiesOptions).
+     * @param treasuryDirect The TreasuryDirect to get the auctioned securities from.
+     * @param options The options for the auctioned securities request.
+     * @return The number of securities that changed a time series.
+     */
+    public Result<Integer> update(TreasuryDirect treasuryDirect, GetAuctionedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(treasuryDirect, "treasuryDirect");
+        PreCondition.assertNotNull(options, "options");
+
+        return Result.create(() ->
+        {
+            return this.addAll(treasuryDirect.getAuctionedSecurities(options).await());
+        });
+    }
+
+    /**
+     * Get the security terms that have a time series, in ascending order.
+     * @return The security terms that have a time series.
+     */
+    public Iterable<String> getSecurityTerms()
+    {
+        final String[] securityTerms = this.timeSeries.keySet().toArray(new String[0]);
+        java.util.Arrays.sort(securityTerms);
+        return Iterable.create(securityTerms);
+    }
+
+    /**
+     * Get the time series of the provided security term.
+     * @param securityTerm The security term, such as "10-Year".
+     * @return The time series of the provided security term.
+     */
+    public Result<TreasuryDirectAuctionTimeSeries> getTimeSeries(String securityTerm)
+    {
+        PreCondition.assertNotNullAndNotEmpty(securityTerm, "securityTerm");
+
+        return Result.create(() ->
+        {
+            final TreasuryDirectAuctionTimeSeries result = this.timeSeries.get(securityTerm);
+            if (result == null)
+            {
+                throw new NotFoundException("No auction time series found for security term: " + securityTerm + ".");
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,313 @@
+package qub;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Backfills historical securities into a TreasuryDirectSecurityJournal by running
+ * TreasuryDirect.searchSecurities() for many TreasuryDirectBackfillShards on a bounded pool of
+ * worker threads. Every completed shard is recorded in a checkpoint file after its securities
+ * have been written to the journal, so a backfill that is restarted skips the shards that have
+ * already been completed. A shard that fails is retried after an exponentially growing delay,
+ * so a struggling server isn't immediately hit again by every worker.
+ */
+public class TreasuryDirectBackfill
+{
+    private final TreasuryDirect treasuryDirect;
+    private final TreasuryDirectSecurityJournal journal;
+    private final Path checkpointFile;
+    private int workerCount;
+    private int maximumAttempts;
+    private long initialRetryDelayMilliseconds;
+    private long maximumRetryDelayMilliseconds;
+    private TreasuryDirectRateLimiter rateLimiter;
+
+    private TreasuryDirectBackfill(TreasuryDirect treasuryDirect, TreasuryDirectSecurityJournal journal, Path checkpointFile)
+    {
+        PreCondition.assertNotNull(treasuryDirect, "treasuryDirect");
+        PreCondition.assertNotNull(journal, "journal");
+        PreCondition.assertNotNull(checkpointFile, "checkpointFile");
+
+        this.treasuryDirect = treasuryDirect;
+        this.journal = journal;
+        this.checkpointFile = checkpointFile;
+        this.workerCount = 4;
+        this.maximumAttempts = 3;
+        this.initialRetryDelayMilliseconds = 1000;
+        this.maximumRetryDelayMilliseconds = 60 * 1000;
+        this.rateLimiter = TreasuryDirectRateLimiter.create(2);
+    }
+
+    /**
+     * Create a new TreasuryDirectBackfill.
+     * @param treasuryDirect The TreasuryDirect to fetch securities from.
+     * @param journal The journal to write fetched securities to.
+     * @param checkpointFile The file that completed shards are recorded in.
+     * @return The new TreasuryDirectBackfill.
+     */
+    public static TreasuryDirectBackfill create(TreasuryDirect treasuryDirect, TreasuryDirectSecurityJournal journal, Path checkpointFile)
+    {
+        return new TreasuryDirectBackfill(treasuryDirect, journal, checkpointFile);
+    }
+
+    /**
+     * Set the number of shards that can be fetched at the same time.
+     * @param workerCount The number of shards that can be fetched at the same time.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectBackfill setWorkerCount(int workerCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(workerCount, 1, "workerCount");
+
+        this.workerCount = workerCount;
+
+        return this;
+    }
+
+    /**
+     * Set the number of times that a shard will be attempted before its failure is reported.
+     * @param maximumAttempts The number of times that a shard will be attempted.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectBackfill setMaximumAttempts(int maximumAttempts)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maximumAttempts, 1, "maximumAttempts");
+
+        this.maximumAttempts = maximumAttempts;
+
+        return this;
+    }
+
+    /**
+     * Set the delay before a shard is attempted for the second time. Each later retry waits twice
+     * as long as the one before it, up to the maximum retry delay.
+     * @param initialRetryDelayMilliseconds The delay before a shard is attempted for the second
+     *                                      time.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectBackfill setInitialRetryDelayMilliseconds(long initialRetryDelayMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(initialRetryDelayMilliseconds, 0L, "initialRetryDelayMilliseconds");
+
+        this.initialRetryDelayMilliseconds = initialRetryDelayMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Set the longest delay that will be waited before a shard is retried.
+     * @param maximumRetryDelayMilliseconds The longest delay that will be waited before a shard is
+     *                                      retried.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectBackfill setMaximumRetryDelayMilliseconds(long maximumRetryDelayMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maximumRetryDelayMilliseconds, 0L, "maximumRetryDelayMilliseconds");
+
+        this.maximumRetryDelayMilliseconds = maximumRetryDelayMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Get the delay that will be waited after the provided failed attempt before the shard is
+     * attempted again.
+     * @param failedAttempt The number of the attempt that failed, starting at 1.
+     * @return The delay in milliseconds.
+     */
+    public long getRetryDelayMilliseconds(int failedAttempt)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(failedAttempt, 1, "failedAttempt");
+
+        long result = this.initialRetryDelayMilliseconds;
+        for (int attempt = 1; attempt < failedAttempt && result < this.maximumRetryDelayMilliseconds; ++attempt)
+        {
+            result = result > this.maximumRetryDelayMilliseconds / 2 ? this.maximumRetryDelayMilliseconds : result * 2;
+        }
+        return java.lang.Math.min(result, this.maximumRetryDelayMilliseconds);
+    }
+
+    /**
+     * Set the rate limiter that every request (including retries) must acquire a permit from.
+     * @param rateLimiter The rate limiter that every request must acquire a permit from.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectBackfill setRateLimiter(TreasuryDirectRateLimiter rateLimiter)
+    {
+        PreCondition.assertNotNull(rateLimiter, "rateLimiter");
+
+        this.rateLimiter = rateLimiter;
+
+        return this;
+    }
+
+    /**
+     * Get the shards that have already been completed according to the checkpoint file.
+     * @return The shards that have already been completed.
+     */
+    public Result<java.util.Set<TreasuryDirectBackfillShard>> getCompletedShards()
+    {
+        return Result.create(() ->
+        {
+            final java.util.Set<TreasuryDirectBackfillShard> result = new java.util.HashSet<>();
+            if (Files.exists(this.checkpointFile))
+            {
+                try
+                {
+                    for (final String line : Files.readAllLines(this.checkpointFile, StandardCharsets.UTF_8))
+                    {
+                        // A line without a trailing newline may have been torn by a crash, but
+                        // ignoring it only means that its shard will be fetched again.
+                        if (!Strings.isNullOrEmpty(line))
+                        {
+                            final TreasuryDirectBackfillShard shard = TreasuryDirectBackfillShard.parse(line.trim())
+                                .catchError()
+                                .await();
+                            if (shard != null)
+                            {
+                                result.add(shard);
+                            }
+                        }
+                    }
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Fetch each of the provided shards that hasn't already been completed and write their
+     * securities to the journal.
+     * @param shards The shards to backfill.
+     * @return The number of shards that were completed by this run. If any shard failed after
+     * all of its attempts, then the first failure is returned after every other shard has
+     * finished.
+     */
+    public Result<Integer> run(Iterable<TreasuryDirectBackfillShard> shards)
+    {
+        PreCondition.assertNotNull(shards, "shards");
+
+        return Result.create(() ->
+        {
+            final java.util.Set<TreasuryDirectBackfillShard> completedShards = this.getCompletedShards().await();
+
+            final ExecutorService workers = Executors.newFixedThreadPool(this.workerCount);
+            final List<Future<?>> futures = List.create();
+            try
+            {
+                for (final TreasuryDirectBackfillShard shard : shards)
+                {
+                    if (!completedShards.contains(shard))
+                    {
+                        futures.add(workers.submit(() -> this.runShard(shard)));
+                    }
+                }
+
+                RuntimeException firstError = null;
+                for (final Future<?> future : futures)
+                {
+                    try
+                    {
+                        future.get();
+                    }
+                    catch (java.util.concurrent.ExecutionException e)
+                    {
+                        if (firstError == null)
+                        {
+                            final Throwable cause = e.getCause();
+                            firstError = cause instanceof RuntimeException
+                                ? (RuntimeException)cause
+                                : new RuntimeException(cause);
+                        }
+                    }
+                    catch (InterruptedException e)
+                    {
+                        java.lang.Thread.currentThread().interrupt();
+                        throw new java.util.concurrent.CancellationException("Interrupted while waiting for the TreasuryDirect backfill to finish.");
+                    }
+                }
+                if (firstError != null)
+                {
+                    throw firstError;
+                }
+            }
+            finally
+            {
+                workers.shutdownNow();
+            }
+
+            return futures.getCount();
+        });
+    }
+
+    private void runShard(TreasuryDirectBackfillShard shard)
+    {
+        final SearchSecuritiesOptions options = shard.toSearchSecuritiesOptions();
+        for (int attempt = 1; ; ++attempt)
+        {
+            this.rateLimiter.acquire();
+            try
+            {
+                final Iterable<TreasuryDirectSecurity> securities = this.treasuryDirect.searchSecurities(options).await();
+                this.journal.appendAll(securities).await();
+                break;
+            }
+            catch (RuntimeException e)
+            {
+                if (attempt >= this.maximumAttempts)
+                {
+                    throw e;
+                }
+                TreasuryDirectBackfill.sleep(this.getRetryDelayMilliseconds(attempt));
+            }
+        }
+        this.writeCheckpoint(shard);
+    }
+
+    private static void sleep(long milliseconds)
+    {
+        if (milliseconds > 0)
+        {
+            try
+            {
+                java.lang.Thread.sleep(milliseconds);
+            }
+            catch (InterruptedException e)
+            {
+                java.lang.Thread.currentThread().interrupt();
+                throw new java.util.concurrent.CancellationException("Interrupted while waiting to retry a TreasuryDirect backfill shard.");
+            }
+        }
+    }
+
+    private synchronized void writeCheckpoint(TreasuryDirectBackfillShard shard)
+    {
+        try
+        {
+            final Path parentFolder = this.checkpointFile.toAbsolutePath().getParent();
+            if (parentFolder != null)
+            {
+                Files.createDirectories(parentFolder);
+            }
+            Files.write(this.checkpointFile, (shard.toString() + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
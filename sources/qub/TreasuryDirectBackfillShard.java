@@ -0,0 +1,137 @@
+package qub;
+
+/**
+ * One unit of work for a TreasuryDirectBackfill: all of the securities of a single type that
+ * were auctioned in a single year.
+ */
+public class TreasuryDirectBackfillShard
+{
+    private final int auctionDateYear;
+    private final TreasuryDirectSecurityType securityType;
+
+    private TreasuryDirectBackfillShard(int auctionDateYear, TreasuryDirectSecurityType securityType)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(auctionDateYear, 0, "auctionDateYear");
+        PreCondition.assertNotNull(securityType, "securityType");
+
+        this.auctionDateYear = auctionDateYear;
+        this.securityType = securityType;
+    }
+
+    public static TreasuryDirectBackfillShard create(int auctionDateYear, TreasuryDirectSecurityType securityType)
+    {
+        return new TreasuryDirectBackfillShard(auctionDateYear, securityType);
+    }
+
+    /**
+     * Parse a shard from the text that is returned by its toString() method.
+     * @param text The text to parse.
+     * @return The parsed shard.
+     */
+    public static Result<TreasuryDirectBackfillShard> parse(String text)
+    {
+        PreCondition.assertNotNullAndNotEmpty(text, "text");
+
+        return Result.create(() ->
+        {
+            final int separatorIndex = text.indexOf('/');
+            if (separatorIndex <= 0)
+            {
+                throw new ParseException("Expected a TreasuryDirect backfill shard in the format <year>/<type>, but found " + Strings.escapeAndQuote(text) + ".");
+            }
+            final int auctionDateYear = Integers.parse(text.substring(0, separatorIndex)).await();
+            final TreasuryDirectSecurityType securityType = TreasuryDirectSecurityType.valueOf(text.substring(separatorIndex + 1));
+            return TreasuryDirectBackfillShard.create(auctionDateYear, securityType);
+        });
+    }
+
+    /**
+     * Create a shard for each of the provided security types in each year between the provided
+     * years (inclusive).
+     * @param startYear The first auction year to create shards for.
+     * @param endYear The last auction year to create shards for.
+     * @param securityTypes The security types to create shards for.
+     * @return The created shards, most recent year first.
+     */
+    public static List<TreasuryDirectBackfillShard> createShards(int startYear, int endYear, TreasuryDirectSecurityType... securityTypes)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(startYear, 0, "startYear");
+        PreCondition.assertGreaterThanOrEqualTo(endYear, startYear, "endYear");
+        PreCondition.assertNotNull(securityTypes, "securityTypes");
+
+        final List<TreasuryDirectBackfillShard> result = List.create();
+        for (int year = endYear; year >= startYear; --year)
+        {
+            for (final TreasuryDirectSecurityType securityType : securityTypes)
+            {
+                result.add(TreasuryDirectBackfillShard.create(year, securityType));
+            }
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Create a shard for each of the provided security types in each year that overlaps the
+     * provided date range.
+     * @param startDate The start of the date range.
+     * @param endDate The end of the date range.
+     * @param securityTypes The security types to create shards for.
+     * @return The created shards, most recent year first.
+     */
+    public static List<TreasuryDirectBackfillShard> createShards(Date startDate, Date endDate, TreasuryDirectSecurityType... securityTypes)
+    {
+        PreCondition.assertNotNull(startDate, "startDate");
+        PreCondition.assertNotNull(endDate, "endDate");
+
+        return TreasuryDirectBackfillShard.createShards(startDate.getYear(), endDate.getYear(), securityTypes);
+    }
+
+    public int getAuctionDateYear()
+    {
+        return this.auctionDateYear;
+    }
+
+    public TreasuryDirectSecurityType getSecurityType()
+    {
+        return this.securityType;
+    }
+
+    /**
+     * Get the search options that will return the securities in this shard.
+     * @return The search options that will return the securities in this shard.
+     */
+    public SearchSecuritiesOptions toSearchSecuritiesOptions()
+    {
+        return SearchSecuritiesOptions.create()
+            .setAuctionDateYear(this.auctionDateYear)
+            .setSecurityType(this.securityType);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.auctionDateYear + "/" + this.securityType;
+    }
+
+    @Override
+    public boolean equals(Object rhs)
+    {
+        return rhs instanceof TreasuryDirectBackfillShard && this.equals((TreasuryDirectBackfillShard)rhs);
+    }
+
+    public boolean equals(TreasuryDirectBackfillShard rhs)
+    {
+        return rhs != null &&
+            this.auctionDateYear == rhs.auctionDateYear &&
+            this.securityType == rhs.securityType;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.auctionDateYear * 31 + this.securityType.hashCode();
+    }
+}
@@ -0,0 +1,175 @@
+package qub;
+
+/**
+ * A Bloom filter of known (CUSIP, issue date) pairs. If mightContain() returns false, the
+ * security definitely isn't in the set that the filter was built from, so a lookup for it can be
+ * answered without a request. A true result may be a false positive at about the rate that the
+ * filter was sized for.
+ */
+public class TreasuryDirectBloomFilter
+{
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashCount;
+    private int count;
+    private int latestIssueEpochDay;
+
+    private TreasuryDirectBloomFilter(int expectedCount, double falsePositiveRate)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(expectedCount, 1, "expectedCount");
+        PreCondition.assertBetween(0.0000001, falsePositiveRate, 0.5, "falsePositiveRate");
+
+        final double ln2 = java.lang.Math.log(2);
+        final long optimalBitCount = (long)java.lang.Math.ceil(-expectedCount * java.lang.Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = (int)java.lang.Math.min(java.lang.Math.max(64, optimalBitCount), Integer.MAX_VALUE - 63);
+        this.bits = new long[(this.bitCount + 63) / 64];
+        this.hashCount = java.lang.Math.max(1, (int)java.lang.Math.round((double)this.bitCount / expectedCount * ln2));
+        this.latestIssueEpochDay = TreasuryDirectDates.unknownEpochDay;
+    }
+
+    /**
+     * Create a new empty TreasuryDirectBloomFilter.
+     * @param expectedCount The number of securities that the filter is expected to hold.
+     * @param falsePositiveRate The target rate of false positives once the filter holds the
+     *                          expected number of securities.
+     * @return The new TreasuryDirectBloomFilter.
+     */
+    public static TreasuryDirectBloomFilter create(int expectedCount, double falsePositiveRate)
+    {
+        return new TreasuryDirectBloomFilter(expectedCount, falsePositiveRate);
+    }
+
+    /**
+     * Create a new TreasuryDirectBloomFilter that contains the provided securities, such as the
+     * securities in a local TreasuryDirectSecurityJournal.
+     * @param securities The securities to add to the filter.
+     * @param falsePositiveRate The target rate of false positives.
+     * @return The new TreasuryDirectBloomFilter.
+     */
+    public static TreasuryDirectBloomFilter create(Iterable<TreasuryDirectSecurity> securities, double falsePositiveRate)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        final TreasuryDirectBloomFilter result = TreasuryDirectBloomFilter.create(java.lang.Math.max(1, securities.getCount()), falsePositiveRate);
+        for (final TreasuryDirectSecurity security : securities)
+        {
+            result.add(security);
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the number of (CUSIP, issue date) pairs that have been added to this filter.
+     * @return The number of pairs that have been added to this filter.
+     */
+    public synchronized int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Get the latest issue date that has been added to this filter. Securities that are issued
+     * after the filter was built can't be in it, so callers should only trust a negative answer
+     * for issue dates on or before this one.
+     * @return The latest issue epoch day that has been added, or
+     * TreasuryDirectDates.unknownEpochDay if nothing has been added.
+     */
+    public synchronized int getLatestIssueEpochDay()
+    {
+        return this.latestIssueEpochDay;
+    }
+
+    /**
+     * Add the provided security to this filter. Securities without a CUSIP or issue date are
+     * ignored.
+     * @param security The security to add.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectBloomFilter add(TreasuryDirectSecurity security)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        final String cusip = security.getCusip().catchError().await();
+        final int issueEpochDay = security.getIssueEpochDay();
+        if (!Strings.isNullOrEmpty(cusip) && issueEpochDay != TreasuryDirectDates.unknownEpochDay)
+        {
+            this.add(cusip, issueEpochDay);
+        }
+
+        return this;
+    }
+
+    /**
+     * Add the provided (CUSIP, issue date) pair to this filter.
+     * @param cusip The CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @return This object for method chaining.
+     */
+    public synchronized TreasuryDirectBloomFilter add(String cusip, int issueEpochDay)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+        PreCondition.assertNotEqual(TreasuryDirectDates.unknownEpochDay, issueEpochDay, "issueEpochDay");
+
+        final long hash = TreasuryDirectBloomFilter.hash(cusip, issueEpochDay);
+        final int hash1 = (int)hash;
+        final int hash2 = (int)(hash >>> 32) | 1;
+        for (int i = 0; i < this.hashCount; ++i)
+        {
+            final int bitIndex = ((hash1 + i * hash2) & Integer.MAX_VALUE) % this.bitCount;
+            this.bits[bitIndex >>> 6] |= (1L << bitIndex);
+        }
+        ++this.count;
+        if (this.latestIssueEpochDay == TreasuryDirectDates.unknownEpochDay || this.latestIssueEpochDay < issueEpochDay)
+        {
+            this.latestIssueEpochDay = issueEpochDay;
+        }
+
+        return this;
+    }
+
+    /**
+     * Get whether the provided (CUSIP, issue date) pair might have been added to this filter.
+     * @param cusip The CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @return False if the pair was definitely never added, or true if it might have been.
+     */
+    public synchronized boolean mightContain(String cusip, int issueEpochDay)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+
+        final long hash = TreasuryDirectBloomFilter.hash(cusip, issueEpochDay);
+        final int hash1 = (int)hash;
+        final int hash2 = (int)(hash >>> 32) | 1;
+        boolean result = true;
+        for (int i = 0; result && i < this.hashCount; ++i)
+        {
+            final int bitIndex = ((hash1 + i * hash2) & Integer.MAX_VALUE) % this.bitCount;
+            result = (this.bits[bitIndex >>> 6] & (1L << bitIndex)) != 0;
+        }
+        return result;
+    }
+
+    /**
+     * Hash the provided pair without allocating. CUSIPs are compared case-insensitively.
+     */
+    static long hash(String cusip, int issueEpochDay)
+    {
+        long result = 0xCBF29CE484222325L ^ issueEpochDay;
+        for (int i = 0; i < cusip.length(); ++i)
+        {
+            result ^= Character.toUpperCase(cusip.charAt(i));
+            result *= 0x100000001B3L;
+        }
+
+        // Finish with a 64-bit mix so that both halves of the hash are well distributed.
+        result ^= (result >>> 33);
+        result *= 0xFF51AFD7ED558CCDL;
+        result ^= (result >>> 33);
+        result *= 0xC4CEB9FE1A85EC53L;
+        result ^= (result >>> 33);
+        return result;
+    }
+}
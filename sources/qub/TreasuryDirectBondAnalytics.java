@@ -0,0 +1,480 @@
+package qub;
+
+/**
+ * Computes prices, yields, accrued interest, and durations for every security in a
+ * TreasuryDirectSecurityColumns at once. The inputs and outputs are primitive arrays that are
+ * indexed the same way as the columns, and the work is split into chunks that run in parallel
+ * on the common fork-join pool.
+ * <p>
+ * Notes, Bonds, and TIPS are priced as semiannual coupon securities with actual/actual accrued
+ * interest and the street yield convention, assuming a regular coupon schedule that runs back
+ * from the maturity date. TIPS are priced on their unadjusted principal. Bills and CMBs are
+ * priced from their bank discount rate and quoted at their bond-equivalent (investment) yield.
+ * FRNs and securities with missing inputs get NaN outputs. Prices are per 100 of face value and
+ * rates and yields are percentages, like the TreasuryDirect properties they come from.
+ */
+public class TreasuryDirectBondAnalytics
+{
+    private static final int chunkSize = 2048;
+    private static final int maximumNewtonIterations = 50;
+    private static final double newtonTolerance = 1e-12;
+
+    private static final byte billType = (byte)TreasuryDirectSecurityType.Bill.ordinal();
+    private static final byte cmbType = (byte)TreasuryDirectSecurityType.CMB.ordinal();
+    private static final byte noteType = (byte)TreasuryDirectSecurityType.Note.ordinal();
+    private static final byte bondType = (byte)TreasuryDirectSecurityType.Bond.ordinal();
+    private static final byte tipsType = (byte)TreasuryDirectSecurityType.TIPS.ordinal();
+
+    private final TreasuryDirectSecurityColumns columns;
+    private final double[] cleanPrices;
+    private final double[] dirtyPrices;
+    private final double[] accruedInterests;
+    private final double[] yields;
+    private final double[] macaulayDurations;
+    private final double[] modifiedDurations;
+    private boolean parallel;
+
+    private TreasuryDirectBondAnalytics(TreasuryDirectSecurityColumns columns)
+    {
+        PreCondition.assertNotNull(columns, "columns");
+
+        this.columns = columns;
+        final int count = columns.getCount();
+        this.cleanPrices = new double[count];
+        this.dirtyPrices = new double[count];
+        this.accruedInterests = new double[count];
+        this.yields = new double[count];
+        this.macaulayDurations = new double[count];
+        this.modifiedDurations = new double[count];
+        this.parallel = true;
+    }
+
+    /**
+     * Create a new TreasuryDirectBondAnalytics for the securities in the provided columns.
+     * @param columns The columns of the securities to analyze.
+     * @return The new TreasuryDirectBondAnalytics.
+     */
+    public static TreasuryDirectBondAnalytics create(TreasuryDirectSecurityColumns columns)
+    {
+        return new TreasuryDirectBondAnalytics(columns);
+    }
+
+    /**
+     * Create a new TreasuryDirectBondAnalytics for the provided securities.
+     * @param securities The securities to analyze.
+     * @return The new TreasuryDirectBondAnalytics.
+     */
+    public static TreasuryDirectBondAnalytics create(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        return TreasuryDirectBondAnalytics.create(TreasuryDirectSecurityColumns.create(securities));
+    }
+
+    /**
+     * Set whether or not computations are split across the common fork-join pool. This is
+     * enabled by default.
+     * @param parallel Whether or not computations are split across the common fork-join pool.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectBondAnalytics setParallel(boolean parallel)
+    {
+        this.parallel = parallel;
+
+        return this;
+    }
+
+    public TreasuryDirectSecurityColumns getColumns()
+    {
+        return this.columns;
+    }
+
+    public double[] getCleanPrices()
+    {
+        return this.cleanPrices;
+    }
+
+    /**
+     * Get each security's dirty price, which is its clean price plus its accrued interest.
+     * @return Each security's dirty price.
+     */
+    public double[] getDirtyPrices()
+    {
+        return this.dirtyPrices;
+    }
+
+    public double[] getAccruedInterests()
+    {
+        return this.accruedInterests;
+    }
+
+    /**
+     * Get each security's yield as a percentage. This is the semiannual yield to maturity for
+     * coupon securities and the bond-equivalent yield for Bills and CMBs.
+     * @return Each security's yield.
+     */
+    public double[] getYields()
+    {
+        return this.yields;
+    }
+
+    /**
+     * Get each security's Macaulay duration in years.
+     * @return Each security's Macaulay duration in years.
+     */
+    public double[] getMacaulayDurations()
+    {
+        return this.macaulayDurations;
+    }
+
+    /**
+     * Get each security's modified duration: the percentage change in its dirty price for a one
+     * percentage point change in its yield.
+     * @return Each security's modified duration.
+     */
+    public double[] getModifiedDurations()
+    {
+        return this.modifiedDurations;
+    }
+
+    /**
+     * Price every security at its auction rate: coupon securities at their high yield, and Bills
+     * and CMBs at their high discount rate.
+     * @param settlementEpochDay The epoch day of the settlement date.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectBondAnalytics computeFromAuctionRates(int settlementEpochDay)
+    {
+        PreCondition.assertNotEqual(TreasuryDirectDates.unknownEpochDay, settlementEpochDay, "settlementEpochDay");
+
+        final byte[] securityTypes = this.columns.getSecurityTypes();
+        final double[] auctionYields = this.columns.getYields();
+        final double[] highDiscountRates = this.columns.getHighDiscountRates();
+        this.forEachChunk((int startIndex, int endIndex) ->
+        {
+            for (int i = startIndex; i < endIndex; ++i)
+            {
+                if (TreasuryDirectBondAnalytics.isBill(securityTypes[i]))
+                {
+                    this.computeBillFromDiscountRate(i, settlementEpochDay, highDiscountRates[i]);
+                }
+                else
+                {
+                    this.computeFromYield(i, settlementEpochDay, auctionYields[i]);
+                }
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Price every security at the provided yields.
+     * @param settlementEpochDay The epoch day of the settlement date.
+     * @param yields The yield of each security as a percentage.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectBondAnalytics computeFromYields(int settlementEpochDay, double[] yields)
+    {
+        PreCondition.assertNotEqual(TreasuryDirectDates.unknownEpochDay, settlementEpochDay, "settlementEpochDay");
+        PreCondition.assertNotNull(yields, "yields");
+        PreCondition.assertGreaterThanOrEqualTo(yields.length, this.columns.getCount(), "yields.length");
+
+        this.forEachChunk((int startIndex, int endIndex) ->
+        {
+            for (int i = startIndex; i < endIndex; ++i)
+            {
+                this.computeFromYield(i, settlementEpochDay, yields[i]);
+            }
+        });
+
+        return this;
+    }
+
+    /**
+     * Solve for the yield of every security from the provided clean prices, and compute the
+     * rest of the outputs at those yields. Coupon security yields are found with Newton's
+     * method.
+     * @param settlementEpochDay The epoch day of the settlement date.
+     * @param cleanPrices The clean price of each security per 100 of face value.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectBondAnalytics computeFromCleanPrices(int settlementEpochDay, double[] cleanPrices)
+    {
+        PreCondition.assertNotEqual(TreasuryDirectDates.unknownEpochDay, settlementEpochDay, "settlementEpochDay");
+        PreCondition.assertNotNull(cleanPrices, "cleanPrices");
+        PreCondition.assertGreaterThanOrEqualTo(cleanPrices.length, this.columns.getCount(), "cleanPrices.length");
+
+        final byte[] securityTypes = this.columns.getSecurityTypes();
+        this.forEachChunk((int startIndex, int endIndex) ->
+        {
+            for (int i = startIndex; i < endIndex; ++i)
+            {
+                final double yield = TreasuryDirectBondAnalytics.isBill(securityTypes[i])
+                    ? this.getBillYield(i, settlementEpochDay, cleanPrices[i])
+                    : this.getCouponYield(i, settlementEpochDay, cleanPrices[i]);
+                this.computeFromYield(i, settlementEpochDay, yield);
+            }
+        });
+
+        return this;
+    }
+
+    private interface ChunkAction
+    {
+        void run(int startIndex, int endIndex);
+    }
+
+    private void forEachChunk(ChunkAction action)
+    {
+        final int count = this.columns.getCount();
+        final int chunkCount = (count + TreasuryDirectBondAnalytics.chunkSize - 1) / TreasuryDirectBondAnalytics.chunkSize;
+        if (this.parallel && chunkCount > 1)
+        {
+            java.util.stream.IntStream.range(0, chunkCount).parallel().forEach((int chunk) ->
+            {
+                final int startIndex = chunk * TreasuryDirectBondAnalytics.chunkSize;
+                action.run(startIndex, java.lang.Math.min(count, startIndex + TreasuryDirectBondAnalytics.chunkSize));
+            });
+        }
+        else if (count > 0)
+        {
+            action.run(0, count);
+        }
+    }
+
+    private void computeFromYield(int i, int settlementEpochDay, double yieldPercent)
+    {
+        final byte securityType = this.columns.getSecurityTypes()[i];
+        if (TreasuryDirectBondAnalytics.isBill(securityType))
+        {
+            this.computeBillFromYield(i, settlementEpochDay, yieldPercent);
+        }
+        else if (TreasuryDirectBondAnalytics.isCoupon(securityType))
+        {
+            this.computeCouponFromYield(i, settlementEpochDay, yieldPercent);
+        }
+        else
+        {
+            this.setUnknown(i);
+        }
+    }
+
+    private void computeCouponFromYield(int i, int settlementEpochDay, double yieldPercent)
+    {
+        final int maturityEpochDay = this.columns.getMaturityEpochDays()[i];
+        final double couponRate = this.columns.getInterestRates()[i] / 100;
+        final double yield = yieldPercent / 100;
+        if (maturityEpochDay == TreasuryDirectDates.unknownEpochDay || maturityEpochDay <= settlementEpochDay || Double.isNaN(couponRate) || Double.isNaN(yield))
+        {
+            this.setUnknown(i);
+        }
+        else
+        {
+            final long period = TreasuryDirectBondAnalytics.getCouponPeriod(settlementEpochDay, maturityEpochDay);
+            final int periodCount = TreasuryDirectBondAnalytics.getPeriodCount(period);
+            final int previousCouponEpochDay = TreasuryDirectDates.getCouponEpochDay(maturityEpochDay, periodCount * 6);
+            final int nextCouponEpochDay = TreasuryDirectBondAnalytics.getNextCouponEpochDay(period);
+            final double periodDays = nextCouponEpochDay - previousCouponEpochDay;
+            final double fraction = (nextCouponEpochDay - settlementEpochDay) / periodDays;
+
+            final int issueEpochDay = this.columns.getIssueEpochDays()[i];
+            final int accrualStartEpochDay = issueEpochDay == TreasuryDirectDates.unknownEpochDay ? previousCouponEpochDay : java.lang.Math.max(previousCouponEpochDay, issueEpochDay);
+            final double coupon = couponRate * 50;
+            final double accruedInterest = coupon * java.lang.Math.max(0, settlementEpochDay - accrualStartEpochDay) / periodDays;
+
+            final double discountFactor = 1 / (1 + yield / 2);
+            double dirtyPrice = 0;
+            double weightedTime = 0;
+            double presentValue = java.lang.Math.pow(discountFactor, fraction);
+            for (int couponIndex = 0; couponIndex < periodCount; ++couponIndex)
+            {
+                final double cashFlow = couponIndex == periodCount - 1 ? coupon + 100 : coupon;
+                dirtyPrice += cashFlow * presentValue;
+                weightedTime += (couponIndex + fraction) * cashFlow * presentValue;
+                presentValue *= discountFactor;
+            }
+            final double macaulayDuration = weightedTime / dirtyPrice / 2;
+
+            this.dirtyPrices[i] = dirtyPrice;
+            this.accruedInterests[i] = accruedInterest;
+            this.cleanPrices[i] = dirtyPrice - accruedInterest;
+            this.yields[i] = yieldPercent;
+            this.macaulayDurations[i] = macaulayDuration;
+            this.modifiedDurations[i] = macaulayDuration * discountFactor;
+        }
+    }
+
+    private double getCouponYield(int i, int settlementEpochDay, double cleanPrice)
+    {
+        final int maturityEpochDay = this.columns.getMaturityEpochDays()[i];
+        final double couponRate = this.columns.getInterestRates()[i] / 100;
+        double result = Double.NaN;
+        if (maturityEpochDay != TreasuryDirectDates.unknownEpochDay && settlementEpochDay < maturityEpochDay && !Double.isNaN(couponRate) && cleanPrice > 0)
+        {
+            final long period = TreasuryDirectBondAnalytics.getCouponPeriod(settlementEpochDay, maturityEpochDay);
+            final int periodCount = TreasuryDirectBondAnalytics.getPeriodCount(period);
+            final int previousCouponEpochDay = TreasuryDirectDates.getCouponEpochDay(maturityEpochDay, periodCount * 6);
+            final int nextCouponEpochDay = TreasuryDirectBondAnalytics.getNextCouponEpochDay(period);
+            final double periodDays = nextCouponEpochDay - previousCouponEpochDay;
+            final double fraction = (nextCouponEpochDay - settlementEpochDay) / periodDays;
+
+            final int issueEpochDay = this.columns.getIssueEpochDays()[i];
+            final int accrualStartEpochDay = issueEpochDay == TreasuryDirectDates.unknownEpochDay ? previousCouponEpochDay : java.lang.Math.max(previousCouponEpochDay, issueEpochDay);
+            final double coupon = couponRate * 50;
+            final double targetDirtyPrice = cleanPrice + coupon * java.lang.Math.max(0, settlementEpochDay - accrualStartEpochDay) / periodDays;
+
+            // Newton's method on the semiannual yield, starting from the current yield.
+            double halfYield = java.lang.Math.max(0.0001, coupon / cleanPrice);
+            for (int iteration = 0; iteration < TreasuryDirectBondAnalytics.maximumNewtonIterations; ++iteration)
+            {
+                final double discountFactor = 1 / (1 + halfYield);
+                double price = 0;
+                double derivative = 0;
+                double presentValue = java.lang.Math.pow(discountFactor, fraction);
+                for (int couponIndex = 0; couponIndex < periodCount; ++couponIndex)
+                {
+                    final double cashFlow = couponIndex == periodCount - 1 ? coupon + 100 : coupon;
+                    price += cashFlow * presentValue;
+                    derivative -= (couponIndex + fraction) * cashFlow * presentValue * discountFactor;
+                    presentValue *= discountFactor;
+                }
+
+                final double step = (price - targetDirtyPrice) / derivative;
+                halfYield -= step;
+                if (halfYield <= -1)
+                {
+                    break;
+                }
+                if (java.lang.Math.abs(step) < TreasuryDirectBondAnalytics.newtonTolerance)
+                {
+                    result = halfYield * 200;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private void computeBillFromDiscountRate(int i, int settlementEpochDay, double discountRatePercent)
+    {
+        final int daysToMaturity = this.columns.getMaturityEpochDays()[i] - settlementEpochDay;
+        final double price = 100 * (1 - (discountRatePercent / 100) * daysToMaturity / 360);
+        this.computeBillFromYield(i, settlementEpochDay, this.getBillYield(i, settlementEpochDay, price));
+    }
+
+    private double getBillYield(int i, int settlementEpochDay, double price)
+    {
+        final int maturityEpochDay = this.columns.getMaturityEpochDays()[i];
+        double result = Double.NaN;
+        if (maturityEpochDay != TreasuryDirectDates.unknownEpochDay && settlementEpochDay < maturityEpochDay && price > 0)
+        {
+            final double years = (maturityEpochDay - settlementEpochDay) / 365.0;
+            if (maturityEpochDay - settlementEpochDay <= 182)
+            {
+                result = (100 - price) / price / years * 100;
+            }
+            else
+            {
+                // Solve price * (1 + y/2) * (1 + (years - 1/2) * y) = 100 for y.
+                final double a = years / 2 - 0.25;
+                final double b = years;
+                final double c = (price - 100) / price;
+                result = (-b + java.lang.Math.sqrt(b * b - 4 * a * c)) / (2 * a) * 100;
+            }
+        }
+        return result;
+    }
+
+    private void computeBillFromYield(int i, int settlementEpochDay, double yieldPercent)
+    {
+        final int maturityEpochDay = this.columns.getMaturityEpochDays()[i];
+        final double yield = yieldPercent / 100;
+        if (maturityEpochDay == TreasuryDirectDates.unknownEpochDay || maturityEpochDay <= settlementEpochDay || Double.isNaN(yield))
+        {
+            this.setUnknown(i);
+        }
+        else
+        {
+            final double years = (maturityEpochDay - settlementEpochDay) / 365.0;
+            final double denominator;
+            final double denominatorDerivative;
+            if (maturityEpochDay - settlementEpochDay <= 182)
+            {
+                denominator = 1 + yield * years;
+                denominatorDerivative = years;
+            }
+            else
+            {
+                final double a = years / 2 - 0.25;
+                denominator = 1 + years * yield + a * yield * yield;
+                denominatorDerivative = years + 2 * a * yield;
+            }
+            final double price = 100 / denominator;
+
+            this.cleanPrices[i] = price;
+            this.dirtyPrices[i] = price;
+            this.accruedInterests[i] = 0;
+            this.yields[i] = yieldPercent;
+            this.macaulayDurations[i] = years;
+            this.modifiedDurations[i] = denominatorDerivative / denominator;
+        }
+    }
+
+    private void setUnknown(int i)
+    {
+        this.cleanPrices[i] = Double.NaN;
+        this.dirtyPrices[i] = Double.NaN;
+        this.accruedInterests[i] = Double.NaN;
+        this.yields[i] = Double.NaN;
+        this.macaulayDurations[i] = Double.NaN;
+        this.modifiedDurations[i] = Double.NaN;
+    }
+
+    private static boolean isBill(byte securityType)
+    {
+        return securityType == TreasuryDirectBondAnalytics.billType || securityType == TreasuryDirectBondAnalytics.cmbType;
+    }
+
+    private static boolean isCoupon(byte securityType)
+    {
+        return securityType == TreasuryDirectBondAnalytics.noteType ||
+            securityType == TreasuryDirectBondAnalytics.bondType ||
+            securityType == TreasuryDirectBondAnalytics.tipsType;
+    }
+
+    /**
+     * Get the coupon period that contains the provided settlement date.
+     * @return The number of remaining coupons in the upper 32 bits and the epoch day of the next
+     * coupon date in the lower 32 bits.
+     */
+    static long getCouponPeriod(int settlementEpochDay, int maturityEpochDay)
+    {
+        final int monthCount = (TreasuryDirectDates.getYear(maturityEpochDay) - TreasuryDirectDates.getYear(settlementEpochDay)) * 12 +
+            (TreasuryDirectDates.getMonth(maturityEpochDay) - TreasuryDirectDates.getMonth(settlementEpochDay));
+
+        // The previous coupon date is the latest one (counting back from maturity) that is on or
+        // before the settlement date.
+        int periodCount = java.lang.Math.max(1, monthCount / 6);
+        while (TreasuryDirectDates.getCouponEpochDay(maturityEpochDay, periodCount * 6) > settlementEpochDay)
+        {
+            ++periodCount;
+        }
+        while (periodCount > 1 && TreasuryDirectDates.getCouponEpochDay(maturityEpochDay, (periodCount - 1) * 6) <= settlementEpochDay)
+        {
+            --periodCount;
+        }
+        final int nextCouponEpochDay = TreasuryDirectDates.getCouponEpochDay(maturityEpochDay, (periodCount - 1) * 6);
+        return ((long)periodCount << 32) | (nextCouponEpochDay & 0xFFFFFFFFL);
+    }
+
+    static int getPeriodCount(long couponPeriod)
+    {
+        return (int)(couponPeriod >>> 32);
+    }
+
+    static int getNextCouponEpochDay(long couponPeriod)
+    {
+        return (int)couponPeriod;
+    }
+}
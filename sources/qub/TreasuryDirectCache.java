@@ -0,0 +1,40 @@
+package qub;
+
+/**
+ * A store of encoded TreasuryDirect responses, keyed by the canonical keys from
+ * TreasuryDirectCacheKeys. Implementations must be safe to use from multiple threads.
+ */
+public interface TreasuryDirectCache
+{
+    /**
+     * Get the entry with the provided key.
+     * @param key The key of the entry.
+     * @return The entry with the provided key, or null if this cache doesn't contain the key.
+     */
+    TreasuryDirectCacheEntry get(String key);
+
+    /**
+     * Store the provided entry under the provided key, replacing any existing entry.
+     * @param key The key of the entry.
+     * @param entry The entry to store.
+     */
+    void put(String key, TreasuryDirectCacheEntry entry);
+
+    /**
+     * Remove the entry with the provided key.
+     * @param key The key of the entry to remove.
+     */
+    void remove(String key);
+
+    /**
+     * Get the number of entries in this cache.
+     * @return The number of entries in this cache.
+     */
+    int getCount();
+
+    /**
+     * Get the hit and miss counts of this cache.
+     * @return The hit and miss counts of this cache.
+     */
+    TreasuryDirectCacheMetrics getMetrics();
+}
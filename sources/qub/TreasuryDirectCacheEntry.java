@@ -0,0 +1,51 @@
+package qub;
+
+/**
+ * A cached TreasuryDirect response and the time that it was fetched.
+ */
+public class TreasuryDirectCacheEntry
+{
+    private final byte[] value;
+    private final long fetchedMilliseconds;
+
+    private TreasuryDirectCacheEntry(byte[] value, long fetchedMilliseconds)
+    {
+        PreCondition.assertNotNull(value, "value");
+
+        this.value = value;
+        this.fetchedMilliseconds = fetchedMilliseconds;
+    }
+
+    /**
+     * Create a new TreasuryDirectCacheEntry.
+     * @param value The encoded response. The bytes are not copied, so they must not be modified
+     *              afterwards.
+     * @param fetchedMilliseconds The time (in milliseconds since the epoch) that the response was
+     *                            fetched from TreasuryDirect.
+     * @return The new TreasuryDirectCacheEntry.
+     */
+    public static TreasuryDirectCacheEntry create(byte[] value, long fetchedMilliseconds)
+    {
+        return new TreasuryDirectCacheEntry(value, fetchedMilliseconds);
+    }
+
+    public byte[] getValue()
+    {
+        return this.value;
+    }
+
+    public long getFetchedMilliseconds()
+    {
+        return this.fetchedMilliseconds;
+    }
+
+    /**
+     * Get how long ago this entry was fetched.
+     * @param nowMilliseconds The current time in milliseconds since the epoch.
+     * @return The number of milliseconds since this entry was fetched.
+     */
+    public long getAgeMilliseconds(long nowMilliseconds)
+    {
+        return java.lang.Math.max(0, nowMilliseconds - this.fetchedMilliseconds);
+    }
+}
@@ -0,0 +1,161 @@
+package qub;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Functions that create canonical cache keys for TreasuryDirect requests and that encode and
+ * decode the cached responses. Two requests that would return the same TA_WS response get the
+ * same key: issue dates are normalized to yyyy-MM-dd and query options are sorted by name.
+ */
+public interface TreasuryDirectCacheKeys
+{
+    static String getSecurityKey(String cusip, String issueMonth, String issueDayOfMonth, String issueYear)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+        PreCondition.assertNotNullAndNotEmpty(issueMonth, "issueMonth");
+        PreCondition.assertNotNullAndNotEmpty(issueDayOfMonth, "issueDayOfMonth");
+        PreCondition.assertNotNullAndNotEmpty(issueYear, "issueYear");
+
+        String issueDate;
+        try
+        {
+            issueDate = String.format("%04d-%02d-%02d", Integer.parseInt(issueYear.trim()), Integer.parseInt(issueMonth.trim()), Integer.parseInt(issueDayOfMonth.trim()));
+        }
+        catch (NumberFormatException e)
+        {
+            issueDate = issueYear + "-" + issueMonth + "-" + issueDayOfMonth;
+        }
+        return "securities/" + cusip.toUpperCase(java.util.Locale.ROOT) + "/" + issueDate;
+    }
+
+    /**
+     * Get the key that records that the response for the provided key was "No data".
+     * @param key The key of the response that wasn't found.
+     * @return The key of the negative cache entry.
+     */
+    static String getNotFoundKey(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        return "notfound/" + key;
+    }
+
+    static String getAnnouncedSecuritiesKey(GetAnnouncedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return TreasuryDirectCacheKeys.getListKey("securities/announced", options.getPageSize(), options.getType(), options.getDays(), options.getReopening());
+    }
+
+    static String getAuctionedSecuritiesKey(GetAuctionedSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        return TreasuryDirectCacheKeys.getListKey("securities/auctioned", options.getPageSize(), options.getType(), options.getDays(), options.getReopening());
+    }
+
+    static String getSecuritiesByTypeKey(TreasuryDirectSecurityType type)
+    {
+        PreCondition.assertNotNull(type, "type");
+
+        return "securities/" + type;
+    }
+
+    static String getSearchSecuritiesKey(SearchSecuritiesOptions options)
+    {
+        PreCondition.assertNotNull(options, "options");
+
+        final java.util.TreeMap<String,String> sortedOptions = new java.util.TreeMap<>();
+        for (final MapEntry<String,String> option : options)
+        {
+            sortedOptions.put(option.getKey(), option.getValue());
+        }
+
+        final StringBuilder builder = new StringBuilder("securities/search");
+        char separator = '?';
+        for (final java.util.Map.Entry<String,String> option : sortedOptions.entrySet())
+        {
+            builder.append(separator).append(option.getKey()).append('=').append(option.getValue());
+            separator = '&';
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Encode the provided securities as a UTF-8 JSON array.
+     * @param securities The securities to encode.
+     * @return The encoded securities.
+     */
+    static byte[] encodeSecurities(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        final StringBuilder builder = new StringBuilder();
+        builder.append('[');
+        boolean first = true;
+        for (final TreasuryDirectSecurity security : securities)
+        {
+            if (!first)
+            {
+                builder.append(',');
+            }
+            first = false;
+            builder.append(security.toString());
+        }
+        builder.append(']');
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode securities that were encoded with encodeSecurities(). The securities are decoded
+     * lazily, so only the properties that are read are ever parsed.
+     * @param bytes The encoded securities.
+     * @return The decoded securities.
+     */
+    static Iterable<TreasuryDirectSecurity> decodeSecurities(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return LazyTreasuryDirectSecurity.createArray(bytes);
+    }
+
+    static byte[] encodeSecurity(TreasuryDirectSecurity security)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        return security.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static TreasuryDirectSecurity decodeSecurity(byte[] bytes)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return LazyTreasuryDirectSecurity.create(bytes, 0, bytes.length);
+    }
+
+    private static String getListKey(String path, Integer pageSize, TreasuryDirectSecurityType type, Integer days, Boolean reopening)
+    {
+        final StringBuilder builder = new StringBuilder(path);
+        char separator = '?';
+        if (days != null)
+        {
+            builder.append(separator).append("days=").append(days);
+            separator = '&';
+        }
+        if (pageSize != null)
+        {
+            builder.append(separator).append("pagesize=").append(pageSize);
+            separator = '&';
+        }
+        if (reopening != null)
+        {
+            builder.append(separator).append("reopening=").append(reopening ? "Yes" : "No");
+            separator = '&';
+        }
+        if (type != null)
+        {
+            builder.append(separator).append("type=").append(type);
+        }
+        return builder.toString();
+    }
+}
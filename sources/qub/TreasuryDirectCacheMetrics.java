@@ -0,0 +1,76 @@
+package qub;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit, miss, and rejection counters for a TreasuryDirectCache.
+ */
+public class TreasuryDirectCacheMetrics
+{
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong rejectedCount;
+
+    private TreasuryDirectCacheMetrics()
+    {
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.rejectedCount = new AtomicLong();
+    }
+
+    public static TreasuryDirectCacheMetrics create()
+    {
+        return new TreasuryDirectCacheMetrics();
+    }
+
+    void recordHit()
+    {
+        this.hitCount.incrementAndGet();
+    }
+
+    void recordMiss()
+    {
+        this.missCount.incrementAndGet();
+    }
+
+    void recordRejected()
+    {
+        this.rejectedCount.incrementAndGet();
+    }
+
+    public long getHitCount()
+    {
+        return this.hitCount.get();
+    }
+
+    public long getMissCount()
+    {
+        return this.missCount.get();
+    }
+
+    /**
+     * Get the number of entries that weren't stored because they failed admission.
+     * @return The number of entries that weren't stored because they failed admission.
+     */
+    public long getRejectedCount()
+    {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * Get the fraction of lookups that were hits.
+     * @return The fraction of lookups that were hits, or 0 if there haven't been any lookups.
+     */
+    public double getHitRate()
+    {
+        final long hitCount = this.getHitCount();
+        final long lookupCount = hitCount + this.getMissCount();
+        return lookupCount == 0 ? 0 : (double)hitCount / lookupCount;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "{\"hits\":" + this.getHitCount() + ",\"misses\":" + this.getMissCount() + ",\"rejected\":" + this.getRejectedCount() + "}";
+    }
+}
@@ -0,0 +1,207 @@
+package qub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An HTTP server that exposes one node's local TreasuryDirectCache to the other nodes of a
+ * PartitionedTreasuryDirectCache. The protocol is deliberately small:
+ * <pre>
+ *   GET    /cache/entry?key=...   200 with the value as the body, or 404 if there is no entry
+ *   PUT    /cache/entry?key=...   store the body as the value
+ *   DELETE /cache/entry?key=...   remove the entry
+ *   GET    /cache/count           the number of entries as decimal text
+ * </pre>
+ * The time that an entry was fetched travels in the fetchedMillisecondsHeaderName header.
+ * RemoteTreasuryDirectCache is the matching client.
+ */
+public class TreasuryDirectCacheNode implements AutoCloseable
+{
+    public static final String basePath = "/cache/";
+    public static final String fetchedMillisecondsHeaderName = "X-Fetched-Milliseconds";
+
+    private final TreasuryDirectCache cache;
+    private final java.util.concurrent.atomic.AtomicLong requestCount;
+    private HttpServer server;
+    private java.util.concurrent.ExecutorService executor;
+
+    private TreasuryDirectCacheNode(TreasuryDirectCache cache)
+    {
+        PreCondition.assertNotNull(cache, "cache");
+
+        this.cache = cache;
+        this.requestCount = new java.util.concurrent.atomic.AtomicLong();
+    }
+
+    /**
+     * Create a new TreasuryDirectCacheNode that isn't listening for requests yet.
+     * @param cache The local cache that requests will be answered from.
+     * @return The new TreasuryDirectCacheNode.
+     */
+    public static TreasuryDirectCacheNode create(TreasuryDirectCache cache)
+    {
+        return new TreasuryDirectCacheNode(cache);
+    }
+
+    /**
+     * Start listening for requests on the provided port.
+     * @param address The address to listen on, such as the loopback address.
+     * @param port The port to listen on, or 0 to listen on any free port.
+     * @return This node once it is listening.
+     */
+    public synchronized Result<TreasuryDirectCacheNode> start(InetAddress address, int port)
+    {
+        PreCondition.assertNotNull(address, "address");
+        PreCondition.assertBetween(0, port, 65535, "port");
+        PreCondition.assertNull(this.server, "this.server");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                this.executor = java.util.concurrent.Executors.newThreadPerTaskExecutor(
+                    java.lang.Thread.ofVirtual().name("treasurydirect-cache-node-", 0).factory());
+                this.server = HttpServer.create(new InetSocketAddress(address, port), 0);
+                this.server.setExecutor(this.executor);
+                this.server.createContext(TreasuryDirectCacheNode.basePath, this::handle);
+                this.server.start();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        });
+    }
+
+    /**
+     * Get the local cache that this node serves.
+     * @return The local cache that this node serves.
+     */
+    public TreasuryDirectCache getCache()
+    {
+        return this.cache;
+    }
+
+    /**
+     * Get the port that this node is listening on.
+     * @return The port that this node is listening on.
+     */
+    public synchronized int getPort()
+    {
+        PreCondition.assertNotNull(this.server, "this.server");
+
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Get the base URL that other nodes should use to reach this node.
+     * @return The base URL that other nodes should use to reach this node.
+     */
+    public synchronized String getBaseUrl()
+    {
+        PreCondition.assertNotNull(this.server, "this.server");
+
+        return "http://" + this.server.getAddress().getAddress().getHostAddress() + ":" + this.getPort() + TreasuryDirectCacheNode.basePath;
+    }
+
+    /**
+     * Get the number of requests that this node has answered.
+     * @return The number of requests that this node has answered.
+     */
+    public long getRequestCount()
+    {
+        return this.requestCount.get();
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (this.server != null)
+        {
+            this.server.stop(0);
+            this.server = null;
+            this.executor.close();
+            this.executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try (exchange)
+        {
+            int statusCode = 404;
+            byte[] responseBody = new byte[0];
+
+            final String method = exchange.getRequestMethod();
+            final String path = exchange.getRequestURI().getPath();
+            if (path.equals(TreasuryDirectCacheNode.basePath + "count") && method.equals("GET"))
+            {
+                statusCode = 200;
+                responseBody = Integer.toString(this.cache.getCount()).getBytes(StandardCharsets.UTF_8);
+            }
+            else if (path.equals(TreasuryDirectCacheNode.basePath + "entry"))
+            {
+                final String key = TreasuryDirectGateway.parseQuery(exchange.getRequestURI().getRawQuery()).get("key");
+                if (Strings.isNullOrEmpty(key))
+                {
+                    statusCode = 400;
+                }
+                else if (method.equals("GET"))
+                {
+                    final TreasuryDirectCacheEntry entry = this.cache.get(key);
+                    if (entry != null)
+                    {
+                        statusCode = 200;
+                        responseBody = entry.getValue();
+                        exchange.getResponseHeaders().set(TreasuryDirectCacheNode.fetchedMillisecondsHeaderName, Long.toString(entry.getFetchedMilliseconds()));
+                    }
+                }
+                else if (method.equals("PUT"))
+                {
+                    final String fetchedMilliseconds = exchange.getRequestHeaders().getFirst(TreasuryDirectCacheNode.fetchedMillisecondsHeaderName);
+                    final byte[] value;
+                    try (final InputStream requestBody = exchange.getRequestBody())
+                    {
+                        value = requestBody.readAllBytes();
+                    }
+                    try
+                    {
+                        this.cache.put(key, TreasuryDirectCacheEntry.create(value, Long.parseLong(fetchedMilliseconds)));
+                        statusCode = 204;
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        statusCode = 400;
+                    }
+                }
+                else if (method.equals("DELETE"))
+                {
+                    this.cache.remove(key);
+                    statusCode = 204;
+                }
+                else
+                {
+                    statusCode = 405;
+                }
+            }
+
+            this.requestCount.incrementAndGet();
+            exchange.sendResponseHeaders(statusCode, responseBody.length == 0 ? -1 : responseBody.length);
+            if (responseBody.length > 0)
+            {
+                try (final OutputStream responseStream = exchange.getResponseBody())
+                {
+                    responseStream.write(responseBody);
+                }
+            }
+        }
+    }
+}
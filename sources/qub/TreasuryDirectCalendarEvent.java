@@ -0,0 +1,161 @@
+package qub;
+
+/**
+ * An expected publication on the Treasury auction calendar: an announcement, an auction result,
+ * or an issue. Event times are derived from the dates of announced securities. Announcements are
+ * expected at 11:00 AM Eastern, auction results at the security's competitive closing time (or
+ * 1:00 PM Eastern if it isn't known), and issues at 9:00 AM Eastern.
+ */
+public class TreasuryDirectCalendarEvent
+{
+    /**
+     * The kinds of calendar events.
+     */
+    public enum Type
+    {
+        Announcement,
+        Auction,
+        Issue
+    }
+
+    public static final String closingTimeCompetitivePropertyName = "closingTimeCompetitive";
+
+    private static final java.time.ZoneId treasuryZone = java.time.ZoneId.of("America/New_York");
+    private static final int announcementMinuteOfDay = 11 * 60;
+    private static final int defaultAuctionMinuteOfDay = 13 * 60;
+    private static final int issueMinuteOfDay = 9 * 60;
+
+    private final Type type;
+    private final String cusip;
+    private final long milliseconds;
+
+    private TreasuryDirectCalendarEvent(Type type, String cusip, long milliseconds)
+    {
+        PreCondition.assertNotNull(type, "type");
+
+        this.type = type;
+        this.cusip = cusip;
+        this.milliseconds = milliseconds;
+    }
+
+    /**
+     * Create a new TreasuryDirectCalendarEvent.
+     * @param type The kind of event.
+     * @param cusip The CUSIP of the security that the event is for, or null if it isn't known.
+     * @param milliseconds The expected time of the event in milliseconds since the epoch.
+     * @return The new TreasuryDirectCalendarEvent.
+     */
+    public static TreasuryDirectCalendarEvent create(Type type, String cusip, long milliseconds)
+    {
+        return new TreasuryDirectCalendarEvent(type, cusip, milliseconds);
+    }
+
+    /**
+     * Get the calendar events of the provided announced securities, ordered by time. Dates that
+     * are missing or can't be parsed don't produce an event.
+     * @param securities The announced securities.
+     * @return The calendar events of the provided securities.
+     */
+    public static List<TreasuryDirectCalendarEvent> fromSecurities(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        final java.util.ArrayList<TreasuryDirectCalendarEvent> events = new java.util.ArrayList<>();
+        for (final TreasuryDirectSecurity security : securities)
+        {
+            final String cusip = security.getCusip().catchError().await();
+            TreasuryDirectCalendarEvent.addEvent(events, Type.Announcement, cusip, security.getAnnouncementEpochDay(), TreasuryDirectCalendarEvent.announcementMinuteOfDay);
+
+            int auctionMinuteOfDay = TreasuryDirectCalendarEvent.parseMinuteOfDay(security.getString(TreasuryDirectCalendarEvent.closingTimeCompetitivePropertyName).catchError().await());
+            if (auctionMinuteOfDay < 0)
+            {
+                auctionMinuteOfDay = TreasuryDirectCalendarEvent.defaultAuctionMinuteOfDay;
+            }
+            TreasuryDirectCalendarEvent.addEvent(events, Type.Auction, cusip, security.getAuctionEpochDay(), auctionMinuteOfDay);
+
+            TreasuryDirectCalendarEvent.addEvent(events, Type.Issue, cusip, security.getIssueEpochDay(), TreasuryDirectCalendarEvent.issueMinuteOfDay);
+        }
+        events.sort((TreasuryDirectCalendarEvent lhs, TreasuryDirectCalendarEvent rhs) -> Long.compare(lhs.milliseconds, rhs.milliseconds));
+
+        final List<TreasuryDirectCalendarEvent> result = List.create();
+        for (final TreasuryDirectCalendarEvent event : events)
+        {
+            result.add(event);
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the minute of the day of the provided TreasuryDirect time text, such as "11:30 AM".
+     * @param text The text to parse.
+     * @return The minute of the day, or -1 if the text isn't a valid time.
+     */
+    static int parseMinuteOfDay(String text)
+    {
+        int result = -1;
+        if (!Strings.isNullOrEmpty(text))
+        {
+            final String trimmedText = text.trim().toUpperCase(java.util.Locale.ROOT);
+            final int colonIndex = trimmedText.indexOf(':');
+            if (colonIndex > 0 && colonIndex + 3 <= trimmedText.length())
+            {
+                final int hour = TreasuryDirectDates.parseDigits(trimmedText, 0, colonIndex);
+                final int minute = TreasuryDirectDates.parseDigits(trimmedText, colonIndex + 1, colonIndex + 3);
+                final String suffix = trimmedText.substring(colonIndex + 3).trim();
+                if (0 <= hour && hour <= 23 && 0 <= minute && minute <= 59)
+                {
+                    if (suffix.isEmpty())
+                    {
+                        result = hour * 60 + minute;
+                    }
+                    else if (1 <= hour && hour <= 12 && (suffix.equals("AM") || suffix.equals("PM")))
+                    {
+                        result = ((hour % 12) + (suffix.equals("PM") ? 12 : 0)) * 60 + minute;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public Type getType()
+    {
+        return this.type;
+    }
+
+    public String getCusip()
+    {
+        return this.cusip;
+    }
+
+    /**
+     * Get the expected time of this event.
+     * @return The expected time of this event in milliseconds since the epoch.
+     */
+    public long getMilliseconds()
+    {
+        return this.milliseconds;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.type + " " + this.cusip + " " + java.time.Instant.ofEpochMilli(this.milliseconds);
+    }
+
+    private static void addEvent(java.util.ArrayList<TreasuryDirectCalendarEvent> events, Type type, String cusip, int epochDay, int minuteOfDay)
+    {
+        if (epochDay != TreasuryDirectDates.unknownEpochDay)
+        {
+            final long milliseconds = java.time.LocalDate.ofEpochDay(epochDay)
+                .atTime(minuteOfDay / 60, minuteOfDay % 60)
+                .atZone(TreasuryDirectCalendarEvent.treasuryZone)
+                .toInstant()
+                .toEpochMilli();
+            events.add(new TreasuryDirectCalendarEvent(type, cusip, milliseconds));
+        }
+    }
+}
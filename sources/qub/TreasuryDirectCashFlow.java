@@ -0,0 +1,78 @@
+package qub;
+
+/**
+ * One projected payment of a TreasuryDirectSecurity. Amounts are per 100 of face value.
+ */
+public class TreasuryDirectCashFlow
+{
+    private final TreasuryDirectSecurity security;
+    private final int paymentEpochDay;
+    private final double interest;
+    private final double principal;
+
+    private TreasuryDirectCashFlow(TreasuryDirectSecurity security, int paymentEpochDay, double interest, double principal)
+    {
+        PreCondition.assertNotNull(security, "security");
+        PreCondition.assertNotEqual(TreasuryDirectDates.unknownEpochDay, paymentEpochDay, "paymentEpochDay");
+
+        this.security = security;
+        this.paymentEpochDay = paymentEpochDay;
+        this.interest = interest;
+        this.principal = principal;
+    }
+
+    /**
+     * Create a new TreasuryDirectCashFlow.
+     * @param security The security that makes the payment.
+     * @param paymentEpochDay The epoch day that the payment is made on.
+     * @param interest The interest that is paid per 100 of face value, or NaN if it isn't known
+     *                 yet.
+     * @param principal The principal that is paid per 100 of face value.
+     * @return The new TreasuryDirectCashFlow.
+     */
+    public static TreasuryDirectCashFlow create(TreasuryDirectSecurity security, int paymentEpochDay, double interest, double principal)
+    {
+        return new TreasuryDirectCashFlow(security, paymentEpochDay, interest, principal);
+    }
+
+    public TreasuryDirectSecurity getSecurity()
+    {
+        return this.security;
+    }
+
+    public int getPaymentEpochDay()
+    {
+        return this.paymentEpochDay;
+    }
+
+    /**
+     * Get the interest that is paid per 100 of face value. This is NaN for FRN payments whose
+     * index rate isn't known yet.
+     * @return The interest that is paid per 100 of face value.
+     */
+    public double getInterest()
+    {
+        return this.interest;
+    }
+
+    public double getPrincipal()
+    {
+        return this.principal;
+    }
+
+    /**
+     * Get the total amount that is paid per 100 of face value.
+     * @return The total amount that is paid per 100 of face value.
+     */
+    public double getAmount()
+    {
+        return this.interest + this.principal;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.security.getCusip().catchError().await() + " " + java.time.LocalDate.ofEpochDay(this.paymentEpochDay) +
+            " interest=" + this.interest + " principal=" + this.principal;
+    }
+}
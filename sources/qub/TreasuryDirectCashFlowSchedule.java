@@ -0,0 +1,297 @@
+package qub;
+
+/**
+ * The projected payments of one TreasuryDirectSecurity, derived from its issue and maturity
+ * dates and its interest rate. Payments are computed when they are read, so a schedule doesn't
+ * hold any per-payment state.
+ * <p>
+ * Notes, Bonds, and TIPS pay interest every six months on the anniversaries of their maturity
+ * date (the last day of the month if they mature on the last day of a month), and the first
+ * payment is prorated from the dated date (or the issue date) if the first interest period is
+ * short or long. TIPS interest is on the unadjusted principal because future index ratios aren't
+ * known. FRNs pay interest every three months on an actual/360 basis at an assumed index rate
+ * plus their spread, or NaN if no index rate is provided. Bills and CMBs only repay their
+ * principal at maturity.
+ */
+public class TreasuryDirectCashFlowSchedule implements java.lang.Iterable<TreasuryDirectCashFlow>
+{
+    public static final String datedDatePropertyName = "datedDate";
+    public static final String firstInterestPaymentDatePropertyName = "firstInterestPaymentDate";
+    public static final String spreadPropertyName = "spread";
+
+    private final TreasuryDirectSecurity security;
+    private final int maturityEpochDay;
+    private final int accrualStartEpochDay;
+    private final int monthsPerPeriod;
+    private final int paymentCount;
+    private final double annualRate;
+    private final boolean actual360;
+
+    private TreasuryDirectCashFlowSchedule(TreasuryDirectSecurity security, double frnIndexRate)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        this.security = security;
+        this.maturityEpochDay = security.getMaturityEpochDay();
+
+        int accrualStartEpochDay = security.getEpochDay(TreasuryDirectCashFlowSchedule.datedDatePropertyName);
+        if (accrualStartEpochDay == TreasuryDirectDates.unknownEpochDay)
+        {
+            accrualStartEpochDay = security.getIssueEpochDay();
+        }
+        this.accrualStartEpochDay = accrualStartEpochDay;
+
+        final byte securityType = TreasuryDirectSecurityColumns.encodeSecurityType(security.getSecurityType().catchError().await());
+        if (securityType == TreasuryDirectSecurityType.Note.ordinal() ||
+            securityType == TreasuryDirectSecurityType.Bond.ordinal() ||
+            securityType == TreasuryDirectSecurityType.TIPS.ordinal())
+        {
+            this.monthsPerPeriod = 6;
+            this.annualRate = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.interestRatePropertyName);
+            this.actual360 = false;
+        }
+        else if (securityType == TreasuryDirectSecurityType.FRN.ordinal())
+        {
+            this.monthsPerPeriod = 3;
+            this.annualRate = frnIndexRate + TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectCashFlowSchedule.spreadPropertyName);
+            this.actual360 = true;
+        }
+        else
+        {
+            this.monthsPerPeriod = 0;
+            this.annualRate = 0;
+            this.actual360 = false;
+        }
+
+        this.paymentCount = this.getPaymentCount(securityType);
+    }
+
+    /**
+     * Create the schedule of the provided security. FRN interest payments are NaN because their
+     * index rate isn't known.
+     * @param security The security.
+     * @return The schedule of the provided security.
+     */
+    public static TreasuryDirectCashFlowSchedule create(TreasuryDirectSecurity security)
+    {
+        return TreasuryDirectCashFlowSchedule.create(security, Double.NaN);
+    }
+
+    /**
+     * Create the schedule of the provided security.
+     * @param security The security.
+     * @param frnIndexRate The index rate (as a percentage) that FRN interest payments are
+     *                     projected at, or NaN to leave them unknown.
+     * @return The schedule of the provided security.
+     */
+    public static TreasuryDirectCashFlowSchedule create(TreasuryDirectSecurity security, double frnIndexRate)
+    {
+        return new TreasuryDirectCashFlowSchedule(security, frnIndexRate);
+    }
+
+    public TreasuryDirectSecurity getSecurity()
+    {
+        return this.security;
+    }
+
+    /**
+     * Get the number of payments in this schedule, including the final principal payment.
+     * @return The number of payments in this schedule.
+     */
+    public int getCount()
+    {
+        return this.paymentCount;
+    }
+
+    /**
+     * Get the epoch day of the payment at the provided index.
+     * @param index The index of the payment, starting with the first payment.
+     * @return The epoch day of the payment at the provided index.
+     */
+    public int getPaymentEpochDay(int index)
+    {
+        PreCondition.assertBetween(0, index, this.paymentCount - 1, "index");
+
+        return TreasuryDirectDates.getCouponEpochDay(this.maturityEpochDay, (this.paymentCount - 1 - index) * this.monthsPerPeriod);
+    }
+
+    /**
+     * Get the interest of the payment at the provided index per 100 of face value.
+     * @param index The index of the payment, starting with the first payment.
+     * @return The interest of the payment at the provided index.
+     */
+    public double getInterest(int index)
+    {
+        PreCondition.assertBetween(0, index, this.paymentCount - 1, "index");
+
+        double result = 0;
+        if (this.monthsPerPeriod > 0)
+        {
+            final int monthsBeforeMaturity = (this.paymentCount - 1 - index) * this.monthsPerPeriod;
+            final int paymentEpochDay = TreasuryDirectDates.getCouponEpochDay(this.maturityEpochDay, monthsBeforeMaturity);
+            final int periodStartEpochDay = TreasuryDirectDates.getCouponEpochDay(this.maturityEpochDay, monthsBeforeMaturity + this.monthsPerPeriod);
+            final int accrualStartEpochDay = index == 0 && this.accrualStartEpochDay != TreasuryDirectDates.unknownEpochDay
+                ? this.accrualStartEpochDay
+                : periodStartEpochDay;
+            if (this.actual360)
+            {
+                result = this.annualRate * (paymentEpochDay - accrualStartEpochDay) / 360;
+            }
+            else
+            {
+                final double regularInterest = this.annualRate * this.monthsPerPeriod / 12;
+                double periodFraction = 1;
+                if (accrualStartEpochDay > periodStartEpochDay)
+                {
+                    // Short first period.
+                    periodFraction = (double)(paymentEpochDay - accrualStartEpochDay) / (paymentEpochDay - periodStartEpochDay);
+                }
+                else if (accrualStartEpochDay < periodStartEpochDay)
+                {
+                    // Long first period: a full period plus the part of the period before it.
+                    final int previousPeriodStartEpochDay = TreasuryDirectDates.getCouponEpochDay(this.maturityEpochDay, monthsBeforeMaturity + 2 * this.monthsPerPeriod);
+                    periodFraction += (double)(periodStartEpochDay - java.lang.Math.max(accrualStartEpochDay, previousPeriodStartEpochDay)) / (periodStartEpochDay - previousPeriodStartEpochDay);
+                }
+                result = regularInterest * periodFraction;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the principal of the payment at the provided index per 100 of face value.
+     * @param index The index of the payment, starting with the first payment.
+     * @return The principal of the payment at the provided index.
+     */
+    public double getPrincipal(int index)
+    {
+        PreCondition.assertBetween(0, index, this.paymentCount - 1, "index");
+
+        return index == this.paymentCount - 1 ? 100 : 0;
+    }
+
+    /**
+     * Get the payment at the provided index.
+     * @param index The index of the payment, starting with the first payment.
+     * @return The payment at the provided index.
+     */
+    public TreasuryDirectCashFlow get(int index)
+    {
+        PreCondition.assertBetween(0, index, this.paymentCount - 1, "index");
+
+        return TreasuryDirectCashFlow.create(this.security, this.getPaymentEpochDay(index), this.getInterest(index), this.getPrincipal(index));
+    }
+
+    /**
+     * Get the index of the first payment that is made on or after the provided epoch day.
+     * @param epochDay The epoch day.
+     * @return The index of the first payment that is made on or after the provided epoch day,
+     * or getCount() if there are no more payments.
+     */
+    public int getFirstIndexOnOrAfter(int epochDay)
+    {
+        int result = 0;
+        if (this.paymentCount > 0 && epochDay > this.getPaymentEpochDay(0))
+        {
+            if (epochDay > this.maturityEpochDay)
+            {
+                result = this.paymentCount;
+            }
+            else
+            {
+                final int monthCount = TreasuryDirectCashFlowSchedule.getMonthCount(epochDay, this.maturityEpochDay);
+                int periodsBeforeMaturity = java.lang.Math.min(this.paymentCount - 1, monthCount / this.monthsPerPeriod);
+                while (periodsBeforeMaturity > 0 && TreasuryDirectDates.getCouponEpochDay(this.maturityEpochDay, periodsBeforeMaturity * this.monthsPerPeriod) < epochDay)
+                {
+                    --periodsBeforeMaturity;
+                }
+                while (periodsBeforeMaturity < this.paymentCount - 1 && TreasuryDirectDates.getCouponEpochDay(this.maturityEpochDay, (periodsBeforeMaturity + 1) * this.monthsPerPeriod) >= epochDay)
+                {
+                    ++periodsBeforeMaturity;
+                }
+                result = this.paymentCount - 1 - periodsBeforeMaturity;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Iterate over the payments of this schedule in date order. Each payment is computed when it
+     * is reached.
+     * @return An iterator over the payments of this schedule.
+     */
+    @Override
+    public java.util.Iterator<TreasuryDirectCashFlow> iterator()
+    {
+        return new java.util.Iterator<>()
+        {
+            private int index;
+
+            @Override
+            public boolean hasNext()
+            {
+                return this.index < TreasuryDirectCashFlowSchedule.this.paymentCount;
+            }
+
+            @Override
+            public TreasuryDirectCashFlow next()
+            {
+                if (!this.hasNext())
+                {
+                    throw new java.util.NoSuchElementException();
+                }
+                return TreasuryDirectCashFlowSchedule.this.get(this.index++);
+            }
+        };
+    }
+
+    private int getPaymentCount(byte securityType)
+    {
+        int result = 0;
+        if (this.maturityEpochDay != TreasuryDirectDates.unknownEpochDay)
+        {
+            if (this.monthsPerPeriod == 0)
+            {
+                if (securityType == TreasuryDirectSecurityType.Bill.ordinal() || securityType == TreasuryDirectSecurityType.CMB.ordinal())
+                {
+                    result = 1;
+                }
+            }
+            else
+            {
+                int firstPaymentEpochDay = this.security.getEpochDay(TreasuryDirectCashFlowSchedule.firstInterestPaymentDatePropertyName);
+                if (firstPaymentEpochDay == TreasuryDirectDates.unknownEpochDay)
+                {
+                    final int issueEpochDay = this.security.getIssueEpochDay();
+                    if (issueEpochDay != TreasuryDirectDates.unknownEpochDay)
+                    {
+                        firstPaymentEpochDay = issueEpochDay + 1;
+                    }
+                }
+
+                if (firstPaymentEpochDay != TreasuryDirectDates.unknownEpochDay && firstPaymentEpochDay <= this.maturityEpochDay)
+                {
+                    // Count the payment dates (counting back from maturity) that are on or after
+                    // the first payment date.
+                    int periodsBeforeMaturity = TreasuryDirectCashFlowSchedule.getMonthCount(firstPaymentEpochDay, this.maturityEpochDay) / this.monthsPerPeriod;
+                    while (periodsBeforeMaturity > 0 && TreasuryDirectDates.getCouponEpochDay(this.maturityEpochDay, periodsBeforeMaturity * this.monthsPerPeriod) < firstPaymentEpochDay)
+                    {
+                        --periodsBeforeMaturity;
+                    }
+                    while (TreasuryDirectDates.getCouponEpochDay(this.maturityEpochDay, (periodsBeforeMaturity + 1) * this.monthsPerPeriod) >= firstPaymentEpochDay)
+                    {
+                        ++periodsBeforeMaturity;
+                    }
+                    result = periodsBeforeMaturity + 1;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int getMonthCount(int startEpochDay, int endEpochDay)
+    {
+        return (TreasuryDirectDates.getYear(endEpochDay) - TreasuryDirectDates.getYear(startEpochDay)) * 12 +
+            (TreasuryDirectDates.getMonth(endEpochDay) - TreasuryDirectDates.getMonth(startEpochDay));
+    }
+}
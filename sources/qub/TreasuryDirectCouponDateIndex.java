@@ -0,0 +1,217 @@
+package qub;
+
+/**
+ * An immutable index from each payment date to the projected payments that are made on it, for
+ * a whole universe of securities. The payments of every TreasuryDirectCashFlowSchedule are
+ * generated once when the index is created and stored by day (each day's payments are a
+ * contiguous range of primitive arrays), so looking up the payments on a date doesn't
+ * regenerate any schedules.
+ */
+public class TreasuryDirectCouponDateIndex
+{
+    private final TreasuryDirectSecurity[] securities;
+    private final int firstEpochDay;
+    private final int[] dayStartIndexes;
+    private final int[] securityIndexes;
+    private final double[] interests;
+    private final double[] principals;
+
+    private TreasuryDirectCouponDateIndex(Iterable<TreasuryDirectSecurity> securities, double frnIndexRate)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        final java.util.ArrayList<TreasuryDirectCashFlowSchedule> schedules = new java.util.ArrayList<>();
+        int paymentCount = 0;
+        int firstEpochDay = Integer.MAX_VALUE;
+        int lastEpochDay = Integer.MIN_VALUE;
+        for (final TreasuryDirectSecurity security : securities)
+        {
+            final TreasuryDirectCashFlowSchedule schedule = TreasuryDirectCashFlowSchedule.create(security, frnIndexRate);
+            schedules.add(schedule);
+
+            final int scheduleCount = schedule.getCount();
+            if (scheduleCount > 0)
+            {
+                paymentCount += scheduleCount;
+                firstEpochDay = java.lang.Math.min(firstEpochDay, schedule.getPaymentEpochDay(0));
+                lastEpochDay = java.lang.Math.max(lastEpochDay, schedule.getPaymentEpochDay(scheduleCount - 1));
+            }
+        }
+
+        final int securityCount = schedules.size();
+        this.securities = new TreasuryDirectSecurity[securityCount];
+        this.securityIndexes = new int[paymentCount];
+        this.interests = new double[paymentCount];
+        this.principals = new double[paymentCount];
+        if (paymentCount == 0)
+        {
+            this.firstEpochDay = 0;
+            this.dayStartIndexes = new int[1];
+        }
+        else
+        {
+            this.firstEpochDay = firstEpochDay;
+            this.dayStartIndexes = new int[lastEpochDay - firstEpochDay + 2];
+        }
+
+        // Count the payments on each day, turn the counts into start indexes, and then fill in
+        // each day's range in security order.
+        for (int securityIndex = 0; securityIndex < securityCount; ++securityIndex)
+        {
+            final TreasuryDirectCashFlowSchedule schedule = schedules.get(securityIndex);
+            this.securities[securityIndex] = schedule.getSecurity();
+            for (int i = 0; i < schedule.getCount(); ++i)
+            {
+                ++this.dayStartIndexes[schedule.getPaymentEpochDay(i) - this.firstEpochDay + 1];
+            }
+        }
+        for (int day = 1; day < this.dayStartIndexes.length; ++day)
+        {
+            this.dayStartIndexes[day] += this.dayStartIndexes[day - 1];
+        }
+        final int[] nextIndexes = java.util.Arrays.copyOf(this.dayStartIndexes, this.dayStartIndexes.length - 1);
+        for (int securityIndex = 0; securityIndex < securityCount; ++securityIndex)
+        {
+            final TreasuryDirectCashFlowSchedule schedule = schedules.get(securityIndex);
+            for (int i = 0; i < schedule.getCount(); ++i)
+            {
+                final int paymentIndex = nextIndexes[schedule.getPaymentEpochDay(i) - this.firstEpochDay]++;
+                this.securityIndexes[paymentIndex] = securityIndex;
+                this.interests[paymentIndex] = schedule.getInterest(i);
+                this.principals[paymentIndex] = schedule.getPrincipal(i);
+            }
+        }
+    }
+
+    /**
+     * Create a new TreasuryDirectCouponDateIndex for the provided securities. FRN interest
+     * payments are NaN because their index rate isn't known.
+     * @param securities The securities to index.
+     * @return The new TreasuryDirectCouponDateIndex.
+     */
+    public static TreasuryDirectCouponDateIndex create(Iterable<TreasuryDirectSecurity> securities)
+    {
+        return TreasuryDirectCouponDateIndex.create(securities, Double.NaN);
+    }
+
+    /**
+     * Create a new TreasuryDirectCouponDateIndex for the provided securities.
+     * @param securities The securities to index.
+     * @param frnIndexRate The index rate (as a percentage) that FRN interest payments are
+     *                     projected at, or NaN to leave them unknown.
+     * @return The new TreasuryDirectCouponDateIndex.
+     */
+    public static TreasuryDirectCouponDateIndex create(Iterable<TreasuryDirectSecurity> securities, double frnIndexRate)
+    {
+        return new TreasuryDirectCouponDateIndex(securities, frnIndexRate);
+    }
+
+    /**
+     * Get the number of securities that were indexed, including the ones without any payments.
+     * @return The number of securities that were indexed.
+     */
+    public int getSecurityCount()
+    {
+        return this.securities.length;
+    }
+
+    /**
+     * Get the total number of payments in this index.
+     * @return The total number of payments in this index.
+     */
+    public int getPaymentCount()
+    {
+        return this.securityIndexes.length;
+    }
+
+    /**
+     * Get the number of payments that are made on the provided epoch day.
+     * @param epochDay The epoch day.
+     * @return The number of payments that are made on the provided epoch day.
+     */
+    public int getPaymentCount(int epochDay)
+    {
+        final int day = epochDay - this.firstEpochDay;
+        return this.hasDay(epochDay) ? this.dayStartIndexes[day + 1] - this.dayStartIndexes[day] : 0;
+    }
+
+    /**
+     * Get the payments that are made on the provided epoch day, in the order that their
+     * securities were indexed.
+     * @param epochDay The epoch day.
+     * @return The payments that are made on the provided epoch day.
+     */
+    public List<TreasuryDirectCashFlow> getCashFlows(int epochDay)
+    {
+        final List<TreasuryDirectCashFlow> result = List.create();
+        if (this.hasDay(epochDay))
+        {
+            final int day = epochDay - this.firstEpochDay;
+            for (int i = this.dayStartIndexes[day]; i < this.dayStartIndexes[day + 1]; ++i)
+            {
+                result.add(TreasuryDirectCashFlow.create(this.securities[this.securityIndexes[i]], epochDay, this.interests[i], this.principals[i]));
+            }
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the securities that pay interest on the provided epoch day. FRNs whose interest isn't
+     * known are included.
+     * @param epochDay The epoch day.
+     * @return The securities that pay interest on the provided epoch day.
+     */
+    public List<TreasuryDirectSecurity> getCouponSecurities(int epochDay)
+    {
+        final List<TreasuryDirectSecurity> result = List.create();
+        if (this.hasDay(epochDay))
+        {
+            final int day = epochDay - this.firstEpochDay;
+            for (int i = this.dayStartIndexes[day]; i < this.dayStartIndexes[day + 1]; ++i)
+            {
+                if (this.interests[i] != 0)
+                {
+                    result.add(this.securities[this.securityIndexes[i]]);
+                }
+            }
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the total amount that is paid on the provided epoch day per 100 of face value of each
+     * security. Payments whose interest isn't known are left out.
+     * @param epochDay The epoch day.
+     * @return The total amount that is paid on the provided epoch day.
+     */
+    public double getTotalAmount(int epochDay)
+    {
+        double result = 0;
+        if (this.hasDay(epochDay))
+        {
+            final int day = epochDay - this.firstEpochDay;
+            for (int i = this.dayStartIndexes[day]; i < this.dayStartIndexes[day + 1]; ++i)
+            {
+                if (!Double.isNaN(this.interests[i]))
+                {
+                    result += this.interests[i];
+                }
+                result += this.principals[i];
+            }
+        }
+        return result;
+    }
+
+    private boolean hasDay(int epochDay)
+    {
+        return epochDay != TreasuryDirectDates.unknownEpochDay &&
+            this.firstEpochDay <= epochDay &&
+            epochDay - this.firstEpochDay < this.dayStartIndexes.length - 1;
+    }
+}
@@ -0,0 +1,238 @@
+package qub;
+
+/**
+ * Functions for packing CUSIPs into longs. A CUSIP is eight characters from [0-9A-Z*@#] followed
+ * by a check digit, so the first eight characters fit into a base-39 number (less than 2^43) and
+ * the check digit can always be recomputed. A packed CUSIP can be combined with an issue epoch
+ * day into a single non-negative long security key, which lets lookups by (CUSIP, issue date)
+ * hash and compare primitives instead of allocating strings.
+ */
+public interface TreasuryDirectCusip
+{
+    /**
+     * The value that is returned when a CUSIP or security key can't be packed.
+     */
+    long invalid = -1;
+
+    /**
+     * The number of characters in a CUSIP, including its check digit.
+     */
+    int length = 9;
+
+    /**
+     * The number of low bits of a security key that hold the issue epoch day.
+     */
+    int epochDayBitCount = 20;
+
+    /**
+     * The value that is added to an issue epoch day before it is stored in a security key, so
+     * that dates from before 1970 are still non-negative.
+     */
+    int epochDayBias = 1 << (TreasuryDirectCusip.epochDayBitCount - 1);
+
+    /**
+     * Get the value (0 - 38) of the provided CUSIP character. Letters are case-insensitive.
+     * @param c The character.
+     * @return The value of the character, or -1 if it can't appear in a CUSIP.
+     */
+    static int getCharacterValue(char c)
+    {
+        final int result;
+        if ('0' <= c && c <= '9')
+        {
+            result = c - '0';
+        }
+        else if ('A' <= c && c <= 'Z')
+        {
+            result = c - 'A' + 10;
+        }
+        else if ('a' <= c && c <= 'z')
+        {
+            result = c - 'a' + 10;
+        }
+        else if (c == '*')
+        {
+            result = 36;
+        }
+        else if (c == '@')
+        {
+            result = 37;
+        }
+        else if (c == '#')
+        {
+            result = 38;
+        }
+        else
+        {
+            result = -1;
+        }
+        return result;
+    }
+
+    /**
+     * Get the check digit of the provided CUSIP. Only the first eight characters are used.
+     * @param cusip The CUSIP.
+     * @return The check digit (0 - 9), or -1 if the first eight characters aren't a valid CUSIP
+     * prefix.
+     */
+    static int getCheckDigit(CharSequence cusip)
+    {
+        int result = -1;
+        if (cusip != null && cusip.length() >= TreasuryDirectCusip.length - 1)
+        {
+            int sum = 0;
+            for (int i = 0; i < TreasuryDirectCusip.length - 1; ++i)
+            {
+                int value = TreasuryDirectCusip.getCharacterValue(cusip.charAt(i));
+                if (value < 0)
+                {
+                    sum = -1;
+                    break;
+                }
+                if (i % 2 == 1)
+                {
+                    value *= 2;
+                }
+                sum += value / 10 + value % 10;
+            }
+            if (sum >= 0)
+            {
+                result = (10 - (sum % 10)) % 10;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get whether or not the provided text is a nine character CUSIP with a correct check digit.
+     * @param cusip The text to check.
+     * @return Whether or not the provided text is a valid CUSIP.
+     */
+    static boolean isValid(CharSequence cusip)
+    {
+        return cusip != null &&
+            cusip.length() == TreasuryDirectCusip.length &&
+            TreasuryDirectCusip.getCheckDigit(cusip) == cusip.charAt(TreasuryDirectCusip.length - 1) - '0';
+    }
+
+    /**
+     * Pack the provided CUSIP into a long.
+     * @param cusip The CUSIP to pack.
+     * @return The packed CUSIP, or invalid if the provided text isn't a valid CUSIP.
+     */
+    static long encode(CharSequence cusip)
+    {
+        long result = TreasuryDirectCusip.invalid;
+        if (TreasuryDirectCusip.isValid(cusip))
+        {
+            result = 0;
+            for (int i = 0; i < TreasuryDirectCusip.length - 1; ++i)
+            {
+                result = result * 39 + TreasuryDirectCusip.getCharacterValue(cusip.charAt(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Unpack the provided packed CUSIP. Letters are always returned in upper case.
+     * @param packedCusip The packed CUSIP.
+     * @return The CUSIP, including its check digit.
+     */
+    static String decode(long packedCusip)
+    {
+        PreCondition.assertBetween(0, packedCusip, TreasuryDirectCusip.getMaximumPackedCusip(), "packedCusip");
+
+        final char[] characters = new char[TreasuryDirectCusip.length];
+        long remaining = packedCusip;
+        for (int i = TreasuryDirectCusip.length - 2; i >= 0; --i)
+        {
+            final int value = (int)(remaining % 39);
+            remaining /= 39;
+            characters[i] = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ*@#".charAt(value);
+        }
+        characters[TreasuryDirectCusip.length - 1] = (char)('0' + TreasuryDirectCusip.getCheckDigit(java.nio.CharBuffer.wrap(characters)));
+        return new String(characters);
+    }
+
+    /**
+     * Get the largest value that a packed CUSIP can have.
+     * @return The largest value that a packed CUSIP can have.
+     */
+    static long getMaximumPackedCusip()
+    {
+        // 39^8 - 1
+        return 5352009260480L;
+    }
+
+    /**
+     * Get the security key of the provided CUSIP and issue date. Security keys sort by packed
+     * CUSIP and then by issue date.
+     * @param cusip The CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @return The security key, or invalid if the CUSIP isn't valid or the issue date is unknown
+     * or out of range.
+     */
+    static long getSecurityKey(CharSequence cusip, int issueEpochDay)
+    {
+        final long packedCusip = TreasuryDirectCusip.encode(cusip);
+        return packedCusip == TreasuryDirectCusip.invalid
+            ? TreasuryDirectCusip.invalid
+            : TreasuryDirectCusip.getSecurityKey(packedCusip, issueEpochDay);
+    }
+
+    /**
+     * Get the security key of the provided packed CUSIP and issue date.
+     * @param packedCusip The packed CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @return The security key, or invalid if the issue date is unknown or out of range.
+     */
+    static long getSecurityKey(long packedCusip, int issueEpochDay)
+    {
+        PreCondition.assertBetween(0, packedCusip, TreasuryDirectCusip.getMaximumPackedCusip(), "packedCusip");
+
+        long result = TreasuryDirectCusip.invalid;
+        if (issueEpochDay != TreasuryDirectDates.unknownEpochDay &&
+            -TreasuryDirectCusip.epochDayBias <= issueEpochDay && issueEpochDay < TreasuryDirectCusip.epochDayBias)
+        {
+            result = (packedCusip << TreasuryDirectCusip.epochDayBitCount) | (issueEpochDay + TreasuryDirectCusip.epochDayBias);
+        }
+        return result;
+    }
+
+    /**
+     * Get the security key of the provided security.
+     * @param security The security.
+     * @return The security key, or invalid if the security's CUSIP or issue date can't be packed.
+     */
+    static long getSecurityKey(TreasuryDirectSecurity security)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        return TreasuryDirectCusip.getSecurityKey(security.getCusip().catchError().await(), security.getIssueEpochDay());
+    }
+
+    /**
+     * Get the packed CUSIP from the provided security key.
+     * @param securityKey The security key.
+     * @return The packed CUSIP.
+     */
+    static long getPackedCusip(long securityKey)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(securityKey, 0L, "securityKey");
+
+        return securityKey >>> TreasuryDirectCusip.epochDayBitCount;
+    }
+
+    /**
+     * Get the issue epoch day from the provided security key.
+     * @param securityKey The security key.
+     * @return The issue epoch day.
+     */
+    static int getIssueEpochDay(long securityKey)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(securityKey, 0L, "securityKey");
+
+        return (int)(securityKey & ((1 << TreasuryDirectCusip.epochDayBitCount) - 1)) - TreasuryDirectCusip.epochDayBias;
+    }
+}
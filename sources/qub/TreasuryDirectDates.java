@@ -0,0 +1,276 @@
+package qub;
+
+/**
+ * Functions for working with dates that are encoded as the number of days since 1970-01-01
+ * (epoch days). TreasuryDirect dates never have a meaningful time of day, so an epoch day int
+ * can be compared, range-checked, and stored without allocating any objects, and only needs to
+ * be converted to a Date or DateTime when a caller asks for one.
+ */
+public interface TreasuryDirectDates
+{
+    /**
+     * The epoch day value that is used when a date property is missing or can't be parsed.
+     */
+    int unknownEpochDay = Integer.MIN_VALUE;
+
+    /**
+     * Get the epoch day of the date at the start of the provided TreasuryDirect date text, such
+     * as "2020-09-24T00:00:00" or "2020-09-24".
+     * @param text The text to parse.
+     * @return The epoch day of the parsed date, or unknownEpochDay if the text doesn't start
+     * with a valid date.
+     */
+    static int parseEpochDay(String text)
+    {
+        int result = TreasuryDirectDates.unknownEpochDay;
+        if (text != null && text.length() >= 10 && text.charAt(4) == '-' && text.charAt(7) == '-' &&
+            (text.length() == 10 || text.charAt(10) == 'T'))
+        {
+            final int year = TreasuryDirectDates.parseDigits(text, 0, 4);
+            final int month = TreasuryDirectDates.parseDigits(text, 5, 7);
+            final int dayOfMonth = TreasuryDirectDates.parseDigits(text, 8, 10);
+            if (year >= 0 && 1 <= month && month <= 12 && 1 <= dayOfMonth && dayOfMonth <= TreasuryDirectDates.getDaysInMonth(year, month))
+            {
+                result = TreasuryDirectDates.toEpochDay(year, month, dayOfMonth);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get whether or not the provided text is a TreasuryDirect date without a time of day (or
+     * with a time of day of midnight), such as "2020-09-24T00:00:00".
+     * @param text The text to check.
+     * @return Whether or not the provided text is a date at midnight.
+     */
+    static boolean isMidnightDate(String text)
+    {
+        boolean result = false;
+        if (TreasuryDirectDates.parseEpochDay(text) != TreasuryDirectDates.unknownEpochDay)
+        {
+            final int length = text.length();
+            if (length == 10)
+            {
+                result = true;
+            }
+            else if (length == 19 || (length == 20 && text.charAt(19) == 'Z'))
+            {
+                result = text.startsWith("00:00:00", 11);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the epoch day of the provided date.
+     * @param year The year of the date.
+     * @param month The month of the date (1 - 12).
+     * @param dayOfMonth The day of the month of the date (1 - 31).
+     * @return The number of days between 1970-01-01 and the provided date.
+     */
+    static int toEpochDay(int year, int month, int dayOfMonth)
+    {
+        // Based on Howard Hinnant's days_from_civil algorithm.
+        final int y = (month <= 2 ? year - 1 : year);
+        final int era = (y >= 0 ? y : y - 399) / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + dayOfMonth - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Get the epoch day of the provided date.
+     * @param date The date.
+     * @return The epoch day of the provided date.
+     */
+    static int toEpochDay(Date date)
+    {
+        PreCondition.assertNotNull(date, "date");
+
+        return TreasuryDirectDates.toEpochDay(date.getYear(), date.getMonth(), date.getDayOfMonth());
+    }
+
+    /**
+     * Get the epoch day of the date of the provided DateTime.
+     * @param dateTime The DateTime.
+     * @return The epoch day of the provided DateTime's date.
+     */
+    static int toEpochDay(DateTime dateTime)
+    {
+        PreCondition.assertNotNull(dateTime, "dateTime");
+
+        return TreasuryDirectDates.toEpochDay(dateTime.getYear(), dateTime.getMonth(), dateTime.getDayOfMonth());
+    }
+
+    /**
+     * Get the year of the provided epoch day.
+     * @param epochDay The epoch day.
+     * @return The year of the provided epoch day.
+     */
+    static int getYear(int epochDay)
+    {
+        return TreasuryDirectDates.getCivilYear(TreasuryDirectDates.toCivil(epochDay));
+    }
+
+    /**
+     * Get the month (1 - 12) of the provided epoch day.
+     * @param epochDay The epoch day.
+     * @return The month of the provided epoch day.
+     */
+    static int getMonth(int epochDay)
+    {
+        return TreasuryDirectDates.getCivilMonth(TreasuryDirectDates.toCivil(epochDay));
+    }
+
+    /**
+     * Get the day of the month (1 - 31) of the provided epoch day.
+     * @param epochDay The epoch day.
+     * @return The day of the month of the provided epoch day.
+     */
+    static int getDayOfMonth(int epochDay)
+    {
+        return TreasuryDirectDates.getCivilDayOfMonth(TreasuryDirectDates.toCivil(epochDay));
+    }
+
+    /**
+     * Convert the provided epoch day to its year, month, and day of the month, packed into a
+     * single long as (year << 9) | (month << 5) | dayOfMonth.
+     * @param epochDay The epoch day.
+     * @return The packed year, month, and day of the month of the provided epoch day.
+     */
+    private static long toCivil(int epochDay)
+    {
+        final int shifted = epochDay + 719468;
+        final int era = (shifted >= 0 ? shifted : shifted - 146096) / 146097;
+        final int dayOfEra = shifted - era * 146097;
+        final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        final int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        final long year = (long)yearOfEra + era * 400L + (shiftedMonth >= 10 ? 1 : 0);
+        final int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        final int dayOfMonth = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        return (year << 9) | (month << 5) | dayOfMonth;
+    }
+
+    private static int getCivilYear(long civil)
+    {
+        return (int)(civil >> 9);
+    }
+
+    private static int getCivilMonth(long civil)
+    {
+        return (int)(civil >> 5) & 0xF;
+    }
+
+    private static int getCivilDayOfMonth(long civil)
+    {
+        return (int)civil & 0x1F;
+    }
+
+    /**
+     * Get the number of days in the provided month.
+     * @param year The year that the month is in.
+     * @param month The month (1 - 12).
+     * @return The number of days in the provided month.
+     */
+    static int getDaysInMonth(int year, int month)
+    {
+        final int result;
+        if (month == 2)
+        {
+            result = ((year % 4 == 0 && year % 100 != 0) || year % 400 == 0) ? 29 : 28;
+        }
+        else if (month == 4 || month == 6 || month == 9 || month == 11)
+        {
+            result = 30;
+        }
+        else
+        {
+            result = 31;
+        }
+        return result;
+    }
+
+    /**
+     * Get the coupon date that is the provided number of months before the maturity date. If the
+     * security matures on the last day of a month, then every coupon date is also the last day of
+     * its month.
+     * @param maturityEpochDay The epoch day of the maturity date.
+     * @param monthsBeforeMaturity The number of months before the maturity date.
+     * @return The epoch day of the coupon date.
+     */
+    static int getCouponEpochDay(int maturityEpochDay, int monthsBeforeMaturity)
+    {
+        final long maturityCivil = TreasuryDirectDates.toCivil(maturityEpochDay);
+        final int maturityYear = TreasuryDirectDates.getCivilYear(maturityCivil);
+        final int maturityMonth = TreasuryDirectDates.getCivilMonth(maturityCivil);
+        final int maturityDayOfMonth = TreasuryDirectDates.getCivilDayOfMonth(maturityCivil);
+
+        final int monthIndex = maturityYear * 12 + (maturityMonth - 1) - monthsBeforeMaturity;
+        final int year = java.lang.Math.floorDiv(monthIndex, 12);
+        final int month = java.lang.Math.floorMod(monthIndex, 12) + 1;
+        final int daysInMonth = TreasuryDirectDates.getDaysInMonth(year, month);
+        final int dayOfMonth = maturityDayOfMonth == TreasuryDirectDates.getDaysInMonth(maturityYear, maturityMonth)
+            ? daysInMonth
+            : java.lang.Math.min(maturityDayOfMonth, daysInMonth);
+        return TreasuryDirectDates.toEpochDay(year, month, dayOfMonth);
+    }
+
+    /**
+     * Convert the provided epoch day to a Date.
+     * @param epochDay The epoch day to convert.
+     * @return The Date of the provided epoch day.
+     */
+    static Date toDate(int epochDay)
+    {
+        PreCondition.assertNotEqual(TreasuryDirectDates.unknownEpochDay, epochDay, "epochDay");
+
+        return TreasuryDirectDates.toDateTime(epochDay).toDate();
+    }
+
+    /**
+     * Convert the provided epoch day to a DateTime at midnight UTC.
+     * @param epochDay The epoch day to convert.
+     * @return The DateTime of the provided epoch day.
+     */
+    static DateTime toDateTime(int epochDay)
+    {
+        PreCondition.assertNotEqual(TreasuryDirectDates.unknownEpochDay, epochDay, "epochDay");
+
+        final long civil = TreasuryDirectDates.toCivil(epochDay);
+        return DateTime.create(TreasuryDirectDates.getCivilYear(civil), TreasuryDirectDates.getCivilMonth(civil), TreasuryDirectDates.getCivilDayOfMonth(civil));
+    }
+
+    /**
+     * Get whether or not the provided epoch day is between the provided bounds (inclusive).
+     * @param lowerBound The earliest epoch day that is in the range.
+     * @param epochDay The epoch day to check.
+     * @param upperBound The latest epoch day that is in the range.
+     * @return Whether or not the provided epoch day is between the provided bounds.
+     */
+    static boolean isBetween(int lowerBound, int epochDay, int upperBound)
+    {
+        return epochDay != TreasuryDirectDates.unknownEpochDay && lowerBound <= epochDay && epochDay <= upperBound;
+    }
+
+    /**
+     * Parse the decimal digits in the provided range of the provided text.
+     * @return The parsed value, or -1 if any of the characters are not digits.
+     */
+    static int parseDigits(String text, int startIndex, int endIndex)
+    {
+        int result = 0;
+        for (int i = startIndex; i < endIndex; ++i)
+        {
+            final char c = text.charAt(i);
+            if (c < '0' || '9' < c)
+            {
+                result = -1;
+                break;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
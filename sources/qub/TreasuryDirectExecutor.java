@@ -0,0 +1,130 @@
+package qub;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs blocking TreasuryDirect requests in the background with a bounded number of requests in
+ * flight at once. The virtual thread mode gives every request its own virtual thread, so tens of
+ * thousands of requests can be waiting on the network without tying up a platform thread each;
+ * the semaphore keeps them from all hitting the server at the same time. The platform thread
+ * mode uses a fixed pool of platform threads instead.
+ */
+public class TreasuryDirectExecutor implements AutoCloseable
+{
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+    private final int maximumConcurrentRequests;
+
+    private TreasuryDirectExecutor(ExecutorService executorService, int maximumConcurrentRequests)
+    {
+        PreCondition.assertNotNull(executorService, "executorService");
+        PreCondition.assertGreaterThanOrEqualTo(maximumConcurrentRequests, 1, "maximumConcurrentRequests");
+
+        this.executorService = executorService;
+        this.permits = new Semaphore(maximumConcurrentRequests, true);
+        this.maximumConcurrentRequests = maximumConcurrentRequests;
+    }
+
+    /**
+     * Create a new TreasuryDirectExecutor that runs each request on its own virtual thread.
+     * @param maximumConcurrentRequests The maximum number of requests that can run at once.
+     * @return The new TreasuryDirectExecutor.
+     */
+    public static TreasuryDirectExecutor createVirtual(int maximumConcurrentRequests)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maximumConcurrentRequests, 1, "maximumConcurrentRequests");
+
+        final ExecutorService executorService = Executors.newThreadPerTaskExecutor(java.lang.Thread.ofVirtual()
+            .name("treasurydirect-", 0)
+            .factory());
+        return new TreasuryDirectExecutor(executorService, maximumConcurrentRequests);
+    }
+
+    /**
+     * Create a new TreasuryDirectExecutor that runs requests on a fixed pool of platform threads.
+     * @param threadCount The number of platform threads, which is also the maximum number of
+     *                    requests that can run at once.
+     * @return The new TreasuryDirectExecutor.
+     */
+    public static TreasuryDirectExecutor createPlatform(int threadCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(threadCount, 1, "threadCount");
+
+        return new TreasuryDirectExecutor(Executors.newFixedThreadPool(threadCount), threadCount);
+    }
+
+    /**
+     * Get the maximum number of requests that this executor will run at once.
+     * @return The maximum number of requests that this executor will run at once.
+     */
+    public int getMaximumConcurrentRequests()
+    {
+        return this.maximumConcurrentRequests;
+    }
+
+    /**
+     * Get the number of requests that are running right now.
+     * @return The number of requests that are running right now.
+     */
+    public int getActiveRequestCount()
+    {
+        return this.maximumConcurrentRequests - this.permits.availablePermits();
+    }
+
+    /**
+     * Run the provided request in the background once a concurrency permit is available.
+     * @param request The request to run. It will be invoked on a background thread, and the
+     *                Result that it returns will be awaited on that same thread.
+     * @param <T> The type of value that the request produces.
+     * @return A future that completes with the request's value or error.
+     */
+    public <T> CompletableFuture<T> submit(Function0<Result<T>> request)
+    {
+        PreCondition.assertNotNull(request, "request");
+
+        return CompletableFuture.supplyAsync(() ->
+        {
+            try
+            {
+                this.permits.acquire();
+            }
+            catch (InterruptedException e)
+            {
+                java.lang.Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+
+            try
+            {
+                return request.run().await();
+            }
+            finally
+            {
+                this.permits.release();
+            }
+        },
+        this.executorService);
+    }
+
+    /**
+     * Get whether or not this executor has been closed.
+     * @return Whether or not this executor has been closed.
+     */
+    public boolean isClosed()
+    {
+        return this.executorService.isShutdown();
+    }
+
+    /**
+     * Stop accepting new requests. Requests that have already been submitted will still run.
+     */
+    @Override
+    public void close()
+    {
+        this.executorService.shutdown();
+    }
+}
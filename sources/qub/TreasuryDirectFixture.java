@@ -0,0 +1,169 @@
+package qub;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A single recorded TA_WS request: the URL that was requested, the raw response body that was
+ * returned, and how long the response took. Fixtures are stored in a gzip-compressed archive
+ * file with the layout:
+ * <pre>
+ *   int    magic number ("TDFX")
+ *   int    format version
+ *   then for each fixture:
+ *     UTF    url
+ *     long   nanoseconds between the start of the recording and the start of the request
+ *     long   nanoseconds that the request took
+ *     int    response body length
+ *     byte[] response body
+ * </pre>
+ */
+public class TreasuryDirectFixture
+{
+    private static final int magicNumber = 0x54444658;
+    private static final int formatVersion = 1;
+
+    private final String url;
+    private final byte[] responseBody;
+    private final long startNanoseconds;
+    private final long durationNanoseconds;
+
+    private TreasuryDirectFixture(String url, byte[] responseBody, long startNanoseconds, long durationNanoseconds)
+    {
+        PreCondition.assertNotNullAndNotEmpty(url, "url");
+        PreCondition.assertNotNull(responseBody, "responseBody");
+        PreCondition.assertGreaterThanOrEqualTo(startNanoseconds, 0L, "startNanoseconds");
+        PreCondition.assertGreaterThanOrEqualTo(durationNanoseconds, 0L, "durationNanoseconds");
+
+        this.url = url;
+        this.responseBody = responseBody;
+        this.startNanoseconds = startNanoseconds;
+        this.durationNanoseconds = durationNanoseconds;
+    }
+
+    /**
+     * Create a new TreasuryDirectFixture.
+     * @param url The URL that was requested.
+     * @param responseBody The raw response body. The bytes are not copied, so they must not be
+     *                     modified afterwards.
+     * @param startNanoseconds The nanoseconds between the start of the recording and the start
+     *                         of the request.
+     * @param durationNanoseconds The nanoseconds that the request took.
+     * @return The new TreasuryDirectFixture.
+     */
+    public static TreasuryDirectFixture create(String url, byte[] responseBody, long startNanoseconds, long durationNanoseconds)
+    {
+        return new TreasuryDirectFixture(url, responseBody, startNanoseconds, durationNanoseconds);
+    }
+
+    public String getUrl()
+    {
+        return this.url;
+    }
+
+    public byte[] getResponseBody()
+    {
+        return this.responseBody;
+    }
+
+    public long getStartNanoseconds()
+    {
+        return this.startNanoseconds;
+    }
+
+    public long getDurationNanoseconds()
+    {
+        return this.durationNanoseconds;
+    }
+
+    /**
+     * Read all of the fixtures in the provided archive file.
+     * @param archiveFile The archive file to read.
+     * @return The fixtures in the archive file, in the order that they were recorded.
+     */
+    public static Result<List<TreasuryDirectFixture>> readArchive(Path archiveFile)
+    {
+        PreCondition.assertNotNull(archiveFile, "archiveFile");
+
+        return Result.create(() ->
+        {
+            final List<TreasuryDirectFixture> result = List.create();
+            try (final DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(archiveFile)))))
+            {
+                if (input.readInt() != TreasuryDirectFixture.magicNumber)
+                {
+                    throw new ParseException("The file " + archiveFile + " is not a TreasuryDirect fixture archive.");
+                }
+                final int version = input.readInt();
+                if (version != TreasuryDirectFixture.formatVersion)
+                {
+                    throw new ParseException("Unsupported TreasuryDirect fixture archive version: " + version + ".");
+                }
+
+                while (true)
+                {
+                    final String url;
+                    try
+                    {
+                        url = input.readUTF();
+                    }
+                    catch (EOFException e)
+                    {
+                        break;
+                    }
+                    final long startNanoseconds = input.readLong();
+                    final long durationNanoseconds = input.readLong();
+                    final byte[] responseBody = new byte[input.readInt()];
+                    input.readFully(responseBody);
+                    result.add(TreasuryDirectFixture.create(url, responseBody, startNanoseconds, durationNanoseconds));
+                }
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Open a stream that writes a new fixture archive to the provided file, replacing the file
+     * if it already exists.
+     * @param archiveFile The archive file to write.
+     * @return The stream to write fixtures to.
+     */
+    static DataOutputStream openArchive(Path archiveFile) throws IOException
+    {
+        final Path parentFolder = archiveFile.toAbsolutePath().getParent();
+        if (parentFolder != null)
+        {
+            Files.createDirectories(parentFolder);
+        }
+
+        final DataOutputStream result = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(archiveFile))));
+        result.writeInt(TreasuryDirectFixture.magicNumber);
+        result.writeInt(TreasuryDirectFixture.formatVersion);
+        return result;
+    }
+
+    void write(DataOutputStream output) throws IOException
+    {
+        output.writeUTF(this.url);
+        output.writeLong(this.startNanoseconds);
+        output.writeLong(this.durationNanoseconds);
+        output.writeInt(this.responseBody.length);
+        output.write(this.responseBody);
+    }
+}
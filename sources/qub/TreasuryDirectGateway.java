@@ -0,0 +1,435 @@
+package qub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An HTTP server that exposes a TreasuryDirect through the same TA_WS routes as
+ * treasurydirect.gov, so that many services can share one cached mirror. Existing clients only
+ * need to point their base URL at the gateway:
+ * <pre>
+ *   RealTreasuryDirect.create(httpClient, gateway.getBaseUrl())
+ * </pre>
+ * The gateway itself doesn't cache anything. It is meant to serve a CachingTreasuryDirect, which
+ * shares one cache between every client and coalesces concurrent upstream fetches for the same
+ * request. Each HTTP request is handled on its own virtual thread.
+ */
+public class TreasuryDirectGateway implements AutoCloseable
+{
+    public static final String basePath = "/TA_WS/";
+    public static final String noDataResponseBody = "No data";
+
+    private final TreasuryDirect treasuryDirect;
+    private final java.util.concurrent.atomic.AtomicLong requestCount;
+    private HttpServer server;
+    private java.util.concurrent.ExecutorService executor;
+
+    private TreasuryDirectGateway(TreasuryDirect treasuryDirect)
+    {
+        PreCondition.assertNotNull(treasuryDirect, "treasuryDirect");
+
+        this.treasuryDirect = treasuryDirect;
+        this.requestCount = new java.util.concurrent.atomic.AtomicLong();
+    }
+
+    /**
+     * Create a new TreasuryDirectGateway that isn't listening for requests yet.
+     * @param treasuryDirect The TreasuryDirect that requests will be answered from.
+     * @return The new TreasuryDirectGateway.
+     */
+    public static TreasuryDirectGateway create(TreasuryDirect treasuryDirect)
+    {
+        return new TreasuryDirectGateway(treasuryDirect);
+    }
+
+    /**
+     * Start listening for requests on the provided port of the loopback interface, so that only
+     * clients on the same machine can reach this gateway.
+     * @param port The port to listen on, or 0 to listen on any free port.
+     * @return This gateway once it is listening.
+     */
+    public Result<TreasuryDirectGateway> start(int port)
+    {
+        PreCondition.assertBetween(0, port, 65535, "port");
+
+        return this.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Start listening for requests on the provided address. Use a wildcard address (such as
+     * new InetSocketAddress(port)) to accept requests from other machines.
+     * @param address The address to listen on.
+     * @return This gateway once it is listening.
+     */
+    public synchronized Result<TreasuryDirectGateway> start(InetSocketAddress address)
+    {
+        PreCondition.assertNotNull(address, "address");
+        PreCondition.assertNull(this.server, "this.server");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                this.executor = java.util.concurrent.Executors.newThreadPerTaskExecutor(
+                    java.lang.Thread.ofVirtual().name("treasurydirect-gateway-", 0).factory());
+                this.server = HttpServer.create(address, 0);
+                this.server.setExecutor(this.executor);
+                this.server.createContext(TreasuryDirectGateway.basePath, this::handle);
+                this.server.start();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        });
+    }
+
+    /**
+     * Get the address that this gateway is listening on.
+     * @return The address that this gateway is listening on.
+     */
+    public synchronized InetSocketAddress getAddress()
+    {
+        PreCondition.assertNotNull(this.server, "this.server");
+
+        return this.server.getAddress();
+    }
+
+    /**
+     * Get the port that this gateway is listening on.
+     * @return The port that this gateway is listening on.
+     */
+    public int getPort()
+    {
+        return this.getAddress().getPort();
+    }
+
+    /**
+     * Get the base URL that clients should use to reach this gateway from the same machine.
+     * @return The base URL that clients should use to reach this gateway.
+     */
+    public String getBaseUrl()
+    {
+        final InetSocketAddress address = this.getAddress();
+        final InetAddress host = address.getAddress();
+        String hostText;
+        if (host.isAnyLocalAddress())
+        {
+            hostText = "localhost";
+        }
+        else
+        {
+            hostText = host.getHostAddress();
+            if (hostText.contains(":"))
+            {
+                hostText = "[" + hostText + "]";
+            }
+        }
+        return "http://" + hostText + ":" + address.getPort() + TreasuryDirectGateway.basePath;
+    }
+
+    /**
+     * Get the number of requests that this gateway has answered.
+     * @return The number of requests that this gateway has answered.
+     */
+    public long getRequestCount()
+    {
+        return this.requestCount.get();
+    }
+
+    /**
+     * Get the response body for the provided TA_WS request path and query, such as
+     * "/TA_WS/securities/Bill?format=json". A security that doesn't exist is answered with
+     * "No data", just like TA_WS does. Responses are always JSON, so a format other than "json"
+     * is rejected.
+     * @param path The raw (still percent-encoded) path of the request.
+     * @param query The query string of the request without the leading '?', or null.
+     * @return The response body.
+     */
+    public Result<byte[]> getResponseBody(String path, String query)
+    {
+        PreCondition.assertNotNullAndNotEmpty(path, "path");
+
+        return Result.create(() ->
+        {
+            if (!path.startsWith(TreasuryDirectGateway.basePath + "securities/"))
+            {
+                throw new NotFoundException("No TA_WS route found for path: " + path + ".");
+            }
+
+            final String[] segments = path.substring((TreasuryDirectGateway.basePath + "securities/").length()).split("/");
+            for (int i = 0; i < segments.length; ++i)
+            {
+                segments[i] = TreasuryDirectGateway.decodePathSegment(segments[i]);
+            }
+
+            final java.util.LinkedHashMap<String,String> parameters = TreasuryDirectGateway.parseQuery(query);
+            final String format = parameters.get("format");
+            if (format != null && !format.equalsIgnoreCase("json"))
+            {
+                throw new IllegalArgumentException("Unsupported format: " + Strings.escapeAndQuote(format) + ".");
+            }
+
+            byte[] result;
+            if (segments.length == 4)
+            {
+                try
+                {
+                    result = TreasuryDirectCacheKeys.encodeSecurity(this.treasuryDirect.getSecurity(segments[0], segments[1], segments[2], segments[3]).await());
+                }
+                catch (NotFoundException e)
+                {
+                    result = TreasuryDirectGateway.noDataResponseBody.getBytes(StandardCharsets.UTF_8);
+                }
+            }
+            else if (segments.length == 1 && segments[0].equals("announced"))
+            {
+                result = TreasuryDirectCacheKeys.encodeSecurities(this.treasuryDirect.getAnnouncedSecurities(TreasuryDirectGateway.parseAnnouncedOptions(parameters)).await());
+            }
+            else if (segments.length == 1 && segments[0].equals("auctioned"))
+            {
+                result = TreasuryDirectCacheKeys.encodeSecurities(this.treasuryDirect.getAuctionedSecurities(TreasuryDirectGateway.parseAuctionedOptions(parameters)).await());
+            }
+            else if (segments.length == 1 && segments[0].equals("search"))
+            {
+                final SearchSecuritiesOptions options = SearchSecuritiesOptions.create();
+                for (final java.util.Map.Entry<String,String> parameter : parameters.entrySet())
+                {
+                    if (!parameter.getKey().equals("format"))
+                    {
+                        options.set(parameter.getKey(), parameter.getValue());
+                    }
+                }
+                result = TreasuryDirectCacheKeys.encodeSecurities(this.treasuryDirect.searchSecurities(options).await());
+            }
+            else if (segments.length == 1 && TreasuryDirectGateway.parseType(segments[0]) != null)
+            {
+                result = TreasuryDirectCacheKeys.encodeSecurities(this.treasuryDirect.getSecuritiesByType(TreasuryDirectGateway.parseType(segments[0])).await());
+            }
+            else
+            {
+                throw new NotFoundException("No TA_WS route found for path: " + path + ".");
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (this.server != null)
+        {
+            this.server.stop(0);
+            this.server = null;
+            this.executor.close();
+            this.executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try (exchange)
+        {
+            int statusCode;
+            byte[] responseBody;
+            String contentType = "application/json";
+            if (!exchange.getRequestMethod().equalsIgnoreCase("GET"))
+            {
+                statusCode = 405;
+                responseBody = new byte[0];
+            }
+            else
+            {
+                try
+                {
+                    responseBody = this.getResponseBody(exchange.getRequestURI().getRawPath(), exchange.getRequestURI().getRawQuery()).await();
+                    statusCode = 200;
+                }
+                catch (NotFoundException e)
+                {
+                    statusCode = 404;
+                    responseBody = e.getMessage().getBytes(StandardCharsets.UTF_8);
+                }
+                catch (PreConditionFailure | IllegalArgumentException e)
+                {
+                    statusCode = 400;
+                    responseBody = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+                }
+                catch (Throwable e)
+                {
+                    statusCode = 502;
+                    responseBody = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+                }
+
+                if (statusCode != 200 || RealTreasuryDirect.isNoData(responseBody))
+                {
+                    contentType = "text/plain; charset=utf-8";
+                }
+            }
+
+            this.requestCount.incrementAndGet();
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(statusCode, responseBody.length == 0 ? -1 : responseBody.length);
+            if (responseBody.length > 0)
+            {
+                try (final OutputStream responseStream = exchange.getResponseBody())
+                {
+                    responseStream.write(responseBody);
+                }
+            }
+        }
+    }
+
+    static java.util.LinkedHashMap<String,String> parseQuery(String query)
+    {
+        final java.util.LinkedHashMap<String,String> result = new java.util.LinkedHashMap<>();
+        if (!Strings.isNullOrEmpty(query))
+        {
+            for (final String parameter : query.split("&"))
+            {
+                if (!parameter.isEmpty())
+                {
+                    final int equalsIndex = parameter.indexOf('=');
+                    final String name = equalsIndex == -1 ? parameter : parameter.substring(0, equalsIndex);
+                    final String value = equalsIndex == -1 ? "" : parameter.substring(equalsIndex + 1);
+                    result.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decode the percent-encoded characters in the provided path segment. Unlike a query string,
+     * a '+' in a path is a literal plus sign.
+     */
+    static String decodePathSegment(String segment)
+    {
+        return URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static GetAnnouncedSecuritiesOptions parseAnnouncedOptions(java.util.Map<String,String> parameters)
+    {
+        final GetAnnouncedSecuritiesOptions result = GetAnnouncedSecuritiesOptions.create();
+        TreasuryDirectGateway.parseListOptions(parameters, result::setPageSize, result::setType, result::setDays, result::setReopening);
+        return result;
+    }
+
+    private static GetAuctionedSecuritiesOptions parseAuctionedOptions(java.util.Map<String,String> parameters)
+    {
+        final GetAuctionedSecuritiesOptions result = GetAuctionedSecuritiesOptions.create();
+        TreasuryDirectGateway.parseListOptions(parameters, result::setPageSize, result::setType, result::setDays, result::setReopening);
+        return result;
+    }
+
+    /**
+     * Parse the query parameters that the announced and auctioned routes share, and pass each
+     * one that is present to its setter.
+     */
+    private static void parseListOptions(java.util.Map<String,String> parameters, Action1<Integer> setPageSize, Action1<TreasuryDirectSecurityType> setType, Action1<Integer> setDays, Action1<Boolean> setReopening)
+    {
+        if (parameters.containsKey("pagesize"))
+        {
+            setPageSize.run(Integer.parseInt(parameters.get("pagesize")));
+        }
+        if (parameters.containsKey("type"))
+        {
+            setType.run(TreasuryDirectGateway.parseRequiredType(parameters.get("type")));
+        }
+        if (parameters.containsKey("days"))
+        {
+            setDays.run(Integer.parseInt(parameters.get("days")));
+        }
+        if (parameters.containsKey("reopening"))
+        {
+            setReopening.run(TreasuryDirectGateway.parseYesNo(parameters.get("reopening")));
+        }
+    }
+
+    private static TreasuryDirectSecurityType parseType(String text)
+    {
+        TreasuryDirectSecurityType result = null;
+        for (final TreasuryDirectSecurityType type : TreasuryDirectSecurityType.values())
+        {
+            if (type.name().equalsIgnoreCase(text))
+            {
+                result = type;
+                break;
+            }
+        }
+        return result;
+    }
+
+    private static TreasuryDirectSecurityType parseRequiredType(String text)
+    {
+        final TreasuryDirectSecurityType result = TreasuryDirectGateway.parseType(text);
+        if (result == null)
+        {
+            throw new IllegalArgumentException("Unknown security type: " + Strings.escapeAndQuote(text) + ".");
+        }
+        return result;
+    }
+
+    private static boolean parseYesNo(String text)
+    {
+        boolean result;
+        if (text.equalsIgnoreCase("Yes"))
+        {
+            result = true;
+        }
+        else if (text.equalsIgnoreCase("No"))
+        {
+            result = false;
+        }
+        else
+        {
+            throw new IllegalArgumentException("Expected \"Yes\" or \"No\", but found " + Strings.escapeAndQuote(text) + ".");
+        }
+        return result;
+    }
+
+    /**
+     * Run a gateway in front of treasurydirect.gov.
+     * <pre>
+     *   arguments: [port (8080)] [cache file (treasurydirect-gateway.cache)] [memory cache MB (64)] [bind address (127.0.0.1)]
+     * </pre>
+     * Pass 0.0.0.0 as the bind address to serve clients on other machines.
+     */
+    public static void main(String[] args)
+    {
+        final int port = args.length > 0 ? java.lang.Integer.parseInt(args[0]) : 8080;
+        final java.nio.file.Path cacheFile = java.nio.file.Path.of(args.length > 1 ? args[1] : "treasurydirect-gateway.cache");
+        final long memoryByteCount = (args.length > 2 ? java.lang.Long.parseLong(args[2]) : 64) * 1024 * 1024;
+        final InetSocketAddress address = args.length > 3
+            ? new InetSocketAddress(args[3], port)
+            : new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+
+        final RealTreasuryDirect upstream = RealTreasuryDirect.createWithTransport(JavaHttpClientTreasuryDirectTransport.create())
+            .setLazyDecoding(true);
+        final TwoTierTreasuryDirectCache cache = TwoTierTreasuryDirectCache.create(MemoryTreasuryDirectCache.create(memoryByteCount), DiskTreasuryDirectCache.open(cacheFile).await());
+        cache.warm(java.lang.Integer.MAX_VALUE);
+
+        final TreasuryDirectRefreshScheduler scheduler = TreasuryDirectRefreshScheduler.create(upstream)
+            .onRefreshUpdateCache(cache)
+            .start();
+        final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(CachingTreasuryDirect.create(upstream, cache))
+            .start(address).await();
+        Runtime.getRuntime().addShutdownHook(new java.lang.Thread(() ->
+        {
+            gateway.close();
+            scheduler.close();
+            cache.close();
+        }));
+    }
+}
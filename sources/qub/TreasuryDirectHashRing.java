@@ -0,0 +1,186 @@
+package qub;
+
+/**
+ * A consistent hash ring that assigns string keys to nodes. Each node is placed on the ring at
+ * several virtual positions, and a key is owned by the first node position at or after the
+ * key's hash. Adding or removing a node only moves the keys between that node's positions and
+ * their predecessors, which is about 1/n of the keys for n nodes. Membership changes replace
+ * the ring's sorted arrays as a whole, so lookups never lock.
+ */
+public class TreasuryDirectHashRing
+{
+    /**
+     * The sorted positions of every virtual node, and the node that owns each position.
+     */
+    private static class State
+    {
+        private final long[] positions;
+        private final String[] owners;
+        private final java.util.Set<String> nodeIds;
+
+        private State(long[] positions, String[] owners, java.util.Set<String> nodeIds)
+        {
+            this.positions = positions;
+            this.owners = owners;
+            this.nodeIds = nodeIds;
+        }
+    }
+
+    private final int virtualNodeCount;
+    private volatile State state;
+
+    private TreasuryDirectHashRing(int virtualNodeCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(virtualNodeCount, 1, "virtualNodeCount");
+
+        this.virtualNodeCount = virtualNodeCount;
+        this.state = new State(new long[0], new String[0], java.util.Set.of());
+    }
+
+    /**
+     * Create a new empty TreasuryDirectHashRing with 128 virtual nodes per node.
+     * @return The new TreasuryDirectHashRing.
+     */
+    public static TreasuryDirectHashRing create()
+    {
+        return TreasuryDirectHashRing.create(128);
+    }
+
+    /**
+     * Create a new empty TreasuryDirectHashRing.
+     * @param virtualNodeCount The number of positions that each node gets on the ring. More
+     *                         positions spread keys more evenly between nodes.
+     * @return The new TreasuryDirectHashRing.
+     */
+    public static TreasuryDirectHashRing create(int virtualNodeCount)
+    {
+        return new TreasuryDirectHashRing(virtualNodeCount);
+    }
+
+    public int getVirtualNodeCount()
+    {
+        return this.virtualNodeCount;
+    }
+
+    /**
+     * Get the ids of the nodes on this ring.
+     * @return The ids of the nodes on this ring.
+     */
+    public java.util.Set<String> getNodeIds()
+    {
+        return this.state.nodeIds;
+    }
+
+    /**
+     * Add the node with the provided id to this ring.
+     * @param nodeId The id of the node to add.
+     * @return This object for method chaining.
+     */
+    public synchronized TreasuryDirectHashRing addNode(String nodeId)
+    {
+        PreCondition.assertNotNullAndNotEmpty(nodeId, "nodeId");
+
+        if (!this.state.nodeIds.contains(nodeId))
+        {
+            final java.util.Set<String> nodeIds = new java.util.HashSet<>(this.state.nodeIds);
+            nodeIds.add(nodeId);
+            this.state = this.createState(nodeIds);
+        }
+
+        return this;
+    }
+
+    /**
+     * Remove the node with the provided id from this ring.
+     * @param nodeId The id of the node to remove.
+     * @return This object for method chaining.
+     */
+    public synchronized TreasuryDirectHashRing removeNode(String nodeId)
+    {
+        PreCondition.assertNotNullAndNotEmpty(nodeId, "nodeId");
+
+        if (this.state.nodeIds.contains(nodeId))
+        {
+            final java.util.Set<String> nodeIds = new java.util.HashSet<>(this.state.nodeIds);
+            nodeIds.remove(nodeId);
+            this.state = this.createState(nodeIds);
+        }
+
+        return this;
+    }
+
+    /**
+     * Get the id of the node that owns the provided key.
+     * @param key The key.
+     * @return The id of the node that owns the provided key.
+     */
+    public String getOwner(String key)
+    {
+        PreCondition.assertNotNull(key, "key");
+
+        final State state = this.state;
+        if (state.positions.length == 0)
+        {
+            throw new IllegalStateException("The hash ring doesn't have any nodes.");
+        }
+
+        int index = java.util.Arrays.binarySearch(state.positions, TreasuryDirectHashRing.hash(key));
+        if (index < 0)
+        {
+            index = -(index + 1);
+        }
+        if (index == state.positions.length)
+        {
+            index = 0;
+        }
+        return state.owners[index];
+    }
+
+    private State createState(java.util.Set<String> nodeIds)
+    {
+        // Visit the node ids in sorted order so that every node breaks position ties the same way.
+        final String[] sortedNodeIds = nodeIds.toArray(new String[0]);
+        java.util.Arrays.sort(sortedNodeIds);
+
+        final java.util.TreeMap<Long,String> ring = new java.util.TreeMap<>();
+        for (final String nodeId : sortedNodeIds)
+        {
+            for (int virtualNode = 0; virtualNode < this.virtualNodeCount; ++virtualNode)
+            {
+                ring.putIfAbsent(TreasuryDirectHashRing.hash(nodeId + "#" + virtualNode), nodeId);
+            }
+        }
+
+        final long[] positions = new long[ring.size()];
+        final String[] owners = new String[ring.size()];
+        int index = 0;
+        for (final java.util.Map.Entry<Long,String> entry : ring.entrySet())
+        {
+            positions[index] = entry.getKey();
+            owners[index] = entry.getValue();
+            ++index;
+        }
+        return new State(positions, owners, java.util.Collections.unmodifiableSet(nodeIds));
+    }
+
+    /**
+     * Hash the provided text to a ring position. Every node must agree on this function, so it
+     * doesn't depend on String.hashCode() or on any per-process seed.
+     */
+    static long hash(String text)
+    {
+        long result = 0xCBF29CE484222325L;
+        for (int i = 0; i < text.length(); ++i)
+        {
+            result ^= text.charAt(i);
+            result *= 0x100000001B3L;
+        }
+
+        result ^= (result >>> 33);
+        result *= 0xFF51AFD7ED558CCDL;
+        result ^= (result >>> 33);
+        result *= 0xC4CEB9FE1A85EC53L;
+        result ^= (result >>> 33);
+        return result;
+    }
+}
@@ -0,0 +1,241 @@
+package qub;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the objects of a JSON array from an InputStream one at a time, so that each object can
+ * be handed to a consumer as soon as its closing brace has been read instead of after the whole
+ * response body has been parsed.
+ */
+public class TreasuryDirectJSONArrayReader implements AutoCloseable
+{
+    private final InputStream input;
+    private final byte[] buffer;
+    private int bufferLength;
+    private int bufferIndex;
+    private byte[] objectBytes;
+    private boolean started;
+    private boolean finished;
+
+    private TreasuryDirectJSONArrayReader(InputStream input, int bufferSize)
+    {
+        PreCondition.assertNotNull(input, "input");
+        PreCondition.assertGreaterThanOrEqualTo(bufferSize, 1, "bufferSize");
+
+        this.input = input;
+        this.buffer = new byte[bufferSize];
+        this.objectBytes = new byte[1024];
+    }
+
+    public static TreasuryDirectJSONArrayReader create(InputStream input)
+    {
+        return TreasuryDirectJSONArrayReader.create(input, 8192);
+    }
+
+    public static TreasuryDirectJSONArrayReader create(InputStream input, int bufferSize)
+    {
+        return new TreasuryDirectJSONArrayReader(input, bufferSize);
+    }
+
+    /**
+     * Read the UTF-8 bytes of the next object in the JSON array.
+     * @return The bytes of the next object, or null if the end of the array has been reached.
+     * @throws IOException If the underlying InputStream fails.
+     */
+    public byte[] readNextObject() throws IOException
+    {
+        if (this.finished)
+        {
+            return null;
+        }
+
+        int b;
+        if (!this.started)
+        {
+            this.started = true;
+            this.expect(this.readNonWhitespace(), '[');
+            b = this.readNonWhitespace();
+            if (b == ']')
+            {
+                this.finished = true;
+                return null;
+            }
+        }
+        else
+        {
+            b = this.readNonWhitespace();
+            if (b == ']')
+            {
+                this.finished = true;
+                return null;
+            }
+            this.expect(b, ',');
+            b = this.readNonWhitespace();
+        }
+
+        while (b != '{')
+        {
+            // Elements of the array that aren't objects are skipped.
+            b = this.skipValue(b);
+            if (b == ']')
+            {
+                this.finished = true;
+                return null;
+            }
+            this.expect(b, ',');
+            b = this.readNonWhitespace();
+        }
+
+        int objectLength = 0;
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        do
+        {
+            if (objectLength == this.objectBytes.length)
+            {
+                this.objectBytes = java.util.Arrays.copyOf(this.objectBytes, this.objectBytes.length * 2);
+            }
+            this.objectBytes[objectLength++] = (byte)b;
+
+            if (inString)
+            {
+                if (escaped)
+                {
+                    escaped = false;
+                }
+                else if (b == '\\')
+                {
+                    escaped = true;
+                }
+                else if (b == '"')
+                {
+                    inString = false;
+                }
+            }
+            else if (b == '"')
+            {
+                inString = true;
+            }
+            else if (b == '{' || b == '[')
+            {
+                ++depth;
+            }
+            else if (b == '}' || b == ']')
+            {
+                --depth;
+            }
+
+            if (depth > 0)
+            {
+                b = this.read();
+                if (b < 0)
+                {
+                    throw new ParseException("Missing closing brace for the JSON object in the TreasuryDirect response.");
+                }
+            }
+        }
+        while (depth > 0);
+
+        return java.util.Arrays.copyOf(this.objectBytes, objectLength);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.finished = true;
+        this.input.close();
+    }
+
+    private int read() throws IOException
+    {
+        if (this.bufferIndex == this.bufferLength)
+        {
+            this.bufferLength = this.input.read(this.buffer, 0, this.buffer.length);
+            this.bufferIndex = 0;
+            if (this.bufferLength <= 0)
+            {
+                this.bufferLength = 0;
+                return -1;
+            }
+        }
+        return this.buffer[this.bufferIndex++] & 0xFF;
+    }
+
+    /**
+     * Read past the JSON value that starts with the provided byte.
+     * @param b The first byte of the value.
+     * @return The "," or "]" that follows the value, or whatever other byte ends the value.
+     * @throws IOException If the underlying InputStream fails.
+     */
+    private int skipValue(int b) throws IOException
+    {
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        while (true)
+        {
+            if (b < 0)
+            {
+                throw new ParseException("Missing closing bracket for the JSON array in the TreasuryDirect response.");
+            }
+
+            if (inString)
+            {
+                if (escaped)
+                {
+                    escaped = false;
+                }
+                else if (b == '\\')
+                {
+                    escaped = true;
+                }
+                else if (b == '"')
+                {
+                    inString = false;
+                }
+            }
+            else if (b == '"')
+            {
+                inString = true;
+            }
+            else if (b == '{' || b == '[')
+            {
+                ++depth;
+            }
+            else if (b == '}' || b == ']')
+            {
+                if (depth == 0)
+                {
+                    return b;
+                }
+                --depth;
+            }
+            else if (b == ',' && depth == 0)
+            {
+                return b;
+            }
+            b = this.read();
+        }
+    }
+
+    private int readNonWhitespace() throws IOException
+    {
+        int result;
+        do
+        {
+            result = this.read();
+        }
+        while (result >= 0 && TreasuryDirectJSONScanner.isWhitespace((byte)result));
+        return result;
+    }
+
+    private void expect(int b, char expected)
+    {
+        if (b != expected)
+        {
+            throw new ParseException("Expected " + Strings.escapeAndQuote(String.valueOf(expected)) + " in the TreasuryDirect response, but found " + (b < 0 ? "the end of the response" : Strings.escapeAndQuote(String.valueOf((char)b))) + ".");
+        }
+    }
+}
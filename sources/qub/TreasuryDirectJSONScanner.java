@@ -0,0 +1,395 @@
+package qub;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Functions that find the byte ranges of JSON values within a UTF-8 encoded TA_WS response
+ * without building a JSON object model. Ranges are returned as a start index (inclusive) and an
+ * end index (exclusive) into the scanned bytes.
+ */
+public interface TreasuryDirectJSONScanner
+{
+    /**
+     * The value that is returned by findPropertyValue() when the property can't be found.
+     */
+    long notFound = -1;
+
+    /**
+     * Find the ranges of each of the objects in the JSON array in the provided bytes. Elements of
+     * the array that aren't objects are skipped.
+     * @param bytes The bytes to scan.
+     * @param startIndex The index of the first byte to scan.
+     * @param endIndex The index after the last byte to scan.
+     * @return The start and end indexes of each object in the array, stored as consecutive pairs.
+     */
+    static int[] findArrayObjects(byte[] bytes, int startIndex, int endIndex)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertBetween(0, startIndex, bytes.length, "startIndex");
+        PreCondition.assertBetween(startIndex, endIndex, bytes.length, "endIndex");
+
+        int[] result = new int[16];
+        int resultLength = 0;
+
+        int index = TreasuryDirectJSONScanner.skipWhitespace(bytes, startIndex, endIndex);
+        TreasuryDirectJSONScanner.expect(bytes, index, endIndex, '[');
+        index = TreasuryDirectJSONScanner.skipWhitespace(bytes, index + 1, endIndex);
+        if (index < endIndex && bytes[index] == ']')
+        {
+            return new int[0];
+        }
+
+        while (true)
+        {
+            final int valueEnd = TreasuryDirectJSONScanner.skipValue(bytes, index, endIndex);
+            if (bytes[index] == '{')
+            {
+                if (resultLength + 2 > result.length)
+                {
+                    result = java.util.Arrays.copyOf(result, result.length * 2);
+                }
+                result[resultLength++] = index;
+                result[resultLength++] = valueEnd;
+            }
+
+            index = TreasuryDirectJSONScanner.skipWhitespace(bytes, valueEnd, endIndex);
+            if (index < endIndex && bytes[index] == ']')
+            {
+                break;
+            }
+            TreasuryDirectJSONScanner.expect(bytes, index, endIndex, ',');
+            index = TreasuryDirectJSONScanner.skipWhitespace(bytes, index + 1, endIndex);
+        }
+
+        return java.util.Arrays.copyOf(result, resultLength);
+    }
+
+    /**
+     * Find the range of the value of the property with the provided name in the JSON object that
+     * starts at the provided start index.
+     * @param bytes The bytes to scan.
+     * @param objectStartIndex The index of the object's opening brace.
+     * @param objectEndIndex The index after the object's closing brace.
+     * @param propertyName The UTF-8 bytes of the property name to find.
+     * @return The range of the property's value packed into a long (start index in the upper 32
+     * bits and end index in the lower 32 bits), or notFound if the object doesn't contain the
+     * property.
+     */
+    static long findPropertyValue(byte[] bytes, int objectStartIndex, int objectEndIndex, byte[] propertyName)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertNotNull(propertyName, "propertyName");
+
+        TreasuryDirectJSONScanner.expect(bytes, objectStartIndex, objectEndIndex, '{');
+        int index = TreasuryDirectJSONScanner.skipWhitespace(bytes, objectStartIndex + 1, objectEndIndex);
+        if (index < objectEndIndex && bytes[index] == '}')
+        {
+            return TreasuryDirectJSONScanner.notFound;
+        }
+
+        while (true)
+        {
+            TreasuryDirectJSONScanner.expect(bytes, index, objectEndIndex, '"');
+            final int nameEnd = TreasuryDirectJSONScanner.skipValue(bytes, index, objectEndIndex);
+            final boolean matches = TreasuryDirectJSONScanner.equals(bytes, index + 1, nameEnd - 1, propertyName);
+
+            index = TreasuryDirectJSONScanner.skipWhitespace(bytes, nameEnd, objectEndIndex);
+            TreasuryDirectJSONScanner.expect(bytes, index, objectEndIndex, ':');
+            final int valueStart = TreasuryDirectJSONScanner.skipWhitespace(bytes, index + 1, objectEndIndex);
+            final int valueEnd = TreasuryDirectJSONScanner.skipValue(bytes, valueStart, objectEndIndex);
+            if (matches)
+            {
+                return TreasuryDirectJSONScanner.packRange(valueStart, valueEnd);
+            }
+
+            index = TreasuryDirectJSONScanner.skipWhitespace(bytes, valueEnd, objectEndIndex);
+            if (index < objectEndIndex && bytes[index] == '}')
+            {
+                return TreasuryDirectJSONScanner.notFound;
+            }
+            TreasuryDirectJSONScanner.expect(bytes, index, objectEndIndex, ',');
+            index = TreasuryDirectJSONScanner.skipWhitespace(bytes, index + 1, objectEndIndex);
+        }
+    }
+
+    /**
+     * Find the ranges of the names and values of each of the properties in the JSON object that
+     * starts at the provided start index.
+     * @param bytes The bytes to scan.
+     * @param objectStartIndex The index of the object's opening brace.
+     * @param objectEndIndex The index after the object's closing brace.
+     * @return The name start, name end, value start, and value end indexes of each property,
+     * stored as consecutive groups of four. The name ranges include the name's quotes.
+     */
+    static int[] findProperties(byte[] bytes, int objectStartIndex, int objectEndIndex)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        int[] result = new int[64];
+        int resultLength = 0;
+
+        TreasuryDirectJSONScanner.expect(bytes, objectStartIndex, objectEndIndex, '{');
+        int index = TreasuryDirectJSONScanner.skipWhitespace(bytes, objectStartIndex + 1, objectEndIndex);
+        if (index < objectEndIndex && bytes[index] == '}')
+        {
+            return new int[0];
+        }
+
+        while (true)
+        {
+            TreasuryDirectJSONScanner.expect(bytes, index, objectEndIndex, '"');
+            final int nameStart = index;
+            final int nameEnd = TreasuryDirectJSONScanner.skipValue(bytes, index, objectEndIndex);
+
+            index = TreasuryDirectJSONScanner.skipWhitespace(bytes, nameEnd, objectEndIndex);
+            TreasuryDirectJSONScanner.expect(bytes, index, objectEndIndex, ':');
+            final int valueStart = TreasuryDirectJSONScanner.skipWhitespace(bytes, index + 1, objectEndIndex);
+            final int valueEnd = TreasuryDirectJSONScanner.skipValue(bytes, valueStart, objectEndIndex);
+
+            if (resultLength + 4 > result.length)
+            {
+                result = java.util.Arrays.copyOf(result, result.length * 2);
+            }
+            result[resultLength++] = nameStart;
+            result[resultLength++] = nameEnd;
+            result[resultLength++] = valueStart;
+            result[resultLength++] = valueEnd;
+
+            index = TreasuryDirectJSONScanner.skipWhitespace(bytes, valueEnd, objectEndIndex);
+            if (index < objectEndIndex && bytes[index] == '}')
+            {
+                break;
+            }
+            TreasuryDirectJSONScanner.expect(bytes, index, objectEndIndex, ',');
+            index = TreasuryDirectJSONScanner.skipWhitespace(bytes, index + 1, objectEndIndex);
+        }
+
+        return java.util.Arrays.copyOf(result, resultLength);
+    }
+
+    /**
+     * Decode the JSON value in the provided range as a String. String values are unquoted and
+     * unescaped, null becomes null, and any other value is returned as its JSON text.
+     * @param bytes The bytes that contain the value.
+     * @param valueStartIndex The index of the first byte of the value.
+     * @param valueEndIndex The index after the last byte of the value.
+     * @return The decoded String value.
+     */
+    static String decodeString(byte[] bytes, int valueStartIndex, int valueEndIndex)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+        PreCondition.assertBetween(0, valueStartIndex, valueEndIndex, "valueStartIndex");
+
+        final int valueLength = valueEndIndex - valueStartIndex;
+        if (valueLength == 4 && bytes[valueStartIndex] == 'n' && bytes[valueStartIndex + 1] == 'u' && bytes[valueStartIndex + 2] == 'l' && bytes[valueStartIndex + 3] == 'l')
+        {
+            return null;
+        }
+        if (valueLength < 2 || bytes[valueStartIndex] != '"')
+        {
+            return new String(bytes, valueStartIndex, valueLength, StandardCharsets.UTF_8);
+        }
+
+        final int contentStart = valueStartIndex + 1;
+        final int contentEnd = valueEndIndex - 1;
+        int escapeIndex = contentStart;
+        while (escapeIndex < contentEnd && bytes[escapeIndex] != '\\')
+        {
+            ++escapeIndex;
+        }
+        if (escapeIndex == contentEnd)
+        {
+            return new String(bytes, contentStart, contentEnd - contentStart, StandardCharsets.UTF_8);
+        }
+
+        final java.io.ByteArrayOutputStream builder = new java.io.ByteArrayOutputStream(contentEnd - contentStart);
+        builder.write(bytes, contentStart, escapeIndex - contentStart);
+        int index = escapeIndex;
+        while (index < contentEnd)
+        {
+            final byte b = bytes[index++];
+            if (b != '\\')
+            {
+                builder.write(b);
+            }
+            else
+            {
+                final byte escaped = bytes[index++];
+                switch (escaped)
+                {
+                    case 'b': builder.write('\b'); break;
+                    case 'f': builder.write('\f'); break;
+                    case 'n': builder.write('\n'); break;
+                    case 'r': builder.write('\r'); break;
+                    case 't': builder.write('\t'); break;
+                    case 'u':
+                    {
+                        final char character = TreasuryDirectJSONScanner.decodeHexCharacter(bytes, index);
+                        index += 4;
+                        final String characterText;
+                        if (Character.isHighSurrogate(character) && index + 6 <= contentEnd && bytes[index] == '\\' && bytes[index + 1] == 'u' &&
+                            Character.isLowSurrogate(TreasuryDirectJSONScanner.decodeHexCharacter(bytes, index + 2)))
+                        {
+                            // A character outside of the Basic Multilingual Plane is escaped as a
+                            // surrogate pair, and the pair must be encoded to UTF-8 together.
+                            characterText = new String(new char[] { character, TreasuryDirectJSONScanner.decodeHexCharacter(bytes, index + 2) });
+                            index += 6;
+                        }
+                        else
+                        {
+                            characterText = String.valueOf(character);
+                        }
+                        final byte[] characterBytes = characterText.getBytes(StandardCharsets.UTF_8);
+                        builder.write(characterBytes, 0, characterBytes.length);
+                        break;
+                    }
+                    default: builder.write(escaped); break;
+                }
+            }
+        }
+        return new String(builder.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    static char decodeHexCharacter(byte[] bytes, int startIndex)
+    {
+        return (char)Integer.parseInt(new String(bytes, startIndex, 4, StandardCharsets.US_ASCII), 16);
+    }
+
+    /**
+     * Get whether or not the JSON value in the provided range is a string.
+     * @param bytes The bytes that contain the value.
+     * @param valueStartIndex The index of the first byte of the value.
+     * @param valueEndIndex The index after the last byte of the value.
+     * @return Whether or not the JSON value in the provided range is a string.
+     */
+    static boolean isString(byte[] bytes, int valueStartIndex, int valueEndIndex)
+    {
+        PreCondition.assertNotNull(bytes, "bytes");
+
+        return valueStartIndex < valueEndIndex && bytes[valueStartIndex] == '"';
+    }
+
+    static long packRange(int startIndex, int endIndex)
+    {
+        return ((long)startIndex << 32) | (endIndex & 0xFFFFFFFFL);
+    }
+
+    static int getRangeStart(long range)
+    {
+        return (int)(range >>> 32);
+    }
+
+    static int getRangeEnd(long range)
+    {
+        return (int)range;
+    }
+
+    /**
+     * Get the index after the JSON value that starts at the provided index.
+     * @param bytes The bytes to scan.
+     * @param startIndex The index of the first byte of the value.
+     * @param endIndex The index after the last byte that can be scanned.
+     * @return The index after the JSON value.
+     */
+    static int skipValue(byte[] bytes, int startIndex, int endIndex)
+    {
+        if (startIndex >= endIndex)
+        {
+            throw new ParseException("Expected a JSON value at index " + startIndex + ".");
+        }
+
+        int index = startIndex;
+        final byte first = bytes[index];
+        if (first == '"')
+        {
+            ++index;
+            while (index < endIndex)
+            {
+                final byte b = bytes[index++];
+                if (b == '\\')
+                {
+                    ++index;
+                }
+                else if (b == '"')
+                {
+                    return index;
+                }
+            }
+            throw new ParseException("Missing closing quote for the JSON string that starts at index " + startIndex + ".");
+        }
+        else if (first == '{' || first == '[')
+        {
+            int depth = 0;
+            while (index < endIndex)
+            {
+                final byte b = bytes[index];
+                if (b == '"')
+                {
+                    index = TreasuryDirectJSONScanner.skipValue(bytes, index, endIndex);
+                    continue;
+                }
+                if (b == '{' || b == '[')
+                {
+                    ++depth;
+                }
+                else if (b == '}' || b == ']')
+                {
+                    --depth;
+                    if (depth == 0)
+                    {
+                        return index + 1;
+                    }
+                }
+                ++index;
+            }
+            throw new ParseException("Missing closing bracket for the JSON value that starts at index " + startIndex + ".");
+        }
+        else
+        {
+            while (index < endIndex)
+            {
+                final byte b = bytes[index];
+                if (b == ',' || b == '}' || b == ']' || TreasuryDirectJSONScanner.isWhitespace(b))
+                {
+                    break;
+                }
+                ++index;
+            }
+            return index;
+        }
+    }
+
+    static int skipWhitespace(byte[] bytes, int startIndex, int endIndex)
+    {
+        int index = startIndex;
+        while (index < endIndex && TreasuryDirectJSONScanner.isWhitespace(bytes[index]))
+        {
+            ++index;
+        }
+        return index;
+    }
+
+    static boolean isWhitespace(byte b)
+    {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    static void expect(byte[] bytes, int index, int endIndex, char expected)
+    {
+        if (index >= endIndex || bytes[index] != expected)
+        {
+            throw new ParseException("Expected " + Strings.escapeAndQuote(String.valueOf(expected)) + " at index " + index + ".");
+        }
+    }
+
+    static boolean equals(byte[] bytes, int startIndex, int endIndex, byte[] expected)
+    {
+        final int length = endIndex - startIndex;
+        boolean result = (length == expected.length);
+        for (int i = 0; result && i < length; ++i)
+        {
+            result = (bytes[startIndex + i] == expected[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,249 @@
+package qub;
+
+/**
+ * An open-addressing hash map from long keys to int values. Keys and values are stored in
+ * parallel primitive arrays and collisions are resolved with linear probing, so neither lookups
+ * nor updates allocate. Removed entries are backward-shifted instead of being left as
+ * tombstones, so probe sequences stay short after many removals. This class is not thread-safe.
+ */
+public class TreasuryDirectLongIntMap
+{
+    /**
+     * The key that marks an empty slot. It can't be used as a key in the map.
+     */
+    public static final long emptyKey = Long.MIN_VALUE;
+
+    private static final int minimumCapacity = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int count;
+    private int mask;
+
+    private TreasuryDirectLongIntMap(int expectedCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(expectedCount, 0, "expectedCount");
+
+        this.allocate(TreasuryDirectLongIntMap.getCapacity(expectedCount));
+    }
+
+    /**
+     * Create a new empty TreasuryDirectLongIntMap.
+     * @return The new TreasuryDirectLongIntMap.
+     */
+    public static TreasuryDirectLongIntMap create()
+    {
+        return TreasuryDirectLongIntMap.create(0);
+    }
+
+    /**
+     * Create a new empty TreasuryDirectLongIntMap that can hold the provided number of entries
+     * without growing.
+     * @param expectedCount The number of entries that the map is expected to hold.
+     * @return The new TreasuryDirectLongIntMap.
+     */
+    public static TreasuryDirectLongIntMap create(int expectedCount)
+    {
+        return new TreasuryDirectLongIntMap(expectedCount);
+    }
+
+    /**
+     * Create a copy of this map. Only the primitive arrays are copied, so this is much cheaper
+     * than re-inserting every entry.
+     * @return The copy of this map.
+     */
+    public TreasuryDirectLongIntMap copy()
+    {
+        final TreasuryDirectLongIntMap result = new TreasuryDirectLongIntMap(0);
+        result.keys = this.keys.clone();
+        result.values = this.values.clone();
+        result.count = this.count;
+        result.mask = this.mask;
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the number of entries in this map.
+     * @return The number of entries in this map.
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Get whether or not this map contains the provided key.
+     * @param key The key to look for.
+     * @return Whether or not this map contains the provided key.
+     */
+    public boolean containsKey(long key)
+    {
+        return this.indexOf(key) >= 0;
+    }
+
+    /**
+     * Get the value that is associated with the provided key.
+     * @param key The key to look up.
+     * @param defaultValue The value to return if the key isn't in this map.
+     * @return The value that is associated with the provided key, or the default value if the key
+     * isn't in this map.
+     */
+    public int get(long key, int defaultValue)
+    {
+        final int index = this.indexOf(key);
+        return index < 0 ? defaultValue : this.values[index];
+    }
+
+    /**
+     * Associate the provided value with the provided key.
+     * @param key The key. This can't be emptyKey.
+     * @param value The value to associate with the key.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectLongIntMap set(long key, int value)
+    {
+        PreCondition.assertNotEqual(TreasuryDirectLongIntMap.emptyKey, key, "key");
+
+        int index = TreasuryDirectLongIntMap.hash(key) & this.mask;
+        while (true)
+        {
+            final long slotKey = this.keys[index];
+            if (slotKey == TreasuryDirectLongIntMap.emptyKey)
+            {
+                this.keys[index] = key;
+                this.values[index] = value;
+                ++this.count;
+                if (this.count > (this.keys.length >>> 1) + (this.keys.length >>> 2))
+                {
+                    this.rehash(this.keys.length * 2);
+                }
+                break;
+            }
+            else if (slotKey == key)
+            {
+                this.values[index] = value;
+                break;
+            }
+            index = (index + 1) & this.mask;
+        }
+
+        return this;
+    }
+
+    /**
+     * Remove the provided key from this map.
+     * @param key The key to remove.
+     * @return Whether or not the key was in this map.
+     */
+    public boolean remove(long key)
+    {
+        int index = this.indexOf(key);
+        final boolean result = index >= 0;
+        if (result)
+        {
+            // Shift later entries in the same probe run back so that no lookup stops early.
+            int next = (index + 1) & this.mask;
+            while (this.keys[next] != TreasuryDirectLongIntMap.emptyKey)
+            {
+                final int home = TreasuryDirectLongIntMap.hash(this.keys[next]) & this.mask;
+                if (((next - home) & this.mask) >= ((next - index) & this.mask))
+                {
+                    this.keys[index] = this.keys[next];
+                    this.values[index] = this.values[next];
+                    index = next;
+                }
+                next = (next + 1) & this.mask;
+            }
+            this.keys[index] = TreasuryDirectLongIntMap.emptyKey;
+            --this.count;
+        }
+        return result;
+    }
+
+    /**
+     * Remove all of the entries from this map.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectLongIntMap clear()
+    {
+        java.util.Arrays.fill(this.keys, TreasuryDirectLongIntMap.emptyKey);
+        this.count = 0;
+
+        return this;
+    }
+
+    private int indexOf(long key)
+    {
+        int result = -1;
+        if (key != TreasuryDirectLongIntMap.emptyKey)
+        {
+            int index = TreasuryDirectLongIntMap.hash(key) & this.mask;
+            long slotKey;
+            while ((slotKey = this.keys[index]) != TreasuryDirectLongIntMap.emptyKey)
+            {
+                if (slotKey == key)
+                {
+                    result = index;
+                    break;
+                }
+                index = (index + 1) & this.mask;
+            }
+        }
+        return result;
+    }
+
+    private void rehash(int capacity)
+    {
+        final long[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+        this.allocate(capacity);
+        for (int i = 0; i < oldKeys.length; ++i)
+        {
+            final long key = oldKeys[i];
+            if (key != TreasuryDirectLongIntMap.emptyKey)
+            {
+                int index = TreasuryDirectLongIntMap.hash(key) & this.mask;
+                while (this.keys[index] != TreasuryDirectLongIntMap.emptyKey)
+                {
+                    index = (index + 1) & this.mask;
+                }
+                this.keys[index] = key;
+                this.values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        this.keys = new long[capacity];
+        java.util.Arrays.fill(this.keys, TreasuryDirectLongIntMap.emptyKey);
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Get the smallest power of two capacity that holds the provided number of entries under the
+     * maximum load factor of 0.75.
+     */
+    private static int getCapacity(int expectedCount)
+    {
+        final long minimumSlots = java.lang.Math.max(TreasuryDirectLongIntMap.minimumCapacity, (expectedCount * 4L + 2) / 3 + 1);
+        PreCondition.assertLessThanOrEqualTo(minimumSlots, 1L << 30, "expectedCount");
+
+        return Integer.highestOneBit((int)(minimumSlots - 1)) << 1;
+    }
+
+    /**
+     * Spread the bits of the provided key. Security keys keep the issue date in their low bits,
+     * so without mixing, every issue of the same CUSIP would land in neighboring slots.
+     */
+    private static int hash(long key)
+    {
+        long result = key * 0x9E3779B97F4A7C15L;
+        result ^= (result >>> 32);
+        return (int)result;
+    }
+}
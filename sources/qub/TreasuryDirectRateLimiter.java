@@ -0,0 +1,132 @@
+package qub;
+
+/**
+ * A token bucket rate limiter that can be shared between threads that make TreasuryDirect
+ * requests. Each request acquires one permit, and permits are refilled at a constant rate up to
+ * a maximum burst size.
+ */
+public class TreasuryDirectRateLimiter
+{
+    private final double permitsPerNanosecond;
+    private final double maximumPermits;
+    private java.time.Clock clock;
+    private double availablePermits;
+    private long lastRefillNanoseconds;
+
+    private TreasuryDirectRateLimiter(double permitsPerSecond, int maximumBurst)
+    {
+        PreCondition.assertGreaterThan(permitsPerSecond, 0.0, "permitsPerSecond");
+        PreCondition.assertGreaterThanOrEqualTo(maximumBurst, 1, "maximumBurst");
+
+        this.permitsPerNanosecond = permitsPerSecond / 1_000_000_000.0;
+        this.maximumPermits = maximumBurst;
+        this.clock = java.time.Clock.systemUTC();
+        this.availablePermits = maximumBurst;
+        this.lastRefillNanoseconds = this.getNanoseconds();
+    }
+
+    /**
+     * Create a new TreasuryDirectRateLimiter that allows a burst of one request.
+     * @param permitsPerSecond The number of requests that are allowed per second.
+     * @return The new TreasuryDirectRateLimiter.
+     */
+    public static TreasuryDirectRateLimiter create(double permitsPerSecond)
+    {
+        return TreasuryDirectRateLimiter.create(permitsPerSecond, 1);
+    }
+
+    /**
+     * Create a new TreasuryDirectRateLimiter.
+     * @param permitsPerSecond The number of requests that are allowed per second.
+     * @param maximumBurst The number of requests that can be made at once after the limiter has
+     *                     been idle.
+     * @return The new TreasuryDirectRateLimiter.
+     */
+    public static TreasuryDirectRateLimiter create(double permitsPerSecond, int maximumBurst)
+    {
+        return new TreasuryDirectRateLimiter(permitsPerSecond, maximumBurst);
+    }
+
+    /**
+     * Set the clock that permits are refilled by. Permits that have accumulated so far are kept,
+     * and refilling continues from the new clock's current time.
+     * @param clock The clock that permits are refilled by.
+     * @return This object for method chaining.
+     */
+    public synchronized TreasuryDirectRateLimiter setClock(java.time.Clock clock)
+    {
+        PreCondition.assertNotNull(clock, "clock");
+
+        this.clock = clock;
+        this.lastRefillNanoseconds = this.getNanoseconds();
+
+        return this;
+    }
+
+    /**
+     * Block the current thread until a permit is available and then take it.
+     */
+    public void acquire()
+    {
+        final long waitNanoseconds = this.reserve();
+        if (waitNanoseconds > 0)
+        {
+            try
+            {
+                java.util.concurrent.TimeUnit.NANOSECONDS.sleep(waitNanoseconds);
+            }
+            catch (InterruptedException e)
+            {
+                java.lang.Thread.currentThread().interrupt();
+                throw new java.util.concurrent.CancellationException("Interrupted while waiting for a TreasuryDirect rate limit permit.");
+            }
+        }
+    }
+
+    /**
+     * Take a permit without waiting for it to become available.
+     * @return The number of nanoseconds that the caller must wait before the permit that it took
+     * becomes available.
+     */
+    public synchronized long reserve()
+    {
+        this.refill();
+        this.availablePermits -= 1;
+        return this.availablePermits >= 0
+            ? 0
+            : (long)java.lang.Math.ceil(-this.availablePermits / this.permitsPerNanosecond);
+    }
+
+    /**
+     * Take a permit if one is available right now.
+     * @return Whether or not a permit was taken.
+     */
+    public synchronized boolean tryAcquire()
+    {
+        this.refill();
+        final boolean result = this.availablePermits >= 1;
+        if (result)
+        {
+            this.availablePermits -= 1;
+        }
+        return result;
+    }
+
+    private void refill()
+    {
+        // The clock isn't guaranteed to be monotonic, so a clock that moves backwards refills
+        // nothing instead of taking permits away.
+        final long now = this.getNanoseconds();
+        if (now > this.lastRefillNanoseconds)
+        {
+            this.availablePermits = java.lang.Math.min(this.maximumPermits, this.availablePermits + (now - this.lastRefillNanoseconds) * this.permitsPerNanosecond);
+            this.lastRefillNanoseconds = now;
+        }
+    }
+
+    private long getNanoseconds()
+    {
+        final java.time.Instant now = this.clock.instant();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+}
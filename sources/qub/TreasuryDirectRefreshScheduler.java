@@ -0,0 +1,344 @@
+package qub;
+
+/**
+ * A background daemon that refreshes the announced and auctioned securities on a schedule that
+ * follows the Treasury auction calendar. Each refresh derives the upcoming announcement, auction,
+ * and issue events from the announced securities. While an event's active window is open (from a
+ * short lead time before the event until a while after it), the daemon polls at the short active
+ * interval so that new auction results are picked up quickly. The rest of the time it sleeps
+ * until the next window opens, but never longer than the idle interval.
+ */
+public class TreasuryDirectRefreshScheduler implements AutoCloseable
+{
+    private final TreasuryDirect treasuryDirect;
+    private final java.util.concurrent.CopyOnWriteArrayList<Action2<Iterable<TreasuryDirectSecurity>,Iterable<TreasuryDirectSecurity>>> refreshActions;
+    private final java.util.concurrent.atomic.AtomicLong refreshCount;
+    private final java.util.concurrent.atomic.AtomicLong failedRefreshCount;
+    private volatile List<TreasuryDirectCalendarEvent> events;
+    private java.time.Clock clock;
+    private long idlePollIntervalMilliseconds;
+    private long activePollIntervalMilliseconds;
+    private long activeWindowLeadMilliseconds;
+    private long activeWindowMilliseconds;
+    private java.lang.Thread thread;
+    private volatile boolean closed;
+
+    private TreasuryDirectRefreshScheduler(TreasuryDirect treasuryDirect)
+    {
+        PreCondition.assertNotNull(treasuryDirect, "treasuryDirect");
+
+        this.treasuryDirect = treasuryDirect;
+        this.refreshActions = new java.util.concurrent.CopyOnWriteArrayList<>();
+        this.refreshCount = new java.util.concurrent.atomic.AtomicLong();
+        this.failedRefreshCount = new java.util.concurrent.atomic.AtomicLong();
+        this.events = List.create();
+        this.clock = java.time.Clock.systemUTC();
+        this.idlePollIntervalMilliseconds = 4 * 60 * 60 * 1000L;
+        this.activePollIntervalMilliseconds = 60 * 1000L;
+        this.activeWindowLeadMilliseconds = 5 * 60 * 1000L;
+        this.activeWindowMilliseconds = 30 * 60 * 1000L;
+    }
+
+    /**
+     * Create a new TreasuryDirectRefreshScheduler.
+     * @param treasuryDirect The TreasuryDirect that will be polled. This should not be a
+     *                       CachingTreasuryDirect, or the refreshes will just read the cache.
+     * @return The new TreasuryDirectRefreshScheduler.
+     */
+    public static TreasuryDirectRefreshScheduler create(TreasuryDirect treasuryDirect)
+    {
+        return new TreasuryDirectRefreshScheduler(treasuryDirect);
+    }
+
+    /**
+     * Set the clock that events and polls are scheduled against.
+     * @param clock The clock that events and polls are scheduled against.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectRefreshScheduler setClock(java.time.Clock clock)
+    {
+        PreCondition.assertNotNull(clock, "clock");
+
+        this.clock = clock;
+
+        return this;
+    }
+
+    /**
+     * Set the longest time between two refreshes when no event's active window is open. This
+     * defaults to four hours.
+     * @param idlePollIntervalMilliseconds The longest time between two idle refreshes.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectRefreshScheduler setIdlePollIntervalMilliseconds(long idlePollIntervalMilliseconds)
+    {
+        PreCondition.assertGreaterThan(idlePollIntervalMilliseconds, 0L, "idlePollIntervalMilliseconds");
+
+        this.idlePollIntervalMilliseconds = idlePollIntervalMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Set the time between two refreshes while an event's active window is open. This defaults
+     * to one minute.
+     * @param activePollIntervalMilliseconds The time between two active refreshes.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectRefreshScheduler setActivePollIntervalMilliseconds(long activePollIntervalMilliseconds)
+    {
+        PreCondition.assertGreaterThan(activePollIntervalMilliseconds, 0L, "activePollIntervalMilliseconds");
+
+        this.activePollIntervalMilliseconds = activePollIntervalMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Set the active window around each event. This defaults to five minutes before the event
+     * until thirty minutes after it.
+     * @param leadMilliseconds How long before an event its active window opens.
+     * @param durationMilliseconds How long after an event its active window stays open.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectRefreshScheduler setActiveWindowMilliseconds(long leadMilliseconds, long durationMilliseconds)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(leadMilliseconds, 0L, "leadMilliseconds");
+        PreCondition.assertGreaterThanOrEqualTo(durationMilliseconds, 0L, "durationMilliseconds");
+
+        this.activeWindowLeadMilliseconds = leadMilliseconds;
+        this.activeWindowMilliseconds = durationMilliseconds;
+
+        return this;
+    }
+
+    /**
+     * Add an action that will be run with the announced and auctioned securities after each
+     * successful refresh.
+     * @param refreshAction The action to run after each successful refresh.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectRefreshScheduler onRefresh(Action2<Iterable<TreasuryDirectSecurity>,Iterable<TreasuryDirectSecurity>> refreshAction)
+    {
+        PreCondition.assertNotNull(refreshAction, "refreshAction");
+
+        this.refreshActions.add(refreshAction);
+
+        return this;
+    }
+
+    /**
+     * Write the announced and auctioned securities from each successful refresh into the
+     * provided cache, under the same keys that a CachingTreasuryDirect reads for
+     * getAnnouncedSecurities() and getAuctionedSecurities().
+     * @param cache The cache to write the refreshed securities into.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectRefreshScheduler onRefreshUpdateCache(TreasuryDirectCache cache)
+    {
+        PreCondition.assertNotNull(cache, "cache");
+
+        return this.onRefresh((Iterable<TreasuryDirectSecurity> announcedSecurities, Iterable<TreasuryDirectSecurity> auctionedSecurities) ->
+        {
+            final long nowMilliseconds = this.clock.millis();
+            cache.put(TreasuryDirectCacheKeys.getAnnouncedSecuritiesKey(GetAnnouncedSecuritiesOptions.create()),
+                TreasuryDirectCacheEntry.create(TreasuryDirectCacheKeys.encodeSecurities(announcedSecurities), nowMilliseconds));
+            cache.put(TreasuryDirectCacheKeys.getAuctionedSecuritiesKey(GetAuctionedSecuritiesOptions.create()),
+                TreasuryDirectCacheEntry.create(TreasuryDirectCacheKeys.encodeSecurities(auctionedSecurities), nowMilliseconds));
+        });
+    }
+
+    /**
+     * Add or replace the announced and auctioned securities from each successful refresh in the
+     * provided repository. The new snapshot is built in the background, so readers of the
+     * repository never wait on a refresh. Securities without a valid CUSIP or issue date are
+     * skipped.
+     * @param repository The repository to update with the refreshed securities.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectRefreshScheduler onRefreshUpdateRepository(TreasuryDirectSecurityRepository repository)
+    {
+        PreCondition.assertNotNull(repository, "repository");
+
+        return this.onRefresh((Iterable<TreasuryDirectSecurity> announcedSecurities, Iterable<TreasuryDirectSecurity> auctionedSecurities) ->
+        {
+            final TreasuryDirectSecurityChangeSet changes = TreasuryDirectSecurityChangeSet.create();
+            for (final Iterable<TreasuryDirectSecurity> securities : Iterable.create(announcedSecurities, auctionedSecurities))
+            {
+                for (final TreasuryDirectSecurity security : securities)
+                {
+                    if (TreasuryDirectCusip.getSecurityKey(security) != TreasuryDirectCusip.invalid)
+                    {
+                        changes.upsert(security);
+                    }
+                }
+            }
+            repository.applyInBackground(changes);
+        });
+    }
+
+    /**
+     * Add the auction results of the auctioned securities from each successful refresh to the
+     * provided store. Auctions that are already in the store are only changed if their results
+     * were revised.
+     * @param store The store to add the auction results to.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectRefreshScheduler onRefreshUpdateAuctionTimeSeries(TreasuryDirectAuctionTimeSeriesStore store)
+    {
+        PreCondition.assertNotNull(store, "store");
+
+        return this.onRefresh((Iterable<TreasuryDirectSecurity> announcedSecurities, Iterable<TreasuryDirectSecurity> auctionedSecurities) ->
+        {
+            store.addAll(auctionedSecurities);
+        });
+    }
+
+    /**
+     * Record the announced and auctioned securities from each successful refresh in the provided
+     * history as revisions that took effect at the time of the refresh. Securities that haven't
+     * changed since the last refresh don't add a revision.
+     * @param history The history to record the refreshed securities in.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectRefreshScheduler onRefreshUpdateHistory(TreasuryDirectSecurityHistory history)
+    {
+        PreCondition.assertNotNull(history, "history");
+
+        return this.onRefresh((Iterable<TreasuryDirectSecurity> announcedSecurities, Iterable<TreasuryDirectSecurity> auctionedSecurities) ->
+        {
+            final long nowMilliseconds = this.clock.millis();
+            for (final Iterable<TreasuryDirectSecurity> securities : Iterable.create(announcedSecurities, auctionedSecurities))
+            {
+                for (final TreasuryDirectSecurity security : securities)
+                {
+                    history.record(security, nowMilliseconds, nowMilliseconds);
+                }
+            }
+        });
+    }
+
+    /**
+     * Get the calendar events that were derived from the most recent refresh.
+     * @return The calendar events that were derived from the most recent refresh.
+     */
+    public List<TreasuryDirectCalendarEvent> getEvents()
+    {
+        return this.events;
+    }
+
+    public long getRefreshCount()
+    {
+        return this.refreshCount.get();
+    }
+
+    public long getFailedRefreshCount()
+    {
+        return this.failedRefreshCount.get();
+    }
+
+    /**
+     * Fetch the announced and auctioned securities, update the calendar events, and run the
+     * refresh actions.
+     * @return The result of the refresh.
+     */
+    public Result<Void> refresh()
+    {
+        return Result.create(() ->
+        {
+            try
+            {
+                final Iterable<TreasuryDirectSecurity> announcedSecurities = this.treasuryDirect.getAnnouncedSecurities().await().toList();
+                this.events = TreasuryDirectCalendarEvent.fromSecurities(announcedSecurities);
+
+                final Iterable<TreasuryDirectSecurity> auctionedSecurities = this.treasuryDirect.getAuctionedSecurities().await().toList();
+                this.refreshCount.incrementAndGet();
+
+                for (final Action2<Iterable<TreasuryDirectSecurity>,Iterable<TreasuryDirectSecurity>> refreshAction : this.refreshActions)
+                {
+                    refreshAction.run(announcedSecurities, auctionedSecurities);
+                }
+            }
+            catch (Throwable error)
+            {
+                this.failedRefreshCount.incrementAndGet();
+                throw error;
+            }
+        });
+    }
+
+    /**
+     * Get the time that the next refresh should happen, based on the current calendar events.
+     * @return The time that the next refresh should happen, in milliseconds since the epoch.
+     */
+    public long getNextRefreshMilliseconds()
+    {
+        final long nowMilliseconds = this.clock.millis();
+        long result = nowMilliseconds + this.idlePollIntervalMilliseconds;
+        for (final TreasuryDirectCalendarEvent event : this.events)
+        {
+            final long windowStart = event.getMilliseconds() - this.activeWindowLeadMilliseconds;
+            final long windowEnd = event.getMilliseconds() + this.activeWindowMilliseconds;
+            if (windowStart <= nowMilliseconds && nowMilliseconds <= windowEnd)
+            {
+                result = java.lang.Math.min(result, nowMilliseconds + this.activePollIntervalMilliseconds);
+            }
+            else if (nowMilliseconds < windowStart)
+            {
+                result = java.lang.Math.min(result, windowStart);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Start refreshing on a background daemon thread. The first refresh happens immediately.
+     * Starting a scheduler that is already started or that has been closed does nothing.
+     * @return This object for method chaining.
+     */
+    public synchronized TreasuryDirectRefreshScheduler start()
+    {
+        if (this.thread == null && !this.closed)
+        {
+            this.thread = java.lang.Thread.ofPlatform()
+                .name("treasurydirect-refresh-scheduler")
+                .daemon(true)
+                .start(this::run);
+        }
+
+        return this;
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        this.closed = true;
+        if (this.thread != null)
+        {
+            this.thread.interrupt();
+            this.thread = null;
+        }
+    }
+
+    private void run()
+    {
+        while (!this.closed)
+        {
+            // A failed refresh is counted and retried at the next scheduled time.
+            this.refresh().catchError().await();
+
+            final long delayMilliseconds = this.getNextRefreshMilliseconds() - this.clock.millis();
+            if (delayMilliseconds > 0)
+            {
+                try
+                {
+                    java.lang.Thread.sleep(delayMilliseconds);
+                }
+                catch (InterruptedException e)
+                {
+                    break;
+                }
+            }
+        }
+    }
+}
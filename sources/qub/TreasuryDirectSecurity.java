@@ -2,13 +2,24 @@ package qub;
 
 public interface TreasuryDirectSecurity
 {
+    String allocationPercentagePropertyName = "allocationPercentage";
     String announcementDatePropertyName = "announcementDate";
     String auctionDatePropertyName = "auctionDate";
     String auctionDateYearPropertyName = "auctionDateYear";
+    String bidToCoverRatioPropertyName = "bidToCoverRatio";
+    String competitiveAcceptedPropertyName = "competitiveAccepted";
     String cusipPropertyName = "cusip";
+    String directBidderAcceptedPropertyName = "directBidderAccepted";
+    String highDiscountRatePropertyName = "highDiscountRate";
+    String highInvestmentRatePropertyName = "highInvestmentRate";
+    String highYieldPropertyName = "highYield";
+    String indirectBidderAcceptedPropertyName = "indirectBidderAccepted";
     String interestRatePropertyName = "interestRate";
     String issueDatePropertyName = "issueDate";
     String maturityDatePropertyName = "maturityDate";
+    String offeringAmountPropertyName = "offeringAmount";
+    String originalSecurityTermPropertyName = "originalSecurityTerm";
+    String primaryDealerAcceptedPropertyName = "primaryDealerAccepted";
     String securityTypePropertyName = "securityType";
     String securityTermPropertyName = "securityTerm";
 
@@ -32,6 +43,21 @@ public interface TreasuryDirectSecurity
         return this.getString(TreasuryDirectSecurity.cusipPropertyName);
     }
 
+    default Result<Double> getHighDiscountRate()
+    {
+        return this.getNumber(TreasuryDirectSecurity.highDiscountRatePropertyName);
+    }
+
+    default Result<Double> getHighInvestmentRate()
+    {
+        return this.getNumber(TreasuryDirectSecurity.highInvestmentRatePropertyName);
+    }
+
+    default Result<Double> getHighYield()
+    {
+        return this.getNumber(TreasuryDirectSecurity.highYieldPropertyName);
+    }
+
     default Result<Double> getInterestRate()
     {
         return this.getNumber(TreasuryDirectSecurity.interestRatePropertyName);
@@ -47,6 +73,16 @@ public interface TreasuryDirectSecurity
         return this.getDateTime(TreasuryDirectSecurity.maturityDatePropertyName);
     }
 
+    /**
+     * Get the term that this security had when it was first issued. Unlike getSecurityTerm(),
+     * this is the same for a reopening as it is for the original issue.
+     * @return The term that this security had when it was first issued.
+     */
+    default Result<String> getOriginalSecurityTerm()
+    {
+        return this.getString(TreasuryDirectSecurity.originalSecurityTermPropertyName);
+    }
+
     default Result<String> getSecurityType()
     {
         return this.getString(TreasuryDirectSecurity.securityTypePropertyName);
@@ -57,6 +93,36 @@ public interface TreasuryDirectSecurity
         return this.getString(TreasuryDirectSecurity.securityTermPropertyName);
     }
 
+    default int getAnnouncementEpochDay()
+    {
+        return this.getEpochDay(TreasuryDirectSecurity.announcementDatePropertyName);
+    }
+
+    default int getAuctionEpochDay()
+    {
+        return this.getEpochDay(TreasuryDirectSecurity.auctionDatePropertyName);
+    }
+
+    default int getIssueEpochDay()
+    {
+        return this.getEpochDay(TreasuryDirectSecurity.issueDatePropertyName);
+    }
+
+    default int getMaturityEpochDay()
+    {
+        return this.getEpochDay(TreasuryDirectSecurity.maturityDatePropertyName);
+    }
+
+    /**
+     * Get the JSON representation of this security. By default this parses toString(), so an
+     * implementation whose toString() doesn't return its JSON text should override this.
+     * @return The JSON representation of this security.
+     */
+    default JSONObject toJson()
+    {
+        return JSON.parseObject(this.toString()).await();
+    }
+
     /**
      * Get the String value of the property with the provided name.
      * @param propertyName The name of the property to get.
@@ -76,6 +142,11 @@ public interface TreasuryDirectSecurity
         return Result.create(() ->
         {
             String propertyValue = this.getString(propertyName).await();
+            if (TreasuryDirectDates.isMidnightDate(propertyValue))
+            {
+                return TreasuryDirectDates.toDateTime(TreasuryDirectDates.parseEpochDay(propertyValue));
+            }
+
             if (!Strings.isNullOrEmpty(propertyValue) && !propertyValue.endsWith("Z"))
             {
                 propertyValue += "Z";
@@ -99,6 +170,24 @@ public interface TreasuryDirectSecurity
         });
     }
 
+    /**
+     * Get the date of the property with the provided name as the number of days since
+     * 1970-01-01. This doesn't allocate a Date or DateTime, so it is the cheapest way to compare
+     * or range-check dates.
+     * @param propertyName The name of the property to get.
+     * @return The epoch day of the property with the provided name, or
+     * TreasuryDirectDates.unknownEpochDay if the property doesn't exist or isn't a date.
+     */
+    default int getEpochDay(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        final String propertyValue = this.getString(propertyName)
+            .catchError()
+            .await();
+        return TreasuryDirectDates.parseEpochDay(propertyValue);
+    }
+
     /**
      * Get the Double value of the property with the provided name.
      * @param propertyName The name of the property to get.
@@ -0,0 +1,200 @@
+package qub;
+
+/**
+ * The result of a TreasuryDirectSecurityAggregator: the statistics of each group, ordered by
+ * group. Groups are addressed by their index in that order.
+ */
+public class TreasuryDirectSecurityAggregation
+{
+    private final long[] groups;
+    private final String[] groupNames;
+    private final int[] counts;
+    private final double[] sums;
+    private final double[] minimums;
+    private final double[] maximums;
+    private final double[][] sortedValues;
+
+    private TreasuryDirectSecurityAggregation(long[] groups, String[] groupNames, int[] counts, double[] sums, double[] minimums, double[] maximums, double[][] sortedValues)
+    {
+        PreCondition.assertNotNull(groups, "groups");
+        PreCondition.assertNotNull(groupNames, "groupNames");
+        PreCondition.assertNotNull(counts, "counts");
+        PreCondition.assertNotNull(sums, "sums");
+        PreCondition.assertNotNull(minimums, "minimums");
+        PreCondition.assertNotNull(maximums, "maximums");
+        PreCondition.assertNotNull(sortedValues, "sortedValues");
+
+        this.groups = groups;
+        this.groupNames = groupNames;
+        this.counts = counts;
+        this.sums = sums;
+        this.minimums = minimums;
+        this.maximums = maximums;
+        this.sortedValues = sortedValues;
+    }
+
+    static TreasuryDirectSecurityAggregation create(long[] groups, String[] groupNames, int[] counts, double[] sums, double[] minimums, double[] maximums, double[][] sortedValues)
+    {
+        return new TreasuryDirectSecurityAggregation(groups, groupNames, counts, sums, minimums, maximums, sortedValues);
+    }
+
+    /**
+     * Get the number of groups that have at least one security.
+     * @return The number of groups that have at least one security.
+     */
+    public int getGroupCount()
+    {
+        return this.groups.length;
+    }
+
+    /**
+     * Get the index of the provided group.
+     * @param group The group from a TreasuryDirectSecurityGrouping.
+     * @return The index of the provided group, or -1 if no securities are in the group.
+     */
+    public int indexOf(long group)
+    {
+        final int result = java.util.Arrays.binarySearch(this.groups, group);
+        return result < 0 ? -1 : result;
+    }
+
+    /**
+     * Get the index of the group that has the provided name.
+     * @param groupName The name of the group.
+     * @return The index of the group that has the provided name, or -1 if there isn't one.
+     */
+    public int indexOf(String groupName)
+    {
+        PreCondition.assertNotNull(groupName, "groupName");
+
+        int result = -1;
+        for (int i = 0; i < this.groupNames.length; ++i)
+        {
+            if (this.groupNames[i].equals(groupName))
+            {
+                result = i;
+                break;
+            }
+        }
+        return result;
+    }
+
+    public long getGroup(int groupIndex)
+    {
+        this.assertGroupIndex(groupIndex);
+
+        return this.groups[groupIndex];
+    }
+
+    public String getGroupName(int groupIndex)
+    {
+        this.assertGroupIndex(groupIndex);
+
+        return this.groupNames[groupIndex];
+    }
+
+    /**
+     * Get the number of securities in the group at the provided index.
+     * @param groupIndex The index of the group.
+     * @return The number of securities in the group.
+     */
+    public int getCount(int groupIndex)
+    {
+        this.assertGroupIndex(groupIndex);
+
+        return this.counts[groupIndex];
+    }
+
+    /**
+     * Get the number of securities in the group at the provided index that have a value.
+     * @param groupIndex The index of the group.
+     * @return The number of securities in the group that have a value.
+     */
+    public int getValueCount(int groupIndex)
+    {
+        this.assertGroupIndex(groupIndex);
+
+        return this.sortedValues[groupIndex].length;
+    }
+
+    /**
+     * Get the sum of the values in the group at the provided index, or NaN if the aggregation
+     * only counted securities.
+     * @param groupIndex The index of the group.
+     * @return The sum of the values in the group.
+     */
+    public double getSum(int groupIndex)
+    {
+        this.assertGroupIndex(groupIndex);
+
+        return this.sums[groupIndex];
+    }
+
+    /**
+     * Get the smallest value in the group at the provided index, or NaN if the group doesn't
+     * have any values.
+     * @param groupIndex The index of the group.
+     * @return The smallest value in the group.
+     */
+    public double getMinimum(int groupIndex)
+    {
+        this.assertGroupIndex(groupIndex);
+
+        return this.minimums[groupIndex];
+    }
+
+    /**
+     * Get the largest value in the group at the provided index, or NaN if the group doesn't have
+     * any values.
+     * @param groupIndex The index of the group.
+     * @return The largest value in the group.
+     */
+    public double getMaximum(int groupIndex)
+    {
+        this.assertGroupIndex(groupIndex);
+
+        return this.maximums[groupIndex];
+    }
+
+    /**
+     * Get the mean of the values in the group at the provided index, or NaN if the group doesn't
+     * have any values.
+     * @param groupIndex The index of the group.
+     * @return The mean of the values in the group.
+     */
+    public double getMean(int groupIndex)
+    {
+        final int valueCount = this.getValueCount(groupIndex);
+        return valueCount == 0 ? Double.NaN : this.sums[groupIndex] / valueCount;
+    }
+
+    /**
+     * Get the provided percentile of the values in the group at the provided index,
+     * interpolating linearly between the closest values.
+     * @param groupIndex The index of the group.
+     * @param percentile The percentile (0 - 100).
+     * @return The percentile of the values in the group, or NaN if the group doesn't have any
+     * values.
+     */
+    public double getPercentile(int groupIndex, double percentile)
+    {
+        this.assertGroupIndex(groupIndex);
+        PreCondition.assertBetween(0, percentile, 100, "percentile");
+
+        final double[] values = this.sortedValues[groupIndex];
+        double result = Double.NaN;
+        if (values.length > 0)
+        {
+            final double rank = percentile / 100 * (values.length - 1);
+            final int lowerIndex = (int)java.lang.Math.floor(rank);
+            final int upperIndex = java.lang.Math.min(lowerIndex + 1, values.length - 1);
+            result = values[lowerIndex] + (rank - lowerIndex) * (values[upperIndex] - values[lowerIndex]);
+        }
+        return result;
+    }
+
+    private void assertGroupIndex(int groupIndex)
+    {
+        PreCondition.assertBetween(0, groupIndex, this.groups.length - 1, "groupIndex");
+    }
+}
@@ -0,0 +1,273 @@
+package qub;
+
+/**
+ * Computes per-group counts, sums, minimums, maximums, means, and percentiles over the securities
+ * in a TreasuryDirectSecurityColumns, such as total offering amount by security term per month or
+ * a maturity ladder by year. The securities are split into chunks that are aggregated in parallel
+ * on the common fork-join pool, each into its own primitive accumulator, and the chunk results
+ * are then merged pairwise.
+ */
+public class TreasuryDirectSecurityAggregator
+{
+    private static final int minimumChunkSize = 1024;
+
+    private final TreasuryDirectSecurityColumns columns;
+    private boolean parallel;
+
+    private TreasuryDirectSecurityAggregator(TreasuryDirectSecurityColumns columns)
+    {
+        PreCondition.assertNotNull(columns, "columns");
+
+        this.columns = columns;
+        this.parallel = true;
+    }
+
+    /**
+     * Create a new TreasuryDirectSecurityAggregator for the securities in the provided columns.
+     * @param columns The columns of the securities to aggregate.
+     * @return The new TreasuryDirectSecurityAggregator.
+     */
+    public static TreasuryDirectSecurityAggregator create(TreasuryDirectSecurityColumns columns)
+    {
+        return new TreasuryDirectSecurityAggregator(columns);
+    }
+
+    /**
+     * Create a new TreasuryDirectSecurityAggregator for the provided securities.
+     * @param securities The securities to aggregate.
+     * @return The new TreasuryDirectSecurityAggregator.
+     */
+    public static TreasuryDirectSecurityAggregator create(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        return TreasuryDirectSecurityAggregator.create(TreasuryDirectSecurityColumns.create(securities));
+    }
+
+    /**
+     * Set whether or not aggregations are split across the common fork-join pool. This is
+     * enabled by default.
+     * @param parallel Whether or not aggregations are split across the common fork-join pool.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectSecurityAggregator setParallel(boolean parallel)
+    {
+        this.parallel = parallel;
+
+        return this;
+    }
+
+    public TreasuryDirectSecurityColumns getColumns()
+    {
+        return this.columns;
+    }
+
+    /**
+     * Count the securities in each group.
+     * @param grouping The grouping that assigns each security to a group.
+     * @return The number of securities in each group.
+     */
+    public TreasuryDirectSecurityAggregation count(TreasuryDirectSecurityGrouping grouping)
+    {
+        return this.aggregate(grouping, null);
+    }
+
+    /**
+     * Aggregate the provided values of the securities in each group. Values that are NaN are
+     * counted as members of their group, but are left out of the group's value statistics.
+     * @param grouping The grouping that assigns each security to a group.
+     * @param values The value of each security, such as getColumns().getOfferingAmounts().
+     * @return The aggregated values of each group.
+     */
+    public TreasuryDirectSecurityAggregation aggregate(TreasuryDirectSecurityGrouping grouping, double[] values)
+    {
+        PreCondition.assertNotNull(grouping, "grouping");
+        if (values != null)
+        {
+            PreCondition.assertGreaterThanOrEqualTo(values.length, this.columns.getCount(), "values.length");
+        }
+
+        final int count = this.columns.getCount();
+        final int chunkSize = java.lang.Math.max(TreasuryDirectSecurityAggregator.minimumChunkSize,
+            count / (4 * java.util.concurrent.ForkJoinPool.getCommonPoolParallelism()) + 1);
+        final int chunkCount = (count + chunkSize - 1) / chunkSize;
+
+        final Accumulator accumulator;
+        if (this.parallel && chunkCount > 1)
+        {
+            accumulator = java.util.stream.IntStream.range(0, chunkCount).parallel()
+                .mapToObj((int chunk) ->
+                {
+                    final int startIndex = chunk * chunkSize;
+                    return this.accumulate(grouping, values, startIndex, java.lang.Math.min(count, startIndex + chunkSize));
+                })
+                .reduce(Accumulator::merge)
+                .orElseGet(Accumulator::new);
+        }
+        else
+        {
+            accumulator = this.accumulate(grouping, values, 0, count);
+        }
+
+        final TreasuryDirectSecurityAggregation result = accumulator.toAggregation(this.columns, grouping, values != null);
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    private Accumulator accumulate(TreasuryDirectSecurityGrouping grouping, double[] values, int startIndex, int endIndex)
+    {
+        final Accumulator result = new Accumulator();
+        for (int i = startIndex; i < endIndex; ++i)
+        {
+            final long group = grouping.getGroup(this.columns, i);
+            if (group != TreasuryDirectSecurityGrouping.none)
+            {
+                result.add(group, values == null ? Double.NaN : values[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The statistics of each group in one chunk of securities, kept in parallel primitive arrays
+     * that are indexed by the group's slot.
+     */
+    private static class Accumulator
+    {
+        private final TreasuryDirectLongIntMap slots;
+        private long[] groups;
+        private int[] counts;
+        private double[] sums;
+        private double[] minimums;
+        private double[] maximums;
+        private double[][] values;
+        private int[] valueCounts;
+        private int slotCount;
+
+        Accumulator()
+        {
+            this.slots = TreasuryDirectLongIntMap.create();
+            this.groups = new long[8];
+            this.counts = new int[8];
+            this.sums = new double[8];
+            this.minimums = new double[8];
+            this.maximums = new double[8];
+            this.values = new double[8][];
+            this.valueCounts = new int[8];
+        }
+
+        void add(long group, double value)
+        {
+            final int slot = this.getSlot(group);
+            ++this.counts[slot];
+            if (!Double.isNaN(value))
+            {
+                this.addValue(slot, value);
+            }
+        }
+
+        Accumulator merge(Accumulator other)
+        {
+            for (int otherSlot = 0; otherSlot < other.slotCount; ++otherSlot)
+            {
+                final int slot = this.getSlot(other.groups[otherSlot]);
+                this.counts[slot] += other.counts[otherSlot];
+                for (int i = 0; i < other.valueCounts[otherSlot]; ++i)
+                {
+                    this.addValue(slot, other.values[otherSlot][i]);
+                }
+            }
+            return this;
+        }
+
+        TreasuryDirectSecurityAggregation toAggregation(TreasuryDirectSecurityColumns columns, TreasuryDirectSecurityGrouping grouping, boolean hasValues)
+        {
+            final Integer[] order = new Integer[this.slotCount];
+            for (int slot = 0; slot < this.slotCount; ++slot)
+            {
+                order[slot] = slot;
+            }
+            java.util.Arrays.sort(order, (Integer lhs, Integer rhs) -> Long.compare(this.groups[lhs], this.groups[rhs]));
+
+            final long[] groups = new long[this.slotCount];
+            final String[] groupNames = new String[this.slotCount];
+            final int[] counts = new int[this.slotCount];
+            final double[] sums = new double[this.slotCount];
+            final double[] minimums = new double[this.slotCount];
+            final double[] maximums = new double[this.slotCount];
+            final double[][] sortedValues = new double[this.slotCount][];
+            for (int i = 0; i < this.slotCount; ++i)
+            {
+                final int slot = order[i];
+                groups[i] = this.groups[slot];
+                groupNames[i] = grouping.getGroupName(columns, this.groups[slot]);
+                counts[i] = this.counts[slot];
+                if (this.valueCounts[slot] == 0)
+                {
+                    sums[i] = hasValues ? 0 : Double.NaN;
+                    minimums[i] = Double.NaN;
+                    maximums[i] = Double.NaN;
+                    sortedValues[i] = new double[0];
+                }
+                else
+                {
+                    sums[i] = this.sums[slot];
+                    minimums[i] = this.minimums[slot];
+                    maximums[i] = this.maximums[slot];
+                    sortedValues[i] = java.util.Arrays.copyOf(this.values[slot], this.valueCounts[slot]);
+                    java.util.Arrays.sort(sortedValues[i]);
+                }
+            }
+            return TreasuryDirectSecurityAggregation.create(groups, groupNames, counts, sums, minimums, maximums, sortedValues);
+        }
+
+        private int getSlot(long group)
+        {
+            int result = this.slots.get(group, -1);
+            if (result == -1)
+            {
+                result = this.slotCount++;
+                if (result == this.groups.length)
+                {
+                    final int capacity = this.groups.length * 2;
+                    this.groups = java.util.Arrays.copyOf(this.groups, capacity);
+                    this.counts = java.util.Arrays.copyOf(this.counts, capacity);
+                    this.sums = java.util.Arrays.copyOf(this.sums, capacity);
+                    this.minimums = java.util.Arrays.copyOf(this.minimums, capacity);
+                    this.maximums = java.util.Arrays.copyOf(this.maximums, capacity);
+                    this.values = java.util.Arrays.copyOf(this.values, capacity);
+                    this.valueCounts = java.util.Arrays.copyOf(this.valueCounts, capacity);
+                }
+                this.groups[result] = group;
+                this.values[result] = new double[8];
+                this.slots.set(group, result);
+            }
+            return result;
+        }
+
+        private void addValue(int slot, double value)
+        {
+            final int valueCount = this.valueCounts[slot];
+            if (valueCount == 0)
+            {
+                this.minimums[slot] = value;
+                this.maximums[slot] = value;
+            }
+            else
+            {
+                this.minimums[slot] = java.lang.Math.min(this.minimums[slot], value);
+                this.maximums[slot] = java.lang.Math.max(this.maximums[slot], value);
+            }
+            this.sums[slot] += value;
+
+            if (valueCount == this.values[slot].length)
+            {
+                this.values[slot] = java.util.Arrays.copyOf(this.values[slot], valueCount * 2);
+            }
+            this.values[slot][valueCount] = value;
+            this.valueCounts[slot] = valueCount + 1;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package qub;
+
+/**
+ * A set of changes to apply to a TreasuryDirectSecurityRepository. Changes are keyed by
+ * TreasuryDirectCusip security key, so a later change to the same security replaces an earlier
+ * one in the same change set.
+ */
+public class TreasuryDirectSecurityChangeSet
+{
+    private final java.util.LinkedHashMap<Long,TreasuryDirectSecurity> changes;
+
+    private TreasuryDirectSecurityChangeSet()
+    {
+        this.changes = new java.util.LinkedHashMap<>();
+    }
+
+    /**
+     * Create a new empty TreasuryDirectSecurityChangeSet.
+     * @return The new TreasuryDirectSecurityChangeSet.
+     */
+    public static TreasuryDirectSecurityChangeSet create()
+    {
+        return new TreasuryDirectSecurityChangeSet();
+    }
+
+    /**
+     * Get the number of securities that this change set adds, replaces, or removes.
+     * @return The number of changes in this change set.
+     */
+    public int getCount()
+    {
+        return this.changes.size();
+    }
+
+    /**
+     * Add or replace the provided security.
+     * @param security The security to add or replace. Its CUSIP and issue date must be packable
+     *                 into a TreasuryDirectCusip security key.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectSecurityChangeSet upsert(TreasuryDirectSecurity security)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        final long securityKey = TreasuryDirectCusip.getSecurityKey(security);
+        PreCondition.assertNotEqual(TreasuryDirectCusip.invalid, securityKey, "security key");
+
+        this.changes.put(securityKey, security);
+
+        return this;
+    }
+
+    /**
+     * Add or replace each of the provided securities.
+     * @param securities The securities to add or replace.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectSecurityChangeSet upsertAll(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        for (final TreasuryDirectSecurity security : securities)
+        {
+            this.upsert(security);
+        }
+
+        return this;
+    }
+
+    /**
+     * Remove the security with the provided CUSIP and issue date.
+     * @param cusip The CUSIP of the security to remove.
+     * @param issueEpochDay The epoch day of the issue date of the security to remove.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectSecurityChangeSet remove(String cusip, int issueEpochDay)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+
+        final long securityKey = TreasuryDirectCusip.getSecurityKey(cusip, issueEpochDay);
+        PreCondition.assertNotEqual(TreasuryDirectCusip.invalid, securityKey, "security key");
+
+        return this.remove(securityKey);
+    }
+
+    /**
+     * Remove the security with the provided security key.
+     * @param securityKey The TreasuryDirectCusip security key of the security to remove.
+     * @return This object for method chaining.
+     */
+    TreasuryDirectSecurityChangeSet remove(long securityKey)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(securityKey, 0L, "securityKey");
+
+        this.changes.put(securityKey, null);
+
+        return this;
+    }
+
+    /**
+     * Get the security keys of the changes in this change set, in the order that the changes were
+     * made.
+     */
+    long[] getSecurityKeys()
+    {
+        final long[] result = new long[this.changes.size()];
+        int index = 0;
+        for (final long securityKey : this.changes.keySet())
+        {
+            result[index++] = securityKey;
+        }
+        return result;
+    }
+
+    /**
+     * Get the new securities of the changes in this change set, in the same order as
+     * getSecurityKeys(). The security is null for a removal.
+     */
+    TreasuryDirectSecurity[] getSecurities()
+    {
+        return this.changes.values().toArray(new TreasuryDirectSecurity[0]);
+    }
+}
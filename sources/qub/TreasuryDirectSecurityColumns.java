@@ -0,0 +1,259 @@
+package qub;
+
+/**
+ * The commonly used properties of a collection of TreasuryDirectSecurity objects, extracted into
+ * primitive arrays (one array per property) so that analytics can run over them in tight loops
+ * without boxing or re-parsing. Missing dates are stored as TreasuryDirectDates.unknownEpochDay
+ * and missing numbers are stored as NaN.
+ */
+public class TreasuryDirectSecurityColumns
+{
+    private final int count;
+    private final String[] cusips;
+    private final byte[] securityTypes;
+    private final String[] securityTerms;
+    private final int[] securityTermCodes;
+    private final java.util.ArrayList<String> distinctSecurityTerms;
+    private final String[] originalSecurityTerms;
+    private final int[] announcementEpochDays;
+    private final int[] auctionEpochDays;
+    private final int[] issueEpochDays;
+    private final int[] maturityEpochDays;
+    private final double[] interestRates;
+    private final double[] yields;
+    private final double[] highDiscountRates;
+    private final double[] offeringAmounts;
+
+    private TreasuryDirectSecurityColumns(int count)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(count, 0, "count");
+
+        this.count = count;
+        this.cusips = new String[count];
+        this.securityTypes = new byte[count];
+        this.securityTerms = new String[count];
+        this.securityTermCodes = new int[count];
+        this.distinctSecurityTerms = new java.util.ArrayList<>();
+        this.originalSecurityTerms = new String[count];
+        this.announcementEpochDays = new int[count];
+        this.auctionEpochDays = new int[count];
+        this.issueEpochDays = new int[count];
+        this.maturityEpochDays = new int[count];
+        this.interestRates = new double[count];
+        this.yields = new double[count];
+        this.highDiscountRates = new double[count];
+        this.offeringAmounts = new double[count];
+    }
+
+    /**
+     * Extract the columns of the provided securities.
+     * @param securities The securities to extract the columns of.
+     * @return The extracted columns.
+     */
+    public static TreasuryDirectSecurityColumns create(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        final TreasuryDirectSecurityColumns result = new TreasuryDirectSecurityColumns(securities.getCount());
+        final java.util.HashMap<String,Integer> securityTermCodes = new java.util.HashMap<>();
+        int index = 0;
+        for (final TreasuryDirectSecurity security : securities)
+        {
+            result.cusips[index] = security.getCusip().catchError().await();
+            result.securityTypes[index] = TreasuryDirectSecurityColumns.encodeSecurityType(security.getSecurityType().catchError().await());
+            final String securityTerm = security.getSecurityTerm().catchError().await();
+            result.securityTerms[index] = securityTerm;
+            if (securityTerm == null)
+            {
+                result.securityTermCodes[index] = -1;
+            }
+            else
+            {
+                result.securityTermCodes[index] = securityTermCodes.computeIfAbsent(securityTerm, (String term) ->
+                {
+                    result.distinctSecurityTerms.add(term);
+                    return result.distinctSecurityTerms.size() - 1;
+                });
+            }
+            result.originalSecurityTerms[index] = security.getOriginalSecurityTerm().catchError().await();
+            result.announcementEpochDays[index] = security.getAnnouncementEpochDay();
+            result.auctionEpochDays[index] = security.getAuctionEpochDay();
+            result.issueEpochDays[index] = security.getIssueEpochDay();
+            result.maturityEpochDays[index] = security.getMaturityEpochDay();
+            result.interestRates[index] = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.interestRatePropertyName);
+            result.highDiscountRates[index] = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.highDiscountRatePropertyName);
+            result.offeringAmounts[index] = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.offeringAmountPropertyName);
+
+            double yield = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.highYieldPropertyName);
+            if (Double.isNaN(yield))
+            {
+                yield = TreasuryDirectSecurityColumns.getDouble(security, TreasuryDirectSecurity.highInvestmentRatePropertyName);
+            }
+            result.yields[index] = yield;
+
+            ++index;
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the number of securities in these columns.
+     * @return The number of securities in these columns.
+     */
+    public int getCount()
+    {
+        return this.count;
+    }
+
+    public String[] getCusips()
+    {
+        return this.cusips;
+    }
+
+    /**
+     * Get the ordinal of each security's TreasuryDirectSecurityType, or -1 if the security's type
+     * is missing or unrecognized.
+     * @return The ordinal of each security's TreasuryDirectSecurityType.
+     */
+    public byte[] getSecurityTypes()
+    {
+        return this.securityTypes;
+    }
+
+    public String[] getSecurityTerms()
+    {
+        return this.securityTerms;
+    }
+
+    /**
+     * Get a code for each security's term, or -1 if the security's term is missing. Securities
+     * with the same term have the same code, and getSecurityTerm(int) turns a code back into
+     * its term.
+     * @return A code for each security's term.
+     */
+    public int[] getSecurityTermCodes()
+    {
+        return this.securityTermCodes;
+    }
+
+    /**
+     * Get the security term that has the provided code.
+     * @param securityTermCode The code from getSecurityTermCodes().
+     * @return The security term that has the provided code.
+     */
+    public String getSecurityTerm(int securityTermCode)
+    {
+        PreCondition.assertBetween(0, securityTermCode, this.distinctSecurityTerms.size() - 1, "securityTermCode");
+
+        return this.distinctSecurityTerms.get(securityTermCode);
+    }
+
+    /**
+     * Get the term that each security had when it was first issued, or null if the security's
+     * original term is missing.
+     * @return The term that each security had when it was first issued.
+     */
+    public String[] getOriginalSecurityTerms()
+    {
+        return this.originalSecurityTerms;
+    }
+
+    public int[] getAnnouncementEpochDays()
+    {
+        return this.announcementEpochDays;
+    }
+
+    public int[] getAuctionEpochDays()
+    {
+        return this.auctionEpochDays;
+    }
+
+    public int[] getIssueEpochDays()
+    {
+        return this.issueEpochDays;
+    }
+
+    public int[] getMaturityEpochDays()
+    {
+        return this.maturityEpochDays;
+    }
+
+    /**
+     * Get each security's coupon interest rate as a percentage.
+     * @return Each security's coupon interest rate as a percentage.
+     */
+    public double[] getInterestRates()
+    {
+        return this.interestRates;
+    }
+
+    /**
+     * Get each security's auction yield as a percentage. This is the high yield for Notes, Bonds,
+     * TIPS, and FRNs, and the high investment rate (the bond-equivalent yield) for Bills.
+     * @return Each security's auction yield as a percentage.
+     */
+    public double[] getYields()
+    {
+        return this.yields;
+    }
+
+    /**
+     * Get each security's high discount rate as a percentage. Only Bills have a discount rate.
+     * @return Each security's high discount rate as a percentage.
+     */
+    public double[] getHighDiscountRates()
+    {
+        return this.highDiscountRates;
+    }
+
+    /**
+     * Get each security's offering amount in dollars.
+     * @return Each security's offering amount in dollars.
+     */
+    public double[] getOfferingAmounts()
+    {
+        return this.offeringAmounts;
+    }
+
+    static byte encodeSecurityType(String securityType)
+    {
+        byte result = -1;
+        if (!Strings.isNullOrEmpty(securityType))
+        {
+            for (final TreasuryDirectSecurityType type : TreasuryDirectSecurityType.values())
+            {
+                if (type.toString().equalsIgnoreCase(securityType))
+                {
+                    result = (byte)type.ordinal();
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    static double getDouble(TreasuryDirectSecurity security, String propertyName)
+    {
+        final String propertyValue = security.getString(propertyName).catchError().await();
+        return TreasuryDirectSecurityColumns.parseDouble(propertyValue);
+    }
+
+    static double parseDouble(String text)
+    {
+        double result = Double.NaN;
+        if (!Strings.isNullOrEmpty(text))
+        {
+            try
+            {
+                result = Double.parseDouble(text);
+            }
+            catch (NumberFormatException ignored)
+            {
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,194 @@
+package qub;
+
+/**
+ * Assigns each security in a TreasuryDirectSecurityColumns to a group for a
+ * TreasuryDirectSecurityAggregator. Groups are identified by a long so that aggregation doesn't
+ * allocate a key object per security, and are only turned into names for display. The built-in
+ * groupings all produce groups that fit in an int, so any two of them can be combined with
+ * then(TreasuryDirectSecurityGrouping).
+ */
+public interface TreasuryDirectSecurityGrouping
+{
+    /**
+     * The group of a security that shouldn't be aggregated, such as one that is missing the
+     * property that it would be grouped by.
+     */
+    long none = Long.MIN_VALUE;
+
+    /**
+     * Get the group of the security at the provided index.
+     * @param columns The columns of the securities.
+     * @param index The index of the security.
+     * @return The group of the security at the provided index, or none if the security should be
+     * left out.
+     */
+    long getGroup(TreasuryDirectSecurityColumns columns, int index);
+
+    /**
+     * Get the display name of the provided group.
+     * @param columns The columns of the securities.
+     * @param group The group.
+     * @return The display name of the provided group.
+     */
+    String getGroupName(TreasuryDirectSecurityColumns columns, long group);
+
+    /**
+     * Get a grouping that groups the securities of each group of this grouping by the provided
+     * grouping, such as each security term by maturity year. Both groupings must produce groups
+     * that fit in an int.
+     * @param inner The grouping within each of this grouping's groups.
+     * @return The combined grouping.
+     */
+    default TreasuryDirectSecurityGrouping then(TreasuryDirectSecurityGrouping inner)
+    {
+        PreCondition.assertNotNull(inner, "inner");
+
+        final TreasuryDirectSecurityGrouping outer = this;
+        return new TreasuryDirectSecurityGrouping()
+        {
+            @Override
+            public long getGroup(TreasuryDirectSecurityColumns columns, int index)
+            {
+                long result = TreasuryDirectSecurityGrouping.none;
+                final long outerGroup = outer.getGroup(columns, index);
+                if (outerGroup != TreasuryDirectSecurityGrouping.none)
+                {
+                    final long innerGroup = inner.getGroup(columns, index);
+                    if (innerGroup != TreasuryDirectSecurityGrouping.none)
+                    {
+                        result = (outerGroup << 32) | (innerGroup & 0xFFFFFFFFL);
+                    }
+                }
+                return result;
+            }
+
+            @Override
+            public String getGroupName(TreasuryDirectSecurityColumns columns, long group)
+            {
+                return outer.getGroupName(columns, group >> 32) + " " + inner.getGroupName(columns, (int)group);
+            }
+        };
+    }
+
+    /**
+     * Group securities by their TreasuryDirectSecurityType.
+     * @return The grouping.
+     */
+    static TreasuryDirectSecurityGrouping bySecurityType()
+    {
+        return new TreasuryDirectSecurityGrouping()
+        {
+            @Override
+            public long getGroup(TreasuryDirectSecurityColumns columns, int index)
+            {
+                final byte securityType = columns.getSecurityTypes()[index];
+                return securityType < 0 ? TreasuryDirectSecurityGrouping.none : securityType;
+            }
+
+            @Override
+            public String getGroupName(TreasuryDirectSecurityColumns columns, long group)
+            {
+                return TreasuryDirectSecurityType.values()[(int)group].toString();
+            }
+        };
+    }
+
+    /**
+     * Group securities by their security term, such as "10-Year".
+     * @return The grouping.
+     */
+    static TreasuryDirectSecurityGrouping bySecurityTerm()
+    {
+        return new TreasuryDirectSecurityGrouping()
+        {
+            @Override
+            public long getGroup(TreasuryDirectSecurityColumns columns, int index)
+            {
+                final int securityTermCode = columns.getSecurityTermCodes()[index];
+                return securityTermCode < 0 ? TreasuryDirectSecurityGrouping.none : securityTermCode;
+            }
+
+            @Override
+            public String getGroupName(TreasuryDirectSecurityColumns columns, long group)
+            {
+                return columns.getSecurityTerm((int)group);
+            }
+        };
+    }
+
+    /**
+     * Group securities by the year of their maturity date, such as for a maturity ladder.
+     * @return The grouping.
+     */
+    static TreasuryDirectSecurityGrouping byMaturityYear()
+    {
+        return TreasuryDirectSecurityGrouping.byYear((TreasuryDirectSecurityColumns columns) -> columns.getMaturityEpochDays());
+    }
+
+    /**
+     * Group securities by the year of their issue date.
+     * @return The grouping.
+     */
+    static TreasuryDirectSecurityGrouping byIssueYear()
+    {
+        return TreasuryDirectSecurityGrouping.byYear((TreasuryDirectSecurityColumns columns) -> columns.getIssueEpochDays());
+    }
+
+    /**
+     * Group securities by the month of their issue date.
+     * @return The grouping.
+     */
+    static TreasuryDirectSecurityGrouping byIssueMonth()
+    {
+        return TreasuryDirectSecurityGrouping.byMonth((TreasuryDirectSecurityColumns columns) -> columns.getIssueEpochDays());
+    }
+
+    /**
+     * Group securities by the month of their auction date.
+     * @return The grouping.
+     */
+    static TreasuryDirectSecurityGrouping byAuctionMonth()
+    {
+        return TreasuryDirectSecurityGrouping.byMonth((TreasuryDirectSecurityColumns columns) -> columns.getAuctionEpochDays());
+    }
+
+    private static TreasuryDirectSecurityGrouping byYear(Function1<TreasuryDirectSecurityColumns,int[]> epochDaysGetter)
+    {
+        return new TreasuryDirectSecurityGrouping()
+        {
+            @Override
+            public long getGroup(TreasuryDirectSecurityColumns columns, int index)
+            {
+                final int epochDay = epochDaysGetter.run(columns)[index];
+                return epochDay == TreasuryDirectDates.unknownEpochDay ? TreasuryDirectSecurityGrouping.none : TreasuryDirectDates.getYear(epochDay);
+            }
+
+            @Override
+            public String getGroupName(TreasuryDirectSecurityColumns columns, long group)
+            {
+                return Long.toString(group);
+            }
+        };
+    }
+
+    private static TreasuryDirectSecurityGrouping byMonth(Function1<TreasuryDirectSecurityColumns,int[]> epochDaysGetter)
+    {
+        return new TreasuryDirectSecurityGrouping()
+        {
+            @Override
+            public long getGroup(TreasuryDirectSecurityColumns columns, int index)
+            {
+                final int epochDay = epochDaysGetter.run(columns)[index];
+                return epochDay == TreasuryDirectDates.unknownEpochDay
+                    ? TreasuryDirectSecurityGrouping.none
+                    : TreasuryDirectDates.getYear(epochDay) * 12L + TreasuryDirectDates.getMonth(epochDay) - 1;
+            }
+
+            @Override
+            public String getGroupName(TreasuryDirectSecurityColumns columns, long group)
+            {
+                return String.format("%04d-%02d", group / 12, group % 12 + 1);
+            }
+        };
+    }
+}
@@ -0,0 +1,644 @@
+package qub;
+
+/**
+ * A bitemporal history of TreasuryDirectSecurity records. TA_WS revises a security's record
+ * between its announcement, auction, and issuance, and every distinct revision is kept here with
+ * the time that it took effect (valid-from) and the time that it was recorded, so that the
+ * history can be audited and replayed instead of being overwritten.
+ *
+ * Securities are keyed by their packed TreasuryDirectCusip security key (CUSIP and issue date).
+ * Each key's revisions are stored as deltas against the previously recorded revision: only the
+ * properties that were added, changed, or removed are kept, and values are interned through a
+ * shared TreasuryDirectStringDictionary. Every checkpoint interval revisions a full copy is
+ * stored instead, so rebuilding any revision applies a bounded number of deltas. Each key also
+ * has a version index that is ordered by valid-from time, so an as-of query binary searches that
+ * key's versions instead of scanning the whole history.
+ */
+public class TreasuryDirectSecurityHistory
+{
+    private static final int defaultCheckpointInterval = 16;
+
+    private final TreasuryDirectStringDictionary dictionary;
+    private final TreasuryDirectStringDictionary propertyNames;
+    private final TreasuryDirectLongIntMap versionIndexes;
+    private final java.util.ArrayList<Versions> versions;
+    private java.time.Clock clock;
+    private int checkpointInterval;
+    private int revisionCount;
+
+    private TreasuryDirectSecurityHistory(TreasuryDirectStringDictionary dictionary)
+    {
+        PreCondition.assertNotNull(dictionary, "dictionary");
+
+        this.dictionary = dictionary;
+        this.propertyNames = TreasuryDirectStringDictionary.create();
+        this.versionIndexes = TreasuryDirectLongIntMap.create();
+        this.versions = new java.util.ArrayList<>();
+        this.clock = java.time.Clock.systemUTC();
+        this.checkpointInterval = TreasuryDirectSecurityHistory.defaultCheckpointInterval;
+    }
+
+    /**
+     * Create a new empty TreasuryDirectSecurityHistory that interns values through its own
+     * TreasuryDirectStringDictionary.
+     * @return The new TreasuryDirectSecurityHistory.
+     */
+    public static TreasuryDirectSecurityHistory create()
+    {
+        return TreasuryDirectSecurityHistory.create(TreasuryDirectStringDictionary.create());
+    }
+
+    /**
+     * Create a new empty TreasuryDirectSecurityHistory.
+     * @param dictionary The dictionary that recorded values are interned through.
+     * @return The new TreasuryDirectSecurityHistory.
+     */
+    public static TreasuryDirectSecurityHistory create(TreasuryDirectStringDictionary dictionary)
+    {
+        return new TreasuryDirectSecurityHistory(dictionary);
+    }
+
+    /**
+     * Set the clock that revisions are timestamped with when a time isn't provided.
+     * @param clock The clock that revisions are timestamped with.
+     * @return This object for method chaining.
+     */
+    public synchronized TreasuryDirectSecurityHistory setClock(java.time.Clock clock)
+    {
+        PreCondition.assertNotNull(clock, "clock");
+
+        this.clock = clock;
+
+        return this;
+    }
+
+    /**
+     * Set the number of revisions of a security after which a full copy of the security is stored
+     * instead of a delta. Smaller intervals make as-of queries faster and the history larger.
+     * @param checkpointInterval The number of revisions between full copies.
+     * @return This object for method chaining.
+     */
+    public synchronized TreasuryDirectSecurityHistory setCheckpointInterval(int checkpointInterval)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(checkpointInterval, 1, "checkpointInterval");
+
+        this.checkpointInterval = checkpointInterval;
+
+        return this;
+    }
+
+    /**
+     * Get the number of distinct securities in this history.
+     * @return The number of distinct securities in this history.
+     */
+    public synchronized int getSecurityCount()
+    {
+        return this.versions.size();
+    }
+
+    /**
+     * Get the number of revisions of all securities in this history.
+     * @return The number of revisions of all securities in this history.
+     */
+    public synchronized int getRevisionCount()
+    {
+        return this.revisionCount;
+    }
+
+    /**
+     * Record the provided security as a revision that takes effect now.
+     * @param security The security to record.
+     * @return Whether or not a new revision was recorded.
+     */
+    public boolean record(TreasuryDirectSecurity security)
+    {
+        final long nowMilliseconds = this.getNowMilliseconds();
+        return this.record(security, nowMilliseconds, nowMilliseconds);
+    }
+
+    /**
+     * Record the provided security as a revision that took effect at the provided time.
+     * @param security The security to record.
+     * @param validFromMilliseconds The time (in milliseconds since the epoch) that the revision
+     *                              took effect.
+     * @return Whether or not a new revision was recorded.
+     */
+    public boolean record(TreasuryDirectSecurity security, long validFromMilliseconds)
+    {
+        return this.record(security, validFromMilliseconds, this.getNowMilliseconds());
+    }
+
+    /**
+     * Record the provided security as a revision that took effect at the provided valid-from time
+     * and was recorded at the provided recorded time. The revision isn't recorded if it is the
+     * same as the revision that is already in effect at its valid-from time, or if the
+     * security's CUSIP or issue date can't be packed into a security key.
+     * @param security The security to record.
+     * @param validFromMilliseconds The time (in milliseconds since the epoch) that the revision
+     *                              took effect.
+     * @param recordedMilliseconds The time (in milliseconds since the epoch) that the revision
+     *                             was recorded.
+     * @return Whether or not a new revision was recorded.
+     */
+    public synchronized boolean record(TreasuryDirectSecurity security, long validFromMilliseconds, long recordedMilliseconds)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        boolean result = false;
+        final long securityKey = TreasuryDirectCusip.getSecurityKey(security);
+        if (securityKey != TreasuryDirectCusip.invalid)
+        {
+            final State state = this.decode(security);
+
+            final int versionIndex = this.versionIndexes.get(securityKey, -1);
+            final Versions securityVersions;
+            if (versionIndex == -1)
+            {
+                securityVersions = new Versions();
+                this.versionIndexes.set(securityKey, this.versions.size());
+                this.versions.add(securityVersions);
+            }
+            else
+            {
+                securityVersions = this.versions.get(versionIndex);
+            }
+
+            if (securityVersions.count == 0)
+            {
+                securityVersions.add(validFromMilliseconds, recordedMilliseconds, state.toCheckpoint(), true);
+                result = true;
+            }
+            else
+            {
+                final int latestRevision = securityVersions.count - 1;
+                final State latest = this.rebuild(securityVersions, latestRevision);
+
+                final int currentRevision = securityVersions.find(validFromMilliseconds, Long.MAX_VALUE);
+                final State current = currentRevision == latestRevision || currentRevision == -1
+                    ? latest
+                    : this.rebuild(securityVersions, currentRevision);
+                if (currentRevision == -1 || !state.isSameAs(current))
+                {
+                    final boolean checkpoint = securityVersions.revisionsSinceCheckpoint + 1 >= this.checkpointInterval;
+                    securityVersions.add(validFromMilliseconds, recordedMilliseconds,
+                        checkpoint ? state.toCheckpoint() : state.toDelta(latest), checkpoint);
+                    result = true;
+                }
+            }
+
+            if (result)
+            {
+                ++this.revisionCount;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of revisions of the security with the provided CUSIP and issue date.
+     * @param cusip The CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @return The number of revisions of the security, or 0 if it isn't in this history.
+     */
+    public synchronized int getRevisionCount(String cusip, int issueEpochDay)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+
+        final Versions securityVersions = this.getVersions(cusip, issueEpochDay);
+        return securityVersions == null ? 0 : securityVersions.count;
+    }
+
+    /**
+     * Get every revision of the security with the provided CUSIP and issue date in the order that
+     * they were recorded.
+     * @param cusip The CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @return The revisions of the security.
+     */
+    public Result<Iterable<TreasuryDirectSecurityRevision>> getRevisions(String cusip, int issueEpochDay)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+
+        return Result.create(() ->
+        {
+            final List<TreasuryDirectSecurityRevision> result = List.create();
+            synchronized (this)
+            {
+                final Versions securityVersions = this.getVersionsOrThrow(cusip, issueEpochDay);
+
+                // Apply the deltas in recorded order so that each revision is only rebuilt once.
+                final State state = new State(this.propertyNames.getCount());
+                for (int revision = 0; revision < securityVersions.count; ++revision)
+                {
+                    state.apply(securityVersions.deltas[revision]);
+                    result.add(this.createRevision(securityVersions, revision, state));
+                }
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Get the revision of the security with the provided CUSIP and issue date that is in effect at
+     * the provided time, as it is currently known.
+     * @param cusip The CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @param validAtMilliseconds The time (in milliseconds since the epoch) to get the security
+     *                            as of.
+     * @return The revision of the security that is in effect at the provided time.
+     */
+    public Result<TreasuryDirectSecurityRevision> getAsOf(String cusip, int issueEpochDay, long validAtMilliseconds)
+    {
+        return this.getAsOf(cusip, issueEpochDay, validAtMilliseconds, Long.MAX_VALUE);
+    }
+
+    /**
+     * Get the revision of the security with the provided CUSIP and issue date that was in effect
+     * at the provided valid-at time, as it was known at the provided known-at time. Revisions that
+     * were recorded after the known-at time are ignored, which replays what this history would
+     * have answered at that time.
+     * @param cusip The CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @param validAtMilliseconds The time (in milliseconds since the epoch) to get the security
+     *                            as of.
+     * @param knownAtMilliseconds The time (in milliseconds since the epoch) that the revision must
+     *                            have been recorded by.
+     * @return The revision of the security that was in effect at the valid-at time.
+     */
+    public Result<TreasuryDirectSecurityRevision> getAsOf(String cusip, int issueEpochDay, long validAtMilliseconds, long knownAtMilliseconds)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+
+        return Result.create(() ->
+        {
+            final TreasuryDirectSecurityRevision result;
+            synchronized (this)
+            {
+                final Versions securityVersions = this.getVersionsOrThrow(cusip, issueEpochDay);
+                final int revision = securityVersions.find(validAtMilliseconds, knownAtMilliseconds);
+                if (revision == -1)
+                {
+                    throw new NotFoundException("No revision of the TreasuryDirect security with CUSIP " + cusip + " and issue date " +
+                        java.time.LocalDate.ofEpochDay(issueEpochDay) + " was valid at " + java.time.Instant.ofEpochMilli(validAtMilliseconds) +
+                        " as known at " + java.time.Instant.ofEpochMilli(knownAtMilliseconds) + ".");
+                }
+                result = this.createRevision(securityVersions, revision, this.rebuild(securityVersions, revision));
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    private synchronized long getNowMilliseconds()
+    {
+        return this.clock.millis();
+    }
+
+    private Versions getVersions(String cusip, int issueEpochDay)
+    {
+        final long securityKey = TreasuryDirectCusip.getSecurityKey(cusip, issueEpochDay);
+        final int versionIndex = securityKey == TreasuryDirectCusip.invalid ? -1 : this.versionIndexes.get(securityKey, -1);
+        return versionIndex == -1 ? null : this.versions.get(versionIndex);
+    }
+
+    private Versions getVersionsOrThrow(String cusip, int issueEpochDay)
+    {
+        final Versions result = this.getVersions(cusip, issueEpochDay);
+        if (result == null)
+        {
+            throw new NotFoundException("No history found for the TreasuryDirect security with CUSIP " + cusip + " and issue date " + java.time.LocalDate.ofEpochDay(issueEpochDay) + ".");
+        }
+        return result;
+    }
+
+    /**
+     * Decode the properties of the provided security, interning the property names and the
+     * low-cardinality values.
+     */
+    private State decode(TreasuryDirectSecurity security)
+    {
+        final byte[] bytes = security.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        final int[] propertyRanges = TreasuryDirectJSONScanner.findProperties(bytes, 0, bytes.length);
+        final int propertyCount = propertyRanges.length / 4;
+        final int[] propertyCodes = new int[propertyCount];
+        final String[] propertyValues = new String[propertyCount];
+        final boolean[] rawValues = new boolean[propertyCount];
+        for (int i = 0; i < propertyCount; ++i)
+        {
+            final String propertyName = TreasuryDirectJSONScanner.decodeString(bytes, propertyRanges[i * 4], propertyRanges[i * 4 + 1]);
+            String propertyValue = TreasuryDirectJSONScanner.decodeString(bytes, propertyRanges[i * 4 + 2], propertyRanges[i * 4 + 3]);
+            rawValues[i] = propertyValue != null && !TreasuryDirectJSONScanner.isString(bytes, propertyRanges[i * 4 + 2], propertyRanges[i * 4 + 3]);
+            if (this.dictionary.shouldIntern(propertyName, propertyValue))
+            {
+                propertyValue = this.dictionary.intern(propertyValue);
+            }
+            propertyCodes[i] = this.propertyNames.add(propertyName);
+            propertyValues[i] = propertyValue;
+        }
+
+        final State result = new State(this.propertyNames.getCount());
+        for (int i = 0; i < propertyCount; ++i)
+        {
+            result.set(propertyCodes[i], propertyValues[i], rawValues[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Rebuild the provided revision by applying the deltas since the closest checkpoint at or
+     * before it.
+     */
+    private State rebuild(Versions securityVersions, int revision)
+    {
+        int checkpoint = revision;
+        while (!securityVersions.checkpoints[checkpoint])
+        {
+            --checkpoint;
+        }
+
+        final State result = new State(this.propertyNames.getCount());
+        for (int i = checkpoint; i <= revision; ++i)
+        {
+            result.apply(securityVersions.deltas[i]);
+        }
+        return result;
+    }
+
+    private TreasuryDirectSecurityRevision createRevision(Versions securityVersions, int revision, State state)
+    {
+        int propertyCount = 0;
+        for (int code = 0; code < state.present.length; ++code)
+        {
+            if (state.present[code])
+            {
+                ++propertyCount;
+            }
+        }
+
+        final String[] names = new String[propertyCount];
+        final String[] values = new String[propertyCount];
+        final boolean[] rawValues = new boolean[propertyCount];
+        int propertyIndex = 0;
+        for (int code = 0; code < state.present.length; ++code)
+        {
+            if (state.present[code])
+            {
+                names[propertyIndex] = this.propertyNames.getValue(code);
+                values[propertyIndex] = state.values[code];
+                rawValues[propertyIndex] = state.rawValues[code];
+                ++propertyIndex;
+            }
+        }
+
+        return TreasuryDirectSecurityRevision.create(
+            DictionaryTreasuryDirectSecurity.create(this.dictionary, names, values, rawValues),
+            securityVersions.validFromMilliseconds[revision],
+            securityVersions.recordedMilliseconds[revision]);
+    }
+
+    /**
+     * The properties of one revision of a security, indexed by property name code.
+     */
+    private static class State
+    {
+        private final boolean[] present;
+        private final String[] values;
+        private final boolean[] rawValues;
+
+        State(int propertyNameCount)
+        {
+            this.present = new boolean[propertyNameCount];
+            this.values = new String[propertyNameCount];
+            this.rawValues = new boolean[propertyNameCount];
+        }
+
+        void set(int code, String value, boolean rawValue)
+        {
+            this.present[code] = true;
+            this.values[code] = value;
+            this.rawValues[code] = rawValue;
+        }
+
+        /**
+         * Apply the provided delta to this state. A checkpoint lists every property, so it
+         * replaces this state's properties instead of updating them.
+         */
+        void apply(Delta delta)
+        {
+            if (delta.checkpoint)
+            {
+                java.util.Arrays.fill(this.present, false);
+                java.util.Arrays.fill(this.values, null);
+                java.util.Arrays.fill(this.rawValues, false);
+            }
+            for (int i = 0; i < delta.codes.length; ++i)
+            {
+                final int code = delta.codes[i];
+                if (code >= 0)
+                {
+                    this.set(code, delta.values[i], delta.rawValues[i]);
+                }
+                else
+                {
+                    this.present[~code] = false;
+                    this.values[~code] = null;
+                    this.rawValues[~code] = false;
+                }
+            }
+        }
+
+        Delta toCheckpoint()
+        {
+            return this.toDelta(null);
+        }
+
+        /**
+         * Get the properties that changed from the provided previous state to this state. A
+         * removed property is stored as the complement of its code.
+         */
+        Delta toDelta(State previous)
+        {
+            int changeCount = 0;
+            for (int code = 0; code < this.present.length; ++code)
+            {
+                if (this.isChanged(previous, code))
+                {
+                    ++changeCount;
+                }
+            }
+
+            final int[] codes = new int[changeCount];
+            final String[] changedValues = new String[changeCount];
+            final boolean[] changedRawValues = new boolean[changeCount];
+            int changeIndex = 0;
+            for (int code = 0; code < this.present.length; ++code)
+            {
+                if (this.isChanged(previous, code))
+                {
+                    codes[changeIndex] = this.present[code] ? code : ~code;
+                    changedValues[changeIndex] = this.values[code];
+                    changedRawValues[changeIndex] = this.rawValues[code];
+                    ++changeIndex;
+                }
+            }
+            return new Delta(codes, changedValues, changedRawValues, previous == null);
+        }
+
+        private boolean isChanged(State previous, int code)
+        {
+            final boolean previousPresent = previous != null && code < previous.present.length && previous.present[code];
+            return previous == null
+                ? this.present[code]
+                : this.present[code] != previousPresent ||
+                    (this.present[code] && !this.hasSameValue(previous, code));
+        }
+
+        private boolean hasSameValue(State rhs, int code)
+        {
+            return this.rawValues[code] == rhs.rawValues[code] && java.util.Objects.equals(this.values[code], rhs.values[code]);
+        }
+
+        boolean isSameAs(State rhs)
+        {
+            boolean result = true;
+            final int propertyNameCount = java.lang.Math.max(this.present.length, rhs.present.length);
+            for (int code = 0; code < propertyNameCount; ++code)
+            {
+                final boolean lhsPresent = code < this.present.length && this.present[code];
+                final boolean rhsPresent = code < rhs.present.length && rhs.present[code];
+                if (lhsPresent != rhsPresent || (lhsPresent && !this.hasSameValue(rhs, code)))
+                {
+                    result = false;
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The properties of a revision that changed from the previously recorded revision, or all of
+     * the revision's properties if it is a checkpoint.
+     */
+    private static class Delta
+    {
+        private final int[] codes;
+        private final String[] values;
+        private final boolean[] rawValues;
+        private final boolean checkpoint;
+
+        Delta(int[] codes, String[] values, boolean[] rawValues, boolean checkpoint)
+        {
+            this.codes = codes;
+            this.values = values;
+            this.rawValues = rawValues;
+            this.checkpoint = checkpoint;
+        }
+    }
+
+    /**
+     * The revisions of one security in the order that they were recorded, along with a version
+     * index of those revisions that is ordered by valid-from time and then by recorded time.
+     */
+    private static class Versions
+    {
+        private int count;
+        private long[] validFromMilliseconds;
+        private long[] recordedMilliseconds;
+        private Delta[] deltas;
+        private boolean[] checkpoints;
+        private int[] versionIndex;
+        private int revisionsSinceCheckpoint;
+
+        Versions()
+        {
+            this.validFromMilliseconds = new long[4];
+            this.recordedMilliseconds = new long[4];
+            this.deltas = new Delta[4];
+            this.checkpoints = new boolean[4];
+            this.versionIndex = new int[4];
+        }
+
+        void add(long validFromMilliseconds, long recordedMilliseconds, Delta delta, boolean checkpoint)
+        {
+            if (this.count == this.deltas.length)
+            {
+                final int capacity = this.count * 2;
+                this.validFromMilliseconds = java.util.Arrays.copyOf(this.validFromMilliseconds, capacity);
+                this.recordedMilliseconds = java.util.Arrays.copyOf(this.recordedMilliseconds, capacity);
+                this.deltas = java.util.Arrays.copyOf(this.deltas, capacity);
+                this.checkpoints = java.util.Arrays.copyOf(this.checkpoints, capacity);
+                this.versionIndex = java.util.Arrays.copyOf(this.versionIndex, capacity);
+            }
+
+            final int revision = this.count++;
+            this.validFromMilliseconds[revision] = validFromMilliseconds;
+            this.recordedMilliseconds[revision] = recordedMilliseconds;
+            this.deltas[revision] = delta;
+            this.checkpoints[revision] = checkpoint;
+            this.revisionsSinceCheckpoint = checkpoint ? 0 : this.revisionsSinceCheckpoint + 1;
+
+            // Revisions usually arrive in valid-from order, in which case this appends.
+            int insertIndex = revision;
+            while (insertIndex > 0 && this.compare(this.versionIndex[insertIndex - 1], revision) > 0)
+            {
+                --insertIndex;
+            }
+            System.arraycopy(this.versionIndex, insertIndex, this.versionIndex, insertIndex + 1, revision - insertIndex);
+            this.versionIndex[insertIndex] = revision;
+        }
+
+        /**
+         * Find the revision that was in effect at the provided valid-at time, as it was known at
+         * the provided known-at time.
+         * @return The revision, or -1 if no revision that was recorded by the known-at time was in
+         * effect at the valid-at time.
+         */
+        int find(long validAtMilliseconds, long knownAtMilliseconds)
+        {
+            // Find the first version whose valid-from time is after the valid-at time.
+            int low = 0;
+            int high = this.count;
+            while (low < high)
+            {
+                final int middle = (low + high) >>> 1;
+                if (this.validFromMilliseconds[this.versionIndex[middle]] <= validAtMilliseconds)
+                {
+                    low = middle + 1;
+                }
+                else
+                {
+                    high = middle;
+                }
+            }
+
+            // Walk back to the latest version that had been recorded by the known-at time.
+            int result = -1;
+            for (int i = low - 1; i >= 0; --i)
+            {
+                final int revision = this.versionIndex[i];
+                if (this.recordedMilliseconds[revision] <= knownAtMilliseconds)
+                {
+                    result = revision;
+                    break;
+                }
+            }
+            return result;
+        }
+
+        private int compare(int lhsRevision, int rhsRevision)
+        {
+            int result = Long.compare(this.validFromMilliseconds[lhsRevision], this.validFromMilliseconds[rhsRevision]);
+            if (result == 0)
+            {
+                result = Long.compare(this.recordedMilliseconds[lhsRevision], this.recordedMilliseconds[rhsRevision]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,614 @@
+package qub;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of TreasuryDirectSecurity records that is stored in a local folder.
+ * Records are appended to checksummed segment files and are periodically compacted into a
+ * snapshot. When the journal is opened, the newest snapshot is loaded and only the segments
+ * that were written after it are replayed. A torn record at the end of the newest segment (from
+ * a process that died mid-write) is truncated away instead of failing the recovery. In memory,
+ * securities are indexed by their packed TreasuryDirectCusip security key, so lookups don't
+ * allocate; securities whose CUSIP or issue date can't be packed fall back to a string key of
+ * the upper-case CUSIP and the issue date's epoch day, so they match the same lookups that a
+ * packed key would.
+ */
+public class TreasuryDirectSecurityJournal implements AutoCloseable
+{
+    private static final String segmentFileExtension = ".segment";
+    private static final String snapshotFileExtension = ".snapshot";
+    private static final String temporaryFileExtension = ".tmp";
+
+    /**
+     * The number of bytes in each record's header: the key length, the JSON length, and the
+     * CRC32 checksum of the key and JSON bytes.
+     */
+    private static final int recordHeaderLength = 12;
+
+    private static final long defaultMaximumSegmentLength = 64L * 1024 * 1024;
+    private static final int defaultCompactionThreshold = 100000;
+
+    private final Path folder;
+    private final TreasuryDirectLongIntMap securityIndexes;
+    private final java.util.HashMap<String,Integer> unpackedSecurityIndexes;
+    private final java.util.ArrayList<String> securityKeys;
+    private final java.util.ArrayList<String> securityJsons;
+    private long segmentSequence;
+    private FileChannel segment;
+    private long segmentLength;
+    private long maximumSegmentLength;
+    private int compactionThreshold;
+    private int recordsSinceSnapshot;
+    private boolean syncOnAppend;
+
+    private TreasuryDirectSecurityJournal(Path folder)
+    {
+        PreCondition.assertNotNull(folder, "folder");
+
+        this.folder = folder;
+        this.securityIndexes = TreasuryDirectLongIntMap.create();
+        this.unpackedSecurityIndexes = new java.util.HashMap<>();
+        this.securityKeys = new java.util.ArrayList<>();
+        this.securityJsons = new java.util.ArrayList<>();
+        this.maximumSegmentLength = TreasuryDirectSecurityJournal.defaultMaximumSegmentLength;
+        this.compactionThreshold = TreasuryDirectSecurityJournal.defaultCompactionThreshold;
+        this.syncOnAppend = true;
+    }
+
+    /**
+     * Open the journal that is stored in the provided folder. If the folder doesn't exist, then
+     * it will be created. If the folder contains an existing journal, then the journal's records
+     * will be recovered before this method returns.
+     * @param folder The folder that the journal is stored in.
+     * @return The opened journal.
+     */
+    public static Result<TreasuryDirectSecurityJournal> open(Path folder)
+    {
+        PreCondition.assertNotNull(folder, "folder");
+
+        return Result.create(() ->
+        {
+            final TreasuryDirectSecurityJournal result = new TreasuryDirectSecurityJournal(folder);
+            try
+            {
+                result.recover();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Set the number of bytes that a segment file can grow to before a new segment file is
+     * started.
+     * @param maximumSegmentLength The maximum number of bytes in a segment file.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectSecurityJournal setMaximumSegmentLength(long maximumSegmentLength)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maximumSegmentLength, 1, "maximumSegmentLength");
+
+        this.maximumSegmentLength = maximumSegmentLength;
+
+        return this;
+    }
+
+    /**
+     * Set the number of records that can be appended after the last snapshot before the journal
+     * automatically compacts itself into a new snapshot.
+     * @param compactionThreshold The number of appended records that triggers a compaction.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectSecurityJournal setCompactionThreshold(int compactionThreshold)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(compactionThreshold, 1, "compactionThreshold");
+
+        this.compactionThreshold = compactionThreshold;
+
+        return this;
+    }
+
+    /**
+     * Set whether or not each append will be forced to the storage device before it returns.
+     * Disabling this makes appends faster, but records that were appended since the last sync
+     * may be lost if the machine (not just the process) crashes.
+     * @param syncOnAppend Whether or not each append will be forced to the storage device.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectSecurityJournal setSyncOnAppend(boolean syncOnAppend)
+    {
+        this.syncOnAppend = syncOnAppend;
+
+        return this;
+    }
+
+    /**
+     * Get the folder that this journal is stored in.
+     * @return The folder that this journal is stored in.
+     */
+    public Path getFolder()
+    {
+        return this.folder;
+    }
+
+    /**
+     * Get the number of distinct securities in this journal.
+     * @return The number of distinct securities in this journal.
+     */
+    public synchronized int getCount()
+    {
+        return this.securityJsons.size();
+    }
+
+    /**
+     * Get the security with the provided CUSIP and issue date.
+     * @param cusip The CUSIP of the security.
+     * @param issueDate The issue date property value of the security, such as
+     *                  "2020-09-24T00:00:00".
+     * @return The security with the provided CUSIP and issue date.
+     */
+    public Result<TreasuryDirectSecurity> getSecurity(String cusip, String issueDate)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+        PreCondition.assertNotNullAndNotEmpty(issueDate, "issueDate");
+
+        return Result.create(() ->
+        {
+            final String json;
+            synchronized (this)
+            {
+                final int index = this.indexOf(cusip, issueDate);
+                json = index < 0 ? null : this.securityJsons.get(index);
+            }
+            if (json == null)
+            {
+                throw new NotFoundException("No TreasuryDirect security found in the journal for CUSIP: " + cusip + " and IssueDate: " + issueDate + ".");
+            }
+            return MutableTreasuryDirectSecurity.create(JSON.parseObject(json).await());
+        });
+    }
+
+    /**
+     * Get the latest version of each of the securities in this journal.
+     * @return The latest version of each of the securities in this journal.
+     */
+    public Result<Iterable<TreasuryDirectSecurity>> getSecurities()
+    {
+        return Result.create(() ->
+        {
+            final String[] jsonValues;
+            synchronized (this)
+            {
+                jsonValues = this.securityJsons.toArray(new String[0]);
+            }
+
+            final List<TreasuryDirectSecurity> result = List.create();
+            for (final String json : jsonValues)
+            {
+                result.add(MutableTreasuryDirectSecurity.create(JSON.parseObject(json).await()));
+            }
+
+            PostCondition.assertNotNull(result, "result");
+
+            return result;
+        });
+    }
+
+    /**
+     * Append the provided security to this journal.
+     * @param security The security to append.
+     * @return The result of appending the security.
+     */
+    public Result<Void> append(TreasuryDirectSecurity security)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        return this.appendAll(Iterable.create(security));
+    }
+
+    /**
+     * Append the provided securities to this journal. All of the securities are written before
+     * the segment is synced, so this is much cheaper than appending them one at a time. Each
+     * security is written as the JSON text that its toString() returns.
+     * @param securities The securities to append.
+     * @return The result of appending the securities.
+     */
+    public Result<Void> appendAll(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        return Result.create(() ->
+        {
+            try
+            {
+                synchronized (this)
+                {
+                    this.assertNotClosed();
+
+                    for (final TreasuryDirectSecurity security : securities)
+                    {
+                        final String cusip = security.getCusip().await();
+                        final String issueDate = security.getString(TreasuryDirectSecurity.issueDatePropertyName).await();
+                        final String key = TreasuryDirectSecurityJournal.getKey(cusip, issueDate);
+                        final String json = security.toString();
+                        final ByteBuffer record = TreasuryDirectSecurityJournal.encodeRecord(key, json);
+                        if (this.segmentLength > 0 && this.segmentLength + record.remaining() > this.maximumSegmentLength)
+                        {
+                            this.startSegment(this.segmentSequence + 1);
+                        }
+                        while (record.hasRemaining())
+                        {
+                            this.segment.write(record);
+                        }
+                        this.segmentLength += record.limit();
+                        this.put(cusip, issueDate, key, json);
+                        ++this.recordsSinceSnapshot;
+                    }
+
+                    if (this.syncOnAppend)
+                    {
+                        this.segment.force(false);
+                    }
+
+                    if (this.recordsSinceSnapshot >= this.compactionThreshold)
+                    {
+                        this.compactSnapshot();
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Write the current state of this journal to a new snapshot and delete the segments and
+     * snapshots that the new snapshot replaces.
+     * @return The result of compacting this journal.
+     */
+    public Result<Void> compact()
+    {
+        return Result.create(() ->
+        {
+            try
+            {
+                synchronized (this)
+                {
+                    this.assertNotClosed();
+                    this.compactSnapshot();
+                }
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Sync any unsynced records to the storage device and close this journal's open segment.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if (this.segment != null)
+        {
+            try
+            {
+                this.segment.force(false);
+                this.segment.close();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            finally
+            {
+                this.segment = null;
+            }
+        }
+    }
+
+    /**
+     * Get the key that the record of the security with the provided CUSIP and issue date is
+     * written with. The key keeps the original CUSIP and issue date text so that both can be
+     * recovered when the record is replayed.
+     */
+    static String getKey(String cusip, String issueDate)
+    {
+        return cusip + '/' + issueDate;
+    }
+
+    /**
+     * Get the key that the security with the provided CUSIP and issue date is indexed by when its
+     * CUSIP or issue date can't be packed into a security key. Like a packed security key, it
+     * ignores the case of the CUSIP and the time of day of the issue date.
+     */
+    static String getUnpackedKey(String cusip, String issueDate)
+    {
+        final String upperCaseCusip = cusip == null ? "" : cusip.toUpperCase(java.util.Locale.ROOT);
+        final int issueEpochDay = TreasuryDirectDates.parseEpochDay(issueDate);
+        return issueEpochDay != TreasuryDirectDates.unknownEpochDay
+            ? upperCaseCusip + '/' + issueEpochDay
+            : upperCaseCusip + "/?" + issueDate;
+    }
+
+    /**
+     * Get the index in securityJsons of the security with the provided CUSIP and issue date.
+     * @return The index of the security, or -1 if it isn't in this journal.
+     */
+    private int indexOf(String cusip, String issueDate)
+    {
+        final long securityKey = TreasuryDirectCusip.getSecurityKey(cusip, TreasuryDirectDates.parseEpochDay(issueDate));
+        final int result;
+        if (securityKey != TreasuryDirectCusip.invalid)
+        {
+            result = this.securityIndexes.get(securityKey, -1);
+        }
+        else
+        {
+            final Integer index = this.unpackedSecurityIndexes.get(TreasuryDirectSecurityJournal.getUnpackedKey(cusip, issueDate));
+            result = index == null ? -1 : index;
+        }
+        return result;
+    }
+
+    private void put(String cusip, String issueDate, String key, String json)
+    {
+        final int index = this.indexOf(cusip, issueDate);
+        if (index >= 0)
+        {
+            this.securityKeys.set(index, key);
+            this.securityJsons.set(index, json);
+        }
+        else
+        {
+            final int newIndex = this.securityJsons.size();
+            this.securityKeys.add(key);
+            this.securityJsons.add(json);
+
+            final long securityKey = TreasuryDirectCusip.getSecurityKey(cusip, TreasuryDirectDates.parseEpochDay(issueDate));
+            if (securityKey != TreasuryDirectCusip.invalid)
+            {
+                this.securityIndexes.set(securityKey, newIndex);
+            }
+            else
+            {
+                this.unpackedSecurityIndexes.put(TreasuryDirectSecurityJournal.getUnpackedKey(cusip, issueDate), newIndex);
+            }
+        }
+    }
+
+    private void assertNotClosed()
+    {
+        if (this.segment == null)
+        {
+            throw new IllegalStateException("The journal at " + this.folder + " has been closed.");
+        }
+    }
+
+    private void compactSnapshot() throws IOException
+    {
+        final long snapshotSequence = this.segmentSequence + 1;
+        this.startSegment(snapshotSequence);
+
+        final Path temporarySnapshot = this.getSnapshotPath(snapshotSequence).resolveSibling(TreasuryDirectSecurityJournal.getFileName(snapshotSequence, TreasuryDirectSecurityJournal.snapshotFileExtension + TreasuryDirectSecurityJournal.temporaryFileExtension));
+        try (final FileChannel snapshot = FileChannel.open(temporarySnapshot, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            for (int i = 0; i < this.securityJsons.size(); ++i)
+            {
+                final ByteBuffer record = TreasuryDirectSecurityJournal.encodeRecord(this.securityKeys.get(i), this.securityJsons.get(i));
+                while (record.hasRemaining())
+                {
+                    snapshot.write(record);
+                }
+            }
+            snapshot.force(true);
+        }
+        Files.move(temporarySnapshot, this.getSnapshotPath(snapshotSequence), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        this.recordsSinceSnapshot = 0;
+
+        this.deleteFilesBefore(snapshotSequence);
+    }
+
+    private void recover() throws IOException
+    {
+        Files.createDirectories(this.folder);
+
+        long snapshotSequence = -1;
+        final java.util.TreeSet<Long> segmentSequences = new java.util.TreeSet<>();
+        try (final java.nio.file.DirectoryStream<Path> entries = Files.newDirectoryStream(this.folder))
+        {
+            for (final Path entry : entries)
+            {
+                final String fileName = entry.getFileName().toString();
+                if (fileName.endsWith(TreasuryDirectSecurityJournal.temporaryFileExtension))
+                {
+                    Files.deleteIfExists(entry);
+                }
+                else if (fileName.endsWith(TreasuryDirectSecurityJournal.snapshotFileExtension))
+                {
+                    snapshotSequence = java.lang.Math.max(snapshotSequence, TreasuryDirectSecurityJournal.getSequence(fileName, TreasuryDirectSecurityJournal.snapshotFileExtension));
+                }
+                else if (fileName.endsWith(TreasuryDirectSecurityJournal.segmentFileExtension))
+                {
+                    segmentSequences.add(TreasuryDirectSecurityJournal.getSequence(fileName, TreasuryDirectSecurityJournal.segmentFileExtension));
+                }
+            }
+        }
+
+        if (snapshotSequence >= 0)
+        {
+            final Path snapshotPath = this.getSnapshotPath(snapshotSequence);
+            final byte[] snapshotBytes = Files.readAllBytes(snapshotPath);
+            if (this.replay(snapshotBytes) != snapshotBytes.length)
+            {
+                throw new ParseException("The journal snapshot at " + snapshotPath + " is corrupt.");
+            }
+            this.recordsSinceSnapshot = 0;
+            this.deleteFilesBefore(snapshotSequence);
+        }
+
+        final java.util.SortedSet<Long> tailSequences = segmentSequences.tailSet(java.lang.Math.max(snapshotSequence, 0L));
+        long lastSegmentSequence = java.lang.Math.max(snapshotSequence, 0L);
+        for (final long sequence : tailSequences)
+        {
+            final Path segmentPath = this.getSegmentPath(sequence);
+            final byte[] segmentBytes = Files.readAllBytes(segmentPath);
+            final int validLength = this.replay(segmentBytes);
+            if (validLength != segmentBytes.length)
+            {
+                if (sequence != tailSequences.last())
+                {
+                    throw new ParseException("The journal segment at " + segmentPath + " is corrupt at byte " + validLength + ".");
+                }
+
+                try (final FileChannel torn = FileChannel.open(segmentPath, StandardOpenOption.WRITE))
+                {
+                    torn.truncate(validLength);
+                    torn.force(true);
+                }
+            }
+            lastSegmentSequence = sequence;
+        }
+
+        this.openSegment(lastSegmentSequence);
+    }
+
+    /**
+     * Replay the records in the provided bytes into this journal's securities.
+     * @param bytes The bytes of a segment or snapshot.
+     * @return The number of bytes that contained valid records.
+     */
+    private int replay(byte[] bytes)
+    {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final CRC32 crc = new CRC32();
+        while (buffer.remaining() >= TreasuryDirectSecurityJournal.recordHeaderLength)
+        {
+            final int recordStart = buffer.position();
+            final int keyLength = buffer.getInt();
+            final int jsonLength = buffer.getInt();
+            final int checksum = buffer.getInt();
+            if (keyLength < 0 || jsonLength < 0 || (long)keyLength + jsonLength > buffer.remaining())
+            {
+                return recordStart;
+            }
+
+            crc.reset();
+            crc.update(bytes, buffer.position(), keyLength + jsonLength);
+            if ((int)crc.getValue() != checksum)
+            {
+                return recordStart;
+            }
+
+            final String key = new String(bytes, buffer.position(), keyLength, StandardCharsets.UTF_8);
+            final String json = new String(bytes, buffer.position() + keyLength, jsonLength, StandardCharsets.UTF_8);
+            final int separatorIndex = key.indexOf('/');
+            if (separatorIndex < 0)
+            {
+                return recordStart;
+            }
+            this.put(key.substring(0, separatorIndex), key.substring(separatorIndex + 1), key, json);
+            ++this.recordsSinceSnapshot;
+            buffer.position(buffer.position() + keyLength + jsonLength);
+        }
+        return buffer.position();
+    }
+
+    private static ByteBuffer encodeRecord(String key, String json)
+    {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+
+        final CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+        crc.update(jsonBytes);
+
+        final ByteBuffer result = ByteBuffer.allocate(TreasuryDirectSecurityJournal.recordHeaderLength + keyBytes.length + jsonBytes.length);
+        result.putInt(keyBytes.length);
+        result.putInt(jsonBytes.length);
+        result.putInt((int)crc.getValue());
+        result.put(keyBytes);
+        result.put(jsonBytes);
+        result.flip();
+        return result;
+    }
+
+    private void startSegment(long sequence) throws IOException
+    {
+        if (this.segment != null)
+        {
+            this.segment.force(false);
+            this.segment.close();
+        }
+        this.openSegment(sequence);
+    }
+
+    private void openSegment(long sequence) throws IOException
+    {
+        this.segmentSequence = sequence;
+        this.segment = FileChannel.open(this.getSegmentPath(sequence), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.segmentLength = this.segment.size();
+    }
+
+    private void deleteFilesBefore(long sequence) throws IOException
+    {
+        try (final java.nio.file.DirectoryStream<Path> entries = Files.newDirectoryStream(this.folder))
+        {
+            for (final Path entry : entries)
+            {
+                final String fileName = entry.getFileName().toString();
+                final boolean isSnapshot = fileName.endsWith(TreasuryDirectSecurityJournal.snapshotFileExtension);
+                final boolean isSegment = fileName.endsWith(TreasuryDirectSecurityJournal.segmentFileExtension);
+                if (isSnapshot || isSegment)
+                {
+                    final long entrySequence = TreasuryDirectSecurityJournal.getSequence(fileName, isSnapshot ? TreasuryDirectSecurityJournal.snapshotFileExtension : TreasuryDirectSecurityJournal.segmentFileExtension);
+                    if (entrySequence < sequence)
+                    {
+                        Files.deleteIfExists(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    private Path getSegmentPath(long sequence)
+    {
+        return this.folder.resolve(TreasuryDirectSecurityJournal.getFileName(sequence, TreasuryDirectSecurityJournal.segmentFileExtension));
+    }
+
+    private Path getSnapshotPath(long sequence)
+    {
+        return this.folder.resolve(TreasuryDirectSecurityJournal.getFileName(sequence, TreasuryDirectSecurityJournal.snapshotFileExtension));
+    }
+
+    private static String getFileName(long sequence, String fileExtension)
+    {
+        return String.format("%016d", sequence) + fileExtension;
+    }
+
+    private static long getSequence(String fileName, String fileExtension)
+    {
+        return Long.parseLong(fileName.substring(0, fileName.length() - fileExtension.length()));
+    }
+}
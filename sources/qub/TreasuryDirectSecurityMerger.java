@@ -0,0 +1,291 @@
+package qub;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * A streaming k-way merge of TreasuryDirect results that are each already sorted by the same
+ * TreasuryDirectSecurityOrder. Only the current security of each result is held in a heap, so
+ * merging k results with n securities in total takes O(n log k) comparisons without building
+ * a combined list.
+ * <p>
+ * By default the same security (by CUSIP and issue date) from several results is only
+ * returned once: the first copy of it to come out of the heap is kept, which is the copy from
+ * the earliest result when the copies compare as equal. Duplicates are found by identity
+ * rather than by position, so they are dropped even when the order puts different versions of
+ * a security in different places (such as when ordering by a property that only a later result
+ * filled in). Securities without a CUSIP are never considered duplicates. To find duplicates
+ * this way the merger remembers the key of every security that it has returned, so it holds
+ * O(n) keys rather than O(k) securities. Call setDeduplicate(false) when merging unbounded
+ * streams.
+ */
+public class TreasuryDirectSecurityMerger implements TreasuryDirectSecurityPublisher.Source
+{
+    private final PriorityQueue<Cursor> heap;
+    private final TreasuryDirectSecurityNumberOrder numberOrder;
+    private final TreasuryDirectLongIntMap returnedSecurityKeys;
+    private final java.util.HashSet<String> returnedUnpackedKeys;
+    private boolean deduplicate;
+    private int duplicateCount;
+
+    private TreasuryDirectSecurityMerger(Comparator<TreasuryDirectSecurity> order, Iterable<Iterable<TreasuryDirectSecurity>> sortedResults)
+    {
+        PreCondition.assertNotNull(order, "order");
+        PreCondition.assertNotNull(sortedResults, "sortedResults");
+
+        this.deduplicate = true;
+        this.returnedSecurityKeys = TreasuryDirectLongIntMap.create();
+        this.returnedUnpackedKeys = new java.util.HashSet<>();
+        this.numberOrder = order instanceof TreasuryDirectSecurityNumberOrder ? (TreasuryDirectSecurityNumberOrder)order : null;
+        this.heap = new PriorityQueue<>((Cursor lhs, Cursor rhs) ->
+        {
+            int result = this.numberOrder != null
+                ? this.numberOrder.compare(lhs.currentNumber, lhs.current, rhs.currentNumber, rhs.current)
+                : order.compare(lhs.current, rhs.current);
+            if (result == 0)
+            {
+                result = Integer.compare(lhs.resultIndex, rhs.resultIndex);
+            }
+            return result;
+        });
+
+        int resultIndex = 0;
+        for (final Iterable<TreasuryDirectSecurity> sortedResult : sortedResults)
+        {
+            final Cursor cursor = new Cursor(resultIndex++, sortedResult.iterate(), this.numberOrder);
+            if (cursor.moveNext())
+            {
+                this.heap.add(cursor);
+            }
+        }
+    }
+
+    /**
+     * Create a new TreasuryDirectSecurityMerger over results that are each already sorted by the
+     * provided order.
+     * @param order The order that each result is sorted by.
+     * @param sortedResults The sorted results to merge, from highest to lowest priority.
+     * @return The new TreasuryDirectSecurityMerger.
+     */
+    public static TreasuryDirectSecurityMerger create(Comparator<TreasuryDirectSecurity> order, Iterable<Iterable<TreasuryDirectSecurity>> sortedResults)
+    {
+        return new TreasuryDirectSecurityMerger(order, sortedResults);
+    }
+
+    /**
+     * Sort each of the provided results by the provided order and create a new
+     * TreasuryDirectSecurityMerger over them.
+     * @param order The order to sort and merge by.
+     * @param results The results to merge, from highest to lowest priority.
+     * @return The new TreasuryDirectSecurityMerger.
+     */
+    public static TreasuryDirectSecurityMerger createSorted(Comparator<TreasuryDirectSecurity> order, Iterable<Iterable<TreasuryDirectSecurity>> results)
+    {
+        PreCondition.assertNotNull(order, "order");
+        PreCondition.assertNotNull(results, "results");
+
+        final List<Iterable<TreasuryDirectSecurity>> sortedResults = List.create();
+        for (final Iterable<TreasuryDirectSecurity> result : results)
+        {
+            sortedResults.add(TreasuryDirectSecurityMerger.sort(result, order));
+        }
+        return TreasuryDirectSecurityMerger.create(order, sortedResults);
+    }
+
+    /**
+     * Get the provided securities sorted by the provided order. The sort is stable.
+     * @param securities The securities to sort.
+     * @param order The order to sort by.
+     * @return The sorted securities.
+     */
+    public static List<TreasuryDirectSecurity> sort(Iterable<TreasuryDirectSecurity> securities, Comparator<TreasuryDirectSecurity> order)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+        PreCondition.assertNotNull(order, "order");
+
+        final List<TreasuryDirectSecurity> result = List.create();
+        if (order instanceof TreasuryDirectSecurityNumberOrder)
+        {
+            // Parse each security's number once instead of twice per comparison.
+            final TreasuryDirectSecurityNumberOrder numberOrder = (TreasuryDirectSecurityNumberOrder)order;
+            final Cursor[] array = new Cursor[securities.getCount()];
+            int index = 0;
+            for (final TreasuryDirectSecurity security : securities)
+            {
+                final Cursor cursor = new Cursor(index, null, numberOrder);
+                cursor.setCurrent(security);
+                array[index++] = cursor;
+            }
+            java.util.Arrays.sort(array, (Cursor lhs, Cursor rhs) -> numberOrder.compare(lhs.currentNumber, lhs.current, rhs.currentNumber, rhs.current));
+            for (final Cursor cursor : array)
+            {
+                result.add(cursor.current);
+            }
+        }
+        else
+        {
+            final TreasuryDirectSecurity[] array = new TreasuryDirectSecurity[securities.getCount()];
+            int index = 0;
+            for (final TreasuryDirectSecurity security : securities)
+            {
+                array[index++] = security;
+            }
+            java.util.Arrays.sort(array, order);
+            for (final TreasuryDirectSecurity security : array)
+            {
+                result.add(security);
+            }
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Set whether or not securities with the same CUSIP and issue date will be merged into one.
+     * Changing this only affects the securities that are returned afterwards.
+     * This is enabled by default. While it is enabled the key of every returned security is
+     * remembered, so disable it to merge unbounded streams in constant memory.
+     * @param deduplicate Whether or not duplicate securities will be dropped.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectSecurityMerger setDeduplicate(boolean deduplicate)
+    {
+        this.deduplicate = deduplicate;
+
+        return this;
+    }
+
+    /**
+     * Get the number of duplicate securities that have been dropped so far.
+     * @return The number of duplicate securities that have been dropped so far.
+     */
+    public int getDuplicateCount()
+    {
+        return this.duplicateCount;
+    }
+
+    @Override
+    public TreasuryDirectSecurity next()
+    {
+        TreasuryDirectSecurity result = null;
+        while (result == null && !this.heap.isEmpty())
+        {
+            final Cursor cursor = this.heap.poll();
+            final TreasuryDirectSecurity security = cursor.current;
+            if (cursor.moveNext())
+            {
+                this.heap.add(cursor);
+            }
+
+            if (this.deduplicate && !this.markReturned(security))
+            {
+                ++this.duplicateCount;
+            }
+            else
+            {
+                result = security;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Record that the provided security is being returned.
+     * @param security The security that is being returned.
+     * @return Whether or not the security hasn't been returned before.
+     */
+    private boolean markReturned(TreasuryDirectSecurity security)
+    {
+        boolean result = true;
+        final String cusip = security.getCusip().catchError().await();
+        if (cusip != null)
+        {
+            final int issueEpochDay = security.getIssueEpochDay();
+            final long securityKey = TreasuryDirectCusip.getSecurityKey(cusip, issueEpochDay);
+            if (securityKey != TreasuryDirectCusip.invalid)
+            {
+                result = !this.returnedSecurityKeys.containsKey(securityKey);
+                if (result)
+                {
+                    this.returnedSecurityKeys.set(securityKey, 0);
+                }
+            }
+            else
+            {
+                result = this.returnedUnpackedKeys.add(cusip.toUpperCase(java.util.Locale.ROOT) + '/' + issueEpochDay);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merge all of the remaining securities into a List.
+     * @return The remaining merged securities.
+     */
+    public List<TreasuryDirectSecurity> toList()
+    {
+        final List<TreasuryDirectSecurity> result = List.create();
+        TreasuryDirectSecurity security = this.next();
+        while (security != null)
+        {
+            result.add(security);
+            security = this.next();
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get a publisher that merges the same sorted results for each subscriber.
+     * @param order The order that each result is sorted by.
+     * @param sortedResults The sorted results to merge, from highest to lowest priority.
+     * @return The publisher.
+     */
+    public static TreasuryDirectSecurityPublisher publish(Comparator<TreasuryDirectSecurity> order, Iterable<Iterable<TreasuryDirectSecurity>> sortedResults)
+    {
+        PreCondition.assertNotNull(order, "order");
+        PreCondition.assertNotNull(sortedResults, "sortedResults");
+
+        return TreasuryDirectSecurityPublisher.create(() -> TreasuryDirectSecurityMerger.create(order, sortedResults));
+    }
+
+    @Override
+    public void close()
+    {
+        this.heap.clear();
+        this.returnedSecurityKeys.clear();
+        this.returnedUnpackedKeys.clear();
+    }
+
+    private static class Cursor
+    {
+        private final int resultIndex;
+        private final Iterator<TreasuryDirectSecurity> iterator;
+        private final TreasuryDirectSecurityNumberOrder numberOrder;
+        private TreasuryDirectSecurity current;
+        private double currentNumber;
+
+        Cursor(int resultIndex, Iterator<TreasuryDirectSecurity> iterator, TreasuryDirectSecurityNumberOrder numberOrder)
+        {
+            this.resultIndex = resultIndex;
+            this.iterator = iterator;
+            this.numberOrder = numberOrder;
+        }
+
+        void setCurrent(TreasuryDirectSecurity current)
+        {
+            this.current = current;
+            this.currentNumber = (current != null && this.numberOrder != null) ? this.numberOrder.getNumber(current) : Double.NaN;
+        }
+
+        boolean moveNext()
+        {
+            this.setCurrent(this.iterator.next() ? this.iterator.getCurrent() : null);
+            return this.current != null;
+        }
+    }
+}
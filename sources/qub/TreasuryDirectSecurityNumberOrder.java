@@ -0,0 +1,78 @@
+package qub;
+
+import java.util.Comparator;
+
+/**
+ * The TreasuryDirectSecurityOrder that orders securities by the number in one of their
+ * properties. Parsing the number is much more expensive than comparing it, so callers that
+ * compare the same security many times (like sorts and merges) can get each security's number
+ * once with getNumber() and then compare the numbers with compare(double,TreasuryDirectSecurity,double,TreasuryDirectSecurity).
+ */
+public class TreasuryDirectSecurityNumberOrder implements Comparator<TreasuryDirectSecurity>
+{
+    private final String propertyName;
+
+    private TreasuryDirectSecurityNumberOrder(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * Create a new TreasuryDirectSecurityNumberOrder.
+     * @param propertyName The name of the numeric property to order by.
+     * @return The new TreasuryDirectSecurityNumberOrder.
+     */
+    public static TreasuryDirectSecurityNumberOrder create(String propertyName)
+    {
+        return new TreasuryDirectSecurityNumberOrder(propertyName);
+    }
+
+    /**
+     * Get the name of the numeric property that this order orders by.
+     * @return The name of the numeric property that this order orders by.
+     */
+    public String getPropertyName()
+    {
+        return this.propertyName;
+    }
+
+    /**
+     * Get the number that the provided security is ordered by.
+     * @param security The security.
+     * @return The number that the provided security is ordered by, or NaN if the property is
+     * missing or can't be parsed.
+     */
+    public double getNumber(TreasuryDirectSecurity security)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        return TreasuryDirectSecurityColumns.getDouble(security, this.propertyName);
+    }
+
+    /**
+     * Compare the provided securities using numbers that were already returned by getNumber().
+     * @param lhsNumber The number of the first security.
+     * @param lhs The first security.
+     * @param rhsNumber The number of the second security.
+     * @param rhs The second security.
+     * @return The comparison of the two securities.
+     */
+    public int compare(double lhsNumber, TreasuryDirectSecurity lhs, double rhsNumber, TreasuryDirectSecurity rhs)
+    {
+        // Double.compare() already orders NaN after every other value.
+        int result = Double.compare(lhsNumber, rhsNumber);
+        if (result == 0)
+        {
+            result = TreasuryDirectSecurityOrder.compareIdentities(lhs, rhs);
+        }
+        return result;
+    }
+
+    @Override
+    public int compare(TreasuryDirectSecurity lhs, TreasuryDirectSecurity rhs)
+    {
+        return this.compare(this.getNumber(lhs), lhs, this.getNumber(rhs), rhs);
+    }
+}
@@ -0,0 +1,151 @@
+package qub;
+
+import java.util.Comparator;
+
+/**
+ * Comparators that order TreasuryDirectSecurity objects by one of their properties. Securities
+ * whose property is missing or can't be parsed are ordered after all of the others. Securities
+ * with equal property values are ordered by CUSIP and then by issue date, so the orders are
+ * total and the same security from two different results always sorts to the same place.
+ */
+public interface TreasuryDirectSecurityOrder
+{
+    /**
+     * Order securities by the date in the provided property.
+     * @param propertyName The name of the date property to order by.
+     * @return The comparator.
+     */
+    static Comparator<TreasuryDirectSecurity> byDate(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        return TreasuryDirectSecurityOrder.thenByIdentity((TreasuryDirectSecurity lhs, TreasuryDirectSecurity rhs) ->
+        {
+            return TreasuryDirectSecurityOrder.compareEpochDays(lhs.getEpochDay(propertyName), rhs.getEpochDay(propertyName));
+        });
+    }
+
+    /**
+     * Order securities by the number in the provided property.
+     * @param propertyName The name of the numeric property to order by.
+     * @return The comparator.
+     */
+    static Comparator<TreasuryDirectSecurity> byNumber(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        return TreasuryDirectSecurityNumberOrder.create(propertyName);
+    }
+
+    /**
+     * Order securities by the String value of the provided property.
+     * @param propertyName The name of the property to order by.
+     * @return The comparator.
+     */
+    static Comparator<TreasuryDirectSecurity> byString(String propertyName)
+    {
+        PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+        return TreasuryDirectSecurityOrder.thenByIdentity((TreasuryDirectSecurity lhs, TreasuryDirectSecurity rhs) ->
+        {
+            return TreasuryDirectSecurityOrder.compareStrings(lhs.getString(propertyName).catchError().await(), rhs.getString(propertyName).catchError().await());
+        });
+    }
+
+    /**
+     * Order securities by auction date.
+     * @return The comparator.
+     */
+    static Comparator<TreasuryDirectSecurity> byAuctionDate()
+    {
+        return TreasuryDirectSecurityOrder.byDate(TreasuryDirectSecurity.auctionDatePropertyName);
+    }
+
+    /**
+     * Order securities by issue date.
+     * @return The comparator.
+     */
+    static Comparator<TreasuryDirectSecurity> byIssueDate()
+    {
+        return TreasuryDirectSecurityOrder.byDate(TreasuryDirectSecurity.issueDatePropertyName);
+    }
+
+    /**
+     * Order securities by maturity date.
+     * @return The comparator.
+     */
+    static Comparator<TreasuryDirectSecurity> byMaturityDate()
+    {
+        return TreasuryDirectSecurityOrder.byDate(TreasuryDirectSecurity.maturityDatePropertyName);
+    }
+
+    /**
+     * Compare the CUSIPs and then the issue dates of the provided securities. Two securities
+     * that compare as equal here are the same security.
+     * @param lhs The first security.
+     * @param rhs The second security.
+     * @return The comparison of the two securities' identities.
+     */
+    static int compareIdentities(TreasuryDirectSecurity lhs, TreasuryDirectSecurity rhs)
+    {
+        int result = TreasuryDirectSecurityOrder.compareStrings(lhs.getCusip().catchError().await(), rhs.getCusip().catchError().await());
+        if (result == 0)
+        {
+            result = TreasuryDirectSecurityOrder.compareEpochDays(lhs.getIssueEpochDay(), rhs.getIssueEpochDay());
+        }
+        return result;
+    }
+
+    private static Comparator<TreasuryDirectSecurity> thenByIdentity(Comparator<TreasuryDirectSecurity> comparator)
+    {
+        return (TreasuryDirectSecurity lhs, TreasuryDirectSecurity rhs) ->
+        {
+            int result = comparator.compare(lhs, rhs);
+            if (result == 0)
+            {
+                result = TreasuryDirectSecurityOrder.compareIdentities(lhs, rhs);
+            }
+            return result;
+        };
+    }
+
+    private static int compareEpochDays(int lhs, int rhs)
+    {
+        int result;
+        if (lhs == rhs)
+        {
+            result = 0;
+        }
+        else if (lhs == TreasuryDirectDates.unknownEpochDay)
+        {
+            result = 1;
+        }
+        else if (rhs == TreasuryDirectDates.unknownEpochDay)
+        {
+            result = -1;
+        }
+        else
+        {
+            result = Integer.compare(lhs, rhs);
+        }
+        return result;
+    }
+
+    private static int compareStrings(String lhs, String rhs)
+    {
+        int result;
+        if (lhs == null)
+        {
+            result = (rhs == null ? 0 : 1);
+        }
+        else if (rhs == null)
+        {
+            result = -1;
+        }
+        else
+        {
+            result = lhs.compareTo(rhs);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,327 @@
+package qub;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Flow.Publisher of TreasuryDirectSecurity objects. Each subscriber gets its own subscription
+ * that opens its source when the first item is requested, only reads from the source while the
+ * subscriber has outstanding demand, and closes the source when the subscription is cancelled,
+ * completes, or fails. The source is only ever read and closed by the thread that is draining
+ * the subscription, so cancelling a subscription just signals that thread to stop and close the
+ * source once its current read returns.
+ */
+public class TreasuryDirectSecurityPublisher implements Flow.Publisher<TreasuryDirectSecurity>
+{
+    /**
+     * A source of securities that a subscription pulls from.
+     */
+    public interface Source extends AutoCloseable
+    {
+        /**
+         * Get the next security from this source.
+         * @return The next security, or null if this source has no more securities.
+         */
+        TreasuryDirectSecurity next();
+
+        @Override
+        void close();
+    }
+
+    private final Function0<Source> sourceOpener;
+    private Executor executor;
+
+    private TreasuryDirectSecurityPublisher(Function0<Source> sourceOpener)
+    {
+        PreCondition.assertNotNull(sourceOpener, "sourceOpener");
+
+        this.sourceOpener = sourceOpener;
+        this.executor = Runnable::run;
+    }
+
+    /**
+     * Create a new TreasuryDirectSecurityPublisher that opens a new source for each subscriber.
+     * @param sourceOpener The function that opens a new source.
+     * @return The new TreasuryDirectSecurityPublisher.
+     */
+    public static TreasuryDirectSecurityPublisher create(Function0<Source> sourceOpener)
+    {
+        return new TreasuryDirectSecurityPublisher(sourceOpener);
+    }
+
+    /**
+     * Create a new TreasuryDirectSecurityPublisher that publishes the securities that are
+     * returned by the provided function. The function is invoked once per subscriber, when the
+     * subscriber first requests an item.
+     * @param securitiesGetter The function that gets the securities to publish.
+     * @return The new TreasuryDirectSecurityPublisher.
+     */
+    public static TreasuryDirectSecurityPublisher fromIterable(Function0<Iterable<TreasuryDirectSecurity>> securitiesGetter)
+    {
+        PreCondition.assertNotNull(securitiesGetter, "securitiesGetter");
+
+        return TreasuryDirectSecurityPublisher.create(() ->
+        {
+            final Iterator<TreasuryDirectSecurity> iterator = securitiesGetter.run().iterate();
+            return new Source()
+            {
+                @Override
+                public TreasuryDirectSecurity next()
+                {
+                    return iterator.next() ? iterator.getCurrent() : null;
+                }
+
+                @Override
+                public void close()
+                {
+                }
+            };
+        });
+    }
+
+    /**
+     * Create a new TreasuryDirectSecurityPublisher that decodes securities from a JSON array
+     * response body as it is read. The function is invoked once per subscriber, when the
+     * subscriber first requests an item, and the InputStream that it returns is closed when the
+     * subscription ends.
+     * @param responseBodyOpener The function that opens the response body.
+     * @param lazyDecoding Whether or not each security will be a LazyTreasuryDirectSecurity
+     *                     instead of a JSONObject-backed MutableTreasuryDirectSecurity.
+     * @return The new TreasuryDirectSecurityPublisher.
+     */
+    public static TreasuryDirectSecurityPublisher fromJSONArray(Function0<InputStream> responseBodyOpener, boolean lazyDecoding)
+    {
+        return TreasuryDirectSecurityPublisher.fromJSONArray(responseBodyOpener, (byte[] objectBytes) ->
+        {
+            return lazyDecoding
+                ? LazyTreasuryDirectSecurity.create(objectBytes, 0, objectBytes.length)
+                : MutableTreasuryDirectSecurity.create(JSON.parseObject(new String(objectBytes, java.nio.charset.StandardCharsets.UTF_8)).await());
+        });
+    }
+
+    /**
+     * Create a new TreasuryDirectSecurityPublisher that decodes securities from a JSON array
+     * response body as it is read. The function is invoked once per subscriber, when the
+     * subscriber first requests an item, and the InputStream that it returns is closed when the
+     * subscription ends.
+     * @param responseBodyOpener The function that opens the response body.
+     * @param decoder The function that decodes the UTF-8 bytes of a single JSON object into a
+     *                security.
+     * @return The new TreasuryDirectSecurityPublisher.
+     */
+    public static TreasuryDirectSecurityPublisher fromJSONArray(Function0<InputStream> responseBodyOpener, Function1<byte[],TreasuryDirectSecurity> decoder)
+    {
+        PreCondition.assertNotNull(responseBodyOpener, "responseBodyOpener");
+        PreCondition.assertNotNull(decoder, "decoder");
+
+        return TreasuryDirectSecurityPublisher.create(() ->
+        {
+            final TreasuryDirectJSONArrayReader reader = TreasuryDirectJSONArrayReader.create(responseBodyOpener.run());
+            return new Source()
+            {
+                @Override
+                public TreasuryDirectSecurity next()
+                {
+                    final byte[] objectBytes;
+                    try
+                    {
+                        objectBytes = reader.readNextObject();
+                    }
+                    catch (IOException e)
+                    {
+                        throw new java.io.UncheckedIOException(e);
+                    }
+
+                    return objectBytes == null ? null : decoder.run(objectBytes);
+                }
+
+                @Override
+                public void close()
+                {
+                    try
+                    {
+                        reader.close();
+                    }
+                    catch (IOException e)
+                    {
+                        throw new java.io.UncheckedIOException(e);
+                    }
+                }
+            };
+        });
+    }
+
+    /**
+     * Set the executor that subscriptions will read their sources and signal their subscribers
+     * on. By default this is the thread that calls Flow.Subscription.request().
+     * @param executor The executor that subscriptions will run on.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectSecurityPublisher setExecutor(Executor executor)
+    {
+        PreCondition.assertNotNull(executor, "executor");
+
+        this.executor = executor;
+
+        return this;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super TreasuryDirectSecurity> subscriber)
+    {
+        PreCondition.assertNotNull(subscriber, "subscriber");
+
+        final SecuritySubscription subscription = new SecuritySubscription(subscriber, this.sourceOpener, this.executor);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private static class SecuritySubscription implements Flow.Subscription
+    {
+        private final Flow.Subscriber<? super TreasuryDirectSecurity> subscriber;
+        private final Function0<Source> sourceOpener;
+        private final Executor executor;
+        private final AtomicLong demand;
+        private final AtomicInteger pendingDrains;
+        private final AtomicBoolean done;
+        private volatile Source source;
+        private volatile Throwable invalidRequest;
+
+        SecuritySubscription(Flow.Subscriber<? super TreasuryDirectSecurity> subscriber, Function0<Source> sourceOpener, Executor executor)
+        {
+            this.subscriber = subscriber;
+            this.sourceOpener = sourceOpener;
+            this.executor = executor;
+            this.demand = new AtomicLong();
+            this.pendingDrains = new AtomicInteger();
+            this.done = new AtomicBoolean();
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (n <= 0)
+            {
+                this.invalidRequest = new IllegalArgumentException("The number of requested securities must be greater than 0, but was " + n + ".");
+            }
+            else
+            {
+                this.demand.getAndUpdate((long current) -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+
+            if (this.pendingDrains.getAndIncrement() == 0)
+            {
+                this.executor.execute(this::drain);
+            }
+        }
+
+        @Override
+        public void cancel()
+        {
+            if (this.done.compareAndSet(false, true) && this.pendingDrains.getAndIncrement() == 0)
+            {
+                this.executor.execute(this::drain);
+            }
+        }
+
+        /**
+         * Deliver securities while there is demand. Only one thread drains at a time; a
+         * request() that arrives while draining (including one made from onNext()) just adds to
+         * the demand and makes the draining thread loop again.
+         */
+        private void drain()
+        {
+            int drainCount = 1;
+            do
+            {
+                try
+                {
+                    if (this.invalidRequest != null)
+                    {
+                        this.fail(this.invalidRequest);
+                    }
+
+                    while (!this.done.get() && this.demand.get() > 0)
+                    {
+                        if (this.source == null)
+                        {
+                            this.source = this.sourceOpener.run();
+                            if (this.done.get())
+                            {
+                                // The subscription was cancelled while the source was opening.
+                                break;
+                            }
+                        }
+
+                        final TreasuryDirectSecurity security = this.source.next();
+                        if (this.done.get())
+                        {
+                            break;
+                        }
+                        else if (security == null)
+                        {
+                            if (this.done.compareAndSet(false, true))
+                            {
+                                this.closeSource();
+                                this.subscriber.onComplete();
+                            }
+                        }
+                        else
+                        {
+                            if (this.demand.get() != Long.MAX_VALUE)
+                            {
+                                this.demand.decrementAndGet();
+                            }
+                            this.subscriber.onNext(security);
+                        }
+                    }
+                }
+                catch (Throwable error)
+                {
+                    this.fail(error);
+                }
+
+                if (this.done.get())
+                {
+                    this.closeSource();
+                }
+
+                drainCount = this.pendingDrains.addAndGet(-drainCount);
+            }
+            while (drainCount != 0);
+        }
+
+        private void fail(Throwable error)
+        {
+            if (this.done.compareAndSet(false, true))
+            {
+                this.closeSource();
+                this.subscriber.onError(error);
+            }
+        }
+
+        /**
+         * Close the source if it is open. This must only be called by the draining thread.
+         */
+        private void closeSource()
+        {
+            final Source source = this.source;
+            if (source != null)
+            {
+                this.source = null;
+                try
+                {
+                    source.close();
+                }
+                catch (Throwable ignored)
+                {
+                    // The subscription is already over, so there's no one left to report this to.
+                }
+            }
+        }
+    }
+}
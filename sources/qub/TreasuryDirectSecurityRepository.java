@@ -0,0 +1,129 @@
+package qub;
+
+/**
+ * An in-memory repository of TreasuryDirectSecurity records that publishes immutable
+ * TreasuryDirectSecuritySnapshot versions. Readers get the current snapshot with a single
+ * volatile read and then query it without any locks, so a refresh never makes them wait or
+ * shows them a partial update. Writers are serialized: each change set is applied to the
+ * current snapshot to build the next version, which is then swapped in atomically.
+ */
+public class TreasuryDirectSecurityRepository
+{
+    private final java.util.concurrent.atomic.AtomicReference<TreasuryDirectSecuritySnapshot> snapshot;
+    private final Object writeLock;
+    private java.util.concurrent.Executor executor;
+
+    private TreasuryDirectSecurityRepository()
+    {
+        this.snapshot = new java.util.concurrent.atomic.AtomicReference<>(TreasuryDirectSecuritySnapshot.create());
+        this.writeLock = new Object();
+        this.executor = (Runnable apply) -> java.lang.Thread.ofVirtual().name("treasurydirect-repository-apply").start(apply);
+    }
+
+    /**
+     * Create a new empty TreasuryDirectSecurityRepository.
+     * @return The new TreasuryDirectSecurityRepository.
+     */
+    public static TreasuryDirectSecurityRepository create()
+    {
+        return new TreasuryDirectSecurityRepository();
+    }
+
+    /**
+     * Set the executor that applyInBackground() builds new snapshots on. By default each change
+     * set is applied on its own virtual thread.
+     * @param executor The executor that new snapshots are built on.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectSecurityRepository setExecutor(java.util.concurrent.Executor executor)
+    {
+        PreCondition.assertNotNull(executor, "executor");
+
+        this.executor = executor;
+
+        return this;
+    }
+
+    /**
+     * Get the current snapshot of this repository. The snapshot never changes, so a reader that
+     * needs several consistent queries should get the snapshot once and query it repeatedly.
+     * @return The current snapshot of this repository.
+     */
+    public TreasuryDirectSecuritySnapshot getSnapshot()
+    {
+        return this.snapshot.get();
+    }
+
+    /**
+     * Apply the provided changes and publish the resulting snapshot.
+     * @param changes The changes to apply.
+     * @return The published snapshot.
+     */
+    public TreasuryDirectSecuritySnapshot apply(TreasuryDirectSecurityChangeSet changes)
+    {
+        PreCondition.assertNotNull(changes, "changes");
+
+        final TreasuryDirectSecuritySnapshot result;
+        synchronized (this.writeLock)
+        {
+            result = this.snapshot.get().apply(changes);
+            this.snapshot.set(result);
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Apply the provided changes on this repository's executor. Readers keep seeing the current
+     * snapshot until the new one has been fully built.
+     * @param changes The changes to apply.
+     * @return A future that completes with the published snapshot.
+     */
+    public java.util.concurrent.CompletableFuture<TreasuryDirectSecuritySnapshot> applyInBackground(TreasuryDirectSecurityChangeSet changes)
+    {
+        PreCondition.assertNotNull(changes, "changes");
+
+        return java.util.concurrent.CompletableFuture.supplyAsync(() -> this.apply(changes), this.executor);
+    }
+
+    /**
+     * Replace the contents of this repository with the provided securities. Only the difference
+     * from the current snapshot is applied: securities that aren't in the provided securities are
+     * removed, and the rest are added or replaced.
+     * @param securities The new contents of this repository. Each security's CUSIP and issue date
+     *                   must be packable into a TreasuryDirectCusip security key.
+     * @return The published snapshot.
+     */
+    public TreasuryDirectSecuritySnapshot replaceAll(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        final TreasuryDirectSecuritySnapshot result;
+        synchronized (this.writeLock)
+        {
+            final TreasuryDirectSecurityChangeSet changes = TreasuryDirectSecurityChangeSet.create()
+                .upsertAll(securities);
+
+            final TreasuryDirectLongIntMap upsertedSecurityKeys = TreasuryDirectLongIntMap.create(changes.getCount());
+            for (final long securityKey : changes.getSecurityKeys())
+            {
+                upsertedSecurityKeys.set(securityKey, 0);
+            }
+            for (final long securityKey : this.snapshot.get().getSecurityKeys())
+            {
+                if (!upsertedSecurityKeys.containsKey(securityKey))
+                {
+                    changes.remove(securityKey);
+                }
+            }
+
+            result = this.apply(changes);
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package qub;
+
+/**
+ * One revision of a security in a TreasuryDirectSecurityHistory, along with the time that the
+ * revision took effect and the time that it was recorded.
+ */
+public class TreasuryDirectSecurityRevision
+{
+    private final TreasuryDirectSecurity security;
+    private final long validFromMilliseconds;
+    private final long recordedMilliseconds;
+
+    private TreasuryDirectSecurityRevision(TreasuryDirectSecurity security, long validFromMilliseconds, long recordedMilliseconds)
+    {
+        PreCondition.assertNotNull(security, "security");
+
+        this.security = security;
+        this.validFromMilliseconds = validFromMilliseconds;
+        this.recordedMilliseconds = recordedMilliseconds;
+    }
+
+    /**
+     * Create a new TreasuryDirectSecurityRevision.
+     * @param security The security as of this revision.
+     * @param validFromMilliseconds The time (in milliseconds since the epoch) that this revision
+     *                              took effect.
+     * @param recordedMilliseconds The time (in milliseconds since the epoch) that this revision
+     *                             was recorded.
+     * @return The new TreasuryDirectSecurityRevision.
+     */
+    public static TreasuryDirectSecurityRevision create(TreasuryDirectSecurity security, long validFromMilliseconds, long recordedMilliseconds)
+    {
+        return new TreasuryDirectSecurityRevision(security, validFromMilliseconds, recordedMilliseconds);
+    }
+
+    public TreasuryDirectSecurity getSecurity()
+    {
+        return this.security;
+    }
+
+    public long getValidFromMilliseconds()
+    {
+        return this.validFromMilliseconds;
+    }
+
+    public long getRecordedMilliseconds()
+    {
+        return this.recordedMilliseconds;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.security.getCusip().catchError().await() + " validFrom=" + java.time.Instant.ofEpochMilli(this.validFromMilliseconds) +
+            " recorded=" + java.time.Instant.ofEpochMilli(this.recordedMilliseconds);
+    }
+}
@@ -0,0 +1,288 @@
+package qub;
+
+/**
+ * An immutable version of the securities in a TreasuryDirectSecurityRepository, together with
+ * its indexes. A snapshot is never changed after it is published, so any number of threads can
+ * query it at the same time without locks. Applying a change set creates a new snapshot that
+ * shares every unchanged security and every unchanged type index with this one.
+ */
+public class TreasuryDirectSecuritySnapshot
+{
+    private static final TreasuryDirectSecurity[] noSecurities = new TreasuryDirectSecurity[0];
+    private static final long[] noSecurityKeys = new long[0];
+
+    /**
+     * The securities of one security type, along with their security keys.
+     */
+    private static class TypeIndex
+    {
+        private final long[] securityKeys;
+        private final TreasuryDirectSecurity[] securities;
+
+        private TypeIndex(long[] securityKeys, TreasuryDirectSecurity[] securities)
+        {
+            this.securityKeys = securityKeys;
+            this.securities = securities;
+        }
+    }
+
+    private final long version;
+    private final long[] securityKeys;
+    private final TreasuryDirectSecurity[] securities;
+    private final TreasuryDirectLongIntMap indexes;
+    private final java.util.Map<String,TypeIndex> typeIndexes;
+
+    private TreasuryDirectSecuritySnapshot(long version, long[] securityKeys, TreasuryDirectSecurity[] securities, TreasuryDirectLongIntMap indexes, java.util.Map<String,TypeIndex> typeIndexes)
+    {
+        this.version = version;
+        this.securityKeys = securityKeys;
+        this.securities = securities;
+        this.indexes = indexes;
+        this.typeIndexes = typeIndexes;
+    }
+
+    /**
+     * Create the empty first version of a snapshot.
+     * @return The empty snapshot.
+     */
+    static TreasuryDirectSecuritySnapshot create()
+    {
+        return new TreasuryDirectSecuritySnapshot(0,
+            TreasuryDirectSecuritySnapshot.noSecurityKeys,
+            TreasuryDirectSecuritySnapshot.noSecurities,
+            TreasuryDirectLongIntMap.create(),
+            java.util.Map.of());
+    }
+
+    /**
+     * Get the version of this snapshot. Each applied change set increments the version.
+     * @return The version of this snapshot.
+     */
+    public long getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * Get the number of securities in this snapshot.
+     * @return The number of securities in this snapshot.
+     */
+    public int getCount()
+    {
+        return this.securities.length;
+    }
+
+    /**
+     * Get all of the securities in this snapshot, in no particular order.
+     * @return All of the securities in this snapshot.
+     */
+    public Iterable<TreasuryDirectSecurity> getSecurities()
+    {
+        return Iterable.create(this.securities);
+    }
+
+    /**
+     * Get whether or not this snapshot contains a security with the provided CUSIP and issue
+     * date.
+     * @param cusip The CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @return Whether or not this snapshot contains the security.
+     */
+    public boolean containsSecurity(String cusip, int issueEpochDay)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+
+        return this.indexOf(cusip, issueEpochDay) >= 0;
+    }
+
+    /**
+     * Get the security with the provided CUSIP and issue date.
+     * @param cusip The CUSIP of the security.
+     * @param issueEpochDay The epoch day of the security's issue date.
+     * @return The security with the provided CUSIP and issue date.
+     */
+    public Result<TreasuryDirectSecurity> getSecurity(String cusip, int issueEpochDay)
+    {
+        PreCondition.assertNotNullAndNotEmpty(cusip, "cusip");
+
+        return Result.create(() ->
+        {
+            final int index = this.indexOf(cusip, issueEpochDay);
+            if (index < 0)
+            {
+                final String issueDate = issueEpochDay == TreasuryDirectDates.unknownEpochDay
+                    ? "unknown"
+                    : java.time.LocalDate.ofEpochDay(issueEpochDay).toString();
+                throw new NotFoundException("No TreasuryDirect security found in snapshot version " + this.version + " for CUSIP: " + cusip + " and IssueDate: " + issueDate + ".");
+            }
+            return this.securities[index];
+        });
+    }
+
+    /**
+     * Get the securities in this snapshot that have the provided security type.
+     * @param securityType The security type.
+     * @return The securities that have the provided security type.
+     */
+    public Iterable<TreasuryDirectSecurity> getSecuritiesByType(TreasuryDirectSecurityType securityType)
+    {
+        PreCondition.assertNotNull(securityType, "securityType");
+
+        final TypeIndex typeIndex = this.typeIndexes.get(securityType.toString());
+        return Iterable.create(typeIndex == null ? TreasuryDirectSecuritySnapshot.noSecurities : typeIndex.securities);
+    }
+
+    /**
+     * Get the security keys of all of the securities in this snapshot, in the same order as
+     * getSecurities(). The returned array must not be modified.
+     */
+    long[] getSecurityKeys()
+    {
+        return this.securityKeys;
+    }
+
+    private int indexOf(String cusip, int issueEpochDay)
+    {
+        final long securityKey = TreasuryDirectCusip.getSecurityKey(cusip, issueEpochDay);
+        return securityKey == TreasuryDirectCusip.invalid ? -1 : this.indexes.get(securityKey, -1);
+    }
+
+    /**
+     * Create the next version of this snapshot by applying the provided changes. Only the key
+     * index is copied in full (as two primitive arrays); securities are shared, and only the type
+     * indexes of the types that the changes touch are rebuilt.
+     * @param changes The changes to apply.
+     * @return The next version of this snapshot.
+     */
+    TreasuryDirectSecuritySnapshot apply(TreasuryDirectSecurityChangeSet changes)
+    {
+        PreCondition.assertNotNull(changes, "changes");
+
+        final long[] changedSecurityKeys = changes.getSecurityKeys();
+        final TreasuryDirectSecurity[] changedSecurities = changes.getSecurities();
+
+        final TreasuryDirectLongIntMap indexes = this.indexes.copy();
+        long[] securityKeys = java.util.Arrays.copyOf(this.securityKeys, this.securityKeys.length + changedSecurityKeys.length);
+        TreasuryDirectSecurity[] securities = java.util.Arrays.copyOf(this.securities, this.securities.length + changedSecurities.length);
+        int count = this.securities.length;
+
+        final java.util.Set<String> changedTypes = new java.util.HashSet<>();
+        for (int i = 0; i < changedSecurityKeys.length; ++i)
+        {
+            final long securityKey = changedSecurityKeys[i];
+            final TreasuryDirectSecurity security = changedSecurities[i];
+            final int index = indexes.get(securityKey, -1);
+            if (index >= 0)
+            {
+                TreasuryDirectSecuritySnapshot.addType(changedTypes, securities[index]);
+                if (security != null)
+                {
+                    securities[index] = security;
+                }
+                else
+                {
+                    // Move the last security into the removed security's place.
+                    final int lastIndex = count - 1;
+                    if (index != lastIndex)
+                    {
+                        securityKeys[index] = securityKeys[lastIndex];
+                        securities[index] = securities[lastIndex];
+                        indexes.set(securityKeys[index], index);
+                    }
+                    securities[lastIndex] = null;
+                    indexes.remove(securityKey);
+                    --count;
+                }
+            }
+            else if (security != null)
+            {
+                securityKeys[count] = securityKey;
+                securities[count] = security;
+                indexes.set(securityKey, count);
+                ++count;
+            }
+            TreasuryDirectSecuritySnapshot.addType(changedTypes, security);
+        }
+        securityKeys = java.util.Arrays.copyOf(securityKeys, count);
+        securities = java.util.Arrays.copyOf(securities, count);
+
+        final TreasuryDirectLongIntMap changedIndexes = TreasuryDirectLongIntMap.create(changedSecurityKeys.length);
+        for (int i = 0; i < changedSecurityKeys.length; ++i)
+        {
+            changedIndexes.set(changedSecurityKeys[i], i);
+        }
+
+        final java.util.Map<String,TypeIndex> typeIndexes = new java.util.HashMap<>(this.typeIndexes);
+        for (final String type : changedTypes)
+        {
+            final TypeIndex typeIndex = TreasuryDirectSecuritySnapshot.rebuildTypeIndex(type, this.typeIndexes.get(type), changedIndexes, changedSecurityKeys, changedSecurities);
+            if (typeIndex == null)
+            {
+                typeIndexes.remove(type);
+            }
+            else
+            {
+                typeIndexes.put(type, typeIndex);
+            }
+        }
+
+        final TreasuryDirectSecuritySnapshot result = new TreasuryDirectSecuritySnapshot(this.version + 1, securityKeys, securities, indexes, java.util.Collections.unmodifiableMap(typeIndexes));
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Rebuild the index of the provided type by dropping the changed securities from the previous
+     * index and then appending the changed securities that now have the type.
+     * @return The new type index, or null if no securities have the type anymore.
+     */
+    private static TypeIndex rebuildTypeIndex(String type, TypeIndex previous, TreasuryDirectLongIntMap changedIndexes, long[] changedSecurityKeys, TreasuryDirectSecurity[] changedSecurities)
+    {
+        final int previousCount = previous == null ? 0 : previous.securities.length;
+        final long[] securityKeys = new long[previousCount + changedSecurityKeys.length];
+        final TreasuryDirectSecurity[] securities = new TreasuryDirectSecurity[securityKeys.length];
+        int count = 0;
+        for (int i = 0; i < previousCount; ++i)
+        {
+            if (!changedIndexes.containsKey(previous.securityKeys[i]))
+            {
+                securityKeys[count] = previous.securityKeys[i];
+                securities[count] = previous.securities[i];
+                ++count;
+            }
+        }
+        for (int i = 0; i < changedSecurityKeys.length; ++i)
+        {
+            final TreasuryDirectSecurity security = changedSecurities[i];
+            if (security != null && type.equals(TreasuryDirectSecuritySnapshot.getType(security)))
+            {
+                securityKeys[count] = changedSecurityKeys[i];
+                securities[count] = security;
+                ++count;
+            }
+        }
+
+        return count == 0
+            ? null
+            : new TypeIndex(java.util.Arrays.copyOf(securityKeys, count), java.util.Arrays.copyOf(securities, count));
+    }
+
+    private static void addType(java.util.Set<String> types, TreasuryDirectSecurity security)
+    {
+        if (security != null)
+        {
+            final String type = TreasuryDirectSecuritySnapshot.getType(security);
+            if (!Strings.isNullOrEmpty(type))
+            {
+                types.add(type);
+            }
+        }
+    }
+
+    private static String getType(TreasuryDirectSecurity security)
+    {
+        return security.getSecurityType().catchError().await();
+    }
+}
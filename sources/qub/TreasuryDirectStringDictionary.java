@@ -0,0 +1,173 @@
+package qub;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A shared dictionary of the low-cardinality String values that repeat across TreasuryDirect
+ * securities, such as security types, security terms, and Yes/No flags. Every distinct value is
+ * stored once and given a dense int code, so securities that are decoded with the same
+ * dictionary share their String instances, and filters can compare values by code (or by
+ * identity) instead of by content.
+ */
+public class TreasuryDirectStringDictionary
+{
+    /**
+     * The code that is returned for a value that hasn't been added to a dictionary.
+     */
+    public static final int noCode = -1;
+
+    private final ConcurrentHashMap<String,Integer> codes;
+    private volatile String[] values;
+    private int count;
+    private final java.util.Set<String> internedPropertyNames;
+    private int maximumShortValueLength;
+
+    private TreasuryDirectStringDictionary()
+    {
+        this.codes = new ConcurrentHashMap<>();
+        this.values = new String[64];
+        this.internedPropertyNames = ConcurrentHashMap.newKeySet();
+        this.maximumShortValueLength = 3;
+        this.addInternedPropertyNames(
+            TreasuryDirectSecurity.securityTypePropertyName,
+            TreasuryDirectSecurity.securityTermPropertyName,
+            "type",
+            "term",
+            "originalSecurityTerm",
+            "auctionFormat");
+    }
+
+    /**
+     * Create a new empty TreasuryDirectStringDictionary. By default the values of the
+     * securityType, securityTerm, type, term, originalSecurityTerm, and auctionFormat properties
+     * are interned, along with any value that is 3 characters or shorter (which covers the
+     * Yes/No flags and empty values).
+     * @return The new TreasuryDirectStringDictionary.
+     */
+    public static TreasuryDirectStringDictionary create()
+    {
+        return new TreasuryDirectStringDictionary();
+    }
+
+    /**
+     * Add properties whose values will always be interned.
+     * @param propertyNames The names of the properties whose values will be interned.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectStringDictionary addInternedPropertyNames(String... propertyNames)
+    {
+        PreCondition.assertNotNull(propertyNames, "propertyNames");
+
+        for (final String propertyName : propertyNames)
+        {
+            PreCondition.assertNotNullAndNotEmpty(propertyName, "propertyName");
+
+            this.internedPropertyNames.add(propertyName);
+        }
+
+        return this;
+    }
+
+    /**
+     * Set the length that values of any property must be at or below to be interned.
+     * @param maximumShortValueLength The length that values of any property must be at or below
+     *                                to be interned.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectStringDictionary setMaximumShortValueLength(int maximumShortValueLength)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maximumShortValueLength, 0, "maximumShortValueLength");
+
+        this.maximumShortValueLength = maximumShortValueLength;
+
+        return this;
+    }
+
+    /**
+     * Get whether or not the provided value of the provided property should be interned.
+     * @param propertyName The name of the property.
+     * @param value The value of the property.
+     * @return Whether or not the provided value should be interned.
+     */
+    public boolean shouldIntern(String propertyName, String value)
+    {
+        return value != null &&
+            (value.length() <= this.maximumShortValueLength || this.internedPropertyNames.contains(propertyName));
+    }
+
+    /**
+     * Get the number of distinct values in this dictionary.
+     * @return The number of distinct values in this dictionary.
+     */
+    public synchronized int getCount()
+    {
+        return this.count;
+    }
+
+    /**
+     * Get the code of the provided value, adding the value to this dictionary if it isn't
+     * already in it.
+     * @param value The value to get the code of.
+     * @return The code of the provided value.
+     */
+    public int add(String value)
+    {
+        PreCondition.assertNotNull(value, "value");
+
+        Integer result = this.codes.get(value);
+        if (result == null)
+        {
+            synchronized (this)
+            {
+                result = this.codes.get(value);
+                if (result == null)
+                {
+                    result = this.count;
+                    if (this.count == this.values.length)
+                    {
+                        this.values = java.util.Arrays.copyOf(this.values, this.values.length * 2);
+                    }
+                    this.values[this.count++] = value;
+                    this.codes.put(value, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the code of the provided value without adding it to this dictionary.
+     * @param value The value to get the code of.
+     * @return The code of the provided value, or noCode if the value isn't in this dictionary.
+     */
+    public int getCode(String value)
+    {
+        final Integer result = value == null ? null : this.codes.get(value);
+        return result == null ? TreasuryDirectStringDictionary.noCode : result;
+    }
+
+    /**
+     * Get the value that has the provided code.
+     * @param code The code of the value.
+     * @return The value that has the provided code.
+     */
+    public String getValue(int code)
+    {
+        PreCondition.assertBetween(0, code, this.getCount() - 1, "code");
+
+        return this.values[code];
+    }
+
+    /**
+     * Get the dictionary's instance of the provided value, adding the value to this dictionary
+     * if it isn't already in it.
+     * @param value The value to intern.
+     * @return The dictionary's instance of the provided value.
+     */
+    public String intern(String value)
+    {
+        PreCondition.assertNotNull(value, "value");
+
+        return this.values[this.add(value)];
+    }
+}
@@ -0,0 +1,61 @@
+package qub;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The way that a RealTreasuryDirect sends its GET requests to the TA_WS service. Implementations
+ * exist for the qub HttpClient, the JDK's java.net.http.HttpClient, and an in-memory set of
+ * canned responses.
+ */
+public interface TreasuryDirectTransport
+{
+    /**
+     * Create a new TreasuryDirectTransport that sends its requests with the provided qub
+     * HttpClient.
+     * @param httpClient The HttpClient to send requests with.
+     * @return The new TreasuryDirectTransport.
+     */
+    static HttpClientTreasuryDirectTransport create(HttpClient httpClient)
+    {
+        return HttpClientTreasuryDirectTransport.create(httpClient);
+    }
+
+    /**
+     * Send a GET request to the provided URL and read the entire response body.
+     * @param url The URL to send the request to.
+     * @return The bytes of the response body.
+     */
+    Result<byte[]> get(URL url);
+
+    /**
+     * Send a GET request to the provided URL and open the response body as a stream. The caller
+     * must close the returned stream.
+     * @param url The URL to send the request to.
+     * @return The response body stream.
+     */
+    default Result<InputStream> open(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return Result.create(() ->
+        {
+            return new java.io.ByteArrayInputStream(this.get(url).await());
+        });
+    }
+
+    /**
+     * Send a GET request to the provided URL without blocking the calling thread. By default the
+     * blocking get() runs on its own virtual thread rather than in the common ForkJoinPool, so
+     * many requests that are waiting on the network don't starve the rest of the process.
+     * @param url The URL to send the request to.
+     * @return A future that completes with the bytes of the response body.
+     */
+    default CompletableFuture<byte[]> getAsync(URL url)
+    {
+        PreCondition.assertNotNull(url, "url");
+
+        return CompletableFuture.supplyAsync(() -> this.get(url).await(),
+            (Runnable action) -> java.lang.Thread.ofVirtual().name("treasurydirect-get").start(action));
+    }
+}
@@ -0,0 +1,334 @@
+package qub;
+
+/**
+ * A Treasury yield curve for a single day: a set of (term, yield) points and the interpolation
+ * that is used to get the yield between them. Terms are in years and yields are percentages.
+ */
+public class TreasuryDirectYieldCurve
+{
+    private static final int nelsonSiegelMinimumPointCount = 4;
+
+    private final int epochDay;
+    private final TreasuryDirectYieldCurveInterpolation interpolation;
+    private final double[] terms;
+    private final double[] yields;
+    private final double[] secondDerivatives;
+    private final double[] nelsonSiegelParameters;
+
+    private TreasuryDirectYieldCurve(int epochDay, TreasuryDirectYieldCurveInterpolation interpolation, double[] terms, double[] yields, double[] secondDerivatives, double[] nelsonSiegelParameters)
+    {
+        this.epochDay = epochDay;
+        this.interpolation = interpolation;
+        this.terms = terms;
+        this.yields = yields;
+        this.secondDerivatives = secondDerivatives;
+        this.nelsonSiegelParameters = nelsonSiegelParameters;
+    }
+
+    /**
+     * Create a new yield curve from the first count points of the provided arrays.
+     * @param epochDay The epoch day that the curve is for.
+     * @param terms The terms (in years) of the points, in strictly ascending order.
+     * @param yields The yields (as percentages) of the points.
+     * @param count The number of points to use from the provided arrays.
+     * @param interpolation The interpolation to use between the points. If there aren't enough
+     *                      points for the requested interpolation, then linear interpolation
+     *                      will be used instead.
+     * @return The new yield curve.
+     */
+    public static TreasuryDirectYieldCurve create(int epochDay, double[] terms, double[] yields, int count, TreasuryDirectYieldCurveInterpolation interpolation)
+    {
+        PreCondition.assertNotNull(terms, "terms");
+        PreCondition.assertNotNull(yields, "yields");
+        PreCondition.assertBetween(0, count, java.lang.Math.min(terms.length, yields.length), "count");
+        PreCondition.assertNotNull(interpolation, "interpolation");
+
+        final double[] curveTerms = java.util.Arrays.copyOf(terms, count);
+        final double[] curveYields = java.util.Arrays.copyOf(yields, count);
+        for (int i = 1; i < count; ++i)
+        {
+            if (!(curveTerms[i - 1] < curveTerms[i]))
+            {
+                throw new PreConditionFailure("terms must be in strictly ascending order.");
+            }
+        }
+
+        TreasuryDirectYieldCurveInterpolation curveInterpolation = interpolation;
+        double[] secondDerivatives = null;
+        double[] nelsonSiegelParameters = null;
+        if (curveInterpolation == TreasuryDirectYieldCurveInterpolation.NelsonSiegel)
+        {
+            nelsonSiegelParameters = count < TreasuryDirectYieldCurve.nelsonSiegelMinimumPointCount
+                ? null
+                : TreasuryDirectYieldCurve.fitNelsonSiegel(curveTerms, curveYields);
+            if (nelsonSiegelParameters == null)
+            {
+                curveInterpolation = TreasuryDirectYieldCurveInterpolation.Linear;
+            }
+        }
+        else if (curveInterpolation == TreasuryDirectYieldCurveInterpolation.CubicSpline)
+        {
+            if (count < 3)
+            {
+                curveInterpolation = TreasuryDirectYieldCurveInterpolation.Linear;
+            }
+            else
+            {
+                secondDerivatives = TreasuryDirectYieldCurve.getNaturalSplineSecondDerivatives(curveTerms, curveYields);
+            }
+        }
+
+        return new TreasuryDirectYieldCurve(epochDay, curveInterpolation, curveTerms, curveYields, secondDerivatives, nelsonSiegelParameters);
+    }
+
+    /**
+     * Get the epoch day that this curve is for.
+     * @return The epoch day that this curve is for.
+     */
+    public int getEpochDay()
+    {
+        return this.epochDay;
+    }
+
+    /**
+     * Get the interpolation that this curve uses.
+     * @return The interpolation that this curve uses.
+     */
+    public TreasuryDirectYieldCurveInterpolation getInterpolation()
+    {
+        return this.interpolation;
+    }
+
+    /**
+     * Get the number of points that this curve was created from.
+     * @return The number of points that this curve was created from.
+     */
+    public int getPointCount()
+    {
+        return this.terms.length;
+    }
+
+    public double getTerm(int index)
+    {
+        return this.terms[index];
+    }
+
+    public double getPointYield(int index)
+    {
+        return this.yields[index];
+    }
+
+    /**
+     * Get the fitted Nelson-Siegel parameters (beta0, beta1, beta2, and tau) of this curve, or
+     * null if this curve doesn't use Nelson-Siegel interpolation.
+     * @return The fitted Nelson-Siegel parameters of this curve.
+     */
+    public double[] getNelsonSiegelParameters()
+    {
+        return this.nelsonSiegelParameters == null ? null : this.nelsonSiegelParameters.clone();
+    }
+
+    /**
+     * Get the yield (as a percentage) of this curve at the provided term. Terms outside of this
+     * curve's points are extrapolated flat (except for Nelson-Siegel curves, which are defined
+     * for every positive term).
+     * @param term The term in years.
+     * @return The yield at the provided term, or NaN if this curve has no points.
+     */
+    public double getYield(double term)
+    {
+        final int count = this.terms.length;
+        double result;
+        if (count == 0)
+        {
+            result = Double.NaN;
+        }
+        else if (this.interpolation == TreasuryDirectYieldCurveInterpolation.NelsonSiegel)
+        {
+            result = TreasuryDirectYieldCurve.getNelsonSiegelYield(this.nelsonSiegelParameters[0], this.nelsonSiegelParameters[1], this.nelsonSiegelParameters[2], this.nelsonSiegelParameters[3], term);
+        }
+        else if (term <= this.terms[0])
+        {
+            result = this.yields[0];
+        }
+        else if (term >= this.terms[count - 1])
+        {
+            result = this.yields[count - 1];
+        }
+        else
+        {
+            int high = java.util.Arrays.binarySearch(this.terms, term);
+            if (high >= 0)
+            {
+                result = this.yields[high];
+            }
+            else
+            {
+                high = -high - 1;
+                final int low = high - 1;
+                final double width = this.terms[high] - this.terms[low];
+                final double a = (this.terms[high] - term) / width;
+                final double b = (term - this.terms[low]) / width;
+                result = a * this.yields[low] + b * this.yields[high];
+                if (this.interpolation == TreasuryDirectYieldCurveInterpolation.CubicSpline)
+                {
+                    result += ((a * a * a - a) * this.secondDerivatives[low] + (b * b * b - b) * this.secondDerivatives[high]) * width * width / 6.0;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the yields of this curve at each of the provided terms.
+     * @param terms The terms in years.
+     * @param output The array that the yields will be written to.
+     */
+    public void getYields(double[] terms, double[] output)
+    {
+        PreCondition.assertNotNull(terms, "terms");
+        PreCondition.assertNotNull(output, "output");
+        PreCondition.assertGreaterThanOrEqualTo(output.length, terms.length, "output.length");
+
+        for (int i = 0; i < terms.length; ++i)
+        {
+            output[i] = this.getYield(terms[i]);
+        }
+    }
+
+    static double[] getNaturalSplineSecondDerivatives(double[] terms, double[] yields)
+    {
+        final int count = terms.length;
+        final double[] result = new double[count];
+        final double[] u = new double[count];
+        for (int i = 1; i < count - 1; ++i)
+        {
+            final double sigma = (terms[i] - terms[i - 1]) / (terms[i + 1] - terms[i - 1]);
+            final double p = sigma * result[i - 1] + 2.0;
+            result[i] = (sigma - 1.0) / p;
+            final double slopeDifference = (yields[i + 1] - yields[i]) / (terms[i + 1] - terms[i]) - (yields[i] - yields[i - 1]) / (terms[i] - terms[i - 1]);
+            u[i] = (6.0 * slopeDifference / (terms[i + 1] - terms[i - 1]) - sigma * u[i - 1]) / p;
+        }
+        result[count - 1] = 0;
+        for (int i = count - 2; i >= 0; --i)
+        {
+            result[i] = result[i] * result[i + 1] + u[i];
+        }
+        return result;
+    }
+
+    static double getNelsonSiegelYield(double beta0, double beta1, double beta2, double tau, double term)
+    {
+        final double x = term / tau;
+        final double decay = java.lang.Math.exp(-x);
+        final double slope = (x < 1e-8) ? 1.0 - x / 2.0 : (1.0 - decay) / x;
+        return beta0 + beta1 * slope + beta2 * (slope - decay);
+    }
+
+    /**
+     * Fit the Nelson-Siegel model to the provided points. For each tau on a log-spaced grid the
+     * betas are found with linear least squares, and the tau with the smallest squared error is
+     * kept.
+     * @return The fitted beta0, beta1, beta2, and tau, or null if no fit could be found.
+     */
+    static double[] fitNelsonSiegel(double[] terms, double[] yields)
+    {
+        final int count = terms.length;
+        double[] result = null;
+        double bestSquaredError = Double.POSITIVE_INFINITY;
+        final double[] matrix = new double[12];
+        for (double tau = 0.1; tau <= 30.0; tau *= 1.08)
+        {
+            double s11 = 0, s12 = 0, s22 = 0, s1y = 0, s2y = 0, sy = 0;
+            double s1 = 0, s2 = 0;
+            for (int i = 0; i < count; ++i)
+            {
+                final double x = terms[i] / tau;
+                final double decay = java.lang.Math.exp(-x);
+                final double f1 = (x < 1e-8) ? 1.0 - x / 2.0 : (1.0 - decay) / x;
+                final double f2 = f1 - decay;
+                s1 += f1;
+                s2 += f2;
+                s11 += f1 * f1;
+                s12 += f1 * f2;
+                s22 += f2 * f2;
+                sy += yields[i];
+                s1y += f1 * yields[i];
+                s2y += f2 * yields[i];
+            }
+
+            matrix[0] = count; matrix[1] = s1;  matrix[2] = s2;   matrix[3] = sy;
+            matrix[4] = s1;    matrix[5] = s11; matrix[6] = s12;  matrix[7] = s1y;
+            matrix[8] = s2;    matrix[9] = s12; matrix[10] = s22; matrix[11] = s2y;
+            final double[] betas = TreasuryDirectYieldCurve.solve3x3(matrix);
+            if (betas != null)
+            {
+                double squaredError = 0;
+                for (int i = 0; i < count; ++i)
+                {
+                    final double error = TreasuryDirectYieldCurve.getNelsonSiegelYield(betas[0], betas[1], betas[2], tau, terms[i]) - yields[i];
+                    squaredError += error * error;
+                }
+                if (squaredError < bestSquaredError)
+                {
+                    bestSquaredError = squaredError;
+                    result = new double[] { betas[0], betas[1], betas[2], tau };
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Solve the 3x3 linear system in the provided row-major augmented matrix (3 rows of 4
+     * values) with Gaussian elimination and partial pivoting. The matrix is modified.
+     * @return The solution, or null if the system is singular.
+     */
+    static double[] solve3x3(double[] matrix)
+    {
+        for (int column = 0; column < 3; ++column)
+        {
+            int pivot = column;
+            for (int row = column + 1; row < 3; ++row)
+            {
+                if (java.lang.Math.abs(matrix[row * 4 + column]) > java.lang.Math.abs(matrix[pivot * 4 + column]))
+                {
+                    pivot = row;
+                }
+            }
+            if (java.lang.Math.abs(matrix[pivot * 4 + column]) < 1e-12)
+            {
+                return null;
+            }
+            if (pivot != column)
+            {
+                for (int k = 0; k < 4; ++k)
+                {
+                    final double swap = matrix[column * 4 + k];
+                    matrix[column * 4 + k] = matrix[pivot * 4 + k];
+                    matrix[pivot * 4 + k] = swap;
+                }
+            }
+            for (int row = column + 1; row < 3; ++row)
+            {
+                final double factor = matrix[row * 4 + column] / matrix[column * 4 + column];
+                for (int k = column; k < 4; ++k)
+                {
+                    matrix[row * 4 + k] -= factor * matrix[column * 4 + k];
+                }
+            }
+        }
+
+        final double[] result = new double[3];
+        for (int row = 2; row >= 0; --row)
+        {
+            double value = matrix[row * 4 + 3];
+            for (int k = row + 1; k < 3; ++k)
+            {
+                value -= matrix[row * 4 + k] * result[k];
+            }
+            result[row] = value / matrix[row * 4 + row];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,303 @@
+package qub;
+
+/**
+ * Builds TreasuryDirectYieldCurves from auctioned securities. Each security is placed in a tenor
+ * bucket based on its original term (rounded to the nearest month), so a reopening lands in the
+ * same bucket as the original issue. A curve for a given day uses the most recent auction yield
+ * in each bucket on or before that day, and leaves out buckets whose most recent auction is too
+ * old (such as a tenor that Treasury has stopped issuing).
+ */
+public class TreasuryDirectYieldCurveBuilder
+{
+    private static final double daysPerMonth = 365.25 / 12;
+    private static final int maximumTenorMonths = 40 * 12;
+    private static final int defaultMaximumAuctionAgeDays = 366;
+
+    private final TreasuryDirectSecurityColumns columns;
+    private TreasuryDirectYieldCurveInterpolation interpolation;
+    private final boolean[] includedSecurityTypes;
+    private int maximumAuctionAgeDays;
+
+    private TreasuryDirectYieldCurveBuilder(TreasuryDirectSecurityColumns columns)
+    {
+        PreCondition.assertNotNull(columns, "columns");
+
+        this.columns = columns;
+        this.interpolation = TreasuryDirectYieldCurveInterpolation.Linear;
+        this.includedSecurityTypes = new boolean[TreasuryDirectSecurityType.values().length];
+        this.maximumAuctionAgeDays = TreasuryDirectYieldCurveBuilder.defaultMaximumAuctionAgeDays;
+        this.setSecurityTypes(TreasuryDirectSecurityType.Bill, TreasuryDirectSecurityType.Note, TreasuryDirectSecurityType.Bond);
+    }
+
+    public static TreasuryDirectYieldCurveBuilder create(TreasuryDirectSecurityColumns columns)
+    {
+        return new TreasuryDirectYieldCurveBuilder(columns);
+    }
+
+    /**
+     * Create a new TreasuryDirectYieldCurveBuilder from the results of
+     * TreasuryDirect.getAuctionedSecurities() or TreasuryDirect.searchSecurities().
+     * @param securities The auctioned securities to build curves from.
+     * @return The new TreasuryDirectYieldCurveBuilder.
+     */
+    public static TreasuryDirectYieldCurveBuilder create(Iterable<TreasuryDirectSecurity> securities)
+    {
+        PreCondition.assertNotNull(securities, "securities");
+
+        return TreasuryDirectYieldCurveBuilder.create(TreasuryDirectSecurityColumns.create(securities));
+    }
+
+    /**
+     * Set the interpolation that built curves will use.
+     * @param interpolation The interpolation that built curves will use.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectYieldCurveBuilder setInterpolation(TreasuryDirectYieldCurveInterpolation interpolation)
+    {
+        PreCondition.assertNotNull(interpolation, "interpolation");
+
+        this.interpolation = interpolation;
+
+        return this;
+    }
+
+    public TreasuryDirectYieldCurveInterpolation getInterpolation()
+    {
+        return this.interpolation;
+    }
+
+    /**
+     * Set the types of securities whose yields will be used to build curves. By default only
+     * Bills, Notes, and Bonds are used, since TIPS yields are real yields and FRN yields are
+     * discount margins.
+     * @param securityTypes The types of securities whose yields will be used to build curves.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectYieldCurveBuilder setSecurityTypes(TreasuryDirectSecurityType... securityTypes)
+    {
+        PreCondition.assertNotNull(securityTypes, "securityTypes");
+        PreCondition.assertGreaterThanOrEqualTo(securityTypes.length, 1, "securityTypes.length");
+
+        java.util.Arrays.fill(this.includedSecurityTypes, false);
+        for (final TreasuryDirectSecurityType securityType : securityTypes)
+        {
+            this.includedSecurityTypes[securityType.ordinal()] = true;
+        }
+
+        return this;
+    }
+
+    /**
+     * Set the number of days that a tenor bucket's most recent auction can be before a curve's
+     * day and still be used in that curve. This is 366 days by default, which keeps every tenor
+     * that is auctioned at least once a year.
+     * @param maximumAuctionAgeDays The maximum age in days of an auction that a curve will use.
+     * @return This object for method chaining.
+     */
+    public TreasuryDirectYieldCurveBuilder setMaximumAuctionAgeDays(int maximumAuctionAgeDays)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maximumAuctionAgeDays, 0, "maximumAuctionAgeDays");
+
+        this.maximumAuctionAgeDays = maximumAuctionAgeDays;
+
+        return this;
+    }
+
+    public int getMaximumAuctionAgeDays()
+    {
+        return this.maximumAuctionAgeDays;
+    }
+
+    /**
+     * Build the curve for the provided day from the latest auction in each tenor bucket on or
+     * before that day.
+     * @param epochDay The epoch day to build the curve for.
+     * @return The curve for the provided day.
+     */
+    public TreasuryDirectYieldCurve build(int epochDay)
+    {
+        final int[] tenorMonths = this.getTenorMonths();
+        final int[] auctionEpochDays = this.columns.getAuctionEpochDays();
+        final double[] yields = this.columns.getYields();
+
+        final int[] latestAuctionEpochDays = new int[TreasuryDirectYieldCurveBuilder.maximumTenorMonths + 1];
+        java.util.Arrays.fill(latestAuctionEpochDays, TreasuryDirectDates.unknownEpochDay);
+        final double[] latestYields = new double[TreasuryDirectYieldCurveBuilder.maximumTenorMonths + 1];
+        for (int i = 0; i < tenorMonths.length; ++i)
+        {
+            final int tenor = tenorMonths[i];
+            if (tenor > 0 && auctionEpochDays[i] <= epochDay && auctionEpochDays[i] >= latestAuctionEpochDays[tenor])
+            {
+                latestAuctionEpochDays[tenor] = auctionEpochDays[i];
+                latestYields[tenor] = yields[i];
+            }
+        }
+
+        final double[] curveTerms = new double[latestYields.length];
+        final double[] curveYields = new double[latestYields.length];
+        final int pointCount = this.gatherPoints(epochDay, latestAuctionEpochDays, latestYields, curveTerms, curveYields);
+        return TreasuryDirectYieldCurve.create(epochDay, curveTerms, curveYields, pointCount, this.interpolation);
+    }
+
+    /**
+     * Build a curve for every day that had at least one auction, in ascending order. The
+     * securities are sorted by auction date once, and the tenor buckets are then updated
+     * incrementally as each auction day is swept over.
+     * @return A curve for every day that had at least one auction.
+     */
+    public List<TreasuryDirectYieldCurve> buildHistory()
+    {
+        final int[] tenorMonths = this.getTenorMonths();
+        final int[] auctionEpochDays = this.columns.getAuctionEpochDays();
+        final double[] yields = this.columns.getYields();
+
+        int eligibleCount = 0;
+        final long[] sortKeys = new long[tenorMonths.length];
+        for (int i = 0; i < tenorMonths.length; ++i)
+        {
+            if (tenorMonths[i] > 0)
+            {
+                sortKeys[eligibleCount++] = ((long)auctionEpochDays[i] << 32) | i;
+            }
+        }
+        java.util.Arrays.sort(sortKeys, 0, eligibleCount);
+
+        final int[] latestAuctionEpochDays = new int[TreasuryDirectYieldCurveBuilder.maximumTenorMonths + 1];
+        java.util.Arrays.fill(latestAuctionEpochDays, TreasuryDirectDates.unknownEpochDay);
+        final double[] latestYields = new double[TreasuryDirectYieldCurveBuilder.maximumTenorMonths + 1];
+        final double[] curveTerms = new double[latestYields.length];
+        final double[] curveYields = new double[latestYields.length];
+
+        final List<TreasuryDirectYieldCurve> result = List.create();
+        int sortIndex = 0;
+        while (sortIndex < eligibleCount)
+        {
+            final int epochDay = (int)(sortKeys[sortIndex] >> 32);
+            while (sortIndex < eligibleCount && (int)(sortKeys[sortIndex] >> 32) == epochDay)
+            {
+                final int securityIndex = (int)sortKeys[sortIndex];
+                final int tenor = tenorMonths[securityIndex];
+                latestAuctionEpochDays[tenor] = epochDay;
+                latestYields[tenor] = yields[securityIndex];
+                ++sortIndex;
+            }
+
+            final int pointCount = this.gatherPoints(epochDay, latestAuctionEpochDays, latestYields, curveTerms, curveYields);
+            result.add(TreasuryDirectYieldCurve.create(epochDay, curveTerms, curveYields, pointCount, this.interpolation));
+        }
+
+        PostCondition.assertNotNull(result, "result");
+
+        return result;
+    }
+
+    /**
+     * Get the original term of each security rounded to the nearest month, or 0 if the security
+     * can't be used to build a curve. The original term comes from the originalSecurityTerm
+     * property, then the securityTerm property, and then the time from issue to maturity. The
+     * last of these is only right for an original issue, since a reopening is issued later but
+     * matures on the same day.
+     */
+    private int[] getTenorMonths()
+    {
+        final int count = this.columns.getCount();
+        final byte[] securityTypes = this.columns.getSecurityTypes();
+        final String[] originalSecurityTerms = this.columns.getOriginalSecurityTerms();
+        final String[] securityTerms = this.columns.getSecurityTerms();
+        final int[] auctionEpochDays = this.columns.getAuctionEpochDays();
+        final int[] issueEpochDays = this.columns.getIssueEpochDays();
+        final int[] maturityEpochDays = this.columns.getMaturityEpochDays();
+        final double[] yields = this.columns.getYields();
+
+        final int[] result = new int[count];
+        for (int i = 0; i < count; ++i)
+        {
+            final byte securityType = securityTypes[i];
+            if (securityType >= 0 && this.includedSecurityTypes[securityType] &&
+                auctionEpochDays[i] != TreasuryDirectDates.unknownEpochDay &&
+                issueEpochDays[i] != TreasuryDirectDates.unknownEpochDay &&
+                maturityEpochDays[i] != TreasuryDirectDates.unknownEpochDay &&
+                !Double.isNaN(yields[i]))
+            {
+                int tenor = TreasuryDirectYieldCurveBuilder.parseTermMonths(originalSecurityTerms[i]);
+                if (tenor == 0)
+                {
+                    tenor = TreasuryDirectYieldCurveBuilder.parseTermMonths(securityTerms[i]);
+                }
+                if (tenor == 0)
+                {
+                    tenor = (int)java.lang.Math.round((maturityEpochDays[i] - issueEpochDays[i]) / TreasuryDirectYieldCurveBuilder.daysPerMonth);
+                }
+                result[i] = java.lang.Math.max(1, java.lang.Math.min(tenor, TreasuryDirectYieldCurveBuilder.maximumTenorMonths));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of months in the provided TreasuryDirect security term, such as "10-Year",
+     * "9-Year 10-Month", "26-Week", or "42-Day", rounded to the nearest month.
+     * @param securityTerm The security term to parse.
+     * @return The number of months in the provided security term, or 0 if it is missing or can't
+     * be parsed.
+     */
+    static int parseTermMonths(String securityTerm)
+    {
+        int result = 0;
+        if (!Strings.isNullOrEmpty(securityTerm))
+        {
+            double months = 0;
+            for (final String part : securityTerm.trim().split("\\s+"))
+            {
+                final int separatorIndex = part.indexOf('-');
+                final Integer value = separatorIndex <= 0 ? null : Integers.parse(part.substring(0, separatorIndex)).catchError().await();
+                final String unit = separatorIndex <= 0 ? "" : part.substring(separatorIndex + 1).toLowerCase(java.util.Locale.ROOT);
+                if (value == null || value < 0)
+                {
+                    months = 0;
+                    break;
+                }
+                else if (unit.startsWith("year"))
+                {
+                    months += value * 12.0;
+                }
+                else if (unit.startsWith("month"))
+                {
+                    months += value;
+                }
+                else if (unit.startsWith("week"))
+                {
+                    months += value * 7 / TreasuryDirectYieldCurveBuilder.daysPerMonth;
+                }
+                else if (unit.startsWith("day"))
+                {
+                    months += value / TreasuryDirectYieldCurveBuilder.daysPerMonth;
+                }
+                else
+                {
+                    months = 0;
+                    break;
+                }
+            }
+            result = months <= 0 ? 0 : java.lang.Math.max(1, (int)java.lang.Math.round(months));
+        }
+        return result;
+    }
+
+    private int gatherPoints(int epochDay, int[] latestAuctionEpochDays, double[] latestYields, double[] curveTerms, double[] curveYields)
+    {
+        int result = 0;
+        for (int tenor = 1; tenor < latestAuctionEpochDays.length; ++tenor)
+        {
+            final int latestAuctionEpochDay = latestAuctionEpochDays[tenor];
+            if (latestAuctionEpochDay != TreasuryDirectDates.unknownEpochDay &&
+                (long)epochDay - latestAuctionEpochDay <= this.maximumAuctionAgeDays)
+            {
+                curveTerms[result] = tenor / 12.0;
+                curveYields[result] = latestYields[tenor];
+                ++result;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,23 @@
+package qub;
+
+/**
+ * The methods that a TreasuryDirectYieldCurve can use to get the yield between its points.
+ */
+public enum TreasuryDirectYieldCurveInterpolation
+{
+    /**
+     * Straight lines between adjacent points.
+     */
+    Linear,
+
+    /**
+     * A natural cubic spline through all of the points.
+     */
+    CubicSpline,
+
+    /**
+     * A least-squares Nelson-Siegel fit of all of the points. The fitted curve is smooth but
+     * doesn't pass through each point.
+     */
+    NelsonSiegel
+}
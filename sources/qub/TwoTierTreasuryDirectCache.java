@@ -0,0 +1,162 @@
+package qub;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A TreasuryDirectCache that puts a bounded MemoryTreasuryDirectCache in front of a persistent
+ * DiskTreasuryDirectCache. Lookups try the memory tier first and then the disk tier, and a disk
+ * hit is offered to the memory tier (which may reject it if the key isn't frequent enough).
+ * Every put() is written through to both tiers, so the disk tier always holds every entry.
+ */
+public class TwoTierTreasuryDirectCache implements TreasuryDirectCache, AutoCloseable
+{
+    private final MemoryTreasuryDirectCache memoryTier;
+    private final DiskTreasuryDirectCache diskTier;
+    private final TreasuryDirectCacheMetrics metrics;
+
+    private TwoTierTreasuryDirectCache(MemoryTreasuryDirectCache memoryTier, DiskTreasuryDirectCache diskTier)
+    {
+        PreCondition.assertNotNull(memoryTier, "memoryTier");
+        PreCondition.assertNotNull(diskTier, "diskTier");
+
+        this.memoryTier = memoryTier;
+        this.diskTier = diskTier;
+        this.metrics = TreasuryDirectCacheMetrics.create();
+    }
+
+    public static TwoTierTreasuryDirectCache create(MemoryTreasuryDirectCache memoryTier, DiskTreasuryDirectCache diskTier)
+    {
+        return new TwoTierTreasuryDirectCache(memoryTier, diskTier);
+    }
+
+    /**
+     * Get the in-process tier of this cache.
+     * @return The in-process tier of this cache.
+     */
+    public MemoryTreasuryDirectCache getMemoryTier()
+    {
+        return this.memoryTier;
+    }
+
+    /**
+     * Get the on-disk tier of this cache.
+     * @return The on-disk tier of this cache.
+     */
+    public DiskTreasuryDirectCache getDiskTier()
+    {
+        return this.diskTier;
+    }
+
+    @Override
+    public TreasuryDirectCacheEntry get(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        TreasuryDirectCacheEntry result = this.memoryTier.get(key);
+        if (result == null)
+        {
+            result = this.diskTier.get(key);
+            if (result != null)
+            {
+                this.memoryTier.put(key, result);
+            }
+        }
+
+        if (result == null)
+        {
+            this.metrics.recordMiss();
+        }
+        else
+        {
+            this.metrics.recordHit();
+        }
+        return result;
+    }
+
+    @Override
+    public void put(String key, TreasuryDirectCacheEntry entry)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+        PreCondition.assertNotNull(entry, "entry");
+
+        this.diskTier.put(key, entry);
+        this.memoryTier.put(key, entry);
+    }
+
+    @Override
+    public void remove(String key)
+    {
+        PreCondition.assertNotNullAndNotEmpty(key, "key");
+
+        this.memoryTier.remove(key);
+        this.diskTier.remove(key);
+    }
+
+    @Override
+    public int getCount()
+    {
+        return this.diskTier.getCount();
+    }
+
+    /**
+     * Get the combined metrics of this cache. A lookup is a hit if either tier had the key. The
+     * metrics of each tier are available from getMemoryTier() and getDiskTier().
+     * @return The combined metrics of this cache.
+     */
+    @Override
+    public TreasuryDirectCacheMetrics getMetrics()
+    {
+        return this.metrics;
+    }
+
+    /**
+     * Load the most recently fetched entries from the disk tier into the memory tier on a
+     * background thread. Loading stops once the memory tier is full or once the provided number
+     * of entries have been loaded. Warming doesn't count towards either tier's metrics.
+     * @param maximumEntryCount The maximum number of entries to load.
+     * @return A future that completes with the number of entries that were loaded.
+     */
+    public CompletableFuture<Integer> warm(int maximumEntryCount)
+    {
+        PreCondition.assertGreaterThanOrEqualTo(maximumEntryCount, 0, "maximumEntryCount");
+
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+        java.lang.Thread.ofVirtual().name("treasurydirect-cache-warmer").start(() ->
+        {
+            try
+            {
+                int loadedCount = 0;
+                for (final String key : this.diskTier.getKeysByRecency())
+                {
+                    if (loadedCount >= maximumEntryCount)
+                    {
+                        break;
+                    }
+
+                    final TreasuryDirectCacheEntry entry = this.diskTier.read(key);
+                    if (entry != null)
+                    {
+                        if (this.memoryTier.getByteCount() + entry.getValue().length > this.memoryTier.getMaximumByteCount())
+                        {
+                            break;
+                        }
+                        this.memoryTier.put(key, entry);
+                        ++loadedCount;
+                    }
+                }
+                result.complete(loadedCount);
+            }
+            catch (Throwable error)
+            {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void close()
+    {
+        this.diskTier.close();
+    }
+}
@@ -0,0 +1,257 @@
+package qub;
+
+public interface CachingTreasuryDirectTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(CachingTreasuryDirect.class, () ->
+        {
+            final String baseUrl = "https://treasurydirect.example.com/TA_WS/";
+            final String billsUrl = baseUrl + "securities/Bill?format=json";
+            final String billsJson =
+                "[{\"cusip\":\"912796CJ6\",\"securityType\":\"Bill\",\"issueDate\":\"2014-02-11T00:00:00\"}," +
+                "{\"cusip\":\"912796CK3\",\"securityType\":\"Bill\",\"issueDate\":\"2014-02-13T00:00:00\"}]";
+            final String securityUrl = baseUrl + "securities/912796CJ6/02/11/2014?format=json";
+            final String securityJson = "{\"cusip\":\"912796CJ6\",\"securityType\":\"Bill\",\"securityTerm\":\"72-Day\"}";
+
+            runner.test("create(TreasuryDirect,TreasuryDirectCache) with null innerTreasuryDirect", (Test test) ->
+            {
+                test.assertThrows(() -> CachingTreasuryDirect.create(null, MemoryTreasuryDirectCache.create(1024)),
+                    new PreConditionFailure("innerTreasuryDirect cannot be null."));
+            });
+
+            runner.test("getSecuritiesByType(TreasuryDirectSecurityType) is served from the cache", (Test test) ->
+            {
+                final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(billsUrl, billsJson);
+                final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), MemoryTreasuryDirectCache.create(1024 * 1024));
+
+                for (int i = 0; i < 3; ++i)
+                {
+                    final Iterable<TreasuryDirectSecurity> securities = treasuryDirect.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await();
+                    test.assertEqual(Iterable.create("912796CJ6", "912796CK3"), securities.map((TreasuryDirectSecurity security) -> security.getCusip().await()));
+                }
+                test.assertEqual(1, transport.getRequestCount());
+                test.assertEqual(2L, treasuryDirect.getCache().getMetrics().getHitCount());
+            });
+
+            runner.test("getSecuritiesByType(TreasuryDirectSecurityType) after the time to live", (Test test) ->
+            {
+                final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(billsUrl, billsJson);
+                final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), MemoryTreasuryDirectCache.create(1024 * 1024))
+                    .setListTimeToLiveMilliseconds(1000)
+                    .setClock(CachingTreasuryDirectTests.createClock(0));
+
+                treasuryDirect.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await();
+                treasuryDirect.setClock(CachingTreasuryDirectTests.createClock(999));
+                treasuryDirect.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await();
+                test.assertEqual(1, transport.getRequestCount());
+
+                treasuryDirect.setClock(CachingTreasuryDirectTests.createClock(1000));
+                treasuryDirect.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await();
+                test.assertEqual(2, transport.getRequestCount());
+            });
+
+            runner.test("getAnnouncedSecurities() with stale-while-revalidate", (Test test) ->
+            {
+                final String announcedUrl = baseUrl + "securities/announced?format=json";
+                final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(announcedUrl, billsJson);
+                final List<Runnable> refreshes = List.create();
+                final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), MemoryTreasuryDirectCache.create(1024 * 1024))
+                    .setListTimeToLiveMilliseconds(1000)
+                    .setMaximumListStalenessMilliseconds(500)
+                    .setRefreshExecutor(refreshes::add)
+                    .setClock(CachingTreasuryDirectTests.createClock(0));
+
+                test.assertEqual(2, treasuryDirect.getAnnouncedSecurities().await().getCount());
+                test.assertEqual(1, transport.getRequestCount());
+
+                transport.setResponse(announcedUrl, "[{\"cusip\":\"912796CJ6\",\"securityType\":\"Bill\"}]");
+                treasuryDirect.setClock(CachingTreasuryDirectTests.createClock(1200));
+                test.assertEqual(2, treasuryDirect.getAnnouncedSecurities().await().getCount());
+                test.assertEqual(2, treasuryDirect.getAnnouncedSecurities().await().getCount());
+                test.assertEqual(1, refreshes.getCount());
+                test.assertEqual(1L, treasuryDirect.getBackgroundRefreshCount());
+                test.assertEqual(1, transport.getRequestCount());
+
+                refreshes.first().run();
+                test.assertEqual(2, transport.getRequestCount());
+                test.assertEqual(1, treasuryDirect.getAnnouncedSecurities().await().getCount());
+
+                treasuryDirect.setClock(CachingTreasuryDirectTests.createClock(2800));
+                test.assertEqual(1, treasuryDirect.getAnnouncedSecurities().await().getCount());
+                test.assertEqual(1, refreshes.getCount());
+                test.assertEqual(3, transport.getRequestCount());
+            });
+
+            runner.test("getAnnouncedSecurities() with a rejected background refresh", (Test test) ->
+            {
+                final String announcedUrl = baseUrl + "securities/announced?format=json";
+                final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(announcedUrl, billsJson);
+                final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), MemoryTreasuryDirectCache.create(1024 * 1024))
+                    .setListTimeToLiveMilliseconds(1000)
+                    .setMaximumListStalenessMilliseconds(500)
+                    .setRefreshExecutor((Runnable refresh) -> { throw new java.util.concurrent.RejectedExecutionException("Executor is shut down."); })
+                    .setClock(CachingTreasuryDirectTests.createClock(0));
+
+                test.assertEqual(2, treasuryDirect.getAnnouncedSecurities().await().getCount());
+
+                transport.setResponse(announcedUrl, "[{\"cusip\":\"912796CJ6\",\"securityType\":\"Bill\"}]");
+                treasuryDirect.setClock(CachingTreasuryDirectTests.createClock(1200));
+                test.assertEqual(2, treasuryDirect.getAnnouncedSecurities().await().getCount());
+                test.assertEqual(1L, treasuryDirect.getBackgroundRefreshCount());
+                test.assertEqual(1, transport.getRequestCount());
+
+                // The rejected refresh must not be left in flight, or this fetch would wait for it
+                // forever.
+                treasuryDirect.setClock(CachingTreasuryDirectTests.createClock(1600));
+                test.assertEqual(1, treasuryDirect.getAnnouncedSecurities().await().getCount());
+                test.assertEqual(2, transport.getRequestCount());
+            });
+
+            runner.test("getAnnouncedSecurities() with a failed background refresh", (Test test) ->
+            {
+                final String announcedUrl = baseUrl + "securities/announced?format=json";
+                final InMemoryTreasuryDirectTransport innerTransport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(announcedUrl, billsJson);
+                final boolean[] failing = { false };
+                final java.util.concurrent.atomic.AtomicInteger requestCount = new java.util.concurrent.atomic.AtomicInteger();
+                final TreasuryDirectTransport transport = (URL url) ->
+                {
+                    requestCount.incrementAndGet();
+                    return failing[0]
+                        ? Result.error(new RuntimeException("Service unavailable."))
+                        : innerTransport.get(url);
+                };
+                final List<Runnable> refreshes = List.create();
+                final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), MemoryTreasuryDirectCache.create(1024 * 1024))
+                    .setListTimeToLiveMilliseconds(1000)
+                    .setMaximumListStalenessMilliseconds(500)
+                    .setRefreshFailureCooldownMilliseconds(200)
+                    .setRefreshExecutor(refreshes::add)
+                    .setClock(CachingTreasuryDirectTests.createClock(0));
+
+                test.assertEqual(2, treasuryDirect.getAnnouncedSecurities().await().getCount());
+
+                failing[0] = true;
+                treasuryDirect.setClock(CachingTreasuryDirectTests.createClock(1200));
+                test.assertEqual(2, treasuryDirect.getAnnouncedSecurities().await().getCount());
+                refreshes.get(0).run();
+                test.assertEqual(2, requestCount.get());
+
+                // Within the cooldown the stale list is served without another refresh.
+                treasuryDirect.setClock(CachingTreasuryDirectTests.createClock(1300));
+                test.assertEqual(2, treasuryDirect.getAnnouncedSecurities().await().getCount());
+                test.assertEqual(1, refreshes.getCount());
+
+                treasuryDirect.setClock(CachingTreasuryDirectTests.createClock(1400));
+                test.assertEqual(2, treasuryDirect.getAnnouncedSecurities().await().getCount());
+                test.assertEqual(2, refreshes.getCount());
+                test.assertEqual(2L, treasuryDirect.getBackgroundRefreshCount());
+            });
+
+            runner.test("getSecurity(String,String,String,String) with equivalent dates", (Test test) ->
+            {
+                final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(securityUrl, securityJson);
+                final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), MemoryTreasuryDirectCache.create(1024 * 1024));
+
+                test.assertEqual("72-Day", treasuryDirect.getSecurity("912796CJ6", "02", "11", "2014").await().getSecurityTerm().await());
+                test.assertEqual("72-Day", treasuryDirect.getSecurity("912796CJ6", "2", "11", "2014").await().getSecurityTerm().await());
+                test.assertEqual(1, transport.getRequestCount());
+            });
+
+            runner.test("getSecurity(String,String,String,String) with no data", (Test test) ->
+            {
+                final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(securityUrl, "No data");
+                final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), MemoryTreasuryDirectCache.create(1024 * 1024));
+
+                for (int i = 0; i < 3; ++i)
+                {
+                    test.assertThrows(() -> treasuryDirect.getSecurity("912796CJ6", "02", "11", "2014").await(),
+                        new NotFoundException("No TreasuryDirect security found for CUSIP: 912796CJ6, IssueMonth: 02, IssueDayOfMonth: 11, and IssueYear: 2014."));
+                }
+                test.assertEqual(1, transport.getRequestCount());
+                test.assertEqual(1, treasuryDirect.getCache().getCount());
+            });
+
+            runner.test("getSecurity(String,String,String,String) with no data after the not found time to live", (Test test) ->
+            {
+                final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(securityUrl, "No data");
+                final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), MemoryTreasuryDirectCache.create(1024 * 1024))
+                    .setNotFoundTimeToLiveMilliseconds(1000)
+                    .setClock(CachingTreasuryDirectTests.createClock(0));
+
+                test.assertThrows(() -> treasuryDirect.getSecurity("912796CJ6", "02", "11", "2014").await());
+                transport.setResponse(securityUrl, securityJson);
+                test.assertThrows(() -> treasuryDirect.getSecurity("912796CJ6", "02", "11", "2014").await());
+                test.assertEqual(1, transport.getRequestCount());
+
+                treasuryDirect.setClock(CachingTreasuryDirectTests.createClock(1000));
+                test.assertEqual("72-Day", treasuryDirect.getSecurity("912796CJ6", "02", "11", "2014").await().getSecurityTerm().await());
+                test.assertEqual(2, transport.getRequestCount());
+            });
+
+            runner.test("getSecurity(String,String,String,String) with known securities", (Test test) ->
+            {
+                final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(securityUrl, securityJson)
+                    .setResponse(baseUrl + "securities/912796CK3/03/01/2014?format=json", securityJson);
+                final TreasuryDirectBloomFilter knownSecurities = TreasuryDirectBloomFilter.create(100, 0.001)
+                    .add("912796CJ6", TreasuryDirectDates.toEpochDay(2014, 2, 11));
+                final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), MemoryTreasuryDirectCache.create(1024 * 1024))
+                    .setKnownSecurities(knownSecurities);
+
+                test.assertEqual("72-Day", treasuryDirect.getSecurity("912796CJ6", "02", "11", "2014").await().getSecurityTerm().await());
+                test.assertEqual(1, transport.getRequestCount());
+
+                test.assertThrows(() -> treasuryDirect.getSecurity("912796CJ6", "02", "10", "2014").await(),
+                    new NotFoundException("No TreasuryDirect security found for CUSIP: 912796CJ6, IssueMonth: 02, IssueDayOfMonth: 10, and IssueYear: 2014."));
+                test.assertEqual(1, transport.getRequestCount());
+
+                // Issue dates after the newest known security might belong to newer securities.
+                treasuryDirect.getSecurity("912796CK3", "03", "01", "2014").await();
+                test.assertEqual(2, transport.getRequestCount());
+            });
+
+            runner.test("with two-tier cache across restarts", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    final java.nio.file.Path file = folder.resolve("cache.log");
+                    final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                        .setResponse(billsUrl, billsJson);
+
+                    try (final TwoTierTreasuryDirectCache cache = TwoTierTreasuryDirectCache.create(MemoryTreasuryDirectCache.create(1024), DiskTreasuryDirectCache.open(file).await()))
+                    {
+                        final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), cache);
+                        test.assertEqual(2, treasuryDirect.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await().getCount());
+                    }
+
+                    try (final TwoTierTreasuryDirectCache cache = TwoTierTreasuryDirectCache.create(MemoryTreasuryDirectCache.create(1024), DiskTreasuryDirectCache.open(file).await()))
+                    {
+                        final CachingTreasuryDirect treasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), cache);
+                        test.assertEqual(2, treasuryDirect.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await().getCount());
+                        test.assertEqual(1L, cache.getDiskTier().getMetrics().getHitCount());
+                    }
+                    test.assertEqual(1, transport.getRequestCount());
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+        });
+    }
+
+    static java.time.Clock createClock(long milliseconds)
+    {
+        return java.time.Clock.fixed(java.time.Instant.ofEpochMilli(milliseconds), java.time.ZoneOffset.UTC);
+    }
+}
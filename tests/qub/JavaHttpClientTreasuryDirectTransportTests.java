@@ -0,0 +1,68 @@
+package qub;
+
+public interface JavaHttpClientTreasuryDirectTransportTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(JavaHttpClientTreasuryDirectTransport.class, () ->
+        {
+            final String upstreamBaseUrl = "https://treasurydirect.example.com/TA_WS/";
+            final String billsJson = "[{\"cusip\":\"912796CJ6\",\"securityType\":\"Bill\"}]";
+
+            final Function0<TreasuryDirectGateway> createGateway = () ->
+            {
+                final InMemoryTreasuryDirectTransport upstreamTransport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(upstreamBaseUrl + "securities/Bill?format=json", billsJson);
+                return TreasuryDirectGateway.create(RealTreasuryDirect.createWithTransport(upstreamTransport, upstreamBaseUrl))
+                    .start(0).await();
+            };
+
+            runner.test("create(java.net.http.HttpClient) with null", (Test test) ->
+            {
+                test.assertThrows(() -> JavaHttpClientTreasuryDirectTransport.create(null),
+                    new PreConditionFailure("httpClient cannot be null."));
+            });
+
+            runner.test("get(URL) with a 200 response", (Test test) ->
+            {
+                try (final TreasuryDirectGateway gateway = createGateway.run())
+                {
+                    final JavaHttpClientTreasuryDirectTransport transport = JavaHttpClientTreasuryDirectTransport.create();
+                    final URL url = URL.parse(gateway.getBaseUrl() + "securities/Bill?format=json").await();
+                    test.assertEqual(TreasuryDirectGatewayTests.normalizeJson(billsJson),
+                        TreasuryDirectGatewayTests.normalizeJson(new String(transport.get(url).await(), java.nio.charset.StandardCharsets.UTF_8)));
+                    test.assertEqual(TreasuryDirectGatewayTests.normalizeJson(billsJson),
+                        TreasuryDirectGatewayTests.normalizeJson(new String(transport.getAsync(url).join(), java.nio.charset.StandardCharsets.UTF_8)));
+                    try (final java.io.InputStream stream = transport.open(url).await())
+                    {
+                        test.assertEqual(TreasuryDirectGatewayTests.normalizeJson(billsJson),
+                            TreasuryDirectGatewayTests.normalizeJson(new String(stream.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8)));
+                    }
+                }
+                catch (java.io.IOException e)
+                {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            });
+
+            runner.test("get(URL) with a 404 response", (Test test) ->
+            {
+                try (final TreasuryDirectGateway gateway = createGateway.run())
+                {
+                    final JavaHttpClientTreasuryDirectTransport transport = JavaHttpClientTreasuryDirectTransport.create();
+                    final URL url = URL.parse(gateway.getBaseUrl() + "securities/Stock?format=json").await();
+                    final String expectedMessage = "Expected a 2xx status code from " + url + ", but found 404.";
+                    test.assertThrows(() -> transport.get(url).await(),
+                        new java.io.UncheckedIOException(new java.io.IOException(expectedMessage)));
+                    test.assertThrows(() -> transport.open(url).await(),
+                        new java.io.UncheckedIOException(new java.io.IOException(expectedMessage)));
+
+                    final Throwable asyncError = transport.getAsync(url).handle((byte[] body, Throwable error) -> error).join();
+                    test.assertTrue(asyncError instanceof java.util.concurrent.CompletionException);
+                    test.assertTrue(asyncError.getCause() instanceof java.io.UncheckedIOException);
+                    test.assertEqual(expectedMessage, asyncError.getCause().getCause().getMessage());
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package qub;
+
+public interface LazyTreasuryDirectSecurityTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(LazyTreasuryDirectSecurity.class, () ->
+        {
+            runner.testGroup("createArray(byte[])", () ->
+            {
+                runner.test("with null bytes", (Test test) ->
+                {
+                    test.assertThrows(() -> LazyTreasuryDirectSecurity.createArray(null),
+                        new PreConditionFailure("bytes cannot be null."));
+                });
+
+                runner.test("with empty array", (Test test) ->
+                {
+                    final Iterable<TreasuryDirectSecurity> securities = LazyTreasuryDirectSecurity.createArray(LazyTreasuryDirectSecurityTests.getBytes(" [ ] "));
+                    test.assertFalse(securities.any());
+                });
+
+                runner.test("with not an array", (Test test) ->
+                {
+                    test.assertThrows(() -> LazyTreasuryDirectSecurity.createArray(LazyTreasuryDirectSecurityTests.getBytes("{}")),
+                        new ParseException("Expected \"[\" at index 0."));
+                });
+
+                runner.test("with elements that aren't objects", (Test test) ->
+                {
+                    final Iterable<TreasuryDirectSecurity> securities = LazyTreasuryDirectSecurity.createArray(LazyTreasuryDirectSecurityTests.getBytes(
+                        "[1, \"912796CJ6\", {\"cusip\":\"912828YK0\"}, null, [{\"cusip\":\"912810SP4\"}], true]"));
+                    test.assertEqual(1, securities.getCount());
+                    test.assertEqual("912828YK0", securities.first().getCusip().await());
+                });
+
+                runner.test("with multiple objects", (Test test) ->
+                {
+                    final Iterable<TreasuryDirectSecurity> securities = LazyTreasuryDirectSecurity.createArray(LazyTreasuryDirectSecurityTests.getBytes(
+                        "[{\"cusip\":\"912796CJ6\",\"issueDate\":\"2014-02-11T00:00:00\",\"securityTerm\":\"72-Day\"},\n" +
+                        " {\"cusip\":\"912828YK0\",\"nested\":{\"a\":[1,\"}\"]},\"securityTerm\":\"3-Year\"}]"));
+                    test.assertEqual(2, securities.getCount());
+
+                    final TreasuryDirectSecurity first = securities.first();
+                    test.assertEqual("912796CJ6", first.getCusip().await());
+                    test.assertEqual("72-Day", first.getSecurityTerm().await());
+                    test.assertEqual(DateTime.create(2014, 2, 11), first.getIssueDate().await());
+
+                    final TreasuryDirectSecurity last = securities.last();
+                    test.assertEqual("912828YK0", last.getCusip().await());
+                    test.assertEqual("3-Year", last.getSecurityTerm().await());
+                });
+            });
+
+            runner.testGroup("getString(String)", () ->
+            {
+                final Action3<String,String,String> getStringTest = (String json, String propertyName, String expected) ->
+                {
+                    runner.test("with " + English.andList(Iterable.create(json, propertyName).map(Strings::escapeAndQuote)), (Test test) ->
+                    {
+                        final byte[] bytes = LazyTreasuryDirectSecurityTests.getBytes(json);
+                        final LazyTreasuryDirectSecurity security = LazyTreasuryDirectSecurity.create(bytes, 0, bytes.length);
+                        test.assertEqual(expected, security.getString(propertyName).await());
+                    });
+                };
+
+                getStringTest.run("{\"a\":\"b\"}", "a", "b");
+                getStringTest.run("{ \"a\" : \"\" }", "a", "");
+                getStringTest.run("{\"a\":null}", "a", null);
+                getStringTest.run("{\"a\":12.5}", "a", "12.5");
+                getStringTest.run("{\"a\":\"x\\\"y\\\\z\\u0041\"}", "a", "x\"y\\zA");
+                getStringTest.run("{\"a\":\"\\ud83d\\ude00\"}", "a", "\ud83d\ude00");
+                getStringTest.run("{\"a\":\"missing\"}", "a", "missing");
+                getStringTest.run("{\"ab\":\"1\",\"a\":\"2\"}", "a", "2");
+                getStringTest.run("{\"b\":{\"a\":\"1\"},\"a\":\"2\"}", "a", "2");
+
+                runner.test("with missing property", (Test test) ->
+                {
+                    final byte[] bytes = LazyTreasuryDirectSecurityTests.getBytes("{\"a\":\"b\"}");
+                    final LazyTreasuryDirectSecurity security = LazyTreasuryDirectSecurity.create(bytes, 0, bytes.length);
+                    test.assertThrows(() -> security.getString("c").await(),
+                        new NotFoundException("Could not find a property named \"c\"."));
+                });
+            });
+
+            runner.test("toJson()", (Test test) ->
+            {
+                final byte[] bytes = LazyTreasuryDirectSecurityTests.getBytes("[{\"cusip\":\"912796CJ6\"}]");
+                final LazyTreasuryDirectSecurity security = LazyTreasuryDirectSecurity.create(bytes, 1, bytes.length - 1);
+                test.assertEqual("912796CJ6", security.toJson().getString("cusip").await());
+            });
+        });
+    }
+
+    static byte[] getBytes(String text)
+    {
+        return text.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+    }
+}
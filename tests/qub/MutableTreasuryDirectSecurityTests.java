@@ -0,0 +1,62 @@
+package qub;
+
+public interface MutableTreasuryDirectSecurityTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(MutableTreasuryDirectSecurity.class, () ->
+        {
+            runner.test("create(JSONObject) with null", (Test test) ->
+            {
+                test.assertThrows(() -> MutableTreasuryDirectSecurity.create(null),
+                    new PreConditionFailure("json cannot be null."));
+            });
+
+            runner.test("getIssueEpochDay() after the JSONObject changes", (Test test) ->
+            {
+                final JSONObject json = JSONObject.create();
+                json.setString(TreasuryDirectSecurity.issueDatePropertyName, "2014-02-11T00:00:00");
+                final MutableTreasuryDirectSecurity security = MutableTreasuryDirectSecurity.create(json);
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2014, 2, 11), security.getIssueEpochDay());
+
+                json.setString(TreasuryDirectSecurity.issueDatePropertyName, "2014-02-13T00:00:00");
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2014, 2, 13), security.getIssueEpochDay());
+                test.assertEqual(DateTime.create(2014, 2, 13), security.getIssueDate().await());
+                test.assertSame(json, security.toJson());
+            });
+
+            runner.test("createSecurity(String...)", (Test test) ->
+            {
+                final MutableTreasuryDirectSecurity security = MutableTreasuryDirectSecurityTests.createSecurity(
+                    "cusip", "912796CJ6",
+                    "issueDate", "2014-02-11T00:00:00",
+                    "highYield", null);
+                test.assertEqual("912796CJ6", security.getCusip().await());
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2014, 2, 11), security.getIssueEpochDay());
+                test.assertNull(security.getString(TreasuryDirectSecurity.highYieldPropertyName).catchError().await());
+            });
+        });
+    }
+
+    /**
+     * Create a MutableTreasuryDirectSecurity from alternating property names and values. A
+     * property whose value is null is left out of the security.
+     * @param nameValuePairs The property names and values, such as "cusip", "912796CJ6".
+     * @return The new security.
+     */
+    static MutableTreasuryDirectSecurity createSecurity(String... nameValuePairs)
+    {
+        PreCondition.assertNotNull(nameValuePairs, "nameValuePairs");
+        PreCondition.assertTrue(nameValuePairs.length % 2 == 0, "nameValuePairs.length % 2 == 0");
+
+        final JSONObject json = JSONObject.create();
+        for (int i = 0; i < nameValuePairs.length; i += 2)
+        {
+            if (nameValuePairs[i + 1] != null)
+            {
+                json.setString(nameValuePairs[i], nameValuePairs[i + 1]);
+            }
+        }
+        return MutableTreasuryDirectSecurity.create(json);
+    }
+}
@@ -0,0 +1,141 @@
+package qub;
+
+public interface OffHeapTreasuryDirectSecurityStoreTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(OffHeapTreasuryDirectSecurityStore.class, () ->
+        {
+            runner.test("create()", (Test test) ->
+            {
+                try (final OffHeapTreasuryDirectSecurityStore store = OffHeapTreasuryDirectSecurityStore.create())
+                {
+                    test.assertEqual(0, store.getCount());
+                    test.assertEqual(0L, store.getOffHeapByteCount());
+                }
+            });
+
+            runner.test("create(int) with too small chunks", (Test test) ->
+            {
+                test.assertThrows(() -> OffHeapTreasuryDirectSecurityStore.create(10),
+                    new PreConditionFailure("arenaChunkByteCount (10) must be greater than or equal to 4096."));
+            });
+
+            runner.testGroup("add(TreasuryDirectSecurity)", () ->
+            {
+                runner.test("with null", (Test test) ->
+                {
+                    try (final OffHeapTreasuryDirectSecurityStore store = OffHeapTreasuryDirectSecurityStore.create())
+                    {
+                        test.assertThrows(() -> store.add(null),
+                            new PreConditionFailure("security cannot be null."));
+                    }
+                });
+
+                runner.test("with indexed and unindexed properties", (Test test) ->
+                {
+                    try (final OffHeapTreasuryDirectSecurityStore store = OffHeapTreasuryDirectSecurityStore.create())
+                    {
+                        final JSONObject json = JSONObject.create();
+                        json.setString(TreasuryDirectSecurity.cusipPropertyName, "912796CJ6");
+                        json.setString(TreasuryDirectSecurity.issueDatePropertyName, "2014-02-11T00:00:00");
+                        json.setString(TreasuryDirectSecurity.maturityDatePropertyName, "2014-04-24T00:00:00");
+                        json.setString(TreasuryDirectSecurity.securityTermPropertyName, "72-Day");
+                        json.setString("corpusCusip", "");
+                        json.setString("cashManagementBillCMB", "Yes");
+
+                        test.assertEqual(0, store.add(MutableTreasuryDirectSecurity.create(json)));
+                        test.assertEqual(1, store.getCount());
+                        test.assertTrue(store.getOffHeapByteCount() > 0);
+
+                        final OffHeapTreasuryDirectSecurity security = store.get(0);
+                        test.assertEqual("912796CJ6", security.getCusip().await());
+                        test.assertEqual("72-Day", security.getSecurityTerm().await());
+                        test.assertEqual("", security.getString("corpusCusip").await());
+                        test.assertEqual("Yes", security.getString("cashManagementBillCMB").await());
+                        test.assertEqual(DateTime.create(2014, 2, 11), security.getIssueDate().await());
+                        test.assertEqual(TreasuryDirectDates.toEpochDay(2014, 2, 11), security.getIssueEpochDay());
+                        test.assertEqual(TreasuryDirectDates.toEpochDay(2014, 4, 24), security.getMaturityEpochDay());
+                        test.assertEqual(TreasuryDirectDates.unknownEpochDay, security.getAuctionEpochDay());
+                        test.assertEqual("72-Day", security.toJson().getString(TreasuryDirectSecurity.securityTermPropertyName).await());
+                        test.assertEqual(0, store.indexOf("912796CJ6", TreasuryDirectDates.toEpochDay(2014, 2, 11)));
+                        test.assertEqual(-1, store.indexOf("912796CJ6", TreasuryDirectDates.toEpochDay(2014, 2, 12)));
+
+                        test.assertThrows(() -> security.getSecurityType().await(),
+                            new NotFoundException("Could not find a property named \"securityType\"."));
+                        test.assertThrows(() -> security.getString("nope").await(),
+                            new NotFoundException("Could not find a property named \"nope\"."));
+                    }
+                });
+
+                runner.test("with number properties", (Test test) ->
+                {
+                    try (final OffHeapTreasuryDirectSecurityStore store = OffHeapTreasuryDirectSecurityStore.create())
+                    {
+                        final JSONObject json = JSONObject.create();
+                        json.setString(TreasuryDirectSecurity.cusipPropertyName, "912828UN8");
+                        json.setString(TreasuryDirectSecurity.highYieldPropertyName, "2.050");
+                        json.setString(TreasuryDirectSecurity.interestRatePropertyName, "");
+                        json.setString(TreasuryDirectSecurity.highDiscountRatePropertyName, "abc");
+                        store.add(MutableTreasuryDirectSecurity.create(json));
+
+                        final OffHeapTreasuryDirectSecurity security = store.get(0);
+                        test.assertEqual(2.05, security.getHighYield().await());
+                        test.assertThrows(() -> security.getInterestRate().await());
+                        test.assertThrows(() -> security.getHighDiscountRate().await());
+                        test.assertThrows(() -> security.getHighInvestmentRate().await(),
+                            new NotFoundException("Could not find a property named \"highInvestmentRate\"."));
+                    }
+                });
+
+                runner.test("with more securities than fit in one arena chunk", (Test test) ->
+                {
+                    try (final OffHeapTreasuryDirectSecurityStore store = OffHeapTreasuryDirectSecurityStore.create(4096))
+                    {
+                        for (int i = 0; i < 200; ++i)
+                        {
+                            final JSONObject json = JSONObject.create();
+                            json.setString(TreasuryDirectSecurity.cusipPropertyName, "CUSIP" + i);
+                            json.setString("padding", "x".repeat(100));
+                            store.add(MutableTreasuryDirectSecurity.create(json));
+                        }
+                        test.assertEqual(200, store.getCount());
+
+                        final List<String> cusips = List.create();
+                        store.forEach((OffHeapTreasuryDirectSecurity security) -> cusips.add(security.getCusip().await()));
+                        test.assertEqual(200, cusips.getCount());
+                        for (int i = 0; i < 200; ++i)
+                        {
+                            test.assertEqual("CUSIP" + i, cusips.get(i));
+                        }
+                    }
+                });
+            });
+
+            runner.testGroup("get(int)", () ->
+            {
+                runner.test("with empty store", (Test test) ->
+                {
+                    try (final OffHeapTreasuryDirectSecurityStore store = OffHeapTreasuryDirectSecurityStore.create())
+                    {
+                        test.assertThrows(() -> store.get(0));
+                    }
+                });
+            });
+
+            runner.test("close()", (Test test) ->
+            {
+                final OffHeapTreasuryDirectSecurityStore store = OffHeapTreasuryDirectSecurityStore.create();
+                store.add(MutableTreasuryDirectSecurity.create());
+                test.assertFalse(store.isClosed());
+                store.close();
+                test.assertTrue(store.isClosed());
+                test.assertEqual(0, store.getCount());
+                test.assertEqual(0L, store.getOffHeapByteCount());
+                test.assertThrows(() -> store.add(MutableTreasuryDirectSecurity.create()));
+                test.assertThrows(() -> store.get(0));
+                test.assertThrows(() -> store.indexOf("912796CJ6", 0));
+            });
+        });
+    }
+}
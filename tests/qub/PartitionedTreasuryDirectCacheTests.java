@@ -0,0 +1,154 @@
+package qub;
+
+public interface PartitionedTreasuryDirectCacheTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectHashRing.class, () ->
+        {
+            runner.test("getOwner(String) with no nodes", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectHashRing.create().getOwner("key"),
+                    new IllegalStateException("The hash ring doesn't have any nodes."));
+            });
+
+            runner.test("getOwner(String) is the same on every ring", (Test test) ->
+            {
+                final TreasuryDirectHashRing ring1 = TreasuryDirectHashRing.create().addNode("a").addNode("b").addNode("c");
+                final TreasuryDirectHashRing ring2 = TreasuryDirectHashRing.create().addNode("c").addNode("a").addNode("b");
+                for (int i = 0; i < 1000; ++i)
+                {
+                    test.assertEqual(ring1.getOwner("key" + i), ring2.getOwner("key" + i));
+                }
+            });
+
+            runner.test("addNode(String) only moves keys to the new node", (Test test) ->
+            {
+                final int keyCount = 10000;
+                final TreasuryDirectHashRing ring = TreasuryDirectHashRing.create().addNode("a").addNode("b").addNode("c");
+                final String[] owners = new String[keyCount];
+                for (int i = 0; i < keyCount; ++i)
+                {
+                    owners[i] = ring.getOwner("key" + i);
+                }
+
+                ring.addNode("d");
+                int movedCount = 0;
+                for (int i = 0; i < keyCount; ++i)
+                {
+                    final String owner = ring.getOwner("key" + i);
+                    if (!owner.equals(owners[i]))
+                    {
+                        test.assertEqual("d", owner);
+                        ++movedCount;
+                    }
+                }
+                // A quarter of the keys should move, give or take the imbalance of the virtual nodes.
+                test.assertTrue(keyCount / 8 < movedCount && movedCount < keyCount * 3 / 8);
+
+                ring.removeNode("d");
+                for (int i = 0; i < keyCount; ++i)
+                {
+                    test.assertEqual(owners[i], ring.getOwner("key" + i));
+                }
+            });
+        });
+
+        runner.testGroup(PartitionedTreasuryDirectCache.class, () ->
+        {
+            runner.test("with in-process nodes on loopback", (Test test) ->
+            {
+                final java.net.InetAddress loopback = java.net.InetAddress.getLoopbackAddress();
+                final String[] nodeIds = { "node-1", "node-2", "node-3" };
+                final TreasuryDirectCacheNode[] servers = new TreasuryDirectCacheNode[nodeIds.length];
+                final PartitionedTreasuryDirectCache[] caches = new PartitionedTreasuryDirectCache[nodeIds.length];
+                try
+                {
+                    for (int i = 0; i < nodeIds.length; ++i)
+                    {
+                        servers[i] = TreasuryDirectCacheNode.create(MemoryTreasuryDirectCache.create(1024 * 1024)).start(loopback, 0).await();
+                    }
+                    for (int i = 0; i < nodeIds.length; ++i)
+                    {
+                        caches[i] = PartitionedTreasuryDirectCache.create(nodeIds[i], servers[i].getCache());
+                        for (int j = 0; j < nodeIds.length; ++j)
+                        {
+                            if (i != j)
+                            {
+                                caches[i].addNode(nodeIds[j], RemoteTreasuryDirectCache.create(servers[j].getBaseUrl()));
+                            }
+                        }
+                    }
+
+                    final int keyCount = 30;
+                    for (int i = 0; i < keyCount; ++i)
+                    {
+                        caches[0].put("securities/" + i + "/02/11/2014?format=json", TreasuryDirectCacheEntry.create(("value" + i).getBytes(java.nio.charset.StandardCharsets.UTF_8), i));
+                    }
+
+                    // Each key is stored exactly once, on its owner.
+                    int totalCount = 0;
+                    for (int i = 0; i < nodeIds.length; ++i)
+                    {
+                        totalCount += caches[i].getCount();
+                        test.assertTrue(caches[i].getCount() > 0);
+                    }
+                    test.assertEqual(keyCount, totalCount);
+
+                    for (int i = 0; i < keyCount; ++i)
+                    {
+                        final String key = "securities/" + i + "/02/11/2014?format=json";
+                        final TreasuryDirectCacheEntry entry = caches[2].get(key);
+                        test.assertEqual("value" + i, new String(entry.getValue(), java.nio.charset.StandardCharsets.UTF_8));
+                        test.assertEqual((long)i, entry.getFetchedMilliseconds());
+                        test.assertEqual(caches[0].getOwner(key), caches[2].getOwner(key));
+                    }
+                    test.assertEqual((long)keyCount, caches[2].getMetrics().getHitCount());
+                    test.assertNull(caches[1].get("securities/unknown?format=json"));
+
+                    final String removedKey = "securities/0/02/11/2014?format=json";
+                    caches[1].remove(removedKey);
+                    test.assertNull(caches[0].get(removedKey));
+                }
+                finally
+                {
+                    for (final TreasuryDirectCacheNode server : servers)
+                    {
+                        if (server != null)
+                        {
+                            server.close();
+                        }
+                    }
+                }
+            });
+
+            runner.test("with unreachable node", (Test test) ->
+            {
+                final PartitionedTreasuryDirectCache cache = PartitionedTreasuryDirectCache.create("node-1", MemoryTreasuryDirectCache.create(1024 * 1024), TreasuryDirectHashRing.create(16));
+                final TreasuryDirectCacheNode server = TreasuryDirectCacheNode.create(MemoryTreasuryDirectCache.create(1024 * 1024)).start(java.net.InetAddress.getLoopbackAddress(), 0).await();
+                final String baseUrl = server.getBaseUrl();
+                server.close();
+                cache.addNode("node-2", RemoteTreasuryDirectCache.create(baseUrl));
+
+                String remoteKey = null;
+                for (int i = 0; remoteKey == null; ++i)
+                {
+                    if (cache.getOwner("key" + i).equals("node-2"))
+                    {
+                        remoteKey = "key" + i;
+                    }
+                }
+
+                cache.put(remoteKey, TreasuryDirectCacheEntry.create(new byte[] { 1 }, 0));
+                test.assertNull(cache.get(remoteKey));
+                test.assertEqual(2L, cache.getRemoteRequestCount());
+                test.assertEqual(2L, cache.getRemoteFailureCount());
+                test.assertEqual(1L, cache.getMetrics().getMissCount());
+
+                cache.removeNode("node-2");
+                cache.put(remoteKey, TreasuryDirectCacheEntry.create(new byte[] { 1 }, 0));
+                test.assertNotNull(cache.get(remoteKey));
+            });
+        });
+    }
+}
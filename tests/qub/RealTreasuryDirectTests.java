@@ -11,6 +11,76 @@ public interface RealTreasuryDirectTests
                 return RealTreasuryDirect.create(HttpClient.create(test.getNetwork()));
             });
 
+            runner.testGroup("with lazy decoding", () ->
+            {
+                TreasuryDirectTests.test(runner, (Test test) ->
+                {
+                    return RealTreasuryDirect.create(HttpClient.create(test.getNetwork()))
+                        .setLazyDecoding(true);
+                });
+            });
+
+            runner.testGroup("with string dictionary", () ->
+            {
+                TreasuryDirectTests.test(runner, (Test test) ->
+                {
+                    return RealTreasuryDirect.create(HttpClient.create(test.getNetwork()))
+                        .setStringDictionary(TreasuryDirectStringDictionary.create());
+                });
+            });
+
+            runner.testGroup("with in-memory transport", () ->
+            {
+                final String baseUrl = "https://treasurydirect.example.com/TA_WS/";
+                final String billsJson =
+                    "[{\"cusip\":\"912796CJ6\",\"securityType\":\"Bill\",\"issueDate\":\"2014-02-11T00:00:00\"}," +
+                    "{\"cusip\":\"912796CK3\",\"securityType\":\"Bill\",\"issueDate\":\"2014-02-13T00:00:00\"}]";
+
+                final Action2<String,Function1<TreasuryDirectTransport,RealTreasuryDirect>> getSecuritiesByTypeTest = (String decoding, Function1<TreasuryDirectTransport,RealTreasuryDirect> creator) ->
+                {
+                    runner.test("getSecuritiesByType(TreasuryDirectSecurityType) with " + decoding + " decoding", (Test test) ->
+                    {
+                        final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                            .setResponse(baseUrl + "securities/Bill?format=json", billsJson);
+                        final RealTreasuryDirect treasuryDirect = creator.run(transport);
+
+                        final Iterable<TreasuryDirectSecurity> securities = treasuryDirect.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await();
+                        test.assertEqual(Iterable.create("912796CJ6", "912796CK3"), securities.map((TreasuryDirectSecurity security) -> security.getCusip().await()));
+                        test.assertEqual(TreasuryDirectDates.toEpochDay(2014, 2, 13), securities.last().getIssueEpochDay());
+                        test.assertEqual(1, transport.getRequestCount());
+                    });
+                };
+
+                getSecuritiesByTypeTest.run("eager", (TreasuryDirectTransport transport) -> RealTreasuryDirect.createWithTransport(transport, baseUrl));
+                getSecuritiesByTypeTest.run("lazy", (TreasuryDirectTransport transport) -> RealTreasuryDirect.createWithTransport(transport, baseUrl).setLazyDecoding(true));
+                getSecuritiesByTypeTest.run("dictionary", (TreasuryDirectTransport transport) -> RealTreasuryDirect.createWithTransport(transport, baseUrl).setStringDictionary(TreasuryDirectStringDictionary.create()));
+
+                runner.test("getSecurity(String,String,String,String) with no data", (Test test) ->
+                {
+                    final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                        .setResponse(baseUrl + "securities/912796CJ6/02/12/2014?format=json", "No data");
+                    final RealTreasuryDirect treasuryDirect = RealTreasuryDirect.createWithTransport(transport, baseUrl);
+                    test.assertThrows(() -> treasuryDirect.getSecurity("912796CJ6", "02", "12", "2014").await(),
+                        new NotFoundException("No TreasuryDirect security found for CUSIP: 912796CJ6, IssueMonth: 02, IssueDayOfMonth: 12, and IssueYear: 2014."));
+                });
+
+                runner.test("getSecurity(String,String,String,String) with no canned response", (Test test) ->
+                {
+                    final RealTreasuryDirect treasuryDirect = RealTreasuryDirect.createWithTransport(InMemoryTreasuryDirectTransport.create(), baseUrl);
+                    test.assertThrows(() -> treasuryDirect.getSecurity("912796CJ6", "02", "12", "2014").await(),
+                        new NotFoundException("No in-memory TreasuryDirect response found for URL: " + baseUrl + "securities/912796CJ6/02/12/2014?format=json."));
+                });
+            });
+
+            runner.testGroup("createWithTransport(TreasuryDirectTransport)", () ->
+            {
+                runner.test("with null transport", (Test test) ->
+                {
+                    test.assertThrows(() -> RealTreasuryDirect.createWithTransport(null),
+                        new PreConditionFailure("transport cannot be null."));
+                });
+            });
+
             runner.testGroup("create(HttpClient)", () ->
             {
                 runner.test("with null httpClient", (Test test) ->
@@ -42,6 +112,40 @@ public interface RealTreasuryDirectTests
                         new PreConditionFailure("baseUrl cannot be empty."));
                 });
             });
+
+            runner.testGroup("close()", () ->
+            {
+                runner.test("with the default executor", (Test test) ->
+                {
+                    final RealTreasuryDirect treasuryDirect = RealTreasuryDirect.createWithTransport(InMemoryTreasuryDirectTransport.create());
+                    final TreasuryDirectExecutor defaultExecutor = treasuryDirect.getExecutor();
+                    test.assertSame(defaultExecutor, treasuryDirect.getExecutor());
+                    test.assertFalse(defaultExecutor.isClosed());
+
+                    treasuryDirect.close();
+                    test.assertTrue(defaultExecutor.isClosed());
+
+                    final TreasuryDirectExecutor newDefaultExecutor = treasuryDirect.getExecutor();
+                    test.assertFalse(defaultExecutor == newDefaultExecutor);
+                    test.assertFalse(newDefaultExecutor.isClosed());
+                    treasuryDirect.close();
+                });
+
+                runner.test("with a provided executor", (Test test) ->
+                {
+                    try (final TreasuryDirectExecutor executor = TreasuryDirectExecutor.createPlatform(1))
+                    {
+                        final RealTreasuryDirect treasuryDirect = RealTreasuryDirect.createWithTransport(InMemoryTreasuryDirectTransport.create());
+                        final TreasuryDirectExecutor defaultExecutor = treasuryDirect.getExecutor();
+                        treasuryDirect.setExecutor(executor);
+                        test.assertTrue(defaultExecutor.isClosed());
+
+                        treasuryDirect.close();
+                        test.assertFalse(executor.isClosed());
+                        test.assertSame(executor, treasuryDirect.getExecutor());
+                    }
+                });
+            });
         });
     }
 }
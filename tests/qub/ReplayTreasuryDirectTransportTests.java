@@ -0,0 +1,65 @@
+package qub;
+
+public interface ReplayTreasuryDirectTransportTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(ReplayTreasuryDirectTransport.class, () ->
+        {
+            final String baseUrl = "https://treasurydirect.example.com/TA_WS/";
+            final String billsUrl = baseUrl + "securities/Bill?format=json";
+            final String billsJson = "[{\"cusip\":\"912796CJ6\",\"securityType\":\"Bill\"}]";
+
+            runner.test("with recorded archive", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    final java.nio.file.Path archiveFile = folder.resolve("fixtures.tdfx");
+                    final InMemoryTreasuryDirectTransport liveTransport = InMemoryTreasuryDirectTransport.create()
+                        .setResponse(billsUrl, billsJson);
+
+                    try (final RecordingTreasuryDirectTransport recordingTransport = RecordingTreasuryDirectTransport.open(liveTransport, archiveFile).await())
+                    {
+                        final RealTreasuryDirect treasuryDirect = RealTreasuryDirect.createWithTransport(recordingTransport, baseUrl);
+                        test.assertEqual(1, treasuryDirect.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await().getCount());
+                        test.assertEqual(1, recordingTransport.getFixtureCount());
+                    }
+
+                    final List<TreasuryDirectFixture> fixtures = TreasuryDirectFixture.readArchive(archiveFile).await();
+                    test.assertEqual(1, fixtures.getCount());
+                    test.assertEqual(billsUrl, fixtures.first().getUrl());
+                    test.assertEqual(billsJson, new String(fixtures.first().getResponseBody(), java.nio.charset.StandardCharsets.UTF_8));
+
+                    final ReplayTreasuryDirectTransport replayTransport = ReplayTreasuryDirectTransport.open(archiveFile).await()
+                        .setTimeScale(0);
+                    final RealTreasuryDirect treasuryDirect = RealTreasuryDirect.createWithTransport(replayTransport, baseUrl);
+                    for (int i = 0; i < 3; ++i)
+                    {
+                        final Iterable<TreasuryDirectSecurity> securities = treasuryDirect.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await();
+                        test.assertEqual("912796CJ6", securities.first().getCusip().await());
+                    }
+                    test.assertEqual(1, liveTransport.getRequestCount());
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("with URL that wasn't recorded", (Test test) ->
+            {
+                final ReplayTreasuryDirectTransport replayTransport = ReplayTreasuryDirectTransport.create(Iterable.create());
+                final RealTreasuryDirect treasuryDirect = RealTreasuryDirect.createWithTransport(replayTransport, baseUrl);
+                test.assertThrows(() -> treasuryDirect.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await(),
+                    new NotFoundException("No TreasuryDirect fixture found for URL: " + billsUrl + "."));
+            });
+
+            runner.test("setTimeScale(double) with negative", (Test test) ->
+            {
+                final ReplayTreasuryDirectTransport replayTransport = ReplayTreasuryDirectTransport.create(Iterable.create());
+                test.assertThrows(() -> replayTransport.setTimeScale(-1));
+            });
+        });
+    }
+}
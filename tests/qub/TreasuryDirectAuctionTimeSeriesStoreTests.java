@@ -0,0 +1,45 @@
+package qub;
+
+public interface TreasuryDirectAuctionTimeSeriesStoreTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectAuctionTimeSeriesStore.class, () ->
+        {
+            runner.test("create()", (Test test) ->
+            {
+                final TreasuryDirectAuctionTimeSeriesStore store = TreasuryDirectAuctionTimeSeriesStore.create();
+                test.assertEqual(Iterable.create(), store.getSecurityTerms());
+                test.assertThrows(() -> store.getTimeSeries("10-Year").await(),
+                    new NotFoundException("No auction time series found for security term: 10-Year."));
+            });
+
+            runner.test("add(TreasuryDirectSecurity) with null", (Test test) ->
+            {
+                final TreasuryDirectAuctionTimeSeriesStore store = TreasuryDirectAuctionTimeSeriesStore.create();
+                test.assertThrows(() -> store.add(null),
+                    new PreConditionFailure("security cannot be null."));
+            });
+
+            runner.test("addAll(Iterable<TreasuryDirectSecurity>)", (Test test) ->
+            {
+                final TreasuryDirectAuctionTimeSeriesStore store = TreasuryDirectAuctionTimeSeriesStore.create();
+                final TreasuryDirectSecurity withoutTerm = MutableTreasuryDirectSecurity.create(JSONObject.create());
+                final Iterable<TreasuryDirectSecurity> securities = Iterable.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAA9", "securityTerm", "30-Year", "auctionDate", "2020-01-08T00:00:00", "highYield", "2.1"),
+                    MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAB7", "securityTerm", "10-Year", "auctionDate", "2020-01-08T00:00:00", "highYield", "1.8"),
+                    MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAC5", "securityTerm", "10-Year", "auctionDate", "2020-02-12T00:00:00", "highYield", "1.6"),
+                    withoutTerm);
+                test.assertEqual(3, store.addAll(securities));
+                test.assertEqual(0, store.addAll(securities));
+                test.assertEqual(Iterable.create("10-Year", "30-Year"), store.getSecurityTerms());
+
+                final TreasuryDirectAuctionTimeSeries tenYear = store.getTimeSeries("10-Year").await();
+                test.assertEqual("10-Year", tenYear.getSecurityTerm());
+                test.assertEqual(2, tenYear.getCount());
+                test.assertEqual(1.7, tenYear.getMean(TreasuryDirectAuctionMetric.HighYield, 0, 2), 0.000001);
+                test.assertEqual(1, store.getTimeSeries("30-Year").await().getCount());
+            });
+        });
+    }
+}
@@ -0,0 +1,166 @@
+package qub;
+
+public interface TreasuryDirectAuctionTimeSeriesTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectAuctionTimeSeries.class, () ->
+        {
+            runner.test("create(String) with null", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectAuctionTimeSeries.create(null),
+                    new PreConditionFailure("securityTerm cannot be null."));
+            });
+
+            runner.test("create(String) with empty", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectAuctionTimeSeries.create(""),
+                    new PreConditionFailure("securityTerm cannot be empty."));
+            });
+
+            runner.test("add(TreasuryDirectSecurity) with a security that hasn't been auctioned", (Test test) ->
+            {
+                final TreasuryDirectAuctionTimeSeries series = TreasuryDirectAuctionTimeSeries.create("10-Year");
+                test.assertFalse(series.add(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAA9", "securityTerm", "10-Year", "auctionDate", "2020-01-08T00:00:00")));
+                test.assertEqual(0, series.getCount());
+            });
+
+            runner.test("add(TreasuryDirectSecurity) with an invalid CUSIP", (Test test) ->
+            {
+                final TreasuryDirectAuctionTimeSeries series = TreasuryDirectAuctionTimeSeries.create("10-Year");
+                final JSONObject json = JSONObject.create();
+                json.setString(TreasuryDirectSecurity.cusipPropertyName, "NOTACUSIP");
+                json.setString(TreasuryDirectSecurity.auctionDatePropertyName, "2020-01-08T00:00:00");
+                json.setString(TreasuryDirectSecurity.highYieldPropertyName, "1.5");
+                test.assertFalse(series.add(MutableTreasuryDirectSecurity.create(json)));
+                test.assertEqual(0, series.getCount());
+            });
+
+            runner.test("add(TreasuryDirectSecurity) out of order", (Test test) ->
+            {
+                final TreasuryDirectAuctionTimeSeries series = TreasuryDirectAuctionTimeSeries.create("10-Year");
+                test.assertTrue(series.add(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAC5", "securityTerm", "10-Year", "auctionDate", "2020-03-11T00:00:00", "highYield", "3", "bidToCoverRatio", "2.3")));
+                test.assertTrue(series.add(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAA9", "securityTerm", "10-Year", "auctionDate", "2020-01-08T00:00:00", "highYield", "1", "bidToCoverRatio", "2.1")));
+                test.assertTrue(series.add(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAB7", "securityTerm", "10-Year", "auctionDate", "2020-02-12T00:00:00", "highYield", "2")));
+
+                test.assertEqual(3, series.getCount());
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 1, 8), series.getAuctionEpochDay(0));
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 2, 12), series.getAuctionEpochDay(1));
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 3, 11), series.getAuctionEpochDay(2));
+                test.assertEqual(1.0, series.getValue(TreasuryDirectAuctionMetric.HighYield, 0));
+                test.assertEqual(2.0, series.getValue(TreasuryDirectAuctionMetric.HighYield, 1));
+                test.assertEqual(3.0, series.getValue(TreasuryDirectAuctionMetric.HighYield, 2));
+                test.assertTrue(Double.isNaN(series.getValue(TreasuryDirectAuctionMetric.BidToCoverRatio, 1)));
+                test.assertEqual(2.0, series.getMean(TreasuryDirectAuctionMetric.HighYield, 0, 3));
+                test.assertEqual(2.2, series.getMean(TreasuryDirectAuctionMetric.BidToCoverRatio, 0, 3), 0.000001);
+                test.assertEqual(1, series.indexOf(TreasuryDirectDates.toEpochDay(2020, 2, 1)));
+                test.assertEqual(3, series.indexOf(TreasuryDirectDates.toEpochDay(2020, 4, 1)));
+            });
+
+            runner.test("add(TreasuryDirectSecurity) with revised results", (Test test) ->
+            {
+                final TreasuryDirectAuctionTimeSeries series = TreasuryDirectAuctionTimeSeries.create("10-Year");
+                test.assertTrue(series.add(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAA9", "securityTerm", "10-Year", "auctionDate", "2020-01-08T00:00:00", "highYield", "1", "bidToCoverRatio", "2.1")));
+                test.assertTrue(series.add(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAB7", "securityTerm", "10-Year", "auctionDate", "2020-02-12T00:00:00", "highYield", "2", "bidToCoverRatio", "2.2")));
+                test.assertFalse(series.add(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAA9", "securityTerm", "10-Year", "auctionDate", "2020-01-08T00:00:00", "highYield", "1", "bidToCoverRatio", "2.1")));
+                test.assertTrue(series.add(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "91282CAA9", "securityTerm", "10-Year", "auctionDate", "2020-01-08T00:00:00", "highYield", "1.5", "bidToCoverRatio", "2.1")));
+
+                test.assertEqual(2, series.getCount());
+                test.assertEqual(1.5, series.getValue(TreasuryDirectAuctionMetric.HighYield, 0));
+                test.assertEqual(1.75, series.getMean(TreasuryDirectAuctionMetric.HighYield, 0, 2));
+            });
+
+            runner.test("add(TreasuryDirectSecurity) with a Bill and bidder shares", (Test test) ->
+            {
+                final JSONObject json = JSONObject.create();
+                json.setString(TreasuryDirectSecurity.cusipPropertyName, "912796CJ6");
+                json.setString(TreasuryDirectSecurity.auctionDatePropertyName, "2014-02-06T00:00:00");
+                json.setString(TreasuryDirectSecurity.highInvestmentRatePropertyName, "1.55");
+                json.setString(TreasuryDirectSecurity.allocationPercentagePropertyName, "62.5");
+                json.setString(TreasuryDirectSecurity.competitiveAcceptedPropertyName, "40000000000");
+                json.setString(TreasuryDirectSecurity.primaryDealerAcceptedPropertyName, "10000000000");
+                json.setString(TreasuryDirectSecurity.directBidderAcceptedPropertyName, "4000000000");
+                json.setString(TreasuryDirectSecurity.indirectBidderAcceptedPropertyName, "26000000000");
+                final TreasuryDirectAuctionTimeSeries series = TreasuryDirectAuctionTimeSeries.create("13-Week");
+                test.assertTrue(series.add(MutableTreasuryDirectSecurity.create(json)));
+
+                test.assertEqual(1.55, series.getValue(TreasuryDirectAuctionMetric.HighYield, 0));
+                test.assertEqual(62.5, series.getValue(TreasuryDirectAuctionMetric.AllocationPercentage, 0));
+                test.assertEqual(25.0, series.getValue(TreasuryDirectAuctionMetric.PrimaryDealerShare, 0), 0.000001);
+                test.assertEqual(10.0, series.getValue(TreasuryDirectAuctionMetric.DirectBidderShare, 0), 0.000001);
+                test.assertEqual(65.0, series.getValue(TreasuryDirectAuctionMetric.IndirectBidderShare, 0), 0.000001);
+                test.assertTrue(Double.isNaN(series.getValue(TreasuryDirectAuctionMetric.BidToCoverRatio, 0)));
+            });
+
+            runner.test("rolling statistics", (Test test) ->
+            {
+                final TreasuryDirectAuctionTimeSeries series = TreasuryDirectAuctionTimeSeries.create("10-Year");
+                final String[] highYields = { "3", "1", "4", "1", "5" };
+                final String[] auctionDates = { "2020-01-08T00:00:00", "2020-02-12T00:00:00", "2020-03-11T00:00:00", "2020-04-08T00:00:00", "2020-05-06T00:00:00" };
+                for (int i = 0; i < highYields.length; ++i)
+                {
+                    final String cusipPrefix = "91282CA" + (char)('A' + i);
+                    series.add(MutableTreasuryDirectSecurityTests.createSecurity("cusip", cusipPrefix + TreasuryDirectCusip.getCheckDigit(cusipPrefix), "securityTerm", "10-Year", "auctionDate", auctionDates[i], "highYield", highYields[i]));
+                }
+
+                TreasuryDirectAuctionTimeSeriesTests.assertValues(test, new double[] { 3, 2, 2.5, 2.5, 3 },
+                    series.getRollingMeans(TreasuryDirectAuctionMetric.HighYield, 2));
+                TreasuryDirectAuctionTimeSeriesTests.assertValues(test, new double[] { 3, 1, 1, 1, 1 },
+                    series.getRollingMinimums(TreasuryDirectAuctionMetric.HighYield, 2));
+                TreasuryDirectAuctionTimeSeriesTests.assertValues(test, new double[] { 3, 3, 4, 4, 5 },
+                    series.getRollingMaximums(TreasuryDirectAuctionMetric.HighYield, 2));
+                TreasuryDirectAuctionTimeSeriesTests.assertValues(test, new double[] { Double.NaN, java.lang.Math.sqrt(2), java.lang.Math.sqrt(7.0 / 3), java.lang.Math.sqrt(3), java.lang.Math.sqrt(13.0 / 3) },
+                    series.getRollingStandardDeviations(TreasuryDirectAuctionMetric.HighYield, 3));
+                TreasuryDirectAuctionTimeSeriesTests.assertValues(test, new double[] { 3, 2, 2.5, 2.5, 3 },
+                    series.getRollingMeansByDays(TreasuryDirectAuctionMetric.HighYield, 36));
+                TreasuryDirectAuctionTimeSeriesTests.assertValues(test, new double[] { Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN },
+                    series.getRollingMeans(TreasuryDirectAuctionMetric.BidToCoverRatio, 2));
+                test.assertEqual(2.8, series.getMean(TreasuryDirectAuctionMetric.HighYield, 0, 5), 0.000001);
+                test.assertEqual(java.lang.Math.sqrt(3.2), series.getStandardDeviation(TreasuryDirectAuctionMetric.HighYield, 0, 5), 0.000001);
+            });
+
+            runner.test("downsample(TreasuryDirectAuctionMetric,int)", (Test test) ->
+            {
+                final TreasuryDirectAuctionTimeSeries series = TreasuryDirectAuctionTimeSeries.create("10-Year");
+                for (int i = 0; i < 100; ++i)
+                {
+                    final int auctionEpochDay = TreasuryDirectDates.toEpochDay(2000, 1, 5) + i * 28;
+                    final String auctionDate = String.format("%04d-%02d-%02dT00:00:00", TreasuryDirectDates.getYear(auctionEpochDay), TreasuryDirectDates.getMonth(auctionEpochDay), TreasuryDirectDates.getDayOfMonth(auctionEpochDay));
+                    final String cusipPrefix = String.format("91282C%02d", i);
+                    series.add(MutableTreasuryDirectSecurityTests.createSecurity("cusip", cusipPrefix + TreasuryDirectCusip.getCheckDigit(cusipPrefix), "securityTerm", "10-Year", "auctionDate", auctionDate, "highYield", Double.toString(i == 50 ? 20 : i % 7)));
+                }
+
+                final int[] indexes = series.downsample(TreasuryDirectAuctionMetric.HighYield, 10);
+                test.assertEqual(10, indexes.length);
+                test.assertEqual(0, indexes[0]);
+                test.assertEqual(99, indexes[9]);
+                boolean containsSpike = false;
+                for (int i = 1; i < indexes.length; ++i)
+                {
+                    test.assertTrue(indexes[i - 1] < indexes[i]);
+                    containsSpike |= indexes[i] == 50;
+                }
+                test.assertTrue(containsSpike);
+
+                test.assertEqual(100, series.downsample(TreasuryDirectAuctionMetric.HighYield, 200).length);
+                test.assertEqual(0, series.downsample(TreasuryDirectAuctionMetric.BidToCoverRatio, 10).length);
+            });
+        });
+    }
+
+    static void assertValues(Test test, double[] expected, double[] actual)
+    {
+        test.assertEqual(expected.length, actual.length);
+        for (int i = 0; i < expected.length; ++i)
+        {
+            if (Double.isNaN(expected[i]))
+            {
+                test.assertTrue(Double.isNaN(actual[i]));
+            }
+            else
+            {
+                test.assertEqual(expected[i], actual[i], 0.000001);
+            }
+        }
+    }
+}
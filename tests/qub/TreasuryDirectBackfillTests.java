@@ -0,0 +1,228 @@
+package qub;
+
+public interface TreasuryDirectBackfillTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectBackfill.class, () ->
+        {
+            final String baseUrl = "https://treasurydirect.example.com/TA_WS/";
+
+            runner.test("create(TreasuryDirect,TreasuryDirectSecurityJournal,Path) with null treasuryDirect", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                {
+                    test.assertThrows(() -> TreasuryDirectBackfill.create(null, journal, folder.resolve("checkpoint.txt")),
+                        new PreConditionFailure("treasuryDirect cannot be null."));
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("createShards(int,int,TreasuryDirectSecurityType...)", (Test test) ->
+            {
+                final List<TreasuryDirectBackfillShard> shards = TreasuryDirectBackfillShard.createShards(2013, 2014, TreasuryDirectSecurityType.Bill, TreasuryDirectSecurityType.Note);
+                test.assertEqual(Iterable.create("2014/Bill", "2014/Note", "2013/Bill", "2013/Note"), shards.map(TreasuryDirectBackfillShard::toString));
+                for (final TreasuryDirectBackfillShard shard : shards)
+                {
+                    test.assertEqual(shard, TreasuryDirectBackfillShard.parse(shard.toString()).await());
+                }
+            });
+
+            runner.test("createShards(Date,Date,TreasuryDirectSecurityType...)", (Test test) ->
+            {
+                final List<TreasuryDirectBackfillShard> shards = TreasuryDirectBackfillShard.createShards(Date.create(2012, 12, 31), Date.create(2013, 1, 1), TreasuryDirectSecurityType.Bond);
+                test.assertEqual(Iterable.create("2013/Bond", "2012/Bond"), shards.map(TreasuryDirectBackfillShard::toString));
+            });
+
+            runner.test("run(Iterable<TreasuryDirectBackfillShard>)", (Test test) ->
+            {
+                final java.util.concurrent.atomic.AtomicInteger requestCount = new java.util.concurrent.atomic.AtomicInteger();
+                final TreasuryDirectTransport transport = (URL url) ->
+                {
+                    requestCount.incrementAndGet();
+                    return TreasuryDirectBackfillTests.getShardResponse(url);
+                };
+
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    final java.nio.file.Path checkpointFile = folder.resolve("checkpoint.txt");
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder.resolve("journal")).await())
+                    {
+                        final TreasuryDirectBackfill backfill = TreasuryDirectBackfillTests.createBackfill(transport, baseUrl, journal, checkpointFile);
+                        final List<TreasuryDirectBackfillShard> shards = TreasuryDirectBackfillShard.createShards(2013, 2014, TreasuryDirectSecurityType.Bill, TreasuryDirectSecurityType.Note);
+                        test.assertEqual(4, backfill.run(shards).await());
+                        test.assertEqual(4, requestCount.get());
+                        test.assertEqual(4, journal.getCount());
+                        test.assertEqual("2013", journal.getSecurity("C2013Note", "2013-01-15T00:00:00").await().getString(TreasuryDirectSecurity.auctionDateYearPropertyName).await());
+                        test.assertEqual(new java.util.HashSet<>(shards), backfill.getCompletedShards().await());
+                    }
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("run(Iterable<TreasuryDirectBackfillShard>) resumes from the checkpoint file", (Test test) ->
+            {
+                final java.util.concurrent.atomic.AtomicInteger requestCount = new java.util.concurrent.atomic.AtomicInteger();
+                final TreasuryDirectTransport transport = (URL url) ->
+                {
+                    requestCount.incrementAndGet();
+                    return TreasuryDirectBackfillTests.getShardResponse(url);
+                };
+
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    final java.nio.file.Path checkpointFile = folder.resolve("checkpoint.txt");
+                    TreasuryDirectBackfillTests.writeText(checkpointFile, "2014/Bill\n2013/Note\n2013/Bi");
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder.resolve("journal")).await())
+                    {
+                        final TreasuryDirectBackfill backfill = TreasuryDirectBackfillTests.createBackfill(transport, baseUrl, journal, checkpointFile);
+                        test.assertEqual(
+                            new java.util.HashSet<>(java.util.Arrays.asList(TreasuryDirectBackfillShard.create(2014, TreasuryDirectSecurityType.Bill), TreasuryDirectBackfillShard.create(2013, TreasuryDirectSecurityType.Note))),
+                            backfill.getCompletedShards().await());
+
+                        final List<TreasuryDirectBackfillShard> shards = TreasuryDirectBackfillShard.createShards(2013, 2014, TreasuryDirectSecurityType.Bill, TreasuryDirectSecurityType.Note);
+                        test.assertEqual(2, backfill.run(shards).await());
+                        test.assertEqual(2, requestCount.get());
+                        test.assertEqual(2, journal.getCount());
+
+                        test.assertEqual(0, backfill.run(shards).await());
+                        test.assertEqual(2, requestCount.get());
+                    }
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("run(Iterable<TreasuryDirectBackfillShard>) retries a failed shard", (Test test) ->
+            {
+                final java.util.concurrent.atomic.AtomicInteger requestCount = new java.util.concurrent.atomic.AtomicInteger();
+                final TreasuryDirectTransport transport = (URL url) ->
+                {
+                    return requestCount.incrementAndGet() <= 2
+                        ? Result.error(new RuntimeException("Service unavailable."))
+                        : TreasuryDirectBackfillTests.getShardResponse(url);
+                };
+
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    final java.nio.file.Path checkpointFile = folder.resolve("checkpoint.txt");
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder.resolve("journal")).await())
+                    {
+                        final TreasuryDirectBackfill backfill = TreasuryDirectBackfillTests.createBackfill(transport, baseUrl, journal, checkpointFile);
+                        test.assertEqual(1, backfill.run(Iterable.create(TreasuryDirectBackfillShard.create(2014, TreasuryDirectSecurityType.Bill))).await());
+                        test.assertEqual(3, requestCount.get());
+                        test.assertEqual(1, journal.getCount());
+                    }
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("run(Iterable<TreasuryDirectBackfillShard>) with a shard that fails every attempt", (Test test) ->
+            {
+                final java.util.concurrent.atomic.AtomicInteger requestCount = new java.util.concurrent.atomic.AtomicInteger();
+                final TreasuryDirectTransport transport = (URL url) ->
+                {
+                    requestCount.incrementAndGet();
+                    return url.toString().contains("securityType=Note")
+                        ? Result.error(new RuntimeException("Service unavailable."))
+                        : TreasuryDirectBackfillTests.getShardResponse(url);
+                };
+
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    final java.nio.file.Path checkpointFile = folder.resolve("checkpoint.txt");
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder.resolve("journal")).await())
+                    {
+                        final TreasuryDirectBackfill backfill = TreasuryDirectBackfillTests.createBackfill(transport, baseUrl, journal, checkpointFile)
+                            .setMaximumAttempts(2);
+                        test.assertThrows(() -> backfill.run(TreasuryDirectBackfillShard.createShards(2014, 2014, TreasuryDirectSecurityType.Bill, TreasuryDirectSecurityType.Note)).await(),
+                            new RuntimeException("Service unavailable."));
+                        test.assertEqual(3, requestCount.get());
+                        test.assertEqual(
+                            new java.util.HashSet<>(java.util.Arrays.asList(TreasuryDirectBackfillShard.create(2014, TreasuryDirectSecurityType.Bill))),
+                            backfill.getCompletedShards().await());
+                    }
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("getRetryDelayMilliseconds(int)", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                {
+                    final TreasuryDirectBackfill backfill = TreasuryDirectBackfill.create(RealTreasuryDirect.createWithTransport(InMemoryTreasuryDirectTransport.create(), baseUrl), journal, folder.resolve("checkpoint.txt"))
+                        .setInitialRetryDelayMilliseconds(100)
+                        .setMaximumRetryDelayMilliseconds(1000);
+                    test.assertThrows(() -> backfill.getRetryDelayMilliseconds(0),
+                        new PreConditionFailure("failedAttempt (0) must be greater than or equal to 1."));
+                    test.assertEqual(100L, backfill.getRetryDelayMilliseconds(1));
+                    test.assertEqual(200L, backfill.getRetryDelayMilliseconds(2));
+                    test.assertEqual(400L, backfill.getRetryDelayMilliseconds(3));
+                    test.assertEqual(800L, backfill.getRetryDelayMilliseconds(4));
+                    test.assertEqual(1000L, backfill.getRetryDelayMilliseconds(5));
+                    test.assertEqual(1000L, backfill.getRetryDelayMilliseconds(100));
+
+                    backfill.setMaximumRetryDelayMilliseconds(Long.MAX_VALUE);
+                    test.assertEqual(Long.MAX_VALUE, backfill.getRetryDelayMilliseconds(100));
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+        });
+    }
+
+    static TreasuryDirectBackfill createBackfill(TreasuryDirectTransport transport, String baseUrl, TreasuryDirectSecurityJournal journal, java.nio.file.Path checkpointFile)
+    {
+        return TreasuryDirectBackfill.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), journal, checkpointFile)
+            .setWorkerCount(2)
+            .setInitialRetryDelayMilliseconds(1)
+            .setRateLimiter(TreasuryDirectRateLimiter.create(1000, 100));
+    }
+
+    static void writeText(java.nio.file.Path file, String text)
+    {
+        try
+        {
+            java.nio.file.Files.write(file, text.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get a search response that contains one security for the shard in the provided search URL.
+     */
+    static Result<byte[]> getShardResponse(URL url)
+    {
+        final String urlString = url.toString();
+        final String year = urlString.replaceAll(".*auctionDateYear=(\\d+).*", "$1");
+        final String securityType = urlString.replaceAll(".*securityType=(\\w+).*", "$1");
+        final String json = "[{\"cusip\":\"C" + year + securityType + "\",\"securityType\":\"" + securityType + "\"," +
+            "\"issueDate\":\"" + year + "-01-15T00:00:00\",\"auctionDateYear\":\"" + year + "\"}]";
+        return Result.success(json.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
+}
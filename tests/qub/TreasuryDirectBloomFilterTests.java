@@ -0,0 +1,66 @@
+package qub;
+
+public interface TreasuryDirectBloomFilterTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectBloomFilter.class, () ->
+        {
+            runner.test("create(int,double) with invalid falsePositiveRate", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectBloomFilter.create(100, 0.9));
+            });
+
+            runner.test("create(int,double)", (Test test) ->
+            {
+                final TreasuryDirectBloomFilter filter = TreasuryDirectBloomFilter.create(100, 0.01);
+                test.assertEqual(0, filter.getCount());
+                test.assertEqual(TreasuryDirectDates.unknownEpochDay, filter.getLatestIssueEpochDay());
+                test.assertFalse(filter.mightContain("912796CJ6", TreasuryDirectDates.toEpochDay(2014, 2, 11)));
+            });
+
+            runner.test("add(String,int)", (Test test) ->
+            {
+                final int issueEpochDay = TreasuryDirectDates.toEpochDay(2014, 2, 11);
+                final TreasuryDirectBloomFilter filter = TreasuryDirectBloomFilter.create(100, 0.01)
+                    .add("912796CJ6", issueEpochDay);
+                test.assertEqual(1, filter.getCount());
+                test.assertEqual(issueEpochDay, filter.getLatestIssueEpochDay());
+                test.assertTrue(filter.mightContain("912796CJ6", issueEpochDay));
+                test.assertTrue(filter.mightContain("912796cj6", issueEpochDay));
+                test.assertFalse(filter.mightContain("912796CJ6", issueEpochDay + 1));
+            });
+
+            runner.test("create(Iterable<TreasuryDirectSecurity>,double)", (Test test) ->
+            {
+                final byte[] json = "[{\"cusip\":\"912796CJ6\",\"issueDate\":\"2014-02-11T00:00:00\"},{\"cusip\":\"912828YK0\",\"issueDate\":\"2019-10-15T00:00:00\"},{\"cusip\":\"912796CK3\"}]"
+                    .getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                final TreasuryDirectBloomFilter filter = TreasuryDirectBloomFilter.create(LazyTreasuryDirectSecurity.createArray(json), 0.01);
+                test.assertEqual(2, filter.getCount());
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2019, 10, 15), filter.getLatestIssueEpochDay());
+                test.assertTrue(filter.mightContain("912828YK0", TreasuryDirectDates.toEpochDay(2019, 10, 15)));
+            });
+
+            runner.test("false positive rate", (Test test) ->
+            {
+                final int count = 10000;
+                final TreasuryDirectBloomFilter filter = TreasuryDirectBloomFilter.create(count, 0.01);
+                for (int i = 0; i < count; ++i)
+                {
+                    filter.add("KNOWN" + i, 16000 + (i % 365));
+                }
+
+                int falsePositiveCount = 0;
+                for (int i = 0; i < count; ++i)
+                {
+                    test.assertTrue(filter.mightContain("KNOWN" + i, 16000 + (i % 365)));
+                    if (filter.mightContain("UNKNOWN" + i, 16000 + (i % 365)))
+                    {
+                        ++falsePositiveCount;
+                    }
+                }
+                test.assertTrue(falsePositiveCount < count * 0.02);
+            });
+        });
+    }
+}
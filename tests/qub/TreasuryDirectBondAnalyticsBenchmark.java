@@ -0,0 +1,82 @@
+package qub;
+
+/**
+ * Measures how long TreasuryDirectBondAnalytics takes to price, and to solve for the yields of, a
+ * portfolio of synthetic Notes, Bonds, and Bills, both on one thread and split across the common
+ * fork-join pool. Times are reported per 100,000 securities.
+ */
+public class TreasuryDirectBondAnalyticsBenchmark
+{
+    public static void main(String[] args)
+    {
+        final int securityCount = args.length > 0 ? java.lang.Integer.parseInt(args[0]) : 100000;
+        final int iterationCount = args.length > 1 ? java.lang.Integer.parseInt(args[1]) : 20;
+
+        final int settlementEpochDay = TreasuryDirectDates.toEpochDay(2020, 5, 15);
+        final TreasuryDirectSecurityColumns columns = TreasuryDirectSecurityColumns.create(TreasuryDirectBondAnalyticsBenchmark.createSecurities(securityCount, settlementEpochDay));
+        final double[] cleanPrices = TreasuryDirectBondAnalytics.create(columns).computeFromAuctionRates(settlementEpochDay).getCleanPrices().clone();
+
+        for (final boolean parallel : new boolean[] { false, true })
+        {
+            final TreasuryDirectBondAnalytics analytics = TreasuryDirectBondAnalytics.create(columns).setParallel(parallel);
+            final String mode = parallel ? "parallel" : "sequential";
+            TreasuryDirectBondAnalyticsBenchmark.run("price from yields (" + mode + ")", securityCount, iterationCount,
+                () -> analytics.computeFromAuctionRates(settlementEpochDay));
+            TreasuryDirectBondAnalyticsBenchmark.run("yields from prices (" + mode + ")", securityCount, iterationCount,
+                () -> analytics.computeFromCleanPrices(settlementEpochDay, cleanPrices));
+        }
+    }
+
+    private static void run(String name, int securityCount, int iterationCount, Action0 action)
+    {
+        // Warm up the JIT before measuring.
+        for (int i = 0; i < iterationCount; ++i)
+        {
+            action.run();
+        }
+
+        final long startNanoseconds = System.nanoTime();
+        for (int i = 0; i < iterationCount; ++i)
+        {
+            action.run();
+        }
+        final double milliseconds = (System.nanoTime() - startNanoseconds) / 1_000_000.0 / iterationCount;
+        System.out.println(String.format("%-32s %8d securities in %8.3f ms = %8.3f ms per 100k securities", name, securityCount, milliseconds, milliseconds * 100000 / securityCount));
+    }
+
+    private static Iterable<TreasuryDirectSecurity> createSecurities(int securityCount, int settlementEpochDay)
+    {
+        final java.util.Random random = new java.util.Random(42);
+        final List<TreasuryDirectSecurity> result = List.create();
+        for (int i = 0; i < securityCount; ++i)
+        {
+            final JSONObject json = JSONObject.create();
+            final int issueEpochDay = settlementEpochDay - 1 - random.nextInt(3650);
+            final String rate = String.format("%.3f", 0.5 + random.nextDouble() * 4);
+            json.setString(TreasuryDirectSecurity.issueDatePropertyName, TreasuryDirectBondAnalyticsBenchmark.formatDate(issueEpochDay));
+            switch (i % 3)
+            {
+                case 0:
+                    json.setString(TreasuryDirectSecurity.securityTypePropertyName, "Bill");
+                    json.setString(TreasuryDirectSecurity.maturityDatePropertyName, TreasuryDirectBondAnalyticsBenchmark.formatDate(settlementEpochDay + 1 + random.nextInt(364)));
+                    json.setString(TreasuryDirectSecurity.highDiscountRatePropertyName, rate);
+                    break;
+
+                default:
+                    final int termYears = i % 3 == 1 ? 10 : 30;
+                    json.setString(TreasuryDirectSecurity.securityTypePropertyName, termYears == 10 ? "Note" : "Bond");
+                    json.setString(TreasuryDirectSecurity.maturityDatePropertyName, TreasuryDirectBondAnalyticsBenchmark.formatDate(issueEpochDay + termYears * 365));
+                    json.setString(TreasuryDirectSecurity.interestRatePropertyName, rate);
+                    json.setString(TreasuryDirectSecurity.highYieldPropertyName, rate);
+                    break;
+            }
+            result.add(MutableTreasuryDirectSecurity.create(json));
+        }
+        return result;
+    }
+
+    private static String formatDate(int epochDay)
+    {
+        return String.format("%04d-%02d-%02dT00:00:00", TreasuryDirectDates.getYear(epochDay), TreasuryDirectDates.getMonth(epochDay), TreasuryDirectDates.getDayOfMonth(epochDay));
+    }
+}
@@ -0,0 +1,99 @@
+package qub;
+
+public interface TreasuryDirectBondAnalyticsTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectBondAnalytics.class, () ->
+        {
+            final Iterable<TreasuryDirectSecurity> securities = Iterable.create(
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "issueDate", "2020-02-15T00:00:00", "maturityDate", "2030-02-15T00:00:00", "interestRate", "1.500", "highYield", "1.500"),
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "issueDate", "2020-02-29T00:00:00", "maturityDate", "2022-02-28T00:00:00", "interestRate", "1.125", "highYield", "1.200"),
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "issueDate", "2020-01-07T00:00:00", "maturityDate", "2020-04-07T00:00:00", "highInvestmentRate", "1.525", "highDiscountRate", "1.500"),
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "issueDate", "2020-01-07T00:00:00", "maturityDate", "2021-01-05T00:00:00", "highInvestmentRate", "1.537", "highDiscountRate", "1.500"),
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "FRN", "issueDate", "2020-01-31T00:00:00", "maturityDate", "2022-01-31T00:00:00"));
+            final int settlementEpochDay = TreasuryDirectDates.toEpochDay(2020, 5, 15);
+
+            runner.test("create(Iterable<TreasuryDirectSecurity>) with null", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectBondAnalytics.create((Iterable<TreasuryDirectSecurity>)null),
+                    new PreConditionFailure("securities cannot be null."));
+            });
+
+            runner.test("computeFromAuctionRates(int)", (Test test) ->
+            {
+                final TreasuryDirectBondAnalytics analytics = TreasuryDirectBondAnalytics.create(securities)
+                    .computeFromAuctionRates(TreasuryDirectDates.toEpochDay(2020, 2, 15));
+
+                // A Note that settles on a coupon date at a yield equal to its coupon is priced at par.
+                test.assertEqual(100, analytics.getCleanPrices()[0], 0.000000001);
+                test.assertEqual(0, analytics.getAccruedInterests()[0], 0.000000001);
+                test.assertEqual(1.5, analytics.getYields()[0]);
+                test.assertEqual(analytics.getMacaulayDurations()[0] / 1.0075, analytics.getModifiedDurations()[0], 0.000000001);
+
+                // 52 days to maturity at a 1.5% discount rate.
+                test.assertEqual(100 * (1 - 0.015 * 52 / 360), analytics.getCleanPrices()[2], 0.000000001);
+                test.assertEqual(analytics.getCleanPrices()[2], analytics.getDirtyPrices()[2]);
+                test.assertEqual(0, analytics.getAccruedInterests()[2], 0.0);
+                test.assertEqual(52 / 365.0, analytics.getMacaulayDurations()[2], 0.000000001);
+
+                test.assertTrue(Double.isNaN(analytics.getCleanPrices()[4]));
+                test.assertTrue(Double.isNaN(analytics.getYields()[4]));
+            });
+
+            runner.test("computeFromYields(int,double[])", (Test test) ->
+            {
+                final TreasuryDirectBondAnalytics analytics = TreasuryDirectBondAnalytics.create(securities)
+                    .computeFromYields(settlementEpochDay, new double[] { 2, 2, 2, 2, 2 });
+
+                // 90 of the 182 days between February 15 and August 15 have accrued.
+                test.assertEqual(0.75 * 90 / 182, analytics.getAccruedInterests()[0], 0.000000001);
+                test.assertEqual(analytics.getCleanPrices()[0] + analytics.getAccruedInterests()[0], analytics.getDirtyPrices()[0], 0.000000001);
+                test.assertTrue(analytics.getCleanPrices()[0] < 100);
+
+                // Coupons of securities that mature on the last day of a month are paid on the last day of a month.
+                test.assertEqual(0.5625 * 76 / 184, analytics.getAccruedInterests()[1], 0.000000001);
+
+                // Bills that have already matured have no price.
+                test.assertTrue(Double.isNaN(analytics.getCleanPrices()[2]));
+                // Bills with more than half a year to maturity use the compounded bond-equivalent yield.
+                final double years = 235 / 365.0;
+                test.assertEqual(100 / (1 + 0.02 * years + (years / 2 - 0.25) * 0.02 * 0.02), analytics.getCleanPrices()[3], 0.000000001);
+            });
+
+            runner.test("computeFromCleanPrices(int,double[])", (Test test) ->
+            {
+                final double[] yields = new double[] { 0.75, 3.1, 1.9, 0.4, 2 };
+                final TreasuryDirectBondAnalytics analytics = TreasuryDirectBondAnalytics.create(securities)
+                    .computeFromYields(settlementEpochDay, yields);
+                final double[] cleanPrices = analytics.getCleanPrices().clone();
+
+                analytics.computeFromCleanPrices(settlementEpochDay, cleanPrices);
+                test.assertEqual(0.75, analytics.getYields()[0], 0.00000001);
+                test.assertEqual(3.1, analytics.getYields()[1], 0.00000001);
+                test.assertTrue(Double.isNaN(analytics.getYields()[2]));
+                test.assertEqual(0.4, analytics.getYields()[3], 0.00000001);
+                test.assertTrue(Double.isNaN(analytics.getYields()[4]));
+            });
+
+            runner.test("setParallel(boolean)", (Test test) ->
+            {
+                final List<TreasuryDirectSecurity> manySecurities = List.create();
+                for (int i = 0; i < 10000; ++i)
+                {
+                    final int maturityYear = 2021 + (i % 30);
+                    manySecurities.add(MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bond", "issueDate", "2020-02-15T00:00:00", "maturityDate", maturityYear + "-02-15T00:00:00", "interestRate", "2.000", "highYield", Double.toString(1 + (i % 300) / 100.0)));
+                }
+                final TreasuryDirectSecurityColumns columns = TreasuryDirectSecurityColumns.create(manySecurities);
+
+                final TreasuryDirectBondAnalytics sequential = TreasuryDirectBondAnalytics.create(columns).setParallel(false).computeFromAuctionRates(settlementEpochDay);
+                final TreasuryDirectBondAnalytics parallel = TreasuryDirectBondAnalytics.create(columns).setParallel(true).computeFromAuctionRates(settlementEpochDay);
+                for (int i = 0; i < columns.getCount(); ++i)
+                {
+                    test.assertEqual(sequential.getCleanPrices()[i], parallel.getCleanPrices()[i]);
+                    test.assertEqual(sequential.getModifiedDurations()[i], parallel.getModifiedDurations()[i]);
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package qub;
+
+public interface TreasuryDirectCashFlowScheduleTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectCashFlowSchedule.class, () ->
+        {
+            runner.test("create(TreasuryDirectSecurity) with null", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectCashFlowSchedule.create(null),
+                    new PreConditionFailure("security cannot be null."));
+            });
+
+            runner.test("with Note", (Test test) ->
+            {
+                final TreasuryDirectSecurity note = MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "issueDate", "2020-02-18T00:00:00", "maturityDate", "2030-02-15T00:00:00", "interestRate", "1.500");
+                final TreasuryDirectCashFlowSchedule schedule = TreasuryDirectCashFlowSchedule.create(note);
+                test.assertEqual(20, schedule.getCount());
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 8, 15), schedule.getPaymentEpochDay(0));
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2021, 2, 15), schedule.getPaymentEpochDay(1));
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2030, 2, 15), schedule.getPaymentEpochDay(19));
+                test.assertEqual(0.75, schedule.getInterest(1));
+                test.assertEqual(0.0, schedule.getPrincipal(18));
+                test.assertEqual(100.0, schedule.getPrincipal(19));
+                test.assertEqual(100.75, schedule.get(19).getAmount());
+            });
+
+            runner.test("with dated date", (Test test) ->
+            {
+                final TreasuryDirectSecurity note = MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "issueDate", "2020-02-18T00:00:00", "maturityDate", "2030-02-15T00:00:00", "interestRate", "1.500",
+                    TreasuryDirectCashFlowSchedule.datedDatePropertyName, "2020-02-15T00:00:00");
+                final TreasuryDirectCashFlowSchedule schedule = TreasuryDirectCashFlowSchedule.create(note);
+
+                // Interest accrues from the dated date, so the first payment is a full coupon.
+                test.assertEqual(0.75, schedule.getInterest(0));
+            });
+
+            runner.test("with short first period", (Test test) ->
+            {
+                final TreasuryDirectCashFlowSchedule schedule = TreasuryDirectCashFlowSchedule.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "issueDate", "2020-03-02T00:00:00", "maturityDate", "2022-02-28T00:00:00", "interestRate", "1.125"));
+                test.assertEqual(4, schedule.getCount());
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 8, 31), schedule.getPaymentEpochDay(0));
+                test.assertEqual(0.5625 * 182 / 184, schedule.getInterest(0), 0.000000001);
+                test.assertEqual(0.5625, schedule.getInterest(1));
+            });
+
+            runner.test("with first interest payment date", (Test test) ->
+            {
+                final TreasuryDirectCashFlowSchedule schedule = TreasuryDirectCashFlowSchedule.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "issueDate", "2020-01-15T00:00:00", "maturityDate", "2025-08-15T00:00:00", "interestRate", "1.500",
+                        TreasuryDirectCashFlowSchedule.firstInterestPaymentDatePropertyName, "2020-08-15T00:00:00"));
+                test.assertEqual(11, schedule.getCount());
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 8, 15), schedule.getPaymentEpochDay(0));
+
+                // A long first period: a full period plus January 15 to February 15.
+                test.assertEqual(0.75 * (1 + 31.0 / 184), schedule.getInterest(0), 0.000000001);
+            });
+
+            runner.test("with Bill", (Test test) ->
+            {
+                final TreasuryDirectCashFlowSchedule schedule = TreasuryDirectCashFlowSchedule.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "issueDate", "2020-01-07T00:00:00", "maturityDate", "2020-04-07T00:00:00"));
+                test.assertEqual(1, schedule.getCount());
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 4, 7), schedule.getPaymentEpochDay(0));
+                test.assertEqual(0.0, schedule.getInterest(0));
+                test.assertEqual(100.0, schedule.getPrincipal(0));
+            });
+
+            runner.test("with FRN", (Test test) ->
+            {
+                final TreasuryDirectSecurity frn = MutableTreasuryDirectSecurityTests.createSecurity("securityType", "FRN", "issueDate", "2020-01-31T00:00:00", "maturityDate", "2022-01-31T00:00:00",
+                    TreasuryDirectCashFlowSchedule.spreadPropertyName, "0.150000");
+
+                final TreasuryDirectCashFlowSchedule unknownIndex = TreasuryDirectCashFlowSchedule.create(frn);
+                test.assertEqual(8, unknownIndex.getCount());
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 4, 30), unknownIndex.getPaymentEpochDay(0));
+                test.assertTrue(Double.isNaN(unknownIndex.getInterest(0)));
+
+                final TreasuryDirectCashFlowSchedule projected = TreasuryDirectCashFlowSchedule.create(frn, 1.0);
+                test.assertEqual(1.15 * 90 / 360, projected.getInterest(0), 0.000000001);
+                test.assertEqual(1.15 * 92 / 360, projected.getInterest(1), 0.000000001);
+            });
+
+            runner.test("with no maturity date", (Test test) ->
+            {
+                final JSONObject json = JSONObject.create();
+                json.setString(TreasuryDirectSecurity.securityTypePropertyName, "Note");
+                test.assertEqual(0, TreasuryDirectCashFlowSchedule.create(MutableTreasuryDirectSecurity.create(json)).getCount());
+            });
+
+            runner.test("iterator()", (Test test) ->
+            {
+                final TreasuryDirectCashFlowSchedule schedule = TreasuryDirectCashFlowSchedule.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "issueDate", "2020-03-02T00:00:00", "maturityDate", "2022-02-28T00:00:00", "interestRate", "1.125"));
+                int index = 0;
+                for (final TreasuryDirectCashFlow cashFlow : schedule)
+                {
+                    test.assertEqual(schedule.getPaymentEpochDay(index), cashFlow.getPaymentEpochDay());
+                    test.assertEqual(schedule.getInterest(index), cashFlow.getInterest());
+                    ++index;
+                }
+                test.assertEqual(schedule.getCount(), index);
+            });
+
+            runner.test("getFirstIndexOnOrAfter(int)", (Test test) ->
+            {
+                final TreasuryDirectCashFlowSchedule schedule = TreasuryDirectCashFlowSchedule.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "issueDate", "2020-02-18T00:00:00", "maturityDate", "2030-02-15T00:00:00", "interestRate", "1.500"));
+                test.assertEqual(0, schedule.getFirstIndexOnOrAfter(TreasuryDirectDates.toEpochDay(2019, 1, 1)));
+                test.assertEqual(0, schedule.getFirstIndexOnOrAfter(TreasuryDirectDates.toEpochDay(2020, 8, 15)));
+                test.assertEqual(1, schedule.getFirstIndexOnOrAfter(TreasuryDirectDates.toEpochDay(2020, 8, 16)));
+                test.assertEqual(19, schedule.getFirstIndexOnOrAfter(TreasuryDirectDates.toEpochDay(2030, 2, 15)));
+                test.assertEqual(20, schedule.getFirstIndexOnOrAfter(TreasuryDirectDates.toEpochDay(2030, 2, 16)));
+            });
+        });
+    }
+}
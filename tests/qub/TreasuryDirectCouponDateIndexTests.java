@@ -0,0 +1,68 @@
+package qub;
+
+public interface TreasuryDirectCouponDateIndexTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectCouponDateIndex.class, () ->
+        {
+            runner.test("create(Iterable<TreasuryDirectSecurity>) with null", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectCouponDateIndex.create(null),
+                    new PreConditionFailure("securities cannot be null."));
+            });
+
+            runner.test("with no securities", (Test test) ->
+            {
+                final TreasuryDirectCouponDateIndex index = TreasuryDirectCouponDateIndex.create(Iterable.create());
+                test.assertEqual(0, index.getSecurityCount());
+                test.assertEqual(0, index.getPaymentCount());
+                test.assertEqual(0, index.getPaymentCount(TreasuryDirectDates.toEpochDay(2020, 8, 15)));
+                test.assertEqual(0, index.getCashFlows(TreasuryDirectDates.toEpochDay(2020, 8, 15)).getCount());
+            });
+
+            runner.test("with securities", (Test test) ->
+            {
+                final TreasuryDirectSecurity note1 = MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "issueDate", "2020-02-18T00:00:00", "maturityDate", "2030-02-15T00:00:00", "interestRate", "1.500");
+                final TreasuryDirectSecurity note2 = MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "issueDate", "2020-03-02T00:00:00", "maturityDate", "2022-02-28T00:00:00", "interestRate", "1.125");
+                final TreasuryDirectSecurity bond = MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bond", "issueDate", "2020-02-18T00:00:00", "maturityDate", "2050-02-15T00:00:00", "interestRate", "2.000");
+                final TreasuryDirectSecurity bill = MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "issueDate", "2020-01-07T00:00:00", "maturityDate", "2020-04-07T00:00:00");
+                final TreasuryDirectSecurity frn = MutableTreasuryDirectSecurityTests.createSecurity("securityType", "FRN", "issueDate", "2020-01-31T00:00:00", "maturityDate", "2022-01-31T00:00:00");
+                final TreasuryDirectCouponDateIndex index = TreasuryDirectCouponDateIndex.create(Iterable.create(note1, note2, bond, bill, frn));
+                test.assertEqual(5, index.getSecurityCount());
+                test.assertEqual(20 + 4 + 60 + 1 + 8, index.getPaymentCount());
+
+                final int august15 = TreasuryDirectDates.toEpochDay(2020, 8, 15);
+                test.assertEqual(2, index.getPaymentCount(august15));
+                final List<TreasuryDirectSecurity> couponSecurities = index.getCouponSecurities(august15);
+                test.assertEqual(2, couponSecurities.getCount());
+                test.assertSame(note1, couponSecurities.get(0));
+                test.assertSame(bond, couponSecurities.get(1));
+                // Both were issued three days after the start of their first period.
+                test.assertEqual((0.75 + 1.0) * 179 / 182, index.getTotalAmount(august15), 0.000000001);
+
+                final int april7 = TreasuryDirectDates.toEpochDay(2020, 4, 7);
+                test.assertEqual(0, index.getCouponSecurities(april7).getCount());
+                final List<TreasuryDirectCashFlow> billCashFlows = index.getCashFlows(april7);
+                test.assertEqual(1, billCashFlows.getCount());
+                test.assertSame(bill, billCashFlows.get(0).getSecurity());
+                test.assertEqual(100.0, billCashFlows.get(0).getPrincipal());
+
+                // FRN interest isn't known, but the FRN still pays a coupon.
+                final int april30 = TreasuryDirectDates.toEpochDay(2020, 4, 30);
+                test.assertEqual(1, index.getCouponSecurities(april30).getCount());
+                test.assertEqual(0.0, index.getTotalAmount(april30));
+
+                test.assertEqual(0, index.getPaymentCount(TreasuryDirectDates.toEpochDay(2020, 8, 14)));
+                test.assertEqual(0, index.getPaymentCount(TreasuryDirectDates.toEpochDay(1990, 1, 1)));
+                test.assertEqual(0, index.getPaymentCount(TreasuryDirectDates.toEpochDay(2060, 1, 1)));
+                test.assertEqual(0, index.getPaymentCount(TreasuryDirectDates.unknownEpochDay));
+
+                final int maturity = TreasuryDirectDates.toEpochDay(2050, 2, 15);
+                final List<TreasuryDirectCashFlow> maturityCashFlows = index.getCashFlows(maturity);
+                test.assertEqual(1, maturityCashFlows.getCount());
+                test.assertEqual(101.0, maturityCashFlows.get(0).getAmount());
+            });
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package qub;
+
+public interface TreasuryDirectCusipTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectCusip.class, () ->
+        {
+            runner.testGroup("isValid(CharSequence)", () ->
+            {
+                final Action2<String,Boolean> isValidTest = (String cusip, Boolean expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(cusip), (Test test) ->
+                    {
+                        test.assertEqual(expected, TreasuryDirectCusip.isValid(cusip));
+                    });
+                };
+
+                isValidTest.run(null, false);
+                isValidTest.run("", false);
+                isValidTest.run("912796CJ", false);
+                isValidTest.run("912796CJ60", false);
+                isValidTest.run("912796CJ5", false);
+                isValidTest.run("912796C-6", false);
+                isValidTest.run("912796CJ6", true);
+                isValidTest.run("912796cj6", true);
+                isValidTest.run("912828YK0", true);
+                isValidTest.run("912810SP4", true);
+                isValidTest.run("037833100", true);
+            });
+
+            runner.testGroup("encode(CharSequence) and decode(long)", () ->
+            {
+                final Action1<String> roundTripTest = (String cusip) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(cusip), (Test test) ->
+                    {
+                        final long packedCusip = TreasuryDirectCusip.encode(cusip);
+                        test.assertTrue(0 <= packedCusip && packedCusip <= TreasuryDirectCusip.getMaximumPackedCusip());
+                        test.assertEqual(cusip.toUpperCase(), TreasuryDirectCusip.decode(packedCusip));
+                    });
+                };
+
+                roundTripTest.run("000000000");
+                roundTripTest.run("912796CJ6");
+                roundTripTest.run("912796cj6");
+                roundTripTest.run("912797JR9");
+
+                runner.test("with invalid check digit", (Test test) ->
+                {
+                    test.assertEqual(TreasuryDirectCusip.invalid, TreasuryDirectCusip.encode("912796CJ5"));
+                });
+
+                runner.test("with largest CUSIP", (Test test) ->
+                {
+                    final String cusip = TreasuryDirectCusip.decode(TreasuryDirectCusip.getMaximumPackedCusip());
+                    test.assertEqual("########", cusip.substring(0, 8));
+                    test.assertEqual(TreasuryDirectCusip.getMaximumPackedCusip(), TreasuryDirectCusip.encode(cusip));
+                });
+            });
+
+            runner.testGroup("getSecurityKey(CharSequence,int)", () ->
+            {
+                runner.test("with unknown issue date", (Test test) ->
+                {
+                    test.assertEqual(TreasuryDirectCusip.invalid, TreasuryDirectCusip.getSecurityKey("912796CJ6", TreasuryDirectDates.unknownEpochDay));
+                });
+
+                runner.test("with invalid CUSIP", (Test test) ->
+                {
+                    test.assertEqual(TreasuryDirectCusip.invalid, TreasuryDirectCusip.getSecurityKey("CUSIP1", 0));
+                });
+
+                final Action2<String,Integer> roundTripTest = (String cusip, Integer issueEpochDay) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(cusip) + " and " + issueEpochDay, (Test test) ->
+                    {
+                        final long securityKey = TreasuryDirectCusip.getSecurityKey(cusip, issueEpochDay);
+                        test.assertTrue(securityKey >= 0);
+                        test.assertEqual(TreasuryDirectCusip.encode(cusip), TreasuryDirectCusip.getPackedCusip(securityKey));
+                        test.assertEqual(issueEpochDay.intValue(), TreasuryDirectCusip.getIssueEpochDay(securityKey));
+                    });
+                };
+
+                roundTripTest.run("912796CJ6", TreasuryDirectDates.toEpochDay(2014, 2, 11));
+                roundTripTest.run("912796CJ6", -3650);
+                roundTripTest.run("000000000", 0);
+                roundTripTest.run(TreasuryDirectCusip.decode(TreasuryDirectCusip.getMaximumPackedCusip()), TreasuryDirectCusip.epochDayBias - 1);
+
+                runner.test("orders by CUSIP and then by issue date", (Test test) ->
+                {
+                    final long a = TreasuryDirectCusip.getSecurityKey("912796CJ6", TreasuryDirectDates.toEpochDay(2014, 2, 11));
+                    final long b = TreasuryDirectCusip.getSecurityKey("912796CJ6", TreasuryDirectDates.toEpochDay(2014, 2, 12));
+                    final long c = TreasuryDirectCusip.getSecurityKey("912796CK3", TreasuryDirectDates.toEpochDay(2000, 1, 1));
+                    test.assertTrue(a < b);
+                    test.assertTrue(b < c);
+                });
+            });
+        });
+    }
+}
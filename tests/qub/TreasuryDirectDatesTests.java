@@ -0,0 +1,99 @@
+package qub;
+
+public interface TreasuryDirectDatesTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectDates.class, () ->
+        {
+            runner.testGroup("parseEpochDay(String)", () ->
+            {
+                final Action2<String,Integer> parseEpochDayTest = (String text, Integer expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        test.assertEqual(expected, TreasuryDirectDates.parseEpochDay(text));
+                    });
+                };
+
+                parseEpochDayTest.run(null, TreasuryDirectDates.unknownEpochDay);
+                parseEpochDayTest.run("", TreasuryDirectDates.unknownEpochDay);
+                parseEpochDayTest.run("abc", TreasuryDirectDates.unknownEpochDay);
+                parseEpochDayTest.run("2020-9-24", TreasuryDirectDates.unknownEpochDay);
+                parseEpochDayTest.run("2020-13-01", TreasuryDirectDates.unknownEpochDay);
+                parseEpochDayTest.run("2019-02-29", TreasuryDirectDates.unknownEpochDay);
+                parseEpochDayTest.run("2020-09-24X", TreasuryDirectDates.unknownEpochDay);
+                parseEpochDayTest.run("1970-01-01", 0);
+                parseEpochDayTest.run("1969-12-31", -1);
+                parseEpochDayTest.run("2000-03-01", 11017);
+                parseEpochDayTest.run("2020-02-29", 18321);
+                parseEpochDayTest.run("2020-09-24T00:00:00", 18529);
+                parseEpochDayTest.run("2020-09-24T11:30:00Z", 18529);
+            });
+
+            runner.testGroup("isMidnightDate(String)", () ->
+            {
+                final Action2<String,Boolean> isMidnightDateTest = (String text, Boolean expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(text), (Test test) ->
+                    {
+                        test.assertEqual(expected, TreasuryDirectDates.isMidnightDate(text));
+                    });
+                };
+
+                isMidnightDateTest.run(null, false);
+                isMidnightDateTest.run("", false);
+                isMidnightDateTest.run("2020-09-24", true);
+                isMidnightDateTest.run("2020-09-24T00:00:00", true);
+                isMidnightDateTest.run("2020-09-24T00:00:00Z", true);
+                isMidnightDateTest.run("2020-09-24T11:30:00", false);
+                isMidnightDateTest.run("2020-09-24T00:00:00.000", false);
+            });
+
+            runner.testGroup("getYear(int), getMonth(int), and getDayOfMonth(int)", () ->
+            {
+                final Action4<Integer,Integer,Integer,Integer> roundTripTest = (Integer year, Integer month, Integer dayOfMonth, Integer expectedEpochDay) ->
+                {
+                    runner.test("with " + year + "-" + month + "-" + dayOfMonth, (Test test) ->
+                    {
+                        final int epochDay = TreasuryDirectDates.toEpochDay(year, month, dayOfMonth);
+                        test.assertEqual(expectedEpochDay, epochDay);
+                        test.assertEqual(year, TreasuryDirectDates.getYear(epochDay));
+                        test.assertEqual(month, TreasuryDirectDates.getMonth(epochDay));
+                        test.assertEqual(dayOfMonth, TreasuryDirectDates.getDayOfMonth(epochDay));
+                    });
+                };
+
+                roundTripTest.run(1, 1, 1, -719162);
+                roundTripTest.run(1970, 1, 1, 0);
+                roundTripTest.run(1969, 12, 31, -1);
+                roundTripTest.run(1900, 3, 1, -25508);
+                roundTripTest.run(2000, 2, 29, 11016);
+                roundTripTest.run(2020, 12, 31, 18627);
+                roundTripTest.run(2051, 5, 15, 29719);
+            });
+
+            runner.test("getCouponEpochDay(int,int)", (Test test) ->
+            {
+                final int maturityEpochDay = TreasuryDirectDates.toEpochDay(2022, 2, 28);
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2021, 8, 31), TreasuryDirectDates.getCouponEpochDay(maturityEpochDay, 6));
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 2, 29), TreasuryDirectDates.getCouponEpochDay(maturityEpochDay, 24));
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2019, 8, 15), TreasuryDirectDates.getCouponEpochDay(TreasuryDirectDates.toEpochDay(2030, 2, 15), 126));
+            });
+
+            runner.test("toDateTime(int)", (Test test) ->
+            {
+                test.assertEqual(DateTime.create(2014, 2, 11), TreasuryDirectDates.toDateTime(TreasuryDirectDates.toEpochDay(2014, 2, 11)));
+            });
+
+            runner.test("isBetween(int,int,int)", (Test test) ->
+            {
+                test.assertTrue(TreasuryDirectDates.isBetween(10, 10, 20));
+                test.assertTrue(TreasuryDirectDates.isBetween(10, 20, 20));
+                test.assertFalse(TreasuryDirectDates.isBetween(10, 9, 20));
+                test.assertFalse(TreasuryDirectDates.isBetween(10, 21, 20));
+                test.assertFalse(TreasuryDirectDates.isBetween(TreasuryDirectDates.unknownEpochDay, TreasuryDirectDates.unknownEpochDay, 20));
+            });
+        });
+    }
+}
@@ -0,0 +1,125 @@
+package qub;
+
+/**
+ * Compares how many getSecurityAsync() lookups per second a RealTreasuryDirect can complete with
+ * a virtual thread TreasuryDirectExecutor and with a platform thread TreasuryDirectExecutor. The
+ * lookups are real HTTP requests (through a JavaHttpClientTreasuryDirectTransport) to a local
+ * TreasuryDirectGateway whose TreasuryDirect takes a configurable amount of time to respond.
+ * <p>
+ * Arguments: [requestCount] [responseMilliseconds] [concurrency...]
+ */
+public class TreasuryDirectExecutorBenchmark
+{
+    public static void main(String[] args)
+    {
+        final int requestCount = args.length > 0 ? java.lang.Integer.parseInt(args[0]) : 20000;
+        final int responseMilliseconds = args.length > 1 ? java.lang.Integer.parseInt(args[1]) : 50;
+        int[] concurrencies = new int[] { 50, 200, 800 };
+        if (args.length > 2)
+        {
+            concurrencies = new int[args.length - 2];
+            for (int i = 0; i < concurrencies.length; ++i)
+            {
+                concurrencies[i] = java.lang.Integer.parseInt(args[i + 2]);
+            }
+        }
+
+        try (final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(new FakeTreasuryDirect(responseMilliseconds)).start(0).await())
+        {
+            // The gateway only speaks HTTP/1.1, so skip the HTTP/2 upgrade attempt on every
+            // new connection.
+            final JavaHttpClientTreasuryDirectTransport transport = JavaHttpClientTreasuryDirectTransport.create(java.net.http.HttpClient.newBuilder()
+                .version(java.net.http.HttpClient.Version.HTTP_1_1)
+                .build());
+
+            for (final int concurrency : concurrencies)
+            {
+                try (final TreasuryDirectExecutor platform = TreasuryDirectExecutor.createPlatform(concurrency))
+                {
+                    TreasuryDirectExecutorBenchmark.run("platform (" + concurrency + " threads)", transport, gateway.getBaseUrl(), platform, requestCount);
+                }
+                try (final TreasuryDirectExecutor virtual = TreasuryDirectExecutor.createVirtual(concurrency))
+                {
+                    TreasuryDirectExecutorBenchmark.run("virtual (" + concurrency + " permits)", transport, gateway.getBaseUrl(), virtual, requestCount);
+                }
+            }
+        }
+    }
+
+    private static void run(String name, TreasuryDirectTransport transport, String baseUrl, TreasuryDirectExecutor executor, int requestCount)
+    {
+        final RealTreasuryDirect treasuryDirect = RealTreasuryDirect.createWithTransport(transport, baseUrl)
+            .setExecutor(executor);
+        final Date issueDate = TreasuryDirectDates.toDate(TreasuryDirectDates.toEpochDay(2014, 2, 11));
+        final long startNanoseconds = System.nanoTime();
+        final java.util.concurrent.CompletableFuture<?>[] futures = new java.util.concurrent.CompletableFuture<?>[requestCount];
+        for (int i = 0; i < requestCount; ++i)
+        {
+            futures[i] = treasuryDirect.getSecurityAsync("912796CJ6", issueDate);
+        }
+        java.util.concurrent.CompletableFuture.allOf(futures).join();
+        final double seconds = (System.nanoTime() - startNanoseconds) / 1_000_000_000.0;
+        System.out.println(String.format("%-32s %8d requests in %7.3f s = %10.1f requests/s", name, requestCount, seconds, requestCount / seconds));
+    }
+
+    /**
+     * The TreasuryDirect behind the benchmark's gateway. Every security lookup sleeps for the
+     * response time before it answers, which stands in for the latency of treasurydirect.gov.
+     */
+    private static class FakeTreasuryDirect implements TreasuryDirect
+    {
+        private final int responseMilliseconds;
+        private final TreasuryDirectSecurity security;
+
+        FakeTreasuryDirect(int responseMilliseconds)
+        {
+            this.responseMilliseconds = responseMilliseconds;
+
+            final JSONObject json = JSONObject.create();
+            json.setString(TreasuryDirectSecurity.cusipPropertyName, "912796CJ6");
+            json.setString(TreasuryDirectSecurity.issueDatePropertyName, "2014-02-11T00:00:00");
+            this.security = MutableTreasuryDirectSecurity.create(json);
+        }
+
+        @Override
+        public Result<TreasuryDirectSecurity> getSecurity(String cusip, String issueMonth, String issueDayOfMonth, String issueYear)
+        {
+            return Result.create(() ->
+            {
+                try
+                {
+                    java.lang.Thread.sleep(this.responseMilliseconds);
+                }
+                catch (InterruptedException e)
+                {
+                    java.lang.Thread.currentThread().interrupt();
+                }
+                return this.security;
+            });
+        }
+
+        @Override
+        public Result<Iterable<TreasuryDirectSecurity>> getAnnouncedSecurities(GetAnnouncedSecuritiesOptions options)
+        {
+            return Result.success(Iterable.create());
+        }
+
+        @Override
+        public Result<Iterable<TreasuryDirectSecurity>> getAuctionedSecurities(GetAuctionedSecuritiesOptions options)
+        {
+            return Result.success(Iterable.create());
+        }
+
+        @Override
+        public Result<Iterable<TreasuryDirectSecurity>> getSecuritiesByType(TreasuryDirectSecurityType type)
+        {
+            return Result.success(Iterable.create());
+        }
+
+        @Override
+        public Result<Iterable<TreasuryDirectSecurity>> searchSecurities(SearchSecuritiesOptions options)
+        {
+            return Result.success(Iterable.create());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package qub;
+
+public interface TreasuryDirectExecutorTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectExecutor.class, () ->
+        {
+            runner.test("createVirtual(int) with 0", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectExecutor.createVirtual(0),
+                    new PreConditionFailure("maximumConcurrentRequests (0) must be greater than or equal to 1."));
+            });
+
+            runner.test("createPlatform(int) with 0", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectExecutor.createPlatform(0),
+                    new PreConditionFailure("threadCount (0) must be greater than or equal to 1."));
+            });
+
+            runner.test("submit(Function0<Result<T>>) with successful request", (Test test) ->
+            {
+                try (final TreasuryDirectExecutor executor = TreasuryDirectExecutor.createVirtual(2))
+                {
+                    test.assertEqual(5, executor.submit(() -> Result.success(5)).join());
+                }
+            });
+
+            runner.test("submit(Function0<Result<T>>) with failed request", (Test test) ->
+            {
+                try (final TreasuryDirectExecutor executor = TreasuryDirectExecutor.createVirtual(2))
+                {
+                    final java.util.concurrent.CompletableFuture<Integer> future = executor.submit(() -> Result.error(new NotFoundException("blah")));
+                    test.assertThrows(future::join);
+                    test.assertTrue(future.isCompletedExceptionally());
+                }
+            });
+
+            final Action1<Function0<TreasuryDirectExecutor>> concurrencyLimitTest = (Function0<TreasuryDirectExecutor> creator) ->
+            {
+                runner.test("submit(Function0<Result<T>>) respects the concurrency limit", (Test test) ->
+                {
+                    try (final TreasuryDirectExecutor executor = creator.run())
+                    {
+                        final java.util.concurrent.atomic.AtomicInteger active = new java.util.concurrent.atomic.AtomicInteger();
+                        final java.util.concurrent.atomic.AtomicInteger maximumActive = new java.util.concurrent.atomic.AtomicInteger();
+                        final List<java.util.concurrent.CompletableFuture<Integer>> futures = List.create();
+                        for (int i = 0; i < 50; ++i)
+                        {
+                            futures.add(executor.submit(() ->
+                            {
+                                final int nowActive = active.incrementAndGet();
+                                maximumActive.accumulateAndGet(nowActive, java.lang.Math::max);
+                                try
+                                {
+                                    java.lang.Thread.sleep(2);
+                                }
+                                catch (InterruptedException e)
+                                {
+                                    java.lang.Thread.currentThread().interrupt();
+                                }
+                                active.decrementAndGet();
+                                return Result.success(nowActive);
+                            }));
+                        }
+                        for (final java.util.concurrent.CompletableFuture<Integer> future : futures)
+                        {
+                            future.join();
+                        }
+                        test.assertLessThanOrEqualTo(maximumActive.get(), executor.getMaximumConcurrentRequests());
+                        test.assertEqual(0, executor.getActiveRequestCount());
+                    }
+                });
+            };
+
+            runner.testGroup("virtual", () -> concurrencyLimitTest.run(() -> TreasuryDirectExecutor.createVirtual(4)));
+            runner.testGroup("platform", () -> concurrencyLimitTest.run(() -> TreasuryDirectExecutor.createPlatform(4)));
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package qub;
+
+public interface TreasuryDirectGatewayTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectGateway.class, () ->
+        {
+            final String upstreamBaseUrl = "https://treasurydirect.example.com/TA_WS/";
+            final String billsJson = "[{\"cusip\":\"912796CJ6\",\"securityType\":\"Bill\"},{\"cusip\":\"912796CK3\",\"securityType\":\"Bill\"}]";
+            final String securityJson = "{\"cusip\":\"912796CJ6\",\"securityType\":\"Bill\",\"securityTerm\":\"72-Day\"}";
+
+            final Function0<InMemoryTreasuryDirectTransport> createUpstreamTransport = () ->
+            {
+                return InMemoryTreasuryDirectTransport.create()
+                    .setResponse(upstreamBaseUrl + "securities/Bill?format=json", billsJson)
+                    .setResponse(upstreamBaseUrl + "securities/announced?format=json&pagesize=2&type=Bill", billsJson)
+                    .setResponse(upstreamBaseUrl + "securities/912796CJ6/02/11/2014?format=json", securityJson)
+                    .setResponse(upstreamBaseUrl + "securities/912796CJ6/02/12/2014?format=json", "No data");
+            };
+
+            runner.test("create(TreasuryDirect) with null", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectGateway.create(null),
+                    new PreConditionFailure("treasuryDirect cannot be null."));
+            });
+
+            runner.testGroup("getResponseBody(String,String)", () ->
+            {
+                final Action3<String,String,String> getResponseBodyTest = (String path, String query, String expected) ->
+                {
+                    runner.test("with " + Strings.escapeAndQuote(path) + " and " + Strings.escapeAndQuote(query), (Test test) ->
+                    {
+                        final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(RealTreasuryDirect.createWithTransport(createUpstreamTransport.run(), upstreamBaseUrl));
+                        final String responseBody = new String(gateway.getResponseBody(path, query).await(), java.nio.charset.StandardCharsets.UTF_8);
+                        test.assertEqual(TreasuryDirectGatewayTests.normalizeJson(expected), TreasuryDirectGatewayTests.normalizeJson(responseBody));
+                    });
+                };
+
+                getResponseBodyTest.run("/TA_WS/securities/Bill", "format=json", billsJson);
+                getResponseBodyTest.run("/TA_WS/securities/bill", "format=json", billsJson);
+                getResponseBodyTest.run("/TA_WS/securities/%42ill", "format=json", billsJson);
+                getResponseBodyTest.run("/TA_WS/securities/Bill", "format=JSON", billsJson);
+                getResponseBodyTest.run("/TA_WS/securities/announced", "format=json&type=Bill&pagesize=2", billsJson);
+                getResponseBodyTest.run("/TA_WS/securities/912796CJ6/02/11/2014", "format=json", securityJson);
+
+                runner.test("with security that doesn't exist", (Test test) ->
+                {
+                    final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(RealTreasuryDirect.createWithTransport(createUpstreamTransport.run(), upstreamBaseUrl));
+                    test.assertEqual("No data", new String(gateway.getResponseBody("/TA_WS/securities/912796CJ6/02/12/2014", "format=json").await(), java.nio.charset.StandardCharsets.UTF_8));
+                });
+
+                runner.test("with unknown route", (Test test) ->
+                {
+                    final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(RealTreasuryDirect.createWithTransport(createUpstreamTransport.run(), upstreamBaseUrl));
+                    test.assertThrows(() -> gateway.getResponseBody("/TA_WS/securities/Stock", "format=json").await(),
+                        new NotFoundException("No TA_WS route found for path: /TA_WS/securities/Stock."));
+                });
+
+                runner.test("with unsupported format", (Test test) ->
+                {
+                    final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(RealTreasuryDirect.createWithTransport(createUpstreamTransport.run(), upstreamBaseUrl));
+                    test.assertThrows(() -> gateway.getResponseBody("/TA_WS/securities/Bill", "format=xml").await(),
+                        new IllegalArgumentException("Unsupported format: \"xml\"."));
+                });
+
+                runner.test("with invalid reopening", (Test test) ->
+                {
+                    final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(RealTreasuryDirect.createWithTransport(createUpstreamTransport.run(), upstreamBaseUrl));
+                    test.assertThrows(() -> gateway.getResponseBody("/TA_WS/securities/auctioned", "reopening=Maybe").await(),
+                        new IllegalArgumentException("Expected \"Yes\" or \"No\", but found \"Maybe\"."));
+                });
+            });
+
+            runner.test("start(InetSocketAddress) with null", (Test test) ->
+            {
+                final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(RealTreasuryDirect.createWithTransport(createUpstreamTransport.run(), upstreamBaseUrl));
+                test.assertThrows(() -> gateway.start((java.net.InetSocketAddress)null),
+                    new PreConditionFailure("address cannot be null."));
+            });
+
+            runner.test("start(int) listens on the loopback interface", (Test test) ->
+            {
+                try (final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(RealTreasuryDirect.createWithTransport(createUpstreamTransport.run(), upstreamBaseUrl)).start(0).await())
+                {
+                    test.assertTrue(gateway.getAddress().getAddress().isLoopbackAddress());
+                    test.assertEqual("http://" + java.net.InetAddress.getLoopbackAddress().getHostAddress() + ":" + gateway.getPort() + "/TA_WS/", gateway.getBaseUrl());
+                }
+            });
+
+            runner.test("with unsupported format over HTTP", (Test test) ->
+            {
+                try (final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(RealTreasuryDirect.createWithTransport(createUpstreamTransport.run(), upstreamBaseUrl)).start(0).await())
+                {
+                    final URL url = URL.parse(gateway.getBaseUrl() + "securities/Bill?format=xml").await();
+                    test.assertThrows(() -> JavaHttpClientTreasuryDirectTransport.create().get(url).await(),
+                        new java.io.UncheckedIOException(new java.io.IOException("Expected a 2xx status code from " + url + ", but found 400.")));
+                }
+            });
+
+            runner.test("with RealTreasuryDirect client", (Test test) ->
+            {
+                final InMemoryTreasuryDirectTransport upstreamTransport = createUpstreamTransport.run();
+                final CachingTreasuryDirect cachingTreasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(upstreamTransport, upstreamBaseUrl), MemoryTreasuryDirectCache.create(1024 * 1024));
+                try (final TreasuryDirectGateway gateway = TreasuryDirectGateway.create(cachingTreasuryDirect).start(0).await())
+                {
+                    final RealTreasuryDirect client = RealTreasuryDirect.create(HttpClient.create(test.getNetwork()), gateway.getBaseUrl());
+                    for (int i = 0; i < 3; ++i)
+                    {
+                        final Iterable<TreasuryDirectSecurity> securities = client.getSecuritiesByType(TreasuryDirectSecurityType.Bill).await();
+                        test.assertEqual(Iterable.create("912796CJ6", "912796CK3"), securities.map((TreasuryDirectSecurity security) -> security.getCusip().await()));
+                    }
+                    test.assertEqual("72-Day", client.getSecurity("912796CJ6", "02", "11", "2014").await().getSecurityTerm().await());
+                    test.assertThrows(() -> client.getSecurity("912796CJ6", "02", "12", "2014").await(),
+                        new NotFoundException("No TreasuryDirect security found for CUSIP: 912796CJ6, IssueMonth: 02, IssueDayOfMonth: 12, and IssueYear: 2014."));
+
+                    test.assertEqual(5L, gateway.getRequestCount());
+                    test.assertEqual(3, upstreamTransport.getRequestCount());
+                }
+            });
+        });
+    }
+
+    static String normalizeJson(String json)
+    {
+        return json.startsWith("[")
+            ? JSON.parseArray(json).await().toString()
+            : JSON.parseObject(json).await().toString();
+    }
+}
@@ -0,0 +1,76 @@
+package qub;
+
+public interface TreasuryDirectLongIntMapTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectLongIntMap.class, () ->
+        {
+            runner.test("create()", (Test test) ->
+            {
+                final TreasuryDirectLongIntMap map = TreasuryDirectLongIntMap.create();
+                test.assertEqual(0, map.getCount());
+                test.assertFalse(map.containsKey(0));
+                test.assertEqual(-1, map.get(0, -1));
+            });
+
+            runner.test("set(long,int) with emptyKey", (Test test) ->
+            {
+                final TreasuryDirectLongIntMap map = TreasuryDirectLongIntMap.create();
+                test.assertThrows(() -> map.set(TreasuryDirectLongIntMap.emptyKey, 1));
+            });
+
+            runner.test("set(long,int) and get(long,int)", (Test test) ->
+            {
+                final TreasuryDirectLongIntMap map = TreasuryDirectLongIntMap.create()
+                    .set(5, 50)
+                    .set(-7, 70)
+                    .set(5, 55);
+                test.assertEqual(2, map.getCount());
+                test.assertEqual(55, map.get(5, -1));
+                test.assertEqual(70, map.get(-7, -1));
+                test.assertEqual(-1, map.get(6, -1));
+            });
+
+            runner.test("set(long,int) with growth", (Test test) ->
+            {
+                final TreasuryDirectLongIntMap map = TreasuryDirectLongIntMap.create();
+                for (int i = 0; i < 10000; ++i)
+                {
+                    map.set(TreasuryDirectCusip.getSecurityKey(12345L, i), i);
+                }
+                test.assertEqual(10000, map.getCount());
+                for (int i = 0; i < 10000; ++i)
+                {
+                    test.assertEqual(i, map.get(TreasuryDirectCusip.getSecurityKey(12345L, i), -1));
+                }
+            });
+
+            runner.test("remove(long)", (Test test) ->
+            {
+                final TreasuryDirectLongIntMap map = TreasuryDirectLongIntMap.create();
+                for (int i = 0; i < 1000; ++i)
+                {
+                    map.set(i, i);
+                }
+                test.assertFalse(map.remove(1000));
+                for (int i = 0; i < 1000; i += 2)
+                {
+                    test.assertTrue(map.remove(i));
+                }
+                test.assertEqual(500, map.getCount());
+                for (int i = 0; i < 1000; ++i)
+                {
+                    test.assertEqual(i % 2 == 0 ? -1 : i, map.get(i, -1));
+                }
+            });
+
+            runner.test("clear()", (Test test) ->
+            {
+                final TreasuryDirectLongIntMap map = TreasuryDirectLongIntMap.create().set(1, 1).clear();
+                test.assertEqual(0, map.getCount());
+                test.assertFalse(map.containsKey(1));
+            });
+        });
+    }
+}
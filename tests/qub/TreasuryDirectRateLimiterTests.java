@@ -0,0 +1,122 @@
+package qub;
+
+public interface TreasuryDirectRateLimiterTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectRateLimiter.class, () ->
+        {
+            runner.test("create(double,int) with 0 maximumBurst", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectRateLimiter.create(1, 0),
+                    new PreConditionFailure("maximumBurst (0) must be greater than or equal to 1."));
+            });
+
+            runner.test("setClock(java.time.Clock) with null", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectRateLimiter.create(1).setClock(null),
+                    new PreConditionFailure("clock cannot be null."));
+            });
+
+            runner.test("tryAcquire() refills at the permit rate", (Test test) ->
+            {
+                final java.util.concurrent.atomic.AtomicLong milliseconds = new java.util.concurrent.atomic.AtomicLong();
+                final TreasuryDirectRateLimiter rateLimiter = TreasuryDirectRateLimiter.create(2)
+                    .setClock(TreasuryDirectRateLimiterTests.createClock(milliseconds));
+                test.assertTrue(rateLimiter.tryAcquire());
+                test.assertFalse(rateLimiter.tryAcquire());
+
+                milliseconds.set(499);
+                test.assertFalse(rateLimiter.tryAcquire());
+
+                milliseconds.set(500);
+                test.assertTrue(rateLimiter.tryAcquire());
+                test.assertFalse(rateLimiter.tryAcquire());
+            });
+
+            runner.test("tryAcquire() with a burst", (Test test) ->
+            {
+                final java.util.concurrent.atomic.AtomicLong milliseconds = new java.util.concurrent.atomic.AtomicLong();
+                final TreasuryDirectRateLimiter rateLimiter = TreasuryDirectRateLimiter.create(1, 3)
+                    .setClock(TreasuryDirectRateLimiterTests.createClock(milliseconds));
+                test.assertTrue(rateLimiter.tryAcquire());
+                test.assertTrue(rateLimiter.tryAcquire());
+                test.assertTrue(rateLimiter.tryAcquire());
+                test.assertFalse(rateLimiter.tryAcquire());
+
+                // An idle limiter never stores more than its maximum burst.
+                milliseconds.set(60 * 1000);
+                test.assertTrue(rateLimiter.tryAcquire());
+                test.assertTrue(rateLimiter.tryAcquire());
+                test.assertTrue(rateLimiter.tryAcquire());
+                test.assertFalse(rateLimiter.tryAcquire());
+            });
+
+            runner.test("reserve()", (Test test) ->
+            {
+                final java.util.concurrent.atomic.AtomicLong milliseconds = new java.util.concurrent.atomic.AtomicLong();
+                final TreasuryDirectRateLimiter rateLimiter = TreasuryDirectRateLimiter.create(4)
+                    .setClock(TreasuryDirectRateLimiterTests.createClock(milliseconds));
+                test.assertEqual(0L, rateLimiter.reserve());
+                test.assertEqual(250_000_000L, rateLimiter.reserve());
+                test.assertEqual(500_000_000L, rateLimiter.reserve());
+
+                milliseconds.set(500);
+                test.assertEqual(250_000_000L, rateLimiter.reserve());
+                test.assertFalse(rateLimiter.tryAcquire());
+            });
+
+            runner.test("reserve() with a clock that moves backwards", (Test test) ->
+            {
+                final java.util.concurrent.atomic.AtomicLong milliseconds = new java.util.concurrent.atomic.AtomicLong(1000);
+                final TreasuryDirectRateLimiter rateLimiter = TreasuryDirectRateLimiter.create(1)
+                    .setClock(TreasuryDirectRateLimiterTests.createClock(milliseconds));
+                test.assertEqual(0L, rateLimiter.reserve());
+
+                milliseconds.set(0);
+                test.assertEqual(1_000_000_000L, rateLimiter.reserve());
+
+                milliseconds.set(3000);
+                test.assertEqual(0L, rateLimiter.reserve());
+            });
+
+            runner.test("acquire() without waiting", (Test test) ->
+            {
+                final TreasuryDirectRateLimiter rateLimiter = TreasuryDirectRateLimiter.create(1, 2)
+                    .setClock(TreasuryDirectRateLimiterTests.createClock(0));
+                rateLimiter.acquire();
+                rateLimiter.acquire();
+                test.assertFalse(rateLimiter.tryAcquire());
+            });
+        });
+    }
+
+    static java.time.Clock createClock(long milliseconds)
+    {
+        return java.time.Clock.fixed(java.time.Instant.ofEpochMilli(milliseconds), java.time.ZoneOffset.UTC);
+    }
+
+    static java.time.Clock createClock(java.util.concurrent.atomic.AtomicLong milliseconds)
+    {
+        return new java.time.Clock()
+        {
+            @Override
+            public java.time.ZoneId getZone()
+            {
+                return java.time.ZoneOffset.UTC;
+            }
+
+            @Override
+            public java.time.Clock withZone(java.time.ZoneId zone)
+            {
+                return this;
+            }
+
+            @Override
+            public java.time.Instant instant()
+            {
+                return java.time.Instant.ofEpochMilli(milliseconds.get());
+            }
+        };
+    }
+}
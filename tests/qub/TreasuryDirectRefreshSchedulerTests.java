@@ -0,0 +1,134 @@
+package qub;
+
+public interface TreasuryDirectRefreshSchedulerTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectRefreshScheduler.class, () ->
+        {
+            final String baseUrl = "https://treasurydirect.example.com/TA_WS/";
+            final String announcedJson =
+                "[{\"cusip\":\"912797JR9\",\"announcementDate\":\"2024-01-02T00:00:00\",\"auctionDate\":\"2024-01-04T00:00:00\"," +
+                "\"issueDate\":\"2024-01-09T00:00:00\",\"closingTimeCompetitive\":\"11:30 AM\"}]";
+            final String auctionedJson = "[{\"cusip\":\"912797JQ1\",\"auctionDate\":\"2023-12-28T00:00:00\"}]";
+            final long auctionMilliseconds = TreasuryDirectRefreshSchedulerTests.toMilliseconds(2024, 1, 4, 11, 30);
+
+            runner.testGroup(TreasuryDirectCalendarEvent.class, () ->
+            {
+                final Action2<String,Integer> parseMinuteOfDayTest = (String text, Integer expected) ->
+                {
+                    runner.test("parseMinuteOfDay(" + Strings.escapeAndQuote(text) + ")", (Test test) ->
+                    {
+                        test.assertEqual(expected.intValue(), TreasuryDirectCalendarEvent.parseMinuteOfDay(text));
+                    });
+                };
+
+                parseMinuteOfDayTest.run(null, -1);
+                parseMinuteOfDayTest.run("", -1);
+                parseMinuteOfDayTest.run("11:30 AM", 11 * 60 + 30);
+                parseMinuteOfDayTest.run("12:00 PM", 12 * 60);
+                parseMinuteOfDayTest.run("12:15 AM", 15);
+                parseMinuteOfDayTest.run("1:00 PM", 13 * 60);
+                parseMinuteOfDayTest.run("13:00", 13 * 60);
+                parseMinuteOfDayTest.run("13:00 PM", -1);
+                parseMinuteOfDayTest.run("noon", -1);
+
+                runner.test("fromSecurities(Iterable<TreasuryDirectSecurity>)", (Test test) ->
+                {
+                    final List<TreasuryDirectCalendarEvent> events = TreasuryDirectCalendarEvent.fromSecurities(LazyTreasuryDirectSecurity.createArray(announcedJson.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+                    test.assertEqual(3, events.getCount());
+                    test.assertEqual(TreasuryDirectCalendarEvent.Type.Announcement, events.get(0).getType());
+                    test.assertEqual(TreasuryDirectRefreshSchedulerTests.toMilliseconds(2024, 1, 2, 11, 0), events.get(0).getMilliseconds());
+                    test.assertEqual(TreasuryDirectCalendarEvent.Type.Auction, events.get(1).getType());
+                    test.assertEqual(auctionMilliseconds, events.get(1).getMilliseconds());
+                    test.assertEqual("912797JR9", events.get(1).getCusip());
+                    test.assertEqual(TreasuryDirectCalendarEvent.Type.Issue, events.get(2).getType());
+                    test.assertEqual(TreasuryDirectRefreshSchedulerTests.toMilliseconds(2024, 1, 9, 9, 0), events.get(2).getMilliseconds());
+                });
+            });
+
+            runner.test("refresh()", (Test test) ->
+            {
+                final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(baseUrl + "securities/announced?format=json", announcedJson)
+                    .setResponse(baseUrl + "securities/auctioned?format=json", auctionedJson);
+                final MemoryTreasuryDirectCache cache = MemoryTreasuryDirectCache.create(1024 * 1024);
+                final List<Integer> refreshedCounts = List.create();
+                final TreasuryDirectRefreshScheduler scheduler = TreasuryDirectRefreshScheduler.create(RealTreasuryDirect.createWithTransport(transport, baseUrl))
+                    .onRefresh((Iterable<TreasuryDirectSecurity> announced, Iterable<TreasuryDirectSecurity> auctioned) -> refreshedCounts.add(announced.getCount() + auctioned.getCount()))
+                    .onRefreshUpdateCache(cache);
+
+                scheduler.refresh().await();
+                test.assertEqual(Iterable.create(2), refreshedCounts);
+                test.assertEqual(3, scheduler.getEvents().getCount());
+                test.assertEqual(1L, scheduler.getRefreshCount());
+                test.assertEqual(2, transport.getRequestCount());
+
+                final CachingTreasuryDirect cachingTreasuryDirect = CachingTreasuryDirect.create(RealTreasuryDirect.createWithTransport(transport, baseUrl), cache);
+                test.assertEqual("912797JQ1", cachingTreasuryDirect.getAuctionedSecurities().await().first().getCusip().await());
+                test.assertEqual(2, transport.getRequestCount());
+            });
+
+            runner.test("refresh() with failed request", (Test test) ->
+            {
+                final TreasuryDirectRefreshScheduler scheduler = TreasuryDirectRefreshScheduler.create(RealTreasuryDirect.createWithTransport(InMemoryTreasuryDirectTransport.create(), baseUrl));
+                test.assertThrows(() -> scheduler.refresh().await(),
+                    new NotFoundException("No in-memory TreasuryDirect response found for URL: " + baseUrl + "securities/announced?format=json."));
+                test.assertEqual(0L, scheduler.getRefreshCount());
+                test.assertEqual(1L, scheduler.getFailedRefreshCount());
+            });
+
+            runner.testGroup("getNextRefreshMilliseconds()", () ->
+            {
+                final Action2<Long,Long> getNextRefreshMillisecondsTest = (Long nowMilliseconds, Long expected) ->
+                {
+                    runner.test("at " + java.time.Instant.ofEpochMilli(nowMilliseconds), (Test test) ->
+                    {
+                        final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                            .setResponse(baseUrl + "securities/announced?format=json", "[{\"cusip\":\"912797JR9\",\"auctionDate\":\"2024-01-04T00:00:00\",\"closingTimeCompetitive\":\"11:30 AM\"}]")
+                            .setResponse(baseUrl + "securities/auctioned?format=json", "[]");
+                        final TreasuryDirectRefreshScheduler scheduler = TreasuryDirectRefreshScheduler.create(RealTreasuryDirect.createWithTransport(transport, baseUrl))
+                            .setIdlePollIntervalMilliseconds(4 * 60 * 60 * 1000L)
+                            .setActivePollIntervalMilliseconds(60 * 1000L)
+                            .setActiveWindowMilliseconds(5 * 60 * 1000L, 30 * 60 * 1000L)
+                            .setClock(java.time.Clock.fixed(java.time.Instant.ofEpochMilli(nowMilliseconds), java.time.ZoneOffset.UTC));
+                        scheduler.refresh().await();
+
+                        test.assertEqual(expected.longValue(), scheduler.getNextRefreshMilliseconds());
+                    });
+                };
+
+                final long hour = 60 * 60 * 1000L;
+                final long minute = 60 * 1000L;
+                getNextRefreshMillisecondsTest.run(auctionMilliseconds - 24 * hour, auctionMilliseconds - 20 * hour);
+                getNextRefreshMillisecondsTest.run(auctionMilliseconds - hour, auctionMilliseconds - 5 * minute);
+                getNextRefreshMillisecondsTest.run(auctionMilliseconds - 5 * minute, auctionMilliseconds - 4 * minute);
+                getNextRefreshMillisecondsTest.run(auctionMilliseconds + 10 * minute, auctionMilliseconds + 11 * minute);
+                getNextRefreshMillisecondsTest.run(auctionMilliseconds + hour, auctionMilliseconds + 5 * hour);
+            });
+
+            runner.test("start() and close()", (Test test) ->
+            {
+                final InMemoryTreasuryDirectTransport transport = InMemoryTreasuryDirectTransport.create()
+                    .setResponse(baseUrl + "securities/announced?format=json", announcedJson)
+                    .setResponse(baseUrl + "securities/auctioned?format=json", auctionedJson);
+                final java.util.concurrent.CountDownLatch refreshed = new java.util.concurrent.CountDownLatch(1);
+                try (final TreasuryDirectRefreshScheduler scheduler = TreasuryDirectRefreshScheduler.create(RealTreasuryDirect.createWithTransport(transport, baseUrl)))
+                {
+                    scheduler.onRefresh((Iterable<TreasuryDirectSecurity> announced, Iterable<TreasuryDirectSecurity> auctioned) -> refreshed.countDown());
+                    scheduler.start();
+                    test.assertTrue(refreshed.await(10, java.util.concurrent.TimeUnit.SECONDS));
+                }
+                catch (InterruptedException e)
+                {
+                    throw new RuntimeException(e);
+                }
+            });
+        });
+    }
+
+    static long toMilliseconds(int year, int month, int dayOfMonth, int hour, int minute)
+    {
+        return java.time.ZonedDateTime.of(year, month, dayOfMonth, hour, minute, 0, 0, java.time.ZoneId.of("America/New_York")).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,111 @@
+package qub;
+
+public interface TreasuryDirectSecurityAggregatorTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectSecurityAggregator.class, () ->
+        {
+            final Iterable<TreasuryDirectSecurity> securities = Iterable.create(
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "securityTerm", "13-Week", "issueDate", "2020-01-07T00:00:00", "maturityDate", "2020-04-07T00:00:00", "offeringAmount", "42000000000"),
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "securityTerm", "13-Week", "issueDate", "2020-01-14T00:00:00", "maturityDate", "2020-04-14T00:00:00", "offeringAmount", "45000000000"),
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "securityTerm", "13-Week", "issueDate", "2020-02-04T00:00:00", "maturityDate", "2020-05-05T00:00:00", "offeringAmount", "48000000000"),
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "securityTerm", "10-Year", "issueDate", "2020-01-15T00:00:00", "maturityDate", "2030-01-15T00:00:00", "offeringAmount", "24000000000"),
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "securityTerm", "10-Year", "issueDate", "2020-02-18T00:00:00", "maturityDate", "2030-02-15T00:00:00", "offeringAmount", "27000000000"),
+                MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bond", "securityTerm", "30-Year", "issueDate", "2020-02-18T00:00:00", "maturityDate", "2050-02-15T00:00:00"),
+                MutableTreasuryDirectSecurityTests.createSecurity());
+
+            runner.test("create(Iterable<TreasuryDirectSecurity>) with null", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectSecurityAggregator.create((Iterable<TreasuryDirectSecurity>)null),
+                    new PreConditionFailure("securities cannot be null."));
+            });
+
+            runner.test("count(TreasuryDirectSecurityGrouping) by security type", (Test test) ->
+            {
+                final TreasuryDirectSecurityAggregation aggregation = TreasuryDirectSecurityAggregator.create(securities)
+                    .count(TreasuryDirectSecurityGrouping.bySecurityType());
+                test.assertEqual(3, aggregation.getGroupCount());
+                test.assertEqual("Bill", aggregation.getGroupName(0));
+                test.assertEqual(3, aggregation.getCount(0));
+                test.assertEqual("Bond", aggregation.getGroupName(1));
+                test.assertEqual(1, aggregation.getCount(1));
+                test.assertEqual("Note", aggregation.getGroupName(2));
+                test.assertEqual(2, aggregation.getCount(2));
+                test.assertTrue(Double.isNaN(aggregation.getSum(0)));
+                test.assertEqual(-1, aggregation.indexOf("FRN"));
+            });
+
+            runner.test("aggregate(TreasuryDirectSecurityGrouping,double[]) by security term per month", (Test test) ->
+            {
+                final TreasuryDirectSecurityAggregator aggregator = TreasuryDirectSecurityAggregator.create(securities);
+                final TreasuryDirectSecurityAggregation aggregation = aggregator.aggregate(
+                    TreasuryDirectSecurityGrouping.bySecurityTerm().then(TreasuryDirectSecurityGrouping.byIssueMonth()),
+                    aggregator.getColumns().getOfferingAmounts());
+                test.assertEqual(5, aggregation.getGroupCount());
+
+                final int january13Week = aggregation.indexOf("13-Week 2020-01");
+                test.assertEqual(2, aggregation.getCount(january13Week));
+                test.assertEqual(87000000000.0, aggregation.getSum(january13Week));
+                test.assertEqual(42000000000.0, aggregation.getMinimum(january13Week));
+                test.assertEqual(45000000000.0, aggregation.getMaximum(january13Week));
+                test.assertEqual(43500000000.0, aggregation.getMean(january13Week));
+                test.assertEqual(43500000000.0, aggregation.getPercentile(january13Week, 50));
+                test.assertEqual(42000000000.0, aggregation.getPercentile(january13Week, 0));
+                test.assertEqual(45000000000.0, aggregation.getPercentile(january13Week, 100));
+
+                // Securities without a value are counted, but don't have any value statistics.
+                final int february30Year = aggregation.indexOf("30-Year 2020-02");
+                test.assertEqual(1, aggregation.getCount(february30Year));
+                test.assertEqual(0, aggregation.getValueCount(february30Year));
+                test.assertEqual(0.0, aggregation.getSum(february30Year));
+                test.assertTrue(Double.isNaN(aggregation.getMean(february30Year)));
+                test.assertTrue(Double.isNaN(aggregation.getPercentile(february30Year, 50)));
+            });
+
+            runner.test("count(TreasuryDirectSecurityGrouping) by maturity year", (Test test) ->
+            {
+                final TreasuryDirectSecurityAggregation ladder = TreasuryDirectSecurityAggregator.create(securities)
+                    .count(TreasuryDirectSecurityGrouping.byMaturityYear());
+                test.assertEqual(3, ladder.getGroupCount());
+                test.assertEqual(2020L, ladder.getGroup(0));
+                test.assertEqual(3, ladder.getCount(0));
+                test.assertEqual(1, ladder.indexOf(2030L));
+                test.assertEqual(2, ladder.getCount(1));
+                test.assertEqual("2050", ladder.getGroupName(2));
+                test.assertEqual(-1, ladder.indexOf(2040L));
+            });
+
+            runner.test("setParallel(boolean)", (Test test) ->
+            {
+                final java.util.Random random = new java.util.Random(7);
+                final String[] terms = { "13-Week", "26-Week", "52-Week", "2-Year", "10-Year", "30-Year" };
+                final List<TreasuryDirectSecurity> manySecurities = List.create();
+                for (int i = 0; i < 20000; ++i)
+                {
+                    final int issueEpochDay = TreasuryDirectDates.toEpochDay(1990, 1, 1) + random.nextInt(12000);
+                    final String issueDate = String.format("%04d-%02d-%02dT00:00:00", TreasuryDirectDates.getYear(issueEpochDay), TreasuryDirectDates.getMonth(issueEpochDay), TreasuryDirectDates.getDayOfMonth(issueEpochDay));
+                    manySecurities.add(MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "securityTerm", terms[random.nextInt(terms.length)], "issueDate", issueDate, "offeringAmount", Integer.toString((random.nextInt(100) + 1) * 1000000)));
+                }
+                final TreasuryDirectSecurityColumns columns = TreasuryDirectSecurityColumns.create(manySecurities);
+                final TreasuryDirectSecurityGrouping grouping = TreasuryDirectSecurityGrouping.bySecurityTerm().then(TreasuryDirectSecurityGrouping.byIssueYear());
+
+                final TreasuryDirectSecurityAggregation sequential = TreasuryDirectSecurityAggregator.create(columns).setParallel(false).aggregate(grouping, columns.getOfferingAmounts());
+                final TreasuryDirectSecurityAggregation parallel = TreasuryDirectSecurityAggregator.create(columns).setParallel(true).aggregate(grouping, columns.getOfferingAmounts());
+                test.assertEqual(sequential.getGroupCount(), parallel.getGroupCount());
+                int totalCount = 0;
+                for (int i = 0; i < sequential.getGroupCount(); ++i)
+                {
+                    test.assertEqual(sequential.getGroup(i), parallel.getGroup(i));
+                    test.assertEqual(sequential.getCount(i), parallel.getCount(i));
+                    test.assertEqual(sequential.getSum(i), parallel.getSum(i));
+                    test.assertEqual(sequential.getMinimum(i), parallel.getMinimum(i));
+                    test.assertEqual(sequential.getMaximum(i), parallel.getMaximum(i));
+                    test.assertEqual(sequential.getPercentile(i, 90), parallel.getPercentile(i, 90));
+                    totalCount += parallel.getCount(i);
+                }
+                test.assertEqual(manySecurities.getCount(), totalCount);
+            });
+        });
+    }
+}
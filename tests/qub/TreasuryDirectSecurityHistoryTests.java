@@ -0,0 +1,157 @@
+package qub;
+
+public interface TreasuryDirectSecurityHistoryTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectSecurityHistory.class, () ->
+        {
+            final int issueEpochDay = TreasuryDirectDates.toEpochDay(2014, 2, 11);
+
+            runner.test("create(TreasuryDirectStringDictionary) with null", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectSecurityHistory.create(null),
+                    new PreConditionFailure("dictionary cannot be null."));
+            });
+
+            runner.test("create()", (Test test) ->
+            {
+                final TreasuryDirectSecurityHistory history = TreasuryDirectSecurityHistory.create();
+                test.assertEqual(0, history.getSecurityCount());
+                test.assertEqual(0, history.getRevisionCount());
+                test.assertEqual(0, history.getRevisionCount("912796CJ6", issueEpochDay));
+                test.assertThrows(() -> history.getAsOf("912796CJ6", issueEpochDay, 1000).await(),
+                    new NotFoundException("No history found for the TreasuryDirect security with CUSIP 912796CJ6 and issue date 2014-02-11."));
+            });
+
+            runner.test("record(TreasuryDirectSecurity,long,long) with null", (Test test) ->
+            {
+                final TreasuryDirectSecurityHistory history = TreasuryDirectSecurityHistory.create();
+                test.assertThrows(() -> history.record(null, 1000, 1000),
+                    new PreConditionFailure("security cannot be null."));
+            });
+
+            runner.test("record(TreasuryDirectSecurity,long,long) without a CUSIP", (Test test) ->
+            {
+                final TreasuryDirectSecurityHistory history = TreasuryDirectSecurityHistory.create();
+                test.assertFalse(history.record(MutableTreasuryDirectSecurity.create(), 1000, 1000));
+                test.assertEqual(0, history.getSecurityCount());
+            });
+
+            runner.test("record(TreasuryDirectSecurity) with the clock", (Test test) ->
+            {
+                final TreasuryDirectSecurityHistory history = TreasuryDirectSecurityHistory.create()
+                    .setClock(java.time.Clock.fixed(java.time.Instant.ofEpochMilli(5000), java.time.ZoneOffset.UTC));
+                test.assertTrue(history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", "2014-02-06T00:00:00")));
+
+                final TreasuryDirectSecurityRevision revision = history.getAsOf("912796CJ6", issueEpochDay, 5000).await();
+                test.assertEqual(5000L, revision.getValidFromMilliseconds());
+                test.assertEqual(5000L, revision.getRecordedMilliseconds());
+            });
+
+            runner.test("getAsOf(String,int,long) across revisions", (Test test) ->
+            {
+                final TreasuryDirectSecurityHistory history = TreasuryDirectSecurityHistory.create();
+                test.assertTrue(history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", "2014-02-06T00:00:00"), 1000, 1000));
+                test.assertFalse(history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", "2014-02-06T00:00:00"), 1500, 1500));
+                test.assertTrue(history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", "2014-02-06T00:00:00", "highYield", "0.075"), 2000, 2000));
+                test.assertTrue(history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "highYield", "0.075"), 3000, 3000));
+
+                test.assertEqual(1, history.getSecurityCount());
+                test.assertEqual(3, history.getRevisionCount());
+                test.assertEqual(3, history.getRevisionCount("912796CJ6", issueEpochDay));
+
+                test.assertThrows(() -> history.getAsOf("912796CJ6", issueEpochDay, 500).await(),
+                    new NotFoundException("No revision of the TreasuryDirect security with CUSIP 912796CJ6 and issue date 2014-02-11 was valid at 1970-01-01T00:00:00.500Z as known at +292278994-08-17T07:12:55.807Z."));
+
+                final TreasuryDirectSecurityRevision announced = history.getAsOf("912796CJ6", issueEpochDay, 1500).await();
+                test.assertEqual(1000L, announced.getValidFromMilliseconds());
+                test.assertEqual("2014-02-06T00:00:00", announced.getSecurity().getString(TreasuryDirectSecurity.auctionDatePropertyName).await());
+                test.assertThrows(() -> announced.getSecurity().getString(TreasuryDirectSecurity.highYieldPropertyName).await(),
+                    new NotFoundException("Could not find a property named \"highYield\"."));
+
+                final TreasuryDirectSecurityRevision auctioned = history.getAsOf("912796CJ6", issueEpochDay, 2000).await();
+                test.assertEqual(2000L, auctioned.getValidFromMilliseconds());
+                test.assertEqual("0.075", auctioned.getSecurity().getString(TreasuryDirectSecurity.highYieldPropertyName).await());
+
+                final TreasuryDirectSecurityRevision issued = history.getAsOf("912796CJ6", issueEpochDay, Long.MAX_VALUE).await();
+                test.assertEqual(3000L, issued.getValidFromMilliseconds());
+                test.assertEqual("0.075", issued.getSecurity().getString(TreasuryDirectSecurity.highYieldPropertyName).await());
+                test.assertThrows(() -> issued.getSecurity().getString(TreasuryDirectSecurity.auctionDatePropertyName).await(),
+                    new NotFoundException("Could not find a property named \"auctionDate\"."));
+                test.assertEqual("912796CJ6", issued.getSecurity().getCusip().await());
+            });
+
+            runner.test("getAsOf(String,int,long,long) with a backdated correction", (Test test) ->
+            {
+                final TreasuryDirectSecurityHistory history = TreasuryDirectSecurityHistory.create();
+                test.assertTrue(history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", "2014-02-06T00:00:00"), 1000, 1000));
+                test.assertTrue(history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", "2014-02-06T00:00:00", "highYield", "0.075"), 2000, 2000));
+                test.assertTrue(history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", "2014-02-06T00:00:00", "highYield", "0.080"), 2000, 5000));
+
+                test.assertEqual("0.080", history.getAsOf("912796CJ6", issueEpochDay, 2500).await()
+                    .getSecurity().getString(TreasuryDirectSecurity.highYieldPropertyName).await());
+                test.assertEqual("0.075", history.getAsOf("912796CJ6", issueEpochDay, 2500, 4000).await()
+                    .getSecurity().getString(TreasuryDirectSecurity.highYieldPropertyName).await());
+
+                final TreasuryDirectSecurityRevision announced = history.getAsOf("912796CJ6", issueEpochDay, 1500, 1500).await();
+                test.assertEqual(1000L, announced.getRecordedMilliseconds());
+                test.assertThrows(() -> history.getAsOf("912796CJ6", issueEpochDay, 1500, 500).await(),
+                    new NotFoundException("No revision of the TreasuryDirect security with CUSIP 912796CJ6 and issue date 2014-02-11 was valid at 1970-01-01T00:00:01.500Z as known at 1970-01-01T00:00:00.500Z."));
+            });
+
+            runner.test("getRevisions(String,int)", (Test test) ->
+            {
+                final TreasuryDirectSecurityHistory history = TreasuryDirectSecurityHistory.create();
+                test.assertThrows(() -> history.getRevisions("912796CJ6", issueEpochDay).await(),
+                    new NotFoundException("No history found for the TreasuryDirect security with CUSIP 912796CJ6 and issue date 2014-02-11."));
+
+                history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", "2014-02-06T00:00:00"), 1000, 1000);
+                history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", "2014-02-06T00:00:00", "highYield", "0.075"), 2000, 2000);
+                history.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", "2014-02-06T00:00:00", "highYield", "0.080"), 1500, 3000);
+
+                final Iterable<TreasuryDirectSecurityRevision> revisions = history.getRevisions("912796CJ6", issueEpochDay).await();
+                test.assertEqual(Iterable.create(1000L, 2000L, 3000L), revisions.map(TreasuryDirectSecurityRevision::getRecordedMilliseconds));
+                test.assertEqual(Iterable.create(1000L, 2000L, 1500L), revisions.map(TreasuryDirectSecurityRevision::getValidFromMilliseconds));
+                test.assertEqual(Iterable.create(null, "0.075", "0.080"), revisions.map((TreasuryDirectSecurityRevision revision) ->
+                    revision.getSecurity().getString(TreasuryDirectSecurity.highYieldPropertyName).catchError().await()));
+            });
+
+            runner.test("getAsOf(String,int,long) with values that aren't strings", (Test test) ->
+            {
+                final String numberText = "{\"cusip\":\"912796CJ6\",\"issueDate\":\"2014-02-11T00:00:00\",\"reopening\":false,\"competitiveAccepted\":30}";
+                final String stringText = "{\"cusip\":\"912796CJ6\",\"issueDate\":\"2014-02-11T00:00:00\",\"reopening\":false,\"competitiveAccepted\":\"30\"}";
+                final TreasuryDirectSecurityHistory history = TreasuryDirectSecurityHistory.create();
+                test.assertTrue(history.record(MutableTreasuryDirectSecurity.create(JSON.parseObject(numberText).await()), 1000, 1000));
+                test.assertTrue(history.record(MutableTreasuryDirectSecurity.create(JSON.parseObject(stringText).await()), 2000, 2000));
+
+                test.assertEqual(TreasuryDirectGatewayTests.normalizeJson(numberText),
+                    TreasuryDirectGatewayTests.normalizeJson(history.getAsOf("912796CJ6", issueEpochDay, 1500).await().getSecurity().toString()));
+                test.assertEqual(TreasuryDirectGatewayTests.normalizeJson(stringText),
+                    TreasuryDirectGatewayTests.normalizeJson(history.getAsOf("912796CJ6", issueEpochDay, 2500).await().getSecurity().toString()));
+            });
+
+            runner.test("setCheckpointInterval(int)", (Test test) ->
+            {
+                final TreasuryDirectSecurityHistory history = TreasuryDirectSecurityHistory.create();
+                test.assertThrows(() -> history.setCheckpointInterval(0),
+                    new PreConditionFailure("checkpointInterval (0) must be greater than or equal to 1."));
+
+                for (final int checkpointInterval : new int[] { 1, 3, 100 })
+                {
+                    final TreasuryDirectSecurityHistory checkpointedHistory = TreasuryDirectSecurityHistory.create().setCheckpointInterval(checkpointInterval);
+                    for (int i = 0; i < 20; ++i)
+                    {
+                        test.assertTrue(checkpointedHistory.record(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill", "auctionDate", i % 2 == 0 ? "2014-02-06T00:00:00" : null, "highYield", "0." + i), i * 1000, i * 1000));
+                    }
+                    for (int i = 0; i < 20; ++i)
+                    {
+                        final TreasuryDirectSecurity security = checkpointedHistory.getAsOf("912796CJ6", issueEpochDay, i * 1000 + 500).await().getSecurity();
+                        test.assertEqual("0." + i, security.getString(TreasuryDirectSecurity.highYieldPropertyName).await());
+                        test.assertEqual(i % 2 == 0, security.getString(TreasuryDirectSecurity.auctionDatePropertyName).catchError().await() != null);
+                    }
+                }
+            });
+        });
+    }
+}
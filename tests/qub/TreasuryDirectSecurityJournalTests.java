@@ -0,0 +1,255 @@
+package qub;
+
+public interface TreasuryDirectSecurityJournalTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectSecurityJournal.class, () ->
+        {
+            runner.test("open(Path) with null folder", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectSecurityJournal.open(null),
+                    new PreConditionFailure("folder cannot be null."));
+            });
+
+            runner.test("open(Path) with empty folder", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                {
+                    test.assertEqual(0, journal.getCount());
+                    test.assertFalse(journal.getSecurities().await().any());
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("append(TreasuryDirectSecurity) and reopen", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                    {
+                        journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityTerm", "72-Day")).await();
+                        journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912828YK0", "issueDate", "2019-10-15T00:00:00", "securityTerm", "3-Year")).await();
+                        journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityTerm", "73-Day")).await();
+                        test.assertEqual(2, journal.getCount());
+                    }
+
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                    {
+                        test.assertEqual(2, journal.getCount());
+                        test.assertEqual("73-Day", journal.getSecurity("912796CJ6", "2014-02-11T00:00:00").await().getSecurityTerm().await());
+                        test.assertEqual("3-Year", journal.getSecurity("912828YK0", "2019-10-15T00:00:00").await().getSecurityTerm().await());
+                    }
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("getSecurity(String,String) with unknown security", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                {
+                    test.assertThrows(() -> journal.getSecurity("912796CJ6", "2014-02-11T00:00:00").await(),
+                        new NotFoundException("No TreasuryDirect security found in the journal for CUSIP: 912796CJ6 and IssueDate: 2014-02-11T00:00:00."));
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("open(Path) with torn record at the end of the last segment", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                    {
+                        journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityTerm", "72-Day")).await();
+                    }
+
+                    final java.nio.file.Path segment = TreasuryDirectSecurityJournalTests.getFiles(folder, ".segment").first();
+                    final long validLength = TreasuryDirectSecurityJournalTests.getLength(segment);
+                    TreasuryDirectSecurityJournalTests.appendBytes(segment, new byte[] { 0, 0, 0, 9, 0, 0, 1, 0, 1, 2 });
+
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                    {
+                        test.assertEqual(1, journal.getCount());
+                        test.assertEqual(validLength, TreasuryDirectSecurityJournalTests.getLength(segment));
+
+                        journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912828YK0", "issueDate", "2019-10-15T00:00:00", "securityTerm", "3-Year")).await();
+                    }
+
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                    {
+                        test.assertEqual(2, journal.getCount());
+                    }
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("compact()", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                    {
+                        journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityTerm", "72-Day")).await();
+                        journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityTerm", "73-Day")).await();
+                        journal.compact().await();
+                        journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912828YK0", "issueDate", "2019-10-15T00:00:00", "securityTerm", "3-Year")).await();
+                    }
+
+                    test.assertEqual(1, TreasuryDirectSecurityJournalTests.getFiles(folder, ".snapshot").getCount());
+                    test.assertEqual(1, TreasuryDirectSecurityJournalTests.getFiles(folder, ".segment").getCount());
+
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                    {
+                        test.assertEqual(2, journal.getCount());
+                        test.assertEqual("73-Day", journal.getSecurity("912796CJ6", "2014-02-11T00:00:00").await().getSecurityTerm().await());
+                    }
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("getUnpackedKey(String,String)", (Test test) ->
+            {
+                test.assertEqual("C2013NOTE/15720", TreasuryDirectSecurityJournal.getUnpackedKey("c2013Note", "2013-01-15T00:00:00"));
+                test.assertEqual("C2013NOTE/15720", TreasuryDirectSecurityJournal.getUnpackedKey("C2013NOTE", "2013-01-15"));
+                test.assertEqual("C2013NOTE/?January 15", TreasuryDirectSecurityJournal.getUnpackedKey("C2013Note", "January 15"));
+            });
+
+            runner.test("getSecurity(String,String) with a CUSIP that can't be packed", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                    {
+                        journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "C2013Note", "issueDate", "2013-01-15T00:00:00", "securityTerm", "10-Year")).await();
+                        journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "c2013note", "issueDate", "2013-01-15", "securityTerm", "9-Year 11-Month")).await();
+                        test.assertEqual(1, journal.getCount());
+                        test.assertEqual("9-Year 11-Month", journal.getSecurity("C2013NOTE", "2013-01-15T00:00:00").await().getSecurityTerm().await());
+                    }
+
+                    try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                    {
+                        test.assertEqual(1, journal.getCount());
+                        test.assertEqual("9-Year 11-Month", journal.getSecurity("C2013Note", "2013-01-15").await().getSecurityTerm().await());
+                    }
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("setCompactionThreshold(int)", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try (final TreasuryDirectSecurityJournal journal = TreasuryDirectSecurityJournal.open(folder).await())
+                {
+                    journal.setCompactionThreshold(2);
+                    journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityTerm", "72-Day")).await();
+                    test.assertEqual(0, TreasuryDirectSecurityJournalTests.getFiles(folder, ".snapshot").getCount());
+
+                    journal.append(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912828YK0", "issueDate", "2019-10-15T00:00:00", "securityTerm", "3-Year")).await();
+                    test.assertEqual(1, TreasuryDirectSecurityJournalTests.getFiles(folder, ".snapshot").getCount());
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+        });
+    }
+
+    static java.nio.file.Path createTemporaryFolder()
+    {
+        try
+        {
+            return java.nio.file.Files.createTempDirectory("treasurydirect-journal");
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Delete the provided folder and everything in it.
+     */
+    static void deleteFolder(java.nio.file.Path folder)
+    {
+        try (final java.util.stream.Stream<java.nio.file.Path> paths = java.nio.file.Files.walk(folder))
+        {
+            final java.util.List<java.nio.file.Path> deepestFirst = paths
+                .sorted(java.util.Comparator.reverseOrder())
+                .collect(java.util.stream.Collectors.toList());
+            for (final java.nio.file.Path path : deepestFirst)
+            {
+                java.nio.file.Files.deleteIfExists(path);
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    static List<java.nio.file.Path> getFiles(java.nio.file.Path folder, String fileExtension)
+    {
+        final List<java.nio.file.Path> result = List.create();
+        try (final java.nio.file.DirectoryStream<java.nio.file.Path> entries = java.nio.file.Files.newDirectoryStream(folder, "*" + fileExtension))
+        {
+            for (final java.nio.file.Path entry : entries)
+            {
+                result.add(entry);
+            }
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    static long getLength(java.nio.file.Path file)
+    {
+        try
+        {
+            return java.nio.file.Files.size(file);
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    static void appendBytes(java.nio.file.Path file, byte[] bytes)
+    {
+        try
+        {
+            java.nio.file.Files.write(file, bytes, java.nio.file.StandardOpenOption.APPEND);
+        }
+        catch (java.io.IOException e)
+        {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package qub;
+
+public interface TreasuryDirectSecurityMergerTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectSecurityMerger.class, () ->
+        {
+            runner.testGroup("sort(Iterable<TreasuryDirectSecurity>,Comparator<TreasuryDirectSecurity>)", () ->
+            {
+                runner.test("with null securities", (Test test) ->
+                {
+                    test.assertThrows(() -> TreasuryDirectSecurityMerger.sort(null, TreasuryDirectSecurityOrder.byAuctionDate()),
+                        new PreConditionFailure("securities cannot be null."));
+                });
+
+                runner.test("by auction date with a missing auction date", (Test test) ->
+                {
+                    final List<TreasuryDirectSecurity> sorted = TreasuryDirectSecurityMerger.sort(
+                        Iterable.create(
+                            MutableTreasuryDirectSecurityTests.createSecurity("cusip", "C", "auctionDate", "2020-03-01T00:00:00", "issueDate", "2020-03-05T00:00:00"),
+                            MutableTreasuryDirectSecurityTests.createSecurity("cusip", "B", "issueDate", "2020-01-05T00:00:00"),
+                            MutableTreasuryDirectSecurityTests.createSecurity("cusip", "A", "auctionDate", "2020-02-01T00:00:00", "issueDate", "2020-02-05T00:00:00")),
+                        TreasuryDirectSecurityOrder.byAuctionDate());
+                    test.assertEqual(Iterable.create("A", "C", "B"), sorted.map((TreasuryDirectSecurity security) -> security.getCusip().await()));
+                });
+            });
+
+            runner.testGroup("createSorted(Comparator<TreasuryDirectSecurity>,Iterable<Iterable<TreasuryDirectSecurity>>)", () ->
+            {
+                runner.test("with no results", (Test test) ->
+                {
+                    final TreasuryDirectSecurityMerger merger = TreasuryDirectSecurityMerger.createSorted(TreasuryDirectSecurityOrder.byAuctionDate(), Iterable.create());
+                    test.assertNull(merger.next());
+                });
+
+                runner.test("with overlapping results", (Test test) ->
+                {
+                    final TreasuryDirectSecurity announcedB = MutableTreasuryDirectSecurityTests.createSecurity("cusip", "B", "auctionDate", "2020-02-01T00:00:00", "issueDate", "2020-02-05T00:00:00");
+                    final TreasuryDirectSecurity auctionedB = MutableTreasuryDirectSecurityTests.createSecurity("cusip", "B", "auctionDate", "2020-02-01T00:00:00", "issueDate", "2020-02-05T00:00:00");
+                    final Iterable<TreasuryDirectSecurity> announced = Iterable.create(
+                        MutableTreasuryDirectSecurityTests.createSecurity("cusip", "D", "auctionDate", "2020-04-01T00:00:00", "issueDate", "2020-04-05T00:00:00"),
+                        announcedB);
+                    final Iterable<TreasuryDirectSecurity> auctioned = Iterable.create(
+                        auctionedB,
+                        MutableTreasuryDirectSecurityTests.createSecurity("cusip", "A", "auctionDate", "2020-01-01T00:00:00", "issueDate", "2020-01-05T00:00:00"));
+                    final Iterable<TreasuryDirectSecurity> searched = Iterable.create(
+                        MutableTreasuryDirectSecurityTests.createSecurity("cusip", "C", "auctionDate", "2020-02-01T00:00:00", "issueDate", "2020-02-05T00:00:00"),
+                        MutableTreasuryDirectSecurityTests.createSecurity("cusip", "A", "auctionDate", "2020-01-01T00:00:00", "issueDate", "2020-01-05T00:00:00"));
+
+                    final TreasuryDirectSecurityMerger merger = TreasuryDirectSecurityMerger.createSorted(
+                        TreasuryDirectSecurityOrder.byAuctionDate(),
+                        Iterable.create(announced, auctioned, searched));
+                    final List<TreasuryDirectSecurity> merged = merger.toList();
+                    test.assertEqual(Iterable.create("A", "B", "C", "D"), merged.map((TreasuryDirectSecurity security) -> security.getCusip().await()));
+                    test.assertSame(announcedB, merged.get(1));
+                    test.assertEqual(2, merger.getDuplicateCount());
+                });
+
+                runner.test("without deduplication", (Test test) ->
+                {
+                    final Iterable<TreasuryDirectSecurity> first = Iterable.create(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "A", "auctionDate", "2020-01-01T00:00:00", "issueDate", "2020-01-05T00:00:00"));
+                    final Iterable<TreasuryDirectSecurity> second = Iterable.create(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "A", "auctionDate", "2020-01-01T00:00:00", "issueDate", "2020-01-05T00:00:00"));
+                    final TreasuryDirectSecurityMerger merger = TreasuryDirectSecurityMerger.createSorted(TreasuryDirectSecurityOrder.byAuctionDate(), Iterable.create(first, second))
+                        .setDeduplicate(false);
+                    test.assertEqual(2, merger.toList().getCount());
+                    test.assertEqual(0, merger.getDuplicateCount());
+                });
+
+                runner.test("by number with duplicates in different places", (Test test) ->
+                {
+                    final TreasuryDirectSecurity announcedB = MutableTreasuryDirectSecurityTests.createSecurity("cusip", "B", "auctionDate", "2020-02-01T00:00:00", "issueDate", "2020-02-05T00:00:00");
+                    final TreasuryDirectSecurity auctionedB = MutableTreasuryDirectSecurityTests.createSecurity("cusip", "B", "auctionDate", "2020-02-01T00:00:00", "issueDate", "2020-02-05T00:00:00", "highYield", "0.02");
+                    final TreasuryDirectSecurity auctionedA = MutableTreasuryDirectSecurityTests.createSecurity("cusip", "A", "auctionDate", "2020-01-01T00:00:00", "issueDate", "2020-01-05T00:00:00", "highYield", "0.03");
+                    final Iterable<TreasuryDirectSecurity> announced = Iterable.create(
+                        MutableTreasuryDirectSecurityTests.createSecurity("cusip", "A", "auctionDate", "2020-01-01T00:00:00", "issueDate", "2020-01-05T00:00:00"),
+                        announcedB);
+                    final Iterable<TreasuryDirectSecurity> auctioned = Iterable.create(auctionedA, auctionedB);
+
+                    final TreasuryDirectSecurityMerger merger = TreasuryDirectSecurityMerger.createSorted(
+                        TreasuryDirectSecurityOrder.byNumber(TreasuryDirectSecurity.highYieldPropertyName),
+                        Iterable.create(announced, auctioned));
+                    final List<TreasuryDirectSecurity> merged = merger.toList();
+                    test.assertEqual(Iterable.create("B", "A"), merged.map((TreasuryDirectSecurity security) -> security.getCusip().await()));
+                    test.assertSame(auctionedB, merged.get(0));
+                    test.assertSame(auctionedA, merged.get(1));
+                    test.assertEqual(2, merger.getDuplicateCount());
+                });
+
+                runner.test("with securities without a CUSIP", (Test test) ->
+                {
+                    final JSONObject json = JSONObject.create();
+                    json.setString(TreasuryDirectSecurity.auctionDatePropertyName, "2020-01-01T00:00:00");
+                    final Iterable<TreasuryDirectSecurity> first = Iterable.create(MutableTreasuryDirectSecurity.create(json));
+                    final Iterable<TreasuryDirectSecurity> second = Iterable.create(MutableTreasuryDirectSecurity.create(json));
+                    final TreasuryDirectSecurityMerger merger = TreasuryDirectSecurityMerger.createSorted(TreasuryDirectSecurityOrder.byAuctionDate(), Iterable.create(first, second));
+                    test.assertEqual(2, merger.toList().getCount());
+                    test.assertEqual(0, merger.getDuplicateCount());
+                });
+            });
+        });
+    }
+}
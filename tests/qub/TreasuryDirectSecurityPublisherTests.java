@@ -0,0 +1,198 @@
+package qub;
+
+public interface TreasuryDirectSecurityPublisherTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectSecurityPublisher.class, () ->
+        {
+            final String responseBody = "[{\"cusip\":\"912796CJ6\"},{\"cusip\":\"912828YK0\"},{\"cusip\":\"912810SP4\"}]";
+
+            runner.test("fromJSONArray(Function0<InputStream>,boolean) with no requests", (Test test) ->
+            {
+                final RecordingInputStream input = new RecordingInputStream(responseBody);
+                final TreasuryDirectSecurityPublisher publisher = TreasuryDirectSecurityPublisher.fromJSONArray(() -> input, true);
+                final RecordingSubscriber subscriber = new RecordingSubscriber();
+                publisher.subscribe(subscriber);
+
+                test.assertNotNull(subscriber.subscription);
+                test.assertEqual(0, subscriber.securities.getCount());
+                test.assertFalse(input.opened);
+            });
+
+            runner.test("fromJSONArray(Function0<InputStream>,boolean) with partial demand", (Test test) ->
+            {
+                final RecordingInputStream input = new RecordingInputStream(responseBody);
+                final TreasuryDirectSecurityPublisher publisher = TreasuryDirectSecurityPublisher.fromJSONArray(() -> input, true);
+                final RecordingSubscriber subscriber = new RecordingSubscriber();
+                publisher.subscribe(subscriber);
+
+                subscriber.subscription.request(2);
+                test.assertEqual(Iterable.create("912796CJ6", "912828YK0"), subscriber.getCusips());
+                test.assertFalse(subscriber.completed);
+                test.assertFalse(input.closed);
+
+                subscriber.subscription.request(5);
+                test.assertEqual(Iterable.create("912796CJ6", "912828YK0", "912810SP4"), subscriber.getCusips());
+                test.assertTrue(subscriber.completed);
+                test.assertNull(subscriber.error);
+                test.assertTrue(input.closed);
+            });
+
+            runner.test("fromJSONArray(Function0<InputStream>,boolean) with cancel", (Test test) ->
+            {
+                final RecordingInputStream input = new RecordingInputStream(responseBody);
+                final TreasuryDirectSecurityPublisher publisher = TreasuryDirectSecurityPublisher.fromJSONArray(() -> input, false);
+                final RecordingSubscriber subscriber = new RecordingSubscriber();
+                publisher.subscribe(subscriber);
+
+                subscriber.subscription.request(1);
+                subscriber.subscription.cancel();
+                test.assertTrue(input.closed);
+
+                subscriber.subscription.request(1);
+                test.assertEqual(Iterable.create("912796CJ6"), subscriber.getCusips());
+                test.assertFalse(subscriber.completed);
+            });
+
+            runner.test("fromJSONArray(Function0<InputStream>,boolean) with cancel from onNext()", (Test test) ->
+            {
+                final RecordingInputStream input = new RecordingInputStream(responseBody);
+                final TreasuryDirectSecurityPublisher publisher = TreasuryDirectSecurityPublisher.fromJSONArray(() -> input, false);
+                final java.util.concurrent.atomic.AtomicBoolean closedDuringCancel = new java.util.concurrent.atomic.AtomicBoolean(true);
+                final RecordingSubscriber subscriber = new RecordingSubscriber()
+                {
+                    @Override
+                    public void onNext(TreasuryDirectSecurity security)
+                    {
+                        super.onNext(security);
+                        this.subscription.cancel();
+                        closedDuringCancel.set(input.closed);
+                    }
+                };
+                publisher.subscribe(subscriber);
+
+                subscriber.subscription.request(5);
+                test.assertFalse(closedDuringCancel.get());
+                test.assertTrue(input.closed);
+                test.assertEqual(Iterable.create("912796CJ6"), subscriber.getCusips());
+                test.assertFalse(subscriber.completed);
+            });
+
+            runner.test("fromJSONArray(Function0<InputStream>,boolean) with invalid request", (Test test) ->
+            {
+                final RecordingInputStream input = new RecordingInputStream(responseBody);
+                final TreasuryDirectSecurityPublisher publisher = TreasuryDirectSecurityPublisher.fromJSONArray(() -> input, true);
+                final RecordingSubscriber subscriber = new RecordingSubscriber();
+                publisher.subscribe(subscriber);
+
+                subscriber.subscription.request(0);
+                test.assertTrue(subscriber.error instanceof IllegalArgumentException);
+                test.assertEqual(0, subscriber.securities.getCount());
+            });
+
+            runner.test("fromJSONArray(Function0<InputStream>,boolean) with elements that aren't objects", (Test test) ->
+            {
+                final RecordingInputStream input = new RecordingInputStream("[1,{\"cusip\":\"912796CJ6\"},null]");
+                final TreasuryDirectSecurityPublisher publisher = TreasuryDirectSecurityPublisher.fromJSONArray(() -> input, false);
+                final RecordingSubscriber subscriber = new RecordingSubscriber();
+                publisher.subscribe(subscriber);
+
+                subscriber.subscription.request(Long.MAX_VALUE);
+                test.assertEqual(Iterable.create("912796CJ6"), subscriber.getCusips());
+                test.assertTrue(subscriber.completed);
+                test.assertNull(subscriber.error);
+                test.assertTrue(input.closed);
+            });
+
+            runner.test("fromJSONArray(Function0<InputStream>,boolean) with malformed response", (Test test) ->
+            {
+                final RecordingInputStream input = new RecordingInputStream("[{\"cusip\":\"912796CJ6\"}");
+                final TreasuryDirectSecurityPublisher publisher = TreasuryDirectSecurityPublisher.fromJSONArray(() -> input, true);
+                final RecordingSubscriber subscriber = new RecordingSubscriber();
+                publisher.subscribe(subscriber);
+
+                subscriber.subscription.request(Long.MAX_VALUE);
+                test.assertEqual(Iterable.create("912796CJ6"), subscriber.getCusips());
+                test.assertTrue(subscriber.error instanceof ParseException);
+                test.assertTrue(input.closed);
+            });
+
+            runner.test("fromIterable(Function0<Iterable<TreasuryDirectSecurity>>)", (Test test) ->
+            {
+                final TreasuryDirectSecurityPublisher publisher = TreasuryDirectSecurityPublisher.fromIterable(() ->
+                    LazyTreasuryDirectSecurity.createArray(responseBody.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+                final RecordingSubscriber subscriber = new RecordingSubscriber();
+                publisher.subscribe(subscriber);
+
+                subscriber.subscription.request(3);
+                test.assertEqual(3, subscriber.securities.getCount());
+                test.assertFalse(subscriber.completed);
+
+                subscriber.subscription.request(1);
+                test.assertTrue(subscriber.completed);
+            });
+        });
+    }
+
+    class RecordingInputStream extends java.io.ByteArrayInputStream
+    {
+        boolean opened;
+        boolean closed;
+
+        RecordingInputStream(String text)
+        {
+            super(text.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public synchronized int read(byte[] outputBytes, int startIndex, int length)
+        {
+            this.opened = true;
+            return super.read(outputBytes, startIndex, length);
+        }
+
+        @Override
+        public void close()
+        {
+            this.closed = true;
+        }
+    }
+
+    class RecordingSubscriber implements java.util.concurrent.Flow.Subscriber<TreasuryDirectSecurity>
+    {
+        java.util.concurrent.Flow.Subscription subscription;
+        final List<TreasuryDirectSecurity> securities = List.create();
+        boolean completed;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(java.util.concurrent.Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(TreasuryDirectSecurity security)
+        {
+            this.securities.add(security);
+        }
+
+        @Override
+        public void onError(Throwable error)
+        {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete()
+        {
+            this.completed = true;
+        }
+
+        Iterable<String> getCusips()
+        {
+            return this.securities.map((TreasuryDirectSecurity security) -> security.getCusip().await()).toList();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package qub;
+
+public interface TreasuryDirectSecurityRepositoryTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectSecurityRepository.class, () ->
+        {
+            final int issueEpochDay = TreasuryDirectDates.toEpochDay(2014, 2, 11);
+
+            runner.test("create()", (Test test) ->
+            {
+                final TreasuryDirectSecurityRepository repository = TreasuryDirectSecurityRepository.create();
+                final TreasuryDirectSecuritySnapshot snapshot = repository.getSnapshot();
+                test.assertEqual(0L, snapshot.getVersion());
+                test.assertEqual(0, snapshot.getCount());
+                test.assertFalse(snapshot.getSecuritiesByType(TreasuryDirectSecurityType.Bill).any());
+            });
+
+            runner.test("upsert(TreasuryDirectSecurity) with invalid CUSIP", (Test test) ->
+            {
+                test.assertThrows(() -> TreasuryDirectSecurityChangeSet.create().upsert(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ5", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill")));
+            });
+
+            runner.test("apply(TreasuryDirectSecurityChangeSet)", (Test test) ->
+            {
+                final TreasuryDirectSecurityRepository repository = TreasuryDirectSecurityRepository.create();
+                final TreasuryDirectSecuritySnapshot first = repository.apply(TreasuryDirectSecurityChangeSet.create()
+                    .upsert(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill"))
+                    .upsert(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912828YK0", "issueDate", "2019-10-15T00:00:00", "securityType", "Note")));
+                test.assertSame(first, repository.getSnapshot());
+                test.assertEqual(1L, first.getVersion());
+                test.assertEqual(2, first.getCount());
+                test.assertEqual("Bill", first.getSecurity("912796CJ6", issueEpochDay).await().getSecurityType().await());
+                test.assertEqual(1, first.getSecuritiesByType(TreasuryDirectSecurityType.Note).getCount());
+
+                final TreasuryDirectSecuritySnapshot second = repository.apply(TreasuryDirectSecurityChangeSet.create()
+                    .upsert(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "CMB"))
+                    .remove("912828YK0", TreasuryDirectDates.toEpochDay(2019, 10, 15))
+                    .upsert(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CK3", "issueDate", "2014-02-18T00:00:00", "securityType", "Bill")));
+                test.assertSame(second, repository.getSnapshot());
+                test.assertEqual(2L, second.getVersion());
+                test.assertEqual(2, second.getCount());
+                test.assertEqual("CMB", second.getSecurity("912796CJ6", issueEpochDay).await().getSecurityType().await());
+                test.assertFalse(second.containsSecurity("912828YK0", TreasuryDirectDates.toEpochDay(2019, 10, 15)));
+                test.assertTrue(second.containsSecurity("912796CK3", TreasuryDirectDates.toEpochDay(2014, 2, 18)));
+                test.assertEqual(1, second.getSecuritiesByType(TreasuryDirectSecurityType.CMB).getCount());
+                test.assertEqual(1, second.getSecuritiesByType(TreasuryDirectSecurityType.Bill).getCount());
+                test.assertFalse(second.getSecuritiesByType(TreasuryDirectSecurityType.Note).any());
+                test.assertThrows(() -> second.getSecurity("912828YK0", TreasuryDirectDates.toEpochDay(2019, 10, 15)).await(),
+                    new NotFoundException("No TreasuryDirect security found in snapshot version 2 for CUSIP: 912828YK0 and IssueDate: 2019-10-15."));
+
+                // The earlier snapshot is unchanged.
+                test.assertEqual(2, first.getCount());
+                test.assertEqual("Bill", first.getSecurity("912796CJ6", issueEpochDay).await().getSecurityType().await());
+                test.assertTrue(first.containsSecurity("912828YK0", TreasuryDirectDates.toEpochDay(2019, 10, 15)));
+                test.assertEqual(1, first.getSecuritiesByType(TreasuryDirectSecurityType.Note).getCount());
+            });
+
+            runner.test("replaceAll(Iterable<TreasuryDirectSecurity>)", (Test test) ->
+            {
+                final TreasuryDirectSecurityRepository repository = TreasuryDirectSecurityRepository.create();
+                repository.replaceAll(Iterable.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill"),
+                    MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912828YK0", "issueDate", "2019-10-15T00:00:00", "securityType", "Note")));
+
+                final TreasuryDirectSecuritySnapshot snapshot = repository.replaceAll(Iterable.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912828YK0", "issueDate", "2019-10-15T00:00:00", "securityType", "Note"),
+                    MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912810SP4", "issueDate", "2020-02-18T00:00:00", "securityType", "Bond")));
+                test.assertEqual(2L, snapshot.getVersion());
+                test.assertEqual(2, snapshot.getCount());
+                test.assertFalse(snapshot.containsSecurity("912796CJ6", issueEpochDay));
+                test.assertFalse(snapshot.getSecuritiesByType(TreasuryDirectSecurityType.Bill).any());
+                test.assertEqual(1, snapshot.getSecuritiesByType(TreasuryDirectSecurityType.Bond).getCount());
+            });
+
+            runner.test("applyInBackground(TreasuryDirectSecurityChangeSet)", (Test test) ->
+            {
+                final List<Runnable> tasks = List.create();
+                final TreasuryDirectSecurityRepository repository = TreasuryDirectSecurityRepository.create()
+                    .setExecutor(tasks::add);
+                final java.util.concurrent.CompletableFuture<TreasuryDirectSecuritySnapshot> future = repository.applyInBackground(TreasuryDirectSecurityChangeSet.create()
+                    .upsert(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", "2014-02-11T00:00:00", "securityType", "Bill")));
+                test.assertEqual(0L, repository.getSnapshot().getVersion());
+                test.assertFalse(future.isDone());
+
+                tasks.first().run();
+                test.assertEqual(1L, future.join().getVersion());
+                test.assertSame(future.join(), repository.getSnapshot());
+            });
+
+            runner.test("with concurrent readers", (Test test) ->
+            {
+                final TreasuryDirectSecurityRepository repository = TreasuryDirectSecurityRepository.create();
+                final java.util.concurrent.atomic.AtomicBoolean writing = new java.util.concurrent.atomic.AtomicBoolean(true);
+                final java.util.concurrent.atomic.AtomicInteger inconsistentReads = new java.util.concurrent.atomic.AtomicInteger();
+                final java.util.List<java.lang.Thread> readers = new java.util.ArrayList<>();
+                for (int i = 0; i < 4; ++i)
+                {
+                    readers.add(java.lang.Thread.ofPlatform().start(() ->
+                    {
+                        while (writing.get())
+                        {
+                            // Every version holds exactly one Bill per applied change set.
+                            final TreasuryDirectSecuritySnapshot snapshot = repository.getSnapshot();
+                            if (snapshot.getCount() != snapshot.getVersion() ||
+                                snapshot.getSecuritiesByType(TreasuryDirectSecurityType.Bill).getCount() != snapshot.getCount())
+                            {
+                                inconsistentReads.incrementAndGet();
+                            }
+                        }
+                    }));
+                }
+
+                for (int day = 0; day < 500; ++day)
+                {
+                    repository.apply(TreasuryDirectSecurityChangeSet.create()
+                        .upsert(MutableTreasuryDirectSecurityTests.createSecurity("cusip", "912796CJ6", "issueDate", java.time.LocalDate.ofEpochDay(issueEpochDay + day) + "T00:00:00", "securityType", "Bill")));
+                }
+                writing.set(false);
+                for (final java.lang.Thread reader : readers)
+                {
+                    try
+                    {
+                        reader.join();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        throw new RuntimeException(e);
+                    }
+                }
+
+                test.assertEqual(0, inconsistentReads.get());
+                test.assertEqual(500, repository.getSnapshot().getCount());
+            });
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package qub;
+
+public interface TreasuryDirectStringDictionaryTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectStringDictionary.class, () ->
+        {
+            runner.test("create()", (Test test) ->
+            {
+                final TreasuryDirectStringDictionary dictionary = TreasuryDirectStringDictionary.create();
+                test.assertEqual(0, dictionary.getCount());
+                test.assertEqual(TreasuryDirectStringDictionary.noCode, dictionary.getCode("Bill"));
+            });
+
+            runner.test("add(String)", (Test test) ->
+            {
+                final TreasuryDirectStringDictionary dictionary = TreasuryDirectStringDictionary.create();
+                test.assertEqual(0, dictionary.add("Bill"));
+                test.assertEqual(1, dictionary.add("Note"));
+                test.assertEqual(0, dictionary.add(new String("Bill")));
+                test.assertEqual(2, dictionary.getCount());
+                test.assertEqual(1, dictionary.getCode("Note"));
+                test.assertEqual("Note", dictionary.getValue(1));
+            });
+
+            runner.test("intern(String)", (Test test) ->
+            {
+                final TreasuryDirectStringDictionary dictionary = TreasuryDirectStringDictionary.create();
+                final String first = dictionary.intern(new String("Yes"));
+                final String second = dictionary.intern(new String("Yes"));
+                test.assertSame(first, second);
+            });
+
+            runner.testGroup("shouldIntern(String,String)", () ->
+            {
+                final Action3<String,String,Boolean> shouldInternTest = (String propertyName, String value, Boolean expected) ->
+                {
+                    runner.test("with " + English.andList(Iterable.create(propertyName, value).map(Strings::escapeAndQuote)), (Test test) ->
+                    {
+                        test.assertEqual(expected, TreasuryDirectStringDictionary.create().shouldIntern(propertyName, value));
+                    });
+                };
+
+                shouldInternTest.run("securityType", "Bill", true);
+                shouldInternTest.run("securityTerm", "13-Week", true);
+                shouldInternTest.run("cashManagementBillCMB", "Yes", true);
+                shouldInternTest.run("corpusCusip", "", true);
+                shouldInternTest.run("cusip", "912796CJ6", false);
+                shouldInternTest.run("cusip", null, false);
+            });
+        });
+
+        runner.testGroup(DictionaryTreasuryDirectSecurity.class, () ->
+        {
+            runner.test("createArray(byte[],TreasuryDirectStringDictionary)", (Test test) ->
+            {
+                final TreasuryDirectStringDictionary dictionary = TreasuryDirectStringDictionary.create();
+                final byte[] bytes = (
+                    "[{\"cusip\":\"912796CJ6\",\"securityType\":\"Bill\",\"securityTerm\":\"13-Week\",\"tips\":\"No\"}," +
+                    " {\"cusip\":\"912796CK3\",\"securityType\":\"Bill\",\"securityTerm\":\"26-Week\",\"tips\":\"No\",\"note\":null}]")
+                    .getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                final Iterable<TreasuryDirectSecurity> securities = DictionaryTreasuryDirectSecurity.createArray(bytes, dictionary);
+                test.assertEqual(2, securities.getCount());
+
+                final DictionaryTreasuryDirectSecurity first = (DictionaryTreasuryDirectSecurity)securities.first();
+                final DictionaryTreasuryDirectSecurity last = (DictionaryTreasuryDirectSecurity)securities.last();
+                test.assertEqual("912796CJ6", first.getCusip().await());
+                test.assertEqual(TreasuryDirectStringDictionary.noCode, first.getCode(TreasuryDirectSecurity.cusipPropertyName));
+                test.assertEqual(first.getSecurityTypeCode(), last.getSecurityTypeCode());
+                test.assertNotEqual(first.getSecurityTermCode(), last.getSecurityTermCode());
+                test.assertSame(first.getSecurityType().await(), last.getSecurityType().await());
+                test.assertSame(first.getString("tips").await(), last.getString("tips").await());
+                test.assertNull(last.getString("note").await());
+                test.assertEqual("26-Week", last.toJson().getString(TreasuryDirectSecurity.securityTermPropertyName).await());
+                test.assertThrows(() -> first.getString("note").await(),
+                    new NotFoundException("Could not find a property named \"note\"."));
+            });
+
+            runner.test("toString() with values that aren't strings", (Test test) ->
+            {
+                final String text = "{\"cusip\":\"912796CJ6\",\"reopening\":false,\"offeringAmount\":26000000000,\"spread\":-0.5," +
+                    "\"tags\":[\"a\",\"b\"],\"detail\":{\"x\":1},\"note\":null,\"term\":\"13\"}";
+                final byte[] bytes = text.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                final DictionaryTreasuryDirectSecurity security = DictionaryTreasuryDirectSecurity.create(bytes, 0, bytes.length, TreasuryDirectStringDictionary.create());
+                test.assertEqual("26000000000", security.getString("offeringAmount").await());
+                test.assertEqual("false", security.getString("reopening").await());
+                test.assertEqual(text, security.toString());
+                test.assertEqual(TreasuryDirectGatewayTests.normalizeJson(text), security.toJson().toString());
+            });
+        });
+    }
+}
@@ -0,0 +1,162 @@
+package qub;
+
+public interface TreasuryDirectYieldCurveTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TreasuryDirectYieldCurve.class, () ->
+        {
+            final double[] terms = new double[] { 0.25, 0.5, 1, 2, 5, 10, 30 };
+            final double[] yields = new double[] { 0.10, 0.12, 0.13, 0.14, 0.28, 0.68, 1.43 };
+
+            runner.testGroup("create(int,double[],double[],int,TreasuryDirectYieldCurveInterpolation)", () ->
+            {
+                runner.test("with terms out of order", (Test test) ->
+                {
+                    test.assertThrows(() -> TreasuryDirectYieldCurve.create(0, new double[] { 2, 1 }, new double[] { 1, 1 }, 2, TreasuryDirectYieldCurveInterpolation.Linear),
+                        new PreConditionFailure("terms must be in strictly ascending order."));
+                });
+
+                runner.test("with no points", (Test test) ->
+                {
+                    final TreasuryDirectYieldCurve curve = TreasuryDirectYieldCurve.create(0, terms, yields, 0, TreasuryDirectYieldCurveInterpolation.CubicSpline);
+                    test.assertEqual(0, curve.getPointCount());
+                    test.assertTrue(Double.isNaN(curve.getYield(1)));
+                });
+
+                runner.test("with too few points for Nelson-Siegel", (Test test) ->
+                {
+                    final TreasuryDirectYieldCurve curve = TreasuryDirectYieldCurve.create(0, terms, yields, 2, TreasuryDirectYieldCurveInterpolation.NelsonSiegel);
+                    test.assertEqual(TreasuryDirectYieldCurveInterpolation.Linear, curve.getInterpolation());
+                });
+            });
+
+            runner.test("getYield(double) with Linear", (Test test) ->
+            {
+                final TreasuryDirectYieldCurve curve = TreasuryDirectYieldCurve.create(18529, terms, yields, terms.length, TreasuryDirectYieldCurveInterpolation.Linear);
+                test.assertEqual(18529, curve.getEpochDay());
+                test.assertEqual(0.10, curve.getYield(0.1));
+                test.assertEqual(0.13, curve.getYield(1));
+                test.assertEqual(0.135, curve.getYield(1.5), 0.0000001);
+                test.assertEqual(1.43, curve.getYield(40));
+            });
+
+            runner.test("getYield(double) with CubicSpline", (Test test) ->
+            {
+                final TreasuryDirectYieldCurve curve = TreasuryDirectYieldCurve.create(0, terms, yields, terms.length, TreasuryDirectYieldCurveInterpolation.CubicSpline);
+                for (int i = 0; i < terms.length; ++i)
+                {
+                    test.assertEqual(yields[i], curve.getYield(terms[i]), 0.0000001);
+                }
+                final double between = curve.getYield(7);
+                test.assertGreaterThan(between, 0.28);
+                test.assertLessThan(between, 0.68);
+            });
+
+            runner.test("getYield(double) with NelsonSiegel", (Test test) ->
+            {
+                final double[] fittedYields = new double[terms.length];
+                for (int i = 0; i < terms.length; ++i)
+                {
+                    fittedYields[i] = TreasuryDirectYieldCurve.getNelsonSiegelYield(3.0, -2.0, 1.5, 2.0, terms[i]);
+                }
+
+                final TreasuryDirectYieldCurve curve = TreasuryDirectYieldCurve.create(0, terms, fittedYields, terms.length, TreasuryDirectYieldCurveInterpolation.NelsonSiegel);
+                test.assertEqual(TreasuryDirectYieldCurveInterpolation.NelsonSiegel, curve.getInterpolation());
+                for (int i = 0; i < terms.length; ++i)
+                {
+                    test.assertEqual(fittedYields[i], curve.getYield(terms[i]), 0.01);
+                }
+            });
+        });
+
+        runner.testGroup(TreasuryDirectYieldCurveBuilder.class, () ->
+        {
+            runner.test("buildHistory()", (Test test) ->
+            {
+                final Iterable<TreasuryDirectSecurity> securities = Iterable.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "auctionDate", "2020-01-02T00:00:00", "issueDate", "2020-01-07T00:00:00", "maturityDate", "2020-04-07T00:00:00", "highInvestmentRate", "1.500"),
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "auctionDate", "2020-01-02T00:00:00", "issueDate", "2020-01-15T00:00:00", "maturityDate", "2030-01-15T00:00:00", "highYield", "1.800"),
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "TIPS", "auctionDate", "2020-01-03T00:00:00", "issueDate", "2020-01-15T00:00:00", "maturityDate", "2030-01-15T00:00:00", "highYield", "0.100"),
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "auctionDate", "2020-01-09T00:00:00", "issueDate", "2020-01-14T00:00:00", "maturityDate", "2020-04-14T00:00:00", "highInvestmentRate", "1.550"));
+
+                final List<TreasuryDirectYieldCurve> curves = TreasuryDirectYieldCurveBuilder.create(securities).buildHistory();
+                test.assertEqual(2, curves.getCount());
+
+                final TreasuryDirectYieldCurve first = curves.get(0);
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 1, 2), first.getEpochDay());
+                test.assertEqual(2, first.getPointCount());
+                test.assertEqual(0.25, first.getTerm(0));
+                test.assertEqual(1.5, first.getPointYield(0));
+                test.assertEqual(10.0, first.getTerm(1));
+
+                final TreasuryDirectYieldCurve second = curves.get(1);
+                test.assertEqual(TreasuryDirectDates.toEpochDay(2020, 1, 9), second.getEpochDay());
+                test.assertEqual(2, second.getPointCount());
+                test.assertEqual(1.55, second.getPointYield(0));
+                test.assertEqual(1.8, second.getPointYield(1));
+            });
+
+            runner.test("build(int)", (Test test) ->
+            {
+                final Iterable<TreasuryDirectSecurity> securities = Iterable.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "auctionDate", "2020-01-02T00:00:00", "issueDate", "2020-01-07T00:00:00", "maturityDate", "2020-04-07T00:00:00", "highInvestmentRate", "1.500"),
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "auctionDate", "2020-01-09T00:00:00", "issueDate", "2020-01-14T00:00:00", "maturityDate", "2020-04-14T00:00:00", "highInvestmentRate", "1.550"));
+
+                final TreasuryDirectYieldCurveBuilder builder = TreasuryDirectYieldCurveBuilder.create(securities);
+                test.assertEqual(0, builder.build(TreasuryDirectDates.toEpochDay(2020, 1, 1)).getPointCount());
+                test.assertEqual(1.5, builder.build(TreasuryDirectDates.toEpochDay(2020, 1, 8)).getYield(0.25));
+                test.assertEqual(1.55, builder.build(TreasuryDirectDates.toEpochDay(2020, 2, 1)).getYield(0.25));
+            });
+
+            runner.test("buildHistory() with a reopening", (Test test) ->
+            {
+                final Iterable<TreasuryDirectSecurity> securities = Iterable.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "securityTerm", "10-Year", "auctionDate", "2020-01-08T00:00:00", "issueDate", "2020-01-15T00:00:00", "maturityDate", "2030-01-15T00:00:00", "highYield", "1.800"),
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Note", "securityTerm", "9-Year 11-Month", "originalSecurityTerm", "10-Year", "auctionDate", "2020-02-12T00:00:00", "issueDate", "2020-02-18T00:00:00", "maturityDate", "2030-01-15T00:00:00", "highYield", "1.600"));
+
+                final List<TreasuryDirectYieldCurve> curves = TreasuryDirectYieldCurveBuilder.create(securities).buildHistory();
+                test.assertEqual(2, curves.getCount());
+
+                final TreasuryDirectYieldCurve second = curves.get(1);
+                test.assertEqual(1, second.getPointCount());
+                test.assertEqual(10.0, second.getTerm(0));
+                test.assertEqual(1.6, second.getPointYield(0));
+            });
+
+            runner.test("build(int) with a discontinued tenor", (Test test) ->
+            {
+                final Iterable<TreasuryDirectSecurity> securities = Iterable.create(
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bond", "securityTerm", "20-Year", "auctionDate", "2020-01-02T00:00:00", "issueDate", "2020-01-15T00:00:00", "maturityDate", "2040-01-15T00:00:00", "highYield", "2.000"),
+                    MutableTreasuryDirectSecurityTests.createSecurity("securityType", "Bill", "securityTerm", "13-Week", "auctionDate", "2021-02-25T00:00:00", "issueDate", "2021-03-02T00:00:00", "maturityDate", "2021-06-01T00:00:00", "highInvestmentRate", "0.050"));
+
+                final TreasuryDirectYieldCurveBuilder builder = TreasuryDirectYieldCurveBuilder.create(securities);
+                test.assertEqual(366, builder.getMaximumAuctionAgeDays());
+                test.assertEqual(1, builder.build(TreasuryDirectDates.toEpochDay(2021, 1, 1)).getPointCount());
+                test.assertEqual(20.0, builder.build(TreasuryDirectDates.toEpochDay(2021, 1, 1)).getTerm(0));
+
+                final TreasuryDirectYieldCurve curve = builder.build(TreasuryDirectDates.toEpochDay(2021, 3, 1));
+                test.assertEqual(1, curve.getPointCount());
+                test.assertEqual(0.25, curve.getTerm(0));
+
+                test.assertThrows(() -> builder.setMaximumAuctionAgeDays(-1),
+                    new PreConditionFailure("maximumAuctionAgeDays (-1) must be greater than or equal to 0."));
+                test.assertEqual(2, builder.setMaximumAuctionAgeDays(1000).build(TreasuryDirectDates.toEpochDay(2021, 3, 1)).getPointCount());
+            });
+
+            runner.test("parseTermMonths(String)", (Test test) ->
+            {
+                test.assertEqual(0, TreasuryDirectYieldCurveBuilder.parseTermMonths(null));
+                test.assertEqual(0, TreasuryDirectYieldCurveBuilder.parseTermMonths(""));
+                test.assertEqual(0, TreasuryDirectYieldCurveBuilder.parseTermMonths("10 Years"));
+                test.assertEqual(0, TreasuryDirectYieldCurveBuilder.parseTermMonths("10-Decade"));
+                test.assertEqual(120, TreasuryDirectYieldCurveBuilder.parseTermMonths("10-Year"));
+                test.assertEqual(118, TreasuryDirectYieldCurveBuilder.parseTermMonths("9-Year 10-Month"));
+                test.assertEqual(1, TreasuryDirectYieldCurveBuilder.parseTermMonths("4-Week"));
+                test.assertEqual(3, TreasuryDirectYieldCurveBuilder.parseTermMonths("13-Week"));
+                test.assertEqual(12, TreasuryDirectYieldCurveBuilder.parseTermMonths("52-Week"));
+                test.assertEqual(1, TreasuryDirectYieldCurveBuilder.parseTermMonths("6-Day"));
+            });
+        });
+    }
+}
@@ -0,0 +1,203 @@
+package qub;
+
+public interface TwoTierTreasuryDirectCacheTests
+{
+    static void test(TestRunner runner)
+    {
+        runner.testGroup(TwoTierTreasuryDirectCache.class, () ->
+        {
+            runner.testGroup(MemoryTreasuryDirectCache.class, () ->
+            {
+                runner.test("put(String,TreasuryDirectCacheEntry) evicts least recently used", (Test test) ->
+                {
+                    final MemoryTreasuryDirectCache cache = MemoryTreasuryDirectCache.create(20);
+                    cache.put("a", TwoTierTreasuryDirectCacheTests.createEntry("0123456789", 1));
+                    cache.put("b", TwoTierTreasuryDirectCacheTests.createEntry("0123456789", 2));
+                    test.assertEqual(2, cache.getCount());
+                    test.assertEqual(20L, cache.getByteCount());
+
+                    cache.get("a");
+                    cache.get("c");
+                    cache.put("c", TwoTierTreasuryDirectCacheTests.createEntry("0123456789", 3));
+                    test.assertEqual(2, cache.getCount());
+                    test.assertNotNull(cache.get("a"));
+                    test.assertNull(cache.get("b"));
+                    test.assertNotNull(cache.get("c"));
+                });
+
+                runner.test("put(String,TreasuryDirectCacheEntry) rejects infrequent key when full", (Test test) ->
+                {
+                    final MemoryTreasuryDirectCache cache = MemoryTreasuryDirectCache.create(10);
+                    cache.put("hot", TwoTierTreasuryDirectCacheTests.createEntry("0123456789", 1));
+                    for (int i = 0; i < 5; ++i)
+                    {
+                        cache.get("hot");
+                    }
+
+                    cache.put("cold", TwoTierTreasuryDirectCacheTests.createEntry("0123456789", 2));
+                    test.assertNotNull(cache.get("hot"));
+                    test.assertEqual(1L, cache.getMetrics().getRejectedCount());
+                });
+
+                runner.test("put(String,TreasuryDirectCacheEntry) with value larger than the cache", (Test test) ->
+                {
+                    final MemoryTreasuryDirectCache cache = MemoryTreasuryDirectCache.create(5);
+                    cache.put("a", TwoTierTreasuryDirectCacheTests.createEntry("0123456789", 1));
+                    test.assertEqual(0, cache.getCount());
+                    test.assertEqual(1L, cache.getMetrics().getRejectedCount());
+                });
+            });
+
+            runner.testGroup(DiskTreasuryDirectCache.class, () ->
+            {
+                runner.test("put(String,TreasuryDirectCacheEntry) and reopen", (Test test) ->
+                {
+                    final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                    try
+                    {
+                        final java.nio.file.Path file = folder.resolve("cache.log");
+                        try (final DiskTreasuryDirectCache cache = DiskTreasuryDirectCache.open(file).await())
+                        {
+                            cache.put("a", TwoTierTreasuryDirectCacheTests.createEntry("first", 1));
+                            cache.put("b", TwoTierTreasuryDirectCacheTests.createEntry("second", 2));
+                            cache.put("a", TwoTierTreasuryDirectCacheTests.createEntry("third", 3));
+                            cache.remove("b");
+                        }
+
+                        try (final DiskTreasuryDirectCache cache = DiskTreasuryDirectCache.open(file).await())
+                        {
+                            test.assertEqual(1, cache.getCount());
+                            final TreasuryDirectCacheEntry entry = cache.get("a");
+                            test.assertEqual("third", new String(entry.getValue(), java.nio.charset.StandardCharsets.UTF_8));
+                            test.assertEqual(3L, entry.getFetchedMilliseconds());
+                            test.assertNull(cache.get("b"));
+                            test.assertEqual(1L, cache.getMetrics().getHitCount());
+                            test.assertEqual(1L, cache.getMetrics().getMissCount());
+                        }
+                    }
+                    finally
+                    {
+                        TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                    }
+                });
+
+                runner.test("open(Path) with torn record at the end of the file", (Test test) ->
+                {
+                    final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                    try
+                    {
+                        final java.nio.file.Path file = folder.resolve("cache.log");
+                        try (final DiskTreasuryDirectCache cache = DiskTreasuryDirectCache.open(file).await())
+                        {
+                            cache.put("a", TwoTierTreasuryDirectCacheTests.createEntry("first", 1));
+                        }
+                        final long validLength = TreasuryDirectSecurityJournalTests.getLength(file);
+                        TreasuryDirectSecurityJournalTests.appendBytes(file, new byte[] { 0, 0, 0, 1, 0, 0, 0, 9, 1, 2 });
+
+                        try (final DiskTreasuryDirectCache cache = DiskTreasuryDirectCache.open(file).await())
+                        {
+                            test.assertEqual(1, cache.getCount());
+                            test.assertEqual(validLength, cache.getFileLength());
+                            test.assertEqual(validLength, TreasuryDirectSecurityJournalTests.getLength(file));
+                        }
+                    }
+                    finally
+                    {
+                        TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                    }
+                });
+
+                runner.test("compact()", (Test test) ->
+                {
+                    final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                    try
+                    {
+                        final java.nio.file.Path file = folder.resolve("cache.log");
+                        try (final DiskTreasuryDirectCache cache = DiskTreasuryDirectCache.open(file).await())
+                        {
+                            for (int i = 0; i < 10; ++i)
+                            {
+                                cache.put("a", TwoTierTreasuryDirectCacheTests.createEntry("value" + i, i));
+                            }
+                            final long uncompactedLength = cache.getFileLength();
+
+                            cache.compact();
+                            test.assertTrue(cache.getFileLength() < uncompactedLength);
+                            test.assertEqual("value9", new String(cache.get("a").getValue(), java.nio.charset.StandardCharsets.UTF_8));
+                        }
+
+                        try (final DiskTreasuryDirectCache cache = DiskTreasuryDirectCache.open(file).await())
+                        {
+                            test.assertEqual("value9", new String(cache.get("a").getValue(), java.nio.charset.StandardCharsets.UTF_8));
+                        }
+                    }
+                    finally
+                    {
+                        TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                    }
+                });
+            });
+
+            runner.test("get(String) promotes disk hits into memory", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    final java.nio.file.Path file = folder.resolve("cache.log");
+                    try (final TwoTierTreasuryDirectCache cache = TwoTierTreasuryDirectCache.create(MemoryTreasuryDirectCache.create(1024), DiskTreasuryDirectCache.open(file).await()))
+                    {
+                        cache.getDiskTier().put("a", TwoTierTreasuryDirectCacheTests.createEntry("value", 1));
+                        test.assertEqual(0, cache.getMemoryTier().getCount());
+
+                        test.assertNotNull(cache.get("a"));
+                        test.assertEqual(1, cache.getMemoryTier().getCount());
+                        test.assertNotNull(cache.get("a"));
+                        test.assertNull(cache.get("b"));
+
+                        test.assertEqual(2L, cache.getMetrics().getHitCount());
+                        test.assertEqual(1L, cache.getMetrics().getMissCount());
+                        test.assertEqual(1L, cache.getMemoryTier().getMetrics().getHitCount());
+                        test.assertEqual(1L, cache.getDiskTier().getMetrics().getHitCount());
+                    }
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+
+            runner.test("warm(int)", (Test test) ->
+            {
+                final java.nio.file.Path folder = TreasuryDirectSecurityJournalTests.createTemporaryFolder();
+                try
+                {
+                    final java.nio.file.Path file = folder.resolve("cache.log");
+                    try (final DiskTreasuryDirectCache diskTier = DiskTreasuryDirectCache.open(file).await())
+                    {
+                        diskTier.put("old", TwoTierTreasuryDirectCacheTests.createEntry("0123456789", 1));
+                        diskTier.put("new", TwoTierTreasuryDirectCacheTests.createEntry("0123456789", 3));
+                        diskTier.put("middle", TwoTierTreasuryDirectCacheTests.createEntry("0123456789", 2));
+                    }
+
+                    try (final TwoTierTreasuryDirectCache cache = TwoTierTreasuryDirectCache.create(MemoryTreasuryDirectCache.create(20), DiskTreasuryDirectCache.open(file).await()))
+                    {
+                        test.assertEqual(2, cache.warm(10).join());
+                        test.assertNotNull(cache.getMemoryTier().get("new"));
+                        test.assertNotNull(cache.getMemoryTier().get("middle"));
+                        test.assertNull(cache.getMemoryTier().get("old"));
+                        test.assertEqual(0L, cache.getDiskTier().getMetrics().getHitCount());
+                    }
+                }
+                finally
+                {
+                    TreasuryDirectSecurityJournalTests.deleteFolder(folder);
+                }
+            });
+        });
+    }
+
+    static TreasuryDirectCacheEntry createEntry(String value, long fetchedMilliseconds)
+    {
+        return TreasuryDirectCacheEntry.create(value.getBytes(java.nio.charset.StandardCharsets.UTF_8), fetchedMilliseconds);
+    }
+}